@@ -0,0 +1,58 @@
+package com.mindlin.jsast.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Source files that the benchmarks run over. They are loaded from the classpath (shared with the test resources).
+ */
+public enum Corpus {
+	JQUERY("jquery.js"),
+	/**
+	 * Minified math library (dense arithmetic, ternaries & comma expressions)
+	 */
+	MATH("math.min.js"),
+	;
+	
+	private final String resource;
+	private String text;
+	
+	Corpus(String resource) {
+		this.resource = resource;
+	}
+	
+	public String getName() {
+		return this.resource;
+	}
+	
+	public synchronized String getText() {
+		if (this.text == null)
+			this.text = load(this.resource);
+		return this.text;
+	}
+	
+	/**
+	 * Size of the corpus, in bytes (UTF-8)
+	 */
+	public long getSize() {
+		return this.getText().getBytes(StandardCharsets.UTF_8).length;
+	}
+	
+	protected static String load(String name) {
+		try (InputStream is = Corpus.class.getResourceAsStream("/" + name)) {
+			if (is == null)
+				throw new IllegalArgumentException("Missing corpus " + name);
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int len;
+			while ((len = is.read(buffer)) >= 0)
+				baos.write(buffer, 0, len);
+			return new String(baos.toByteArray(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
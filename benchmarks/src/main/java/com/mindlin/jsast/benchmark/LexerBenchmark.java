@@ -0,0 +1,111 @@
+package com.mindlin.jsast.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mindlin.jsast.impl.lexer.CompactTokenList;
+import com.mindlin.jsast.impl.lexer.JSLexer;
+import com.mindlin.jsast.impl.lexer.JSSyntaxKind;
+import com.mindlin.jsast.impl.lexer.Token;
+
+/**
+ * Raw {@link JSLexer#nextToken()} throughput. The token counter reports tokens/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LexerBenchmark {
+	@Param({"JQUERY"})
+	public Corpus corpus;
+	
+	protected String source;
+	
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	@State(Scope.Thread)
+	public static class Counters {
+		public long tokens;
+		public long bytes;
+		
+		@Setup(Level.Iteration)
+		public void clear() {
+			this.tokens = 0;
+			this.bytes = 0;
+		}
+	}
+	
+	@Setup
+	public void setup() {
+		this.source = corpus.getText();
+	}
+	
+	/**
+	 * Whether a slash following a token of the given kind starts a regular expression.
+	 * The parser normally makes this call, so we approximate it here.
+	 */
+	protected static boolean regexAllowedAfter(JSSyntaxKind kind) {
+		if (kind == null)
+			return true;
+		switch (kind) {
+			case IDENTIFIER:
+			case NUMERIC_LITERAL:
+			case STRING_LITERAL:
+			case REGEX_LITERAL:
+			case TEMPLATE_LITERAL:
+			case RIGHT_PARENTHESIS:
+			case RIGHT_BRACKET:
+			case RIGHT_BRACE:
+			case THIS:
+			case SUPER:
+			case TRUE:
+			case FALSE:
+			case NULL:
+				return false;
+			default:
+				return true;
+		}
+	}
+	
+	@Benchmark
+	public int nextToken(Counters counters) {
+		JSLexer lexer = new JSLexer(this.source);
+		JSSyntaxKind previous = null;
+		int count = 0;
+		Token token;
+		while (!(token = lexer.nextToken()).matches(JSSyntaxKind.END_OF_FILE)) {
+			if (token.matchesAny(JSSyntaxKind.DIVISION, JSSyntaxKind.DIVISION_ASSIGNMENT) && regexAllowedAfter(previous))
+				token = lexer.finishRegExpLiteral(token);
+			previous = token.getKind();
+			count++;
+		}
+		counters.tokens += count;
+		counters.bytes += this.source.length();
+		return count;
+	}
+	
+	/**
+	 * Lex into a {@link CompactTokenList}. Slashes are never re-scanned as regular expressions here.
+	 */
+	@Benchmark
+	public CompactTokenList tokenizeCompact(Counters counters) {
+		CompactTokenList result = new JSLexer(this.source).tokenize();
+		counters.tokens += result.size();
+		counters.bytes += this.source.length();
+		return result;
+	}
+}
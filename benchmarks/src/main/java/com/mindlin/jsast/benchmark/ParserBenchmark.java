@@ -0,0 +1,67 @@
+package com.mindlin.jsast.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mindlin.jsast.impl.parser.JSDialect.JSStandardDialect;
+import com.mindlin.jsast.impl.parser.JSParser;
+import com.mindlin.jsast.tree.CompilationUnitTree;
+
+/**
+ * {@link JSParser#apply(String, String)} throughput, per dialect. The byte counter reports bytes/s (divide by 10<sup>6</sup> for MB/s).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+	@Param({"JQUERY", "MATH"})
+	public Corpus corpus;
+	
+	@Param({"ES5", "ES6", "EVERYTHING"})
+	public JSStandardDialect dialect;
+	
+	protected String source;
+	protected long size;
+	protected JSParser parser;
+	
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	@State(Scope.Thread)
+	public static class Counters {
+		public long bytes;
+		
+		@Setup(Level.Iteration)
+		public void clear() {
+			this.bytes = 0;
+		}
+	}
+	
+	@Setup
+	public void setup() {
+		this.source = corpus.getText();
+		this.size = corpus.getSize();
+		this.parser = new JSParser(this.dialect);
+	}
+	
+	@Benchmark
+	public CompilationUnitTree parse(Counters counters) {
+		CompilationUnitTree result = this.parser.apply(corpus.getName(), this.source);
+		counters.bytes += this.size;
+		return result;
+	}
+}
@@ -0,0 +1,66 @@
+package com.mindlin.jsast.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mindlin.jsast.impl.parser.JSParser;
+import com.mindlin.jsast.transform.DeadCodeRemovalTransformation;
+import com.mindlin.jsast.transform.ES6Transpiler;
+import com.mindlin.jsast.transform.ExpressionFixerTf;
+import com.mindlin.jsast.transform.ExpressionFlattenerTransformation;
+import com.mindlin.jsast.transform.TransformerSeries;
+import com.mindlin.jsast.tree.CompilationUnitTree;
+
+/**
+ * Time for {@link TransformerSeries#apply(CompilationUnitTree)} to reach its fixpoint.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformBenchmark {
+	@Param({"JQUERY"})
+	public Corpus corpus;
+	
+	/**
+	 * Which series to run. Mirrors the pipeline in the REPL example.
+	 */
+	@Param({"optimize", "lower"})
+	public String series;
+	
+	protected CompilationUnitTree ast;
+	protected TransformerSeries transformer;
+	
+	@Setup
+	public void setup() {
+		this.ast = new JSParser().apply(corpus.getName(), corpus.getText());
+		switch (this.series) {
+			case "optimize":
+				this.transformer = new TransformerSeries(new ExpressionFlattenerTransformation(), new DeadCodeRemovalTransformation());
+				break;
+			case "lower":
+				this.transformer = new TransformerSeries(new ExpressionFixerTf(), new ES6Transpiler());
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown series " + this.series);
+		}
+	}
+	
+	@Benchmark
+	public CompilationUnitTree apply() {
+		return this.transformer.apply(this.ast);
+	}
+}
@@ -0,0 +1,117 @@
+package com.mindlin.jsast.benchmark;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mindlin.jsast.impl.parser.JSParser;
+import com.mindlin.jsast.impl.writer.JSWriterImpl;
+import com.mindlin.jsast.impl.writer.OutputBuffer;
+import com.mindlin.jsast.tree.CompilationUnitTree;
+import com.mindlin.jsast.writer.JSWriterOptions;
+
+/**
+ * {@link JSWriterImpl} output throughput. The char counter reports emitted chars/s (bytes/s for
+ * {@link #writeChannel(Counters)}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriterBenchmark {
+	@Param({"JQUERY"})
+	public Corpus corpus;
+	
+	@Param({"", "\t"})
+	public String indentStyle;
+	
+	protected CompilationUnitTree ast;
+	protected JSWriterImpl writer;
+	
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	@State(Scope.Thread)
+	public static class Counters {
+		public long chars;
+		
+		@Setup(Level.Iteration)
+		public void clear() {
+			this.chars = 0;
+		}
+	}
+	
+	@State(Scope.Thread)
+	public static class Output {
+		public final CharArrayWriter out = new CharArrayWriter(1 << 20);
+		
+		@Setup(Level.Invocation)
+		public void clear() {
+			this.out.reset();
+		}
+	}
+	
+	@Setup
+	public void setup() {
+		this.ast = new JSParser().apply(corpus.getName(), corpus.getText());
+		JSWriterOptions options = new JSWriterOptions();
+		options.indentStyle = this.indentStyle;
+		this.writer = new JSWriterImpl(options);
+	}
+	
+	@Benchmark
+	public int write(Output output, Counters counters) throws IOException {
+		this.writer.write(this.ast, output.out);
+		int size = output.out.size();
+		counters.chars += size;
+		return size;
+	}
+	
+	/**
+	 * Write straight to a channel, encoding UTF-8 in the output buffer
+	 */
+	@Benchmark
+	public long writeChannel(Counters counters) throws IOException {
+		CountingChannel channel = new CountingChannel();
+		this.writer.write(this.ast, OutputBuffer.of(channel), null);
+		counters.chars += channel.bytes;
+		return channel.bytes;
+	}
+	
+	protected static class CountingChannel implements WritableByteChannel {
+		long bytes = 0;
+		
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+		
+		@Override
+		public void close() {
+		}
+		
+		@Override
+		public int write(ByteBuffer src) {
+			int length = src.remaining();
+			src.position(src.limit());
+			this.bytes += length;
+			return length;
+		}
+	}
+}
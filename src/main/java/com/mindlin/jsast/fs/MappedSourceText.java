@@ -0,0 +1,198 @@
+package com.mindlin.jsast.fs;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import com.mindlin.jsast.impl.tree.LineMap;
+import com.mindlin.jsast.impl.tree.LineMap.CompiledLineMap;
+import com.mindlin.jsast.impl.tree.NewlineScanner;
+import com.mindlin.nautilus.fs.SourceFile;
+
+/**
+ * Text of a source file, read by memory-mapping it.
+ * <p>
+ * The file is decoded straight from the mapped region into a single {@code char[]}, so the only copy of the
+ * source on the heap is the one the lexer reads from. Pure-ASCII files (checked 8 bytes at a time) skip the
+ * charset decoder, and have their line map built from the raw bytes. The mapping is released as soon as the text
+ * is decoded.
+ * </p>
+ */
+public class MappedSourceText {
+	private static final long HIGHS = 0x8080808080808080L;
+	private static final Method INVOKE_CLEANER;
+	private static final Object UNSAFE;
+
+	static {
+		Method invokeCleaner = null;
+		Object unsafe = null;
+		try {
+			// Java 9+
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			unsafe = theUnsafe.get(null);
+			invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			invokeCleaner = null;
+		}
+		INVOKE_CLEANER = invokeCleaner;
+		UNSAFE = unsafe;
+	}
+
+	/**
+	 * Read file
+	 * @param path File to read
+	 * @param charset File encoding
+	 * @param source Source file for line map positions (may be null)
+	 * @return decoded text
+	 * @throws IOException If the file couldn't be read, or isn't valid in {@code charset}
+	 */
+	public static MappedSourceText read(Path path, Charset charset, SourceFile source) throws IOException {
+		MappedByteBuffer mapped;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE)
+				throw new IOException("File too large to map: " + path + " (" + size + " bytes)");
+			mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		}
+		try {
+			return decode(mapped, charset, source);
+		} finally {
+			unmap(mapped);
+		}
+	}
+
+	/**
+	 * Decode a buffer. The buffer's position is not modified.
+	 * @param bytes
+	 * @param charset
+	 * @param source Source file for line map positions (may be null)
+	 * @return decoded text
+	 * @throws CharacterCodingException If {@code bytes} isn't valid in {@code charset}
+	 */
+	public static MappedSourceText decode(ByteBuffer bytes, Charset charset, SourceFile source) throws CharacterCodingException {
+		if (isAsciiCompatible(charset) && isAscii(bytes)) {
+			char[] chars = new char[bytes.remaining()];
+			final int base = bytes.position();
+			for (int i = 0; i < chars.length; i++)
+				chars[i] = (char) bytes.get(base + i);
+			// In ASCII, byte offsets are char offsets
+			return new MappedSourceText(chars, new CompiledLineMap(source, NewlineScanner.scan(bytes)));
+		}
+
+		CharsetDecoder decoder = charset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPORT)
+				.onUnmappableCharacter(CodingErrorAction.REPORT);
+		ByteBuffer in = bytes.duplicate();
+		CharBuffer out = CharBuffer.allocate((int) Math.min(Integer.MAX_VALUE - 8, (long) Math.ceil(in.remaining() * (double) decoder.averageCharsPerByte()) + 16));
+		while (true) {
+			CoderResult result = in.hasRemaining() ? decoder.decode(in, out, true) : CoderResult.UNDERFLOW;
+			if (result.isUnderflow())
+				result = decoder.flush(out);
+			if (result.isUnderflow())
+				break;
+			if (!result.isOverflow())
+				result.throwException();
+			// Our size estimate was too small
+			CharBuffer next = CharBuffer.allocate(out.capacity() + Math.max(out.capacity() >> 1, 16));
+			out.flip();
+			next.put(out);
+			out = next;
+		}
+		char[] chars = out.array();
+		if (out.position() != chars.length)
+			chars = Arrays.copyOf(chars, out.position());
+		return new MappedSourceText(chars, NewlineScanner.compile(source, chars, 0, chars.length));
+	}
+
+	/**
+	 * @param charset
+	 * @return If ASCII text is encoded as-is in {@code charset}
+	 */
+	protected static boolean isAsciiCompatible(Charset charset) {
+		return charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII) || charset.equals(StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * Check if a buffer only contains 7-bit bytes, 8 bytes at a time.
+	 * @param bytes
+	 * @return If all bytes in {@code bytes} are ASCII
+	 */
+	protected static boolean isAscii(ByteBuffer bytes) {
+		ByteBuffer buf = bytes.duplicate().order(ByteOrder.nativeOrder());
+		final int end = buf.limit();
+		int i = buf.position();
+		long acc = 0;
+		for (; i + Long.BYTES <= end; i += Long.BYTES)
+			acc |= buf.getLong(i);
+		for (; i < end; i++)
+			acc |= buf.get(i);
+		return (acc & HIGHS) == 0;
+	}
+
+	/**
+	 * Release a mapping now, instead of whenever the buffer is GC'd. This is best-effort; if the JVM doesn't let us
+	 * do it, we fall back to waiting for the GC.
+	 * <p>
+	 * The buffer must not be used after this is called.
+	 * </p>
+	 * @param buffer
+	 */
+	protected static void unmap(MappedByteBuffer buffer) {
+		try {
+			if (INVOKE_CLEANER != null) {
+				INVOKE_CLEANER.invoke(UNSAFE, buffer);
+			} else {
+				// Java 8
+				Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+				cleanerMethod.setAccessible(true);
+				Object cleaner = cleanerMethod.invoke(buffer);
+				if (cleaner != null)
+					cleaner.getClass().getMethod("clean").invoke(cleaner);
+			}
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// Leave it for the GC
+		}
+	}
+
+	protected final char[] chars;
+	protected final LineMap lines;
+
+	protected MappedSourceText(char[] chars, LineMap lines) {
+		this.chars = chars;
+		this.lines = lines;
+	}
+
+	/**
+	 * @return Decoded text. Don't modify.
+	 */
+	public char[] getChars() {
+		return this.chars;
+	}
+
+	/**
+	 * @return Line map for {@link #getChars()}
+	 */
+	public LineMap getLines() {
+		return this.lines;
+	}
+
+	public int length() {
+		return this.chars.length;
+	}
+}
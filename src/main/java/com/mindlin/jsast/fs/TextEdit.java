@@ -0,0 +1,96 @@
+package com.mindlin.jsast.fs;
+
+import java.util.Objects;
+
+/**
+ * A single edit to some text: replacing a range of characters with new text.
+ */
+public class TextEdit {
+	protected final long offset;
+	protected final long removedLength;
+	protected final String inserted;
+
+	/**
+	 * @param offset Offset of first removed character (in the old text)
+	 * @param removedLength Number of characters removed
+	 * @param inserted Text inserted at {@code offset}
+	 */
+	public TextEdit(long offset, long removedLength, String inserted) {
+		if (offset < 0 || removedLength < 0)
+			throw new IllegalArgumentException("Invalid edit range: " + offset + "+" + removedLength);
+		this.offset = offset;
+		this.removedLength = removedLength;
+		this.inserted = Objects.requireNonNull(inserted);
+	}
+
+	/**
+	 * @return Offset of first changed character
+	 */
+	public long getOffset() {
+		return this.offset;
+	}
+
+	public long getRemovedLength() {
+		return this.removedLength;
+	}
+
+	public String getInserted() {
+		return this.inserted;
+	}
+
+	/**
+	 * @return One past the last removed character, in the old text
+	 */
+	public long getOldEnd() {
+		return this.offset + this.removedLength;
+	}
+
+	/**
+	 * @return One past the last inserted character, in the new text
+	 */
+	public long getNewEnd() {
+		return this.offset + this.inserted.length();
+	}
+
+	/**
+	 * @return Change in text length
+	 */
+	public long getDelta() {
+		return this.inserted.length() - this.removedLength;
+	}
+
+	/**
+	 * Apply this edit
+	 * @param text Old text
+	 * @return New text
+	 */
+	public String apply(CharSequence text) {
+		if (this.getOldEnd() > text.length())
+			throw new IndexOutOfBoundsException("Edit " + this + " is past the end of the text (" + text.length() + ")");
+		return new StringBuilder(text.length() + (int) Math.max(this.getDelta(), 0))
+				.append(text, 0, (int) this.offset)
+				.append(this.inserted)
+				.append(text, (int) this.getOldEnd(), text.length())
+				.toString();
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.offset, this.removedLength, this.inserted);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other)
+			return true;
+		if (!(other instanceof TextEdit))
+			return false;
+		TextEdit o = (TextEdit) other;
+		return this.offset == o.offset && this.removedLength == o.removedLength && this.inserted.equals(o.inserted);
+	}
+
+	@Override
+	public String toString() {
+		return "TextEdit{offset=" + this.offset + ",removed=" + this.removedLength + ",inserted=\"" + this.inserted + "\"}";
+	}
+}
@@ -0,0 +1,187 @@
+package com.mindlin.jsast.fs;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Objects;
+
+import com.mindlin.jsast.impl.binary.BinaryTreeFormat;
+import com.mindlin.jsast.impl.binary.BinaryTreeReader;
+import com.mindlin.jsast.impl.binary.BinaryTreeWriter;
+import com.mindlin.jsast.impl.parser.JSDialect;
+import com.mindlin.jsast.tree.CompilationUnitTree;
+import com.mindlin.nautilus.fs.SourceFile;
+
+/**
+ * On-disk cache of parsed {@link CompilationUnitTree CompilationUnitTrees}, so unchanged files don't have to be
+ * lexed or parsed again.
+ * <p>
+ * Entries are keyed by a SHA-256 hash of the source text, the features it was parsed with, and the
+ * {@link BinaryTreeFormat#VERSION format version}, so there's nothing to invalidate: a changed file (or a changed
+ * dialect) just has a different key. Entries are stored in the {@link BinaryTreeFormat binary tree format}, along
+ * with their line map.
+ * </p>
+ * <p>
+ * Writes are atomic (written to a temporary file, then moved into place), so concurrent compilers can share a
+ * cache directory. Unreadable or corrupt entries are treated as misses.
+ * </p>
+ */
+public class TreeCache {
+	protected static final String EXTENSION = ".jsast";
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	protected final Path directory;
+	protected final String variant;
+
+	/**
+	 * @param directory Cache directory. Created when the first entry is stored.
+	 * @param dialect Dialect that trees are parsed with. Only its features are part of the key, so dialects that
+	 *            support the same features share entries.
+	 */
+	public TreeCache(Path directory, JSDialect dialect) {
+		this(directory, dialect.getFeatures().toString());
+	}
+
+	/**
+	 * @param directory Cache directory. Created when the first entry is stored.
+	 * @param variant Identifies how trees were produced (e.g., the dialect). Trees for the same text with
+	 *            different variants are stored separately.
+	 */
+	public TreeCache(Path directory, String variant) {
+		this.directory = Objects.requireNonNull(directory);
+		this.variant = Objects.requireNonNull(variant);
+	}
+
+	public Path getDirectory() {
+		return this.directory;
+	}
+
+	protected MessageDigest newDigest() {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(this.variant.getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+			digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(0, BinaryTreeFormat.VERSION));
+			return digest;
+		} catch (NoSuchAlgorithmException e) {
+			// Every JVM is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Compute cache key for some source text
+	 * @param text
+	 * @return key
+	 */
+	public String key(CharSequence text) {
+		return this.key(CharBuffer.wrap(text));
+	}
+
+	/**
+	 * Compute cache key for some source text
+	 * @param text
+	 * @param offset
+	 * @param length
+	 * @return key
+	 */
+	public String key(char[] text, int offset, int length) {
+		return this.key(CharBuffer.wrap(text, offset, length));
+	}
+
+	protected String key(CharBuffer text) {
+		MessageDigest digest = this.newDigest();
+		// Hash UTF-16 code units directly, so we don't have to encode the whole text
+		ByteBuffer chunk = ByteBuffer.allocate(8192).order(ByteOrder.LITTLE_ENDIAN);
+		CharBuffer chars = chunk.asCharBuffer();
+		while (text.hasRemaining()) {
+			int count = Math.min(text.remaining(), chars.capacity());
+			CharBuffer slice = text.duplicate();
+			slice.limit(slice.position() + count);
+			chars.clear();
+			chars.put(slice);
+			text.position(text.position() + count);
+			chunk.clear().limit(count * Character.BYTES);
+			digest.update(chunk);
+		}
+
+		byte[] hash = digest.digest();
+		char[] hex = new char[hash.length * 2];
+		for (int i = 0; i < hash.length; i++) {
+			hex[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+			hex[i * 2 + 1] = HEX[hash[i] & 0xF];
+		}
+		return new String(hex);
+	}
+
+	protected Path pathFor(String key) {
+		return this.directory.resolve(key + EXTENSION);
+	}
+
+	/**
+	 * Load a cached tree
+	 * @param key Key, from {@link #key(CharSequence)}
+	 * @param source Source file for the tree's positions (may be null)
+	 * @return Cached tree, or null if not cached
+	 */
+	public CompilationUnitTree load(String key, SourceFile source) {
+		byte[] data;
+		try {
+			data = Files.readAllBytes(this.pathFor(key));
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			//TODO: log?
+			return null;
+		}
+		try {
+			return BinaryTreeReader.decode(data, source);
+		} catch (RuntimeException e) {
+			// Corrupt entry; it'll be overwritten next time the file is parsed
+			return null;
+		}
+	}
+
+	/**
+	 * Store a tree
+	 * @param key Key, from {@link #key(CharSequence)}
+	 * @param tree Tree to store
+	 * @return If the tree was stored. Trees that can't be encoded aren't stored.
+	 * @throws IOException If the entry couldn't be written
+	 */
+	public boolean store(String key, CompilationUnitTree tree) throws IOException {
+		byte[] data;
+		try {
+			data = BinaryTreeWriter.encode(tree);
+		} catch (UnsupportedOperationException e) {
+			return false;
+		}
+
+		Files.createDirectories(this.directory);
+		Path target = this.pathFor(key);
+		Path temp = Files.createTempFile(this.directory, key, ".tmp");
+		try {
+			try (OutputStream out = Files.newOutputStream(temp)) {
+				out.write(data);
+			}
+			try {
+				Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+		return true;
+	}
+}
@@ -0,0 +1,99 @@
+package com.mindlin.jsast.fs.sourcemap;
+
+import java.io.IOException;
+
+/**
+ * Base64 VLQ encoding, as used for the {@code mappings} field of a source map (v3).
+ * <p>
+ * Each digit holds 5 bits of value & a continuation bit. The sign is stored in the lowest bit of the first digit.
+ * </p>
+ * @author mailmindlin
+ */
+public final class Base64VLQ {
+	protected static final char[] DIGITS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+	protected static final byte[] VALUES = new byte[128];
+	static {
+		for (int i = 0; i < VALUES.length; i++)
+			VALUES[i] = -1;
+		for (int i = 0; i < DIGITS.length; i++)
+			VALUES[DIGITS[i]] = (byte) i;
+	}
+
+	protected static final int SHIFT = 5;
+	protected static final int MASK = (1 << SHIFT) - 1;
+	protected static final int CONTINUATION = 1 << SHIFT;
+
+	/**
+	 * Maximum number of digits that an int can be encoded to
+	 */
+	public static final int MAX_DIGITS = 7;
+
+	private Base64VLQ() {
+	}
+
+	/**
+	 * Encode a value into a buffer
+	 *
+	 * @param value
+	 *            Value to encode
+	 * @param buf
+	 *            Buffer (must have at least {@link #MAX_DIGITS} chars left)
+	 * @param pos
+	 *            Offset in buffer to write at
+	 * @return Offset in buffer after the written digits
+	 */
+	public static int encode(int value, char[] buf, int pos) {
+		// Sign goes in bit 0; use longs so that Integer.MIN_VALUE doesn't overflow
+		long vlq = value < 0 ? ((-(long) value) << 1) | 1 : ((long) value) << 1;
+		do {
+			int digit = (int) (vlq & MASK);
+			vlq >>>= SHIFT;
+			if (vlq != 0)
+				digit |= CONTINUATION;
+			buf[pos++] = DIGITS[digit];
+		} while (vlq != 0);
+		return pos;
+	}
+
+	public static void encode(int value, Appendable out) throws IOException {
+		char[] buf = new char[MAX_DIGITS];
+		out.append(new String(buf, 0, encode(value, buf, 0)));
+	}
+
+	public static String encode(int value) {
+		char[] buf = new char[MAX_DIGITS];
+		return new String(buf, 0, encode(value, buf, 0));
+	}
+
+	/**
+	 * Decode a value from a string
+	 *
+	 * @param src
+	 *            Text to read from
+	 * @param pos
+	 *            Position to read at. The position after the value is stored into {@code pos[0]}.
+	 * @return Decoded value
+	 * @throws IllegalArgumentException
+	 *             If the text at the position is not a valid VLQ
+	 */
+	public static int decode(CharSequence src, int[] pos) {
+		int i = pos[0];
+		long result = 0;
+		int shift = 0;
+		int digit;
+		do {
+			if (i >= src.length())
+				throw new IllegalArgumentException("Unexpected end of VLQ at " + i);
+			char c = src.charAt(i++);
+			if (c >= VALUES.length || (digit = VALUES[c]) < 0)
+				throw new IllegalArgumentException("Illegal base64 digit '" + c + "' at " + (i - 1));
+			if (shift > 32)
+				throw new IllegalArgumentException("VLQ too long at " + pos[0]);
+			result |= ((long) (digit & MASK)) << shift;
+			shift += SHIFT;
+		} while ((digit & CONTINUATION) != 0);
+		pos[0] = i;
+		long value = result >>> 1;
+		return (int) ((result & 1) != 0 ? -value : value);
+	}
+}
@@ -86,7 +86,8 @@ public abstract class AbstractCompilerOption<T> implements CompilerOption<T> {
 
 	@Override
 	public T read(DiagnosticConsumer errorHandler, String key, JSONInput valueReader) {
-		// TODO Auto-generated method stub
+		//TODO: emit diagnostic
+		valueReader.skip();
 		return null;
 	}
 	
@@ -144,6 +145,13 @@ public abstract class AbstractCompilerOption<T> implements CompilerOption<T> {
 		public Boolean parse(DiagnosticConsumer errorHandler, String command, Iterator<? extends String> values) {
 			return true;
 		}
+		
+		@Override
+		public Boolean read(DiagnosticConsumer errorHandler, String key, JSONInput valueReader) {
+			if (!valueReader.isNextBoolean())
+				return super.read(errorHandler, key, valueReader);
+			return valueReader.readBoolean();
+		}
 	}
 	
 	public static class Flags extends AbstractCompilerOption<Collection<String>> {
@@ -203,6 +211,18 @@ public abstract class AbstractCompilerOption<T> implements CompilerOption<T> {
 			return this.parse(errorHandler, command, value);
 		}
 		
+		@Override
+		public T read(DiagnosticConsumer errorHandler, String key, JSONInput valueReader) {
+			String value;
+			if (valueReader.isNextString())
+				value = valueReader.readString();
+			else if (valueReader.isNextNumber() || valueReader.isNextBoolean())
+				value = String.valueOf(valueReader.readValue());
+			else
+				return super.read(errorHandler, key, valueReader);
+			return this.parse(errorHandler, key, value);
+		}
+		
 		@Override
 		public T reduce(DiagnosticConsumer errorHandler, T prev, T current) {
 			if (prev != null) {
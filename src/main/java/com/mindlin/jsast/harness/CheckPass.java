@@ -2,10 +2,12 @@ package com.mindlin.jsast.harness;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Stream;
 
 import com.mindlin.jsast.fs.SourceRange;
+import com.mindlin.jsast.harness.PassExecutor.Outcome;
 import com.mindlin.jsast.impl.parser.JSDialect;
 import com.mindlin.jsast.impl.validator.ErrorReporter;
 import com.mindlin.jsast.impl.validator.ParameterDeclarationValidator;
@@ -46,9 +48,15 @@ import com.mindlin.jsast.tree.util.TreePath;
 public class CheckPass implements CompilerPass<CompilationUnitTree, CompilationUnitTree> {
 	JSDialect dialect;
 	List<StatelessValidator<?>> cfVals;
+	protected final int threads;
+	/**
+	 * Units that couldn't be checked
+	 */
+	protected final List<Outcome<CompilationUnitTree, CompilationUnitTree>> failures = new ArrayList<>();
 	
 	public CheckPass(CompilerOptions options) {
 		dialect = options.get(CompilerOptions.SOURCE_LANGUAGE).get();
+		this.threads = PassExecutor.getParallelism(options);
 		
 		this.cfVals = new ArrayList<>();
 		this.cfVals.add(new ParameterDeclarationValidator(dialect));
@@ -59,6 +67,14 @@ public class CheckPass implements CompilerPass<CompilationUnitTree, CompilationU
 		return "check";
 	}
 	
+	/**
+	 * @return Units that failed in previous calls to {@link #process(Stream)}, with what they failed with
+	 */
+	public List<Outcome<CompilationUnitTree, CompilationUnitTree>> getFailures() {
+		return Collections.unmodifiableList(this.failures);
+	}
+	
+	@Override
 	public CompilationUnitTree processOne(CompilationUnitTree source) {
 		ErrorReporter reporter = new ErrorReporterImpl();
 		for (StatelessValidator<?> val : this.cfVals) {
@@ -69,9 +85,12 @@ public class CheckPass implements CompilerPass<CompilationUnitTree, CompilationU
 		return source;
 	}
 
+	/**
+	 * Check units. Units that fail are skipped, and recorded in {@link #getFailures()}.
+	 */
 	@Override
-	public Stream<CompilationUnitTree> process(Stream<CompilationUnitTree> sources) throws Exception {
-		return sources.map(this::processOne);
+	public Stream<CompilationUnitTree> process(Stream<CompilationUnitTree> sources) {
+		return PassExecutor.process(sources, this, this.threads, this.failures::add);
 	}
 	
 	public static class ErrorReporterImpl implements ErrorReporter {
@@ -5,5 +5,15 @@ import java.util.stream.Stream;
 public interface CompilerPass<S, R> {
 	String getName();
 	
+	/**
+	 * Process a single file. Implementations should be safe to call from multiple threads at once.
+	 * 
+	 * @param source
+	 * @return result
+	 * @throws Exception
+	 * @see PassExecutor
+	 */
+	R processOne(S source) throws Exception;
+	
 	public abstract Stream<R> process(Stream<S> sources) throws Exception;
 }
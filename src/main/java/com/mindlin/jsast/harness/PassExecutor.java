@@ -0,0 +1,253 @@
+package com.mindlin.jsast.harness;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs {@link CompilerPass compiler passes} over many files concurrently, on a {@link ForkJoinPool}.
+ * <p>
+ * Each file is processed as its own task, so idle workers steal files from busy ones. A failure while processing
+ * one file is captured in its {@link Outcome}, and doesn't affect any other file. Results are always returned in
+ * the same order as their inputs, regardless of which finished first.
+ * </p>
+ *
+ * @see StandardCompilerOptions#THREADS
+ */
+public class PassExecutor implements AutoCloseable {
+	/**
+	 * Work to do for a single file
+	 *
+	 * @param <S> Input type
+	 * @param <R> Result type
+	 */
+	@FunctionalInterface
+	public static interface FileTask<S, R> {
+		R apply(S source) throws Exception;
+
+		default <V> FileTask<S, V> andThen(FileTask<? super R, ? extends V> next) {
+			Objects.requireNonNull(next);
+			return source -> next.apply(this.apply(source));
+		}
+	}
+
+	/**
+	 * Get the parallelism to use from compiler options.
+	 * @param options
+	 * @return Configured number of threads, or the number of available processors if not set
+	 */
+	public static int getParallelism(CompilerOptions options) {
+		Integer threads = options.get(StandardCompilerOptions.THREADS, null);
+		if (threads == null || threads <= 0)
+			return Runtime.getRuntime().availableProcessors();
+		return threads;
+	}
+
+	/**
+	 * Run a pass over a stream of inputs, on its own pool. Passes use this to implement
+	 * {@link CompilerPass#process(Stream)}.
+	 * @param sources
+	 * @param pass
+	 * @param parallelism Number of worker threads
+	 * @param failures Called (on this thread, in input order) with the outcome of each input that failed
+	 * @return Results of inputs that didn't fail, in the same order as {@code sources}
+	 */
+	public static <S, R> Stream<R> process(Stream<S> sources, CompilerPass<S, R> pass, int parallelism, Consumer<? super Outcome<S, R>> failures) {
+		Objects.requireNonNull(failures);
+		List<S> inputs = sources.collect(Collectors.toList());
+		List<Outcome<S, R>> outcomes;
+		try (PassExecutor executor = new PassExecutor(Math.max(1, Math.min(parallelism, inputs.size())))) {
+			outcomes = executor.run(inputs, pass);
+		}
+		List<Outcome<S, R>> failed = new ArrayList<>();
+		List<R> results = Outcome.partition(outcomes, failed);
+		failed.forEach(failures);
+		return results.stream();
+	}
+
+	protected final ForkJoinPool pool;
+
+	public PassExecutor(CompilerOptions options) {
+		this(getParallelism(options));
+	}
+
+	/**
+	 * @param parallelism Number of worker threads
+	 */
+	public PassExecutor(int parallelism) {
+		this.pool = new ForkJoinPool(parallelism);
+	}
+
+	public int getParallelism() {
+		return this.pool.getParallelism();
+	}
+
+	/**
+	 * Run a single pass over every input
+	 * @param inputs
+	 * @param pass
+	 * @return Outcome for each input, in the same order as {@code inputs}
+	 */
+	public <S, R> List<Outcome<S, R>> run(List<? extends S> inputs, CompilerPass<S, R> pass) {
+		return this.run(inputs, pass::processOne);
+	}
+
+	/**
+	 * Run a pipeline of two passes over every input. Each file goes through both passes in the same task.
+	 * @param inputs
+	 * @param first
+	 * @param second
+	 * @return Outcome for each input, in the same order as {@code inputs}
+	 */
+	public <S, M, R> List<Outcome<S, R>> run(List<? extends S> inputs, CompilerPass<S, M> first, CompilerPass<M, R> second) {
+		FileTask<S, M> task = first::processOne;
+		return this.run(inputs, task.andThen(second::processOne));
+	}
+
+	/**
+	 * Run a task over every input
+	 * @param inputs
+	 * @param task
+	 * @return Outcome for each input, in the same order as {@code inputs}
+	 */
+	@SuppressWarnings("unchecked")
+	public <S, R> List<Outcome<S, R>> run(List<? extends S> inputs, FileTask<S, R> task) {
+		Objects.requireNonNull(task);
+		Object[] sources = inputs.toArray();
+		Outcome<S, R>[] results = new Outcome[sources.length];
+		if (sources.length > 0)
+			this.pool.invoke(new RangeTask<>((S[]) sources, results, task, 0, sources.length));
+		return Collections.unmodifiableList(Arrays.asList(results));
+	}
+
+	/**
+	 * Shut down worker threads
+	 */
+	@Override
+	public void close() {
+		this.pool.shutdown();
+	}
+
+	/**
+	 * Processes a range of inputs, by splitting it in half until there's only one input left.
+	 */
+	protected static class RangeTask<S, R> extends RecursiveAction {
+		private static final long serialVersionUID = 4107233165516183447L;
+
+		protected final S[] sources;
+		protected final Outcome<S, R>[] results;
+		protected final FileTask<S, R> task;
+		protected final int start;
+		protected final int end;
+
+		protected RangeTask(S[] sources, Outcome<S, R>[] results, FileTask<S, R> task, int start, int end) {
+			this.sources = sources;
+			this.results = results;
+			this.task = task;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.end - this.start == 1) {
+				S source = this.sources[this.start];
+				Outcome<S, R> result;
+				try {
+					result = Outcome.success(source, this.task.apply(source));
+				} catch (Exception | StackOverflowError e) {
+					// Deeply nested sources can overflow the stack; that's only a problem for that file
+					result = Outcome.failure(source, e);
+				}
+				this.results[this.start] = result;
+				return;
+			}
+			int mid = (this.start + this.end) >>> 1;
+			invokeAll(new RangeTask<>(this.sources, this.results, this.task, this.start, mid),
+					new RangeTask<>(this.sources, this.results, this.task, mid, this.end));
+		}
+	}
+
+	/**
+	 * Result of processing a single file
+	 *
+	 * @param <S> Input type
+	 * @param <R> Result type
+	 */
+	public static final class Outcome<S, R> {
+		public static <S, R> Outcome<S, R> success(S source, R result) {
+			return new Outcome<>(source, result, null);
+		}
+
+		public static <S, R> Outcome<S, R> failure(S source, Throwable error) {
+			return new Outcome<>(source, null, Objects.requireNonNull(error));
+		}
+
+		/**
+		 * Split outcomes into results & failures
+		 * @param outcomes
+		 * @param failures List to add failures to
+		 * @return Results of successful outcomes, in order
+		 */
+		public static <S, R> List<R> partition(List<Outcome<S, R>> outcomes, List<? super Outcome<S, R>> failures) {
+			List<R> results = new ArrayList<>(outcomes.size());
+			for (Outcome<S, R> outcome : outcomes) {
+				if (outcome.isSuccess())
+					results.add(outcome.getResult());
+				else
+					failures.add(outcome);
+			}
+			return results;
+		}
+
+		protected final S source;
+		protected final R result;
+		protected final Throwable error;
+
+		protected Outcome(S source, R result, Throwable error) {
+			this.source = source;
+			this.result = result;
+			this.error = error;
+		}
+
+		public S getSource() {
+			return this.source;
+		}
+
+		public boolean isSuccess() {
+			return this.error == null;
+		}
+
+		/**
+		 * @return Result
+		 * @throws NoSuchElementException if processing failed
+		 */
+		public R getResult() throws NoSuchElementException {
+			if (!this.isSuccess())
+				throw new NoSuchElementException("Processing " + this.source + " failed");
+			return this.result;
+		}
+
+		/**
+		 * @return Error thrown while processing, or null if successful
+		 */
+		public Throwable getError() {
+			return this.error;
+		}
+
+		@Override
+		public String toString() {
+			if (this.isSuccess())
+				return "Outcome{source=" + this.source + ",result=" + this.result + "}";
+			return "Outcome{source=" + this.source + ",error=" + this.error + "}";
+		}
+	}
+}
@@ -4,21 +4,47 @@ import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
+import com.mindlin.jsast.fs.MappedSourceText;
 import com.mindlin.jsast.fs.SourceFile;
 import com.mindlin.jsast.fs.SourceFile.NominalSourceFile;
+import com.mindlin.jsast.fs.TreeCache;
+import com.mindlin.jsast.harness.PassExecutor.Outcome;
+import com.mindlin.jsast.impl.lexer.NameTable;
 import com.mindlin.jsast.impl.lexer.JSLexer;
 import com.mindlin.jsast.impl.parser.JSDialect;
 import com.mindlin.jsast.impl.parser.JSParser;
 import com.mindlin.jsast.tree.CompilationUnitTree;
+import com.mindlin.nautilus.impl.util.CharacterArrayStream;
 
 public class ReadPass implements CompilerPass<Path, CompilationUnitTree> {
 	List<CompilerStage> stages;
+	protected final int threads;
+	/**
+	 * Files that couldn't be read or parsed
+	 */
+	protected final List<Outcome<Path, CompilationUnitTree>> failures = new ArrayList<>();
+	/**
+	 * Problems that didn't stop a file from being read (e.g., failing to update the tree cache)
+	 */
+	protected final List<Exception> warnings = Collections.synchronizedList(new ArrayList<>());
+	
 	public ReadPass(CompilerOptions options) {
-		stages = Arrays.asList(new ReadStage(options), new ParseStage(options));
+		this.threads = PassExecutor.getParallelism(options);
+		if (options.get(StandardCompilerOptions.INCREMENTAL, false))
+			stages = Arrays.asList(new MappedReadStage(options), new CachedParseStage(options, this.warnings::add));
+		else if (options.get(StandardCompilerOptions.MAP_SOURCES, false))
+			stages = Arrays.asList(new MappedReadStage(options), new MappedParseStage(options));
+		else
+			stages = Arrays.asList(new ReadStage(options), new ParseStage(options));
 	}
 	
 	@Override
@@ -26,22 +52,37 @@ public class ReadPass implements CompilerPass<Path, CompilationUnitTree> {
 		return "read";
 	}
 	
+	/**
+	 * @return Files that failed in previous calls to {@link #process(Stream)}, with what they failed with
+	 */
+	public List<Outcome<Path, CompilationUnitTree>> getFailures() {
+		return Collections.unmodifiableList(this.failures);
+	}
+	
+	/**
+	 * @return Problems that didn't stop a file from being read
+	 */
+	public List<Exception> getWarnings() {
+		synchronized (this.warnings) {
+			return new ArrayList<>(this.warnings);
+		}
+	}
+	
 	@SuppressWarnings("unchecked")
-	public CompilationUnitTree processOne(Path source) {
+	@Override
+	public CompilationUnitTree processOne(Path source) throws Exception {
 		Object result = source;
-		try {
-			for (CompilerStage stage : stages)
-				result = stage.process(result);
-		} catch (Exception e) {
-			//TODO: fix?
-			throw new RuntimeException(e);
-		}
+		for (CompilerStage stage : stages)
+			result = stage.process(result);
 		return (CompilationUnitTree) result;
 	}
 
+	/**
+	 * Read & parse files. Files that fail are skipped, and recorded in {@link #getFailures()}.
+	 */
 	@Override
-	public Stream<CompilationUnitTree> process(Stream<Path> sources) throws Exception {
-		return sources.map(this::processOne);
+	public Stream<CompilationUnitTree> process(Stream<Path> sources) {
+		return PassExecutor.process(sources, this, this.threads, this.failures::add);
 	}
 	
 	public static class ReadStage extends CompilerStage<Path, SourceFile> {
@@ -67,12 +108,49 @@ public class ReadPass implements CompilerPass<Path, CompilationUnitTree> {
 		
 	}
 	
+	/**
+	 * Reads files by memory-mapping them, and decoding them straight into the buffer the lexer uses.
+	 * 
+	 * @see MappedSourceText
+	 */
+	public static class MappedReadStage extends CompilerStage<Path, MappedSourceText> {
+		protected final Charset encoding;
+		
+		public MappedReadStage(CompilerOptions options) {
+			this.encoding = options.get(CompilerOptions.ENCODING).get();
+		}
+		
+		@Override
+		public String getName() {
+			return "read";
+		}
+		
+		@Override
+		public MappedSourceText process(Path sourcePath) throws IOException {
+			//TODO: resolve source file
+			return MappedSourceText.read(sourcePath, this.encoding, null);
+		}
+	}
+	
 	public static class ParseStage extends CompilerStage<SourceFile, CompilationUnitTree> {
+		/**
+		 * Shared by all workers, so every file's names are interned in the same table
+		 */
 		protected final JSParser parser;
 		
 		public ParseStage(CompilerOptions options) {
-			JSDialect dialect = options.get(CompilerOptions.SOURCE_LANGUAGE).get();
-			this.parser = new JSParser(dialect);
+			this(options.get(CompilerOptions.SOURCE_LANGUAGE).get());
+		}
+		
+		public ParseStage(JSDialect dialect) {
+			this.parser = newParser(dialect);
+		}
+		
+		protected static JSParser newParser(JSDialect dialect) {
+			JSParser parser = new JSParser(dialect, new NameTable());
+			// Trees from a build are discarded together
+			parser.setArenaMode(true);
+			return parser;
 		}
 		
 		@Override
@@ -89,4 +167,82 @@ public class ReadPass implements CompilerPass<Path, CompilationUnitTree> {
 		
 	}
 	
+	public static class MappedParseStage extends CompilerStage<MappedSourceText, CompilationUnitTree> {
+		/**
+		 * Shared by all workers
+		 * 
+		 * @see ParseStage#parser
+		 */
+		protected final JSParser parser;
+		
+		public MappedParseStage(CompilerOptions options) {
+			this(options.get(CompilerOptions.SOURCE_LANGUAGE).get());
+		}
+		
+		public MappedParseStage(JSDialect dialect) {
+			this.parser = ParseStage.newParser(dialect);
+		}
+		
+		@Override
+		public String getName() {
+			return "parse";
+		}
+		
+		@Override
+		public CompilationUnitTree process(MappedSourceText source) throws IOException {
+			// Line map was already built while decoding, so the lexer doesn't need to track newlines
+			JSLexer lexer = new JSLexer(null, new CharacterArrayStream(source.getChars()), source.getLines());
+			//TODO: resolve name
+			return this.parser.apply(null, lexer);
+		}
+	}
+	
+	/**
+	 * Parse stage that skips lexing & parsing for files whose tree is in the cache.
+	 * 
+	 * @see TreeCache
+	 * @see StandardCompilerOptions#INCREMENTAL
+	 */
+	public static class CachedParseStage extends CompilerStage<MappedSourceText, CompilationUnitTree> {
+		protected static final Path DEFAULT_CACHE_DIR = Paths.get(".nautilus", "cache");
+		protected final MappedParseStage parse;
+		protected final TreeCache cache;
+		/**
+		 * Told about entries that couldn't be stored. These don't fail the file, as the tree was still parsed.
+		 */
+		protected final Consumer<? super IOException> warnings;
+		
+		/**
+		 * @param options
+		 * @param warnings Called (from any worker) with errors from storing cache entries
+		 */
+		public CachedParseStage(CompilerOptions options, Consumer<? super IOException> warnings) {
+			JSDialect dialect = options.get(CompilerOptions.SOURCE_LANGUAGE).get();
+			this.parse = new MappedParseStage(options);
+			this.cache = new TreeCache(options.get(StandardCompilerOptions.CACHE_DIR, DEFAULT_CACHE_DIR), dialect);
+			this.warnings = Objects.requireNonNull(warnings);
+		}
+		
+		@Override
+		public String getName() {
+			return "parse";
+		}
+		
+		@Override
+		public CompilationUnitTree process(MappedSourceText source) throws IOException {
+			String key = this.cache.key(source.getChars(), 0, source.length());
+			//TODO: resolve source file
+			CompilationUnitTree tree = this.cache.load(key, null);
+			if (tree != null)
+				return tree;
+			
+			tree = this.parse.process(source);
+			try {
+				this.cache.store(key, tree);
+			} catch (IOException e) {
+				this.warnings.accept(e);
+			}
+			return tree;
+		}
+	}
 }
@@ -20,6 +20,12 @@ public class StandardCompilerOptions implements CompilerOptionProvider {
 	public static final @NonNull CompilerOption<Boolean> INIT = new AbstractCompilerOption.Flag("init", null, null);
 	public static final @NonNull CompilerOption<Boolean> BUILD = new AbstractCompilerOption.Flag("build", null, null, "b");
 	
+	/**
+	 * Number of files to process at once. Defaults to the number of processors.
+	 * @see PassExecutor
+	 */
+	public static final @NonNull CompilerOption<Integer> THREADS = new AbstractCompilerOption.IntegerField("threads", null, null, "j");
+	
 	// Very far-reaching fields (that effect a bunch of the output)
 	public static final @NonNull CompilerOption<Locale> LOCALE = new AbstractCompilerOption.SimpleField<Locale>("locale", null, null) {
 		@Override
@@ -34,9 +40,17 @@ public class StandardCompilerOptions implements CompilerOptionProvider {
 	// Major switches
 	public static final @NonNull CompilerOption<Boolean> WATCH = new AbstractCompilerOption.Flag("watch", null, null, "w");
 	public static final @NonNull CompilerOption<Boolean> INCREMENTAL = new AbstractCompilerOption.Flag("incremental", null, null);
+	/**
+	 * Where to cache parsed trees when {@link #INCREMENTAL} is set
+	 */
+	public static final @NonNull CompilerOption<Path> CACHE_DIR = new AbstractCompilerOption.PathField("cache-dir", null, null);
 	public static final @NonNull CompilerOption<Boolean> COMPOSITE = new AbstractCompilerOption.Flag("composite", null, null);
 	public static final @NonNull CompilerOption<Path> PROJECT = new AbstractCompilerOption.PathField("project", null, null, "p");
 	public static final @NonNull CompilerOption<Path> ROOT_DIR = new AbstractCompilerOption.PathField("rootDir", null, null);
+	/**
+	 * Read sources by memory-mapping them
+	 */
+	public static final @NonNull CompilerOption<Boolean> MAP_SOURCES = new AbstractCompilerOption.Flag("mmap-sources", null, null);
 	
 	// Feature flags
 	public static final @NonNull CompilerOption<String> SOURCE_LANGUAGE = new AbstractCompilerOption.StringField("source", null, null);
@@ -60,13 +74,16 @@ public class StandardCompilerOptions implements CompilerOptionProvider {
 				PRINT_PLUGINS,
 				INIT,
 				BUILD,
+				THREADS,
 				LOCALE,
 				SOURCE_ENCODING,
 				WATCH,
 				INCREMENTAL,
+				CACHE_DIR,
 				COMPOSITE,
 				PROJECT,
 				ROOT_DIR,
+				MAP_SOURCES,
 				SOURCE_LANGUAGE,
 				TARGET_LANGUAGE,
 				REMOVE_COMMENTS,
@@ -1,12 +1,20 @@
 package com.mindlin.jsast.harness.config;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Set;
 
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.mindlin.jsast.harness.CompilerOption;
 import com.mindlin.jsast.harness.CompilerOptions;
+import com.mindlin.jsast.json.JSONInputStream;
+import com.mindlin.jsast.json.api.JSONArrayInput;
+import com.mindlin.jsast.json.api.JSONInput;
+import com.mindlin.jsast.json.api.JSONObjectInput;
 
 /**
  * Read data from config file
@@ -19,17 +27,11 @@ public abstract class ConfigFileParser {
 		this.configFile = configFile;
 	}
 	
-	public void createWatch() {
-		WatchService watch;
-		try {
-			watch = configFile.getFileSystem().newWatchService();
-		} catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		}
+	public WatchService createWatch() throws IOException {
+		return configFile.getFileSystem().newWatchService();
 	}
 	
-	public abstract CompilerOptions load();
+	public abstract CompilerOptions load() throws IOException;
 	
 	/**
 	 * Read config from {@code tsconfig.json} file.
@@ -41,22 +43,97 @@ public abstract class ConfigFileParser {
 			super(configFile);
 		}
 		
-		protected void read(Path file, CompilerOptions options) {
-			try (BufferedReader br = Files.newBufferedReader(file)) {
-				
-			} catch (IOException e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
+		/**
+		 * Find the file that a config file extends
+		 * @param file
+		 * @return Value of {@code extends}, or null if it doesn't extend anything
+		 * @throws IOException
+		 */
+		protected @Nullable String readExtends(Path file) throws IOException {
+			try (JSONInputStream in = new JSONInputStream(Files.newBufferedReader(file), true);
+					JSONObjectInput root = in.readObject()) {
+				String result = null;
+				// Other values are skipped by nextKey()
+				for (String key; (key = root.nextKey()) != null;)
+					if ("extends".equals(key))
+						result = root.readString();
+				return result;
 			}
 		}
-
-		@Override
-		public CompilerOptions load() {
+		
+		/**
+		 * Read a config file (and the files it extends)
+		 * @param file
+		 * @param config Config to add to
+		 * @param visited Files that are already being read
+		 * @throws IOException
+		 */
+		protected void read(Path file, ProjectConfig config, Set<Path> visited) throws IOException {
+			if (!visited.add(file.toAbsolutePath().normalize()))
+				throw new IOException("Circular 'extends' at " + file);
 			
+			// Base is read first, so options from this file override it
+			String base = this.readExtends(file);
+			if (base != null)
+				read(file.resolveSibling(base), config, visited);
 			
-			// TODO Auto-generated method stub
+			try (JSONInputStream in = new JSONInputStream(Files.newBufferedReader(file), true);
+					JSONObjectInput root = in.readObject()) {
+				for (String key; (key = root.nextKey()) != null;) {
+					switch (key) {
+						case "compilerOptions":
+							readCompilerOptions(root, config);
+							break;
+						case "files":
+							try (JSONArrayInput files = root.readArray()) {
+								while (files.hasNext())
+									config.addFileName(files.readString());
+							}
+							break;
+						case "extends":
+							// Already read
+							break;
+						default:
+							//TODO: include, exclude, references
+							break;
+					}
+				}
+			}
+		}
+		
+		protected void readCompilerOptions(JSONInput in, ProjectConfig config) {
+			CompilerOptions options = config.getOptions();
+			try (JSONObjectInput values = in.readObject()) {
+				for (String key; (key = values.nextKey()) != null;) {
+					CompilerOption<?> option = findOption(options, key);
+					if (option == null) {
+						//TODO: warn about unknown option
+						continue;
+					}
+					readOption(option, key, values, config);
+				}
+			}
+		}
+		
+		protected @Nullable CompilerOption<?> findOption(CompilerOptions options, String key) {
+			for (CompilerOption<?> option : options.getOptions())
+				if (option.name().equals(key) || option.aliases().contains(key))
+					return option;
 			return null;
 		}
 		
+		protected <T> void readOption(CompilerOption<T> option, String key, JSONInput value, ProjectConfig config) {
+			T result = option.read(config::reportParseDiagnostic, key, value);
+			if (result != null)
+				config.getOptions().set(option, result);
+		}
+
+		@Override
+		public CompilerOptions load() throws IOException {
+			ProjectConfig config = new ProjectConfig();
+			read(this.configFile, config, new HashSet<>());
+			return config.getOptions();
+		}
+		
 	}
 }
@@ -0,0 +1,59 @@
+package com.mindlin.jsast.impl.binary;
+
+/**
+ * Constants for the binary tree format.
+ * <p>
+ * A file is laid out as:
+ * <ol>
+ * <li>Header: {@link #MAGIC} and {@link #VERSION}, as big-endian ints</li>
+ * <li>String table: count, then each string as its UTF-8 length and bytes</li>
+ * <li>Line map: count, then the offset of each newline, delta-encoded</li>
+ * <li>Compilation unit header: kind, start, length (as for a node), and whether it's strict</li>
+ * <li>Statement index: count plus one ({@code 0} if the unit has no statement list), then the encoded size, in
+ * bytes, of each top-level statement</li>
+ * <li>Each top-level statement, as a tree of nodes</li>
+ * </ol>
+ * Unless stated otherwise, numbers are unsigned LEB128 varints.
+ * </p>
+ * <p>
+ * A node is its kind (as {@code Kind.ordinal() + 1}, so {@code 0} is {@code null}), its start offset relative to
+ * its parent's start, and its length (both zigzag-encoded), followed by its children and other fields in a fixed
+ * order for the kind. Lists are their size plus one ({@code 0} is {@code null}) followed by their elements, and
+ * strings are their index in the string table plus one.
+ * </p>
+ * <p>
+ * The string table and statement index let a reader decode any string or top-level statement without decoding
+ * the ones before it, so a tree can be read lazily out of a memory-mapped file.
+ * </p>
+ *
+ * @see BinaryTreeWriter
+ * @see BinaryTreeReader
+ */
+public final class BinaryTreeFormat {
+	/**
+	 * 'JSAT'
+	 */
+	public static final int MAGIC = 0x4A534154;
+	/**
+	 * Format version. Bump this on any change to the encoding.
+	 */
+	public static final int VERSION = 2;
+
+	// Tags for numeric literal values
+	static final int NUMBER_INT = 0;
+	static final int NUMBER_LONG = 1;
+	static final int NUMBER_DOUBLE = 2;
+	static final int NUMBER_PARSED_INTEGER = 3;
+	static final int NUMBER_PARSED_DOUBLE = 4;
+
+	private BinaryTreeFormat() {
+	}
+
+	static long zigzag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	static long unzigzag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
@@ -0,0 +1,792 @@
+package com.mindlin.jsast.impl.binary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+import com.mindlin.jsast.impl.lexer.NumericLiteralType;
+import com.mindlin.jsast.impl.lexer.ParsedNumber.ParsedDouble;
+import com.mindlin.jsast.impl.lexer.ParsedNumber.ParsedInteger;
+import com.mindlin.jsast.impl.tree.AbstractClassTree.ClassDeclarationTreeImpl;
+import com.mindlin.jsast.impl.tree.AbstractClassTree.ClassExpressionTreeImpl;
+import com.mindlin.jsast.impl.tree.AbstractFunctionTree.FunctionDeclarationTreeImpl;
+import com.mindlin.jsast.impl.tree.AbstractFunctionTree.FunctionExpressionTreeImpl;
+import com.mindlin.jsast.impl.tree.AbstractFunctionTree.MethodDeclarationTreeImpl;
+import com.mindlin.jsast.impl.tree.AbstractGotoTree.BreakTreeImpl;
+import com.mindlin.jsast.impl.tree.AbstractGotoTree.ContinueTreeImpl;
+import com.mindlin.jsast.impl.tree.AbstractSignatureDeclarationTree.CallSignatureTreeImpl;
+import com.mindlin.jsast.impl.tree.AbstractSignatureDeclarationTree.ConstructSignatureTreeImpl;
+import com.mindlin.jsast.impl.tree.AbstractSignatureDeclarationTree.ConstructorTypeTreeImpl;
+import com.mindlin.jsast.impl.tree.AbstractSignatureDeclarationTree.FunctionTypeTreeImpl;
+import com.mindlin.jsast.impl.tree.AbstractSignatureDeclarationTree.MethodSignatureTreeImpl;
+import com.mindlin.jsast.impl.tree.ArrayLiteralTreeImpl;
+import com.mindlin.jsast.impl.tree.ArrayPatternTreeImpl;
+import com.mindlin.jsast.impl.tree.ArrayTypeTreeImpl;
+import com.mindlin.jsast.impl.tree.AssignmentPatternTreeImpl;
+import com.mindlin.jsast.impl.tree.AssignmentPropertyTreeImpl;
+import com.mindlin.jsast.impl.tree.AssignmentPropertyTreeImpl.ShorthandAssignmentPropertyTreeImpl;
+import com.mindlin.jsast.impl.tree.AssignmentTreeImpl;
+import com.mindlin.jsast.impl.tree.BinaryTreeImpl;
+import com.mindlin.jsast.impl.tree.BlockTreeImpl;
+import com.mindlin.jsast.impl.tree.BooleanLiteralTreeImpl;
+import com.mindlin.jsast.impl.tree.CastExpressionTreeImpl;
+import com.mindlin.jsast.impl.tree.CatchTreeImpl;
+import com.mindlin.jsast.impl.tree.CompilationUnitTreeImpl;
+import com.mindlin.jsast.impl.tree.CompositeTypeTreeImpl;
+import com.mindlin.jsast.impl.tree.ComputedPropertyKeyTreeImpl;
+import com.mindlin.jsast.impl.tree.ConditionalExpressionTreeImpl;
+import com.mindlin.jsast.impl.tree.ConditionalTypeTreeImpl;
+import com.mindlin.jsast.impl.tree.DebuggerTreeImpl;
+import com.mindlin.jsast.impl.tree.DoWhileLoopTreeImpl;
+import com.mindlin.jsast.impl.tree.EmptyStatementTreeImpl;
+import com.mindlin.jsast.impl.tree.ExportTreeImpl;
+import com.mindlin.jsast.impl.tree.ExpressionStatementTreeImpl;
+import com.mindlin.jsast.impl.tree.ForEachLoopTreeImpl;
+import com.mindlin.jsast.impl.tree.ForLoopTreeImpl;
+import com.mindlin.jsast.impl.tree.FunctionCallTreeImpl;
+import com.mindlin.jsast.impl.tree.HeritageClauseTreeImpl;
+import com.mindlin.jsast.impl.tree.HeritageExpressionTreeImpl;
+import com.mindlin.jsast.impl.tree.IdentifierTreeImpl;
+import com.mindlin.jsast.impl.tree.IdentifierTypeTreeImpl;
+import com.mindlin.jsast.impl.tree.IfTreeImpl;
+import com.mindlin.jsast.impl.tree.ImportDeclarationTreeImpl;
+import com.mindlin.jsast.impl.tree.ImportSpecifierTreeImpl;
+import com.mindlin.jsast.impl.tree.IndexSignatureTreeImpl;
+import com.mindlin.jsast.impl.tree.InterfaceDeclarationTreeImpl;
+import com.mindlin.jsast.impl.tree.LabeledStatementTreeImpl;
+import com.mindlin.jsast.impl.tree.LineMap;
+import com.mindlin.jsast.impl.tree.LineMap.CompiledLineMap;
+import com.mindlin.jsast.impl.tree.LiteralTypeTreeImpl;
+import com.mindlin.jsast.impl.tree.MappedTypeTreeImpl;
+import com.mindlin.jsast.impl.tree.MemberExpressionTreeImpl;
+import com.mindlin.jsast.impl.tree.MemberTypeTreeImpl;
+import com.mindlin.jsast.impl.tree.NewTreeImpl;
+import com.mindlin.jsast.impl.tree.NullLiteralTreeImpl;
+import com.mindlin.jsast.impl.tree.NumericLiteralTreeImpl;
+import com.mindlin.jsast.impl.tree.ObjectLiteralTreeImpl;
+import com.mindlin.jsast.impl.tree.ObjectPatternTreeImpl;
+import com.mindlin.jsast.impl.tree.ObjectTypeTreeImpl;
+import com.mindlin.jsast.impl.tree.ParameterTreeImpl;
+import com.mindlin.jsast.impl.tree.ParenthesizedTreeImpl;
+import com.mindlin.jsast.impl.tree.PropertyDeclarationTreeImpl;
+import com.mindlin.jsast.impl.tree.PropertySignatureTreeImpl;
+import com.mindlin.jsast.impl.tree.RegExpLiteralTreeImpl;
+import com.mindlin.jsast.impl.tree.ReturnTreeImpl;
+import com.mindlin.jsast.impl.tree.SequenceExpressionTreeImpl;
+import com.mindlin.jsast.impl.tree.SpecialTypeTreeImpl;
+import com.mindlin.jsast.impl.tree.SpreadElementTreeImpl;
+import com.mindlin.jsast.impl.tree.StringLiteralTreeImpl;
+import com.mindlin.jsast.impl.tree.SuperExpressionTreeImpl;
+import com.mindlin.jsast.impl.tree.SwitchCaseTreeImpl;
+import com.mindlin.jsast.impl.tree.SwitchTreeImpl;
+import com.mindlin.jsast.impl.tree.TemplateElementTreeImpl;
+import com.mindlin.jsast.impl.tree.TemplateLiteralTreeImpl;
+import com.mindlin.jsast.impl.tree.ThisExpressionTreeImpl;
+import com.mindlin.jsast.impl.tree.ThrowTreeImpl;
+import com.mindlin.jsast.impl.tree.TryTreeImpl;
+import com.mindlin.jsast.impl.tree.TupleTypeTreeImpl;
+import com.mindlin.jsast.impl.tree.TypeAliasTreeImpl;
+import com.mindlin.jsast.impl.tree.TypeParameterDeclarationTreeImpl;
+import com.mindlin.jsast.impl.tree.UnaryTreeImpl;
+import com.mindlin.jsast.impl.tree.UnaryTreeImpl.AwaitTreeImpl;
+import com.mindlin.jsast.impl.tree.UnaryTypeTreeImpl;
+import com.mindlin.jsast.impl.tree.VariableDeclarationTreeImpl;
+import com.mindlin.jsast.impl.tree.VariableDeclaratorTreeImpl;
+import com.mindlin.jsast.impl.tree.WhileLoopTreeImpl;
+import com.mindlin.jsast.impl.tree.WithTreeImpl;
+import com.mindlin.jsast.tree.CompilationUnitTree;
+import com.mindlin.jsast.tree.Modifiers;
+import com.mindlin.jsast.tree.StatementTree;
+import com.mindlin.jsast.tree.Tree;
+import com.mindlin.jsast.tree.Tree.Kind;
+import com.mindlin.jsast.tree.VariableDeclarationTree.VariableDeclarationKind;
+import com.mindlin.jsast.tree.type.SpecialTypeTree.SpecialType;
+import com.mindlin.jsast.tree.type.TypeTree;
+import com.mindlin.nautilus.fs.SourceFile;
+import com.mindlin.nautilus.fs.SourcePosition;
+
+/**
+ * Reads a {@link CompilationUnitTree} written by {@link BinaryTreeWriter}.
+ * <p>
+ * Strings are decoded from the buffer the first time they're used. Trees can either be decoded all at once
+ * ({@link #decode(ByteBuffer, SourceFile)}), or lazily ({@link #map(Path, SourceFile)}), where each top-level
+ * statement is only decoded the first time it's accessed.
+ * </p>
+ * <p>
+ * Malformed input may throw any {@link RuntimeException} (e.g., {@link java.nio.BufferUnderflowException} or
+ * {@link ClassCastException}). When decoding lazily, that may not happen until the bad statement is accessed.
+ * </p>
+ *
+ * @see BinaryTreeFormat
+ */
+public class BinaryTreeReader {
+	private static final Kind[] KINDS = Kind.values();
+	private static final NumericLiteralType[] NUMBER_BASES = NumericLiteralType.values();
+
+	/**
+	 * Decode a compilation unit
+	 *
+	 * @param data Encoded tree
+	 * @param source Source file for positions (may be null)
+	 * @return decoded tree
+	 * @throws IllegalArgumentException If {@code data} isn't in a supported format
+	 */
+	public static CompilationUnitTree decode(byte[] data, SourceFile source) throws IllegalArgumentException {
+		return decode(ByteBuffer.wrap(data), source);
+	}
+
+	/**
+	 * Decode a compilation unit. The buffer's position is not modified.
+	 *
+	 * @param data Encoded tree
+	 * @param source Source file for positions (may be null)
+	 * @return decoded tree
+	 * @throws IllegalArgumentException If {@code data} isn't in a supported format
+	 */
+	public static CompilationUnitTree decode(ByteBuffer data, SourceFile source) throws IllegalArgumentException {
+		return new BinaryTreeReader(data, source).readFile(false);
+	}
+
+	/**
+	 * Decode a compilation unit lazily. Top-level statements are decoded the first time they're accessed, and
+	 * {@code data} must not be modified until then.
+	 *
+	 * @param data Encoded tree
+	 * @param source Source file for positions (may be null)
+	 * @return tree
+	 * @throws IllegalArgumentException If {@code data} isn't in a supported format
+	 */
+	public static CompilationUnitTree decodeLazily(ByteBuffer data, SourceFile source) throws IllegalArgumentException {
+		return new BinaryTreeReader(data, source).readFile(true);
+	}
+
+	/**
+	 * Memory-map a file, and decode it lazily. The mapping is released when the returned tree is GC'd.
+	 *
+	 * @param file File to read
+	 * @param source Source file for positions (may be null)
+	 * @return tree
+	 * @throws IOException If the file couldn't be read
+	 * @throws IllegalArgumentException If the file isn't in a supported format
+	 * @see #decodeLazily(ByteBuffer, SourceFile)
+	 */
+	public static CompilationUnitTree map(Path file, SourceFile source) throws IOException, IllegalArgumentException {
+		MappedByteBuffer mapped;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE)
+				throw new IOException("File too large to map: " + file + " (" + size + " bytes)");
+			mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		}
+		return decodeLazily(mapped, source);
+	}
+
+	/**
+	 * Copy a tree, moving all of its offsets. Offsets are encoded relative to their parent, so the copy is made by
+	 * encoding the tree, then decoding it against a different base.
+	 *
+	 * @param tree Tree to move
+	 * @param shift Amount to add to every offset
+	 * @param lines Map to resolve moved offsets with
+	 * @return Moved copy of {@code tree}
+	 * @throws UnsupportedOperationException If the tree contains a kind that can't be encoded
+	 */
+	public static <T extends Tree> T relocate(T tree, long shift, LineMap lines) throws UnsupportedOperationException {
+		BinaryTreeWriter writer = new BinaryTreeWriter();
+		writer.writeTree(tree, 0);
+		BinaryTreeReader reader = new BinaryTreeReader(ByteBuffer.wrap(writer.body.bytes, 0, writer.body.length), lines.getSource());
+		// All strings are already decoded
+		reader.strings = Arrays.copyOf(writer.strings, writer.numStrings);
+		reader.lines = lines;
+		return reader.readTree(shift);
+	}
+
+	protected final ByteBuffer buffer;
+	protected final SourceFile source;
+	/**
+	 * Position of each string in {@link #buffer}
+	 */
+	protected int[] stringOffsets;
+	/**
+	 * Length of each string, in bytes
+	 */
+	protected int[] stringLengths;
+	/**
+	 * Decoded strings (may be shared between readers)
+	 */
+	protected String[] strings;
+	protected LineMap lines;
+
+	protected BinaryTreeReader(ByteBuffer buffer, SourceFile source) {
+		this.buffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+		this.source = source;
+	}
+
+	/**
+	 * Create a reader that shares tables with another, at some position in its buffer
+	 * @param parent
+	 * @param position
+	 */
+	protected BinaryTreeReader(BinaryTreeReader parent, int position) {
+		this.buffer = parent.buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+		this.buffer.position(position);
+		this.source = parent.source;
+		this.stringOffsets = parent.stringOffsets;
+		this.stringLengths = parent.stringLengths;
+		this.strings = parent.strings;
+		this.lines = parent.lines;
+	}
+
+	protected CompilationUnitTree readFile(boolean lazy) {
+		int magic = this.buffer.getInt();
+		if (magic != BinaryTreeFormat.MAGIC)
+			throw new IllegalArgumentException(String.format("Bad magic number: 0x%08X", magic));
+		int version = this.buffer.getInt();
+		if (version != BinaryTreeFormat.VERSION)
+			throw new IllegalArgumentException("Unsupported version " + version + " (expected " + BinaryTreeFormat.VERSION + ")");
+
+		this.readStrings();
+		this.lines = this.readLines();
+		return this.readUnit(lazy);
+	}
+
+	/**
+	 * Read the string table. Strings aren't decoded until they're needed.
+	 */
+	protected void readStrings() {
+		int count = this.readInt();
+		this.stringOffsets = new int[count];
+		this.stringLengths = new int[count];
+		this.strings = new String[count];
+		for (int i = 0; i < count; i++) {
+			int length = this.readInt();
+			this.stringOffsets[i] = this.buffer.position();
+			this.stringLengths[i] = length;
+			this.buffer.position(this.buffer.position() + length);
+		}
+	}
+
+	protected LineMap readLines() {
+		long[] newlines = new long[this.readInt()];
+		long last = 0;
+		for (int i = 0; i < newlines.length; i++)
+			newlines[i] = last += this.readVarint();
+		return new CompiledLineMap(this.source, newlines);
+	}
+
+	protected CompilationUnitTree readUnit(boolean lazy) {
+		Kind kind = this.readKind();
+		if (kind != Kind.COMPILATION_UNIT)
+			throw new IllegalArgumentException("Expected compilation unit, but got " + kind);
+		long start = this.readOffset(0);
+		long end = this.readOffset(start);
+		boolean strict = this.readBoolean();
+
+		int count = this.readInt();
+		List<StatementTree> elements = null;
+		if (count > 0) {
+			int[] offsets = new int[count];
+			for (int i = 1; i < count; i++)
+				offsets[i] = offsets[i - 1] + this.readInt();
+			int bodyStart = this.buffer.position();
+			if (bodyStart + offsets[count - 1] > this.buffer.limit())
+				throw new IllegalArgumentException("Truncated input");
+
+			if (lazy) {
+				elements = new LazyStatementList(start, bodyStart, offsets);
+			} else {
+				elements = new ArrayList<>(count - 1);
+				for (int i = 1; i < count; i++)
+					elements.add(this.readTree(start));
+			}
+		}
+		return new CompilationUnitTreeImpl(start, end, this.source, this.lines, elements, strict);
+	}
+
+	protected long readVarint() {
+		long result = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = this.buffer.get();
+			result |= (b & 0x7FL) << shift;
+			if (b >= 0)
+				return result;
+		}
+		throw new IllegalArgumentException("Malformed varint");
+	}
+
+	protected int readInt() {
+		long value = this.readVarint();
+		if (value < 0 || value > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Value out of range: " + value);
+		return (int) value;
+	}
+
+	protected long readOffset(long base) {
+		return base + BinaryTreeFormat.unzigzag(this.readVarint());
+	}
+
+	protected boolean readBoolean() {
+		return this.buffer.get() != 0;
+	}
+
+	protected Kind readKind() {
+		int ordinal = this.readInt();
+		return ordinal == 0 ? null : KINDS[ordinal - 1];
+	}
+
+	protected String readString() {
+		int index = this.readInt();
+		if (index-- == 0)
+			return null;
+		String result = this.strings[index];
+		if (result == null) {
+			// Strings are immutable, so it doesn't matter if this races with another reader
+			int offset = this.stringOffsets[index];
+			int length = this.stringLengths[index];
+			if (this.buffer.hasArray()) {
+				result = new String(this.buffer.array(), this.buffer.arrayOffset() + offset, length, StandardCharsets.UTF_8);
+			} else {
+				byte[] utf8 = new byte[length];
+				ByteBuffer slice = this.buffer.duplicate();
+				slice.position(offset);
+				slice.get(utf8);
+				result = new String(utf8, StandardCharsets.UTF_8);
+			}
+			this.strings[index] = result;
+		}
+		return result;
+	}
+
+	protected Modifiers readModifiers() {
+		long flags = this.readVarint();
+		return flags == 0 ? null : Modifiers.wrap(flags - 1);
+	}
+
+	protected Number readNumber() {
+		switch (this.readInt()) {
+			case BinaryTreeFormat.NUMBER_INT:
+				return (int) BinaryTreeFormat.unzigzag(this.readVarint());
+			case BinaryTreeFormat.NUMBER_LONG:
+				return BinaryTreeFormat.unzigzag(this.readVarint());
+			case BinaryTreeFormat.NUMBER_DOUBLE:
+				return Double.longBitsToDouble(this.buffer.getLong());
+			case BinaryTreeFormat.NUMBER_PARSED_INTEGER: {
+				long value = BinaryTreeFormat.unzigzag(this.readVarint());
+				return new ParsedInteger(NUMBER_BASES[this.readInt()], value, (int) BinaryTreeFormat.unzigzag(this.readVarint()), this.readBoolean());
+			}
+			case BinaryTreeFormat.NUMBER_PARSED_DOUBLE: {
+				double value = Double.longBitsToDouble(this.buffer.getLong());
+				return new ParsedDouble(NUMBER_BASES[this.readInt()], value, (int) BinaryTreeFormat.unzigzag(this.readVarint()), this.readBoolean());
+			}
+			default:
+				throw new IllegalArgumentException("Unknown number type");
+		}
+	}
+
+	protected SourcePosition position(long offset) {
+		return offset < 0 ? null : this.lines.lookup(offset);
+	}
+
+	@SuppressWarnings("unchecked")
+	protected <T extends Tree> List<T> readList(long base) {
+		int size = this.readInt();
+		if (size == 0)
+			return null;
+		List<T> result = new ArrayList<>(size - 1);
+		for (int i = 1; i < size; i++)
+			result.add((T) this.readTree(base));
+		return result;
+	}
+
+	/**
+	 * Read a tree, and all of its children
+	 *
+	 * @param base Start offset of parent
+	 * @return tree (may be null)
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	protected <T extends Tree> T readTree(long base) {
+		Kind kind = this.readKind();
+		if (kind == null)
+			return null;
+		final long startOffset = this.readOffset(base);
+		final long endOffset = this.readOffset(startOffset);
+		final SourcePosition start = this.position(startOffset);
+		final SourcePosition end = this.position(endOffset);
+		final long b = startOffset;
+		Tree result;
+		switch (kind) {
+			// Statements
+			case EXPRESSION_STATEMENT:
+				result = new ExpressionStatementTreeImpl(start, end, this.readTree(b));
+				break;
+			case EMPTY_STATEMENT:
+				result = new EmptyStatementTreeImpl(start, end);
+				break;
+			case DEBUGGER:
+				result = new DebuggerTreeImpl(start, end);
+				break;
+			case THIS_EXPRESSION:
+				result = new ThisExpressionTreeImpl(start, end);
+				break;
+			case SUPER_EXPRESSION:
+				result = new SuperExpressionTreeImpl(start, end);
+				break;
+			case NULL_LITERAL:
+				result = new NullLiteralTreeImpl(start, end);
+				break;
+			case BLOCK:
+				result = new BlockTreeImpl(start, end, this.readList(b), this.readBoolean());
+				break;
+			case WITH:
+				result = new WithTreeImpl(start, end, this.readTree(b), this.readTree(b));
+				break;
+			case LABELED_STATEMENT:
+				result = new LabeledStatementTreeImpl(start, end, this.readTree(b), this.readTree(b));
+				break;
+			case BREAK:
+				result = new BreakTreeImpl(start, end, this.readTree(b));
+				break;
+			case CONTINUE:
+				result = new ContinueTreeImpl(start, end, this.readTree(b));
+				break;
+			case RETURN:
+				result = new ReturnTreeImpl(start, end, this.readTree(b));
+				break;
+			case THROW:
+				result = new ThrowTreeImpl(start, end, this.readTree(b));
+				break;
+			case IF:
+				result = new IfTreeImpl(start, end, this.readTree(b), this.readTree(b), this.readTree(b));
+				break;
+			case SWITCH:
+				result = new SwitchTreeImpl(start, end, this.readTree(b), this.readList(b));
+				break;
+			case CASE:
+				result = new SwitchCaseTreeImpl(start, end, this.readTree(b), this.readList(b));
+				break;
+			case TRY:
+				result = new TryTreeImpl(start, end, this.readTree(b), this.readList(b), this.readTree(b));
+				break;
+			case CATCH:
+				result = new CatchTreeImpl(start, end, this.readTree(b), this.readTree(b));
+				break;
+			case WHILE_LOOP:
+				result = new WhileLoopTreeImpl(start, end, this.readTree(b), this.readTree(b));
+				break;
+			case DO_WHILE_LOOP:
+				result = new DoWhileLoopTreeImpl(start, end, this.readTree(b), this.readTree(b));
+				break;
+			case FOR_LOOP:
+				result = new ForLoopTreeImpl(start, end, this.readTree(b), this.readTree(b), this.readTree(b), this.readTree(b));
+				break;
+			case FOR_IN_LOOP:
+			case FOR_OF_LOOP:
+				result = new ForEachLoopTreeImpl(start, end, this.readTree(b), kind == Kind.FOR_OF_LOOP, this.readTree(b), this.readTree(b));
+				break;
+
+			// Declarations
+			case FUNCTION_DECLARATION:
+				result = new FunctionDeclarationTreeImpl(start, end, this.readModifiers(), this.readTree(b), this.readList(b), this.readList(b), this.readTree(b), this.readTree(b));
+				break;
+			case METHOD_DECLARATION:
+				result = new MethodDeclarationTreeImpl(start, end, this.readModifiers(), this.readTree(b), this.readList(b), this.readList(b), this.readTree(b), this.readTree(b));
+				break;
+			case FUNCTION_EXPRESSION:
+				result = new FunctionExpressionTreeImpl(start, end, this.readModifiers(), this.readTree(b), this.readList(b), this.readList(b), this.readTree(b), this.readBoolean(), this.readTree(b));
+				break;
+			case VARIABLE_DECLARATION:
+				result = new VariableDeclarationTreeImpl(start, end, VariableDeclarationKind.values()[this.readInt()], this.readList(b));
+				break;
+			case VARIABLE_DECLARATOR:
+				result = new VariableDeclaratorTreeImpl(start, end, this.readTree(b), this.readTree(b), this.readTree(b));
+				break;
+			case CLASS_DECLARATION:
+				result = new ClassDeclarationTreeImpl(start, end, this.readModifiers(), this.readTree(b), this.readList(b), this.readList(b), this.readList(b));
+				break;
+			case CLASS_EXPRESSION:
+				result = new ClassExpressionTreeImpl(start, end, this.readModifiers(), this.readTree(b), this.readList(b), this.readList(b), this.readList(b));
+				break;
+			case TYPE_ALIAS:
+				result = new TypeAliasTreeImpl(start, end, this.readTree(b), this.readList(b), this.readTree(b));
+				break;
+			case INTERFACE_DECLARATION:
+				result = new InterfaceDeclarationTreeImpl(start, end, this.readTree(b), this.readList(b), this.readList(b), this.readList(b));
+				break;
+
+			// Literals
+			case BOOLEAN_LITERAL:
+				result = new BooleanLiteralTreeImpl(start, end, this.readBoolean());
+				break;
+			case NUMERIC_LITERAL:
+				result = new NumericLiteralTreeImpl(start, end, this.readNumber());
+				break;
+			case STRING_LITERAL:
+				result = new StringLiteralTreeImpl(start, end, this.readString());
+				break;
+			case REGEXP_LITERAL:
+				result = new RegExpLiteralTreeImpl(start, end, this.readString(), this.readString());
+				break;
+			case ARRAY_LITERAL:
+				result = new ArrayLiteralTreeImpl(start, end, this.readList(b));
+				break;
+			case OBJECT_LITERAL:
+				result = new ObjectLiteralTreeImpl(start, end, this.readList(b));
+				break;
+			case TEMPLATE_LITERAL:
+				result = new TemplateLiteralTreeImpl(start, end, this.readList(b), this.readList(b));
+				break;
+			case TEMPLATE_ELEMENT:
+				result = new TemplateElementTreeImpl(start, end, this.readString(), this.readString());
+				break;
+
+			// Operators
+			case AWAIT:
+				result = new AwaitTreeImpl(start, end, this.readTree(b));
+				break;
+			case YIELD:
+			case YIELD_GENERATOR:
+			case UNARY_PLUS:
+			case UNARY_MINUS:
+			case UNARY_NONNULL:
+			case TYPEOF:
+			case VOID:
+			case DELETE:
+			case POSTFIX_DECREMENT:
+			case POSTFIX_INCREMENT:
+			case PREFIX_DECREMENT:
+			case PREFIX_INCREMENT:
+			case BITWISE_NOT:
+			case LOGICAL_NOT:
+				result = new UnaryTreeImpl(start, end, this.readTree(b), kind);
+				break;
+			case IN:
+			case INSTANCEOF:
+			case ADDITION:
+			case SUBTRACTION:
+			case MULTIPLICATION:
+			case DIVISION:
+			case REMAINDER:
+			case EXPONENTIATION:
+			case BITWISE_AND:
+			case BITWISE_OR:
+			case BITWISE_XOR:
+			case LEFT_SHIFT:
+			case RIGHT_SHIFT:
+			case UNSIGNED_RIGHT_SHIFT:
+			case LOGICAL_AND:
+			case LOGICAL_OR:
+			case EQUAL:
+			case NOT_EQUAL:
+			case STRICT_EQUAL:
+			case STRICT_NOT_EQUAL:
+			case GREATER_THAN:
+			case LESS_THAN:
+			case GREATER_THAN_EQUAL:
+			case LESS_THAN_EQUAL:
+				result = new BinaryTreeImpl(start, end, kind, this.readTree(b), this.readTree(b));
+				break;
+			case ARRAY_ACCESS:
+			case MEMBER_SELECT:
+				result = new MemberExpressionTreeImpl(start, end, kind, this.readTree(b), this.readTree(b));
+				break;
+			case ASSIGNMENT:
+			case ADDITION_ASSIGNMENT:
+			case SUBTRACTION_ASSIGNMENT:
+			case MULTIPLICATION_ASSIGNMENT:
+			case DIVISION_ASSIGNMENT:
+			case REMAINDER_ASSIGNMENT:
+			case BITWISE_AND_ASSIGNMENT:
+			case BITWISE_OR_ASSIGNMENT:
+			case BITWISE_XOR_ASSIGNMENT:
+			case EXPONENTIATION_ASSIGNMENT:
+			case LEFT_SHIFT_ASSIGNMENT:
+			case RIGHT_SHIFT_ASSIGNMENT:
+			case UNSIGNED_RIGHT_SHIFT_ASSIGNMENT:
+				result = new AssignmentTreeImpl(start, end, kind, this.readTree(b), this.readTree(b));
+				break;
+			case SEQUENCE:
+				result = new SequenceExpressionTreeImpl(start, end, this.readList(b));
+				break;
+			case PARENTHESIZED:
+				result = new ParenthesizedTreeImpl(start, end, this.readTree(b));
+				break;
+			case CONDITIONAL:
+				result = new ConditionalExpressionTreeImpl(start, end, this.readTree(b), this.readTree(b), this.readTree(b));
+				break;
+			case SPREAD:
+				result = new SpreadElementTreeImpl(start, end, this.readTree(b));
+				break;
+			case NEW:
+				result = new NewTreeImpl(start, end, this.readTree(b), this.readList(b), this.readList(b));
+				break;
+			case FUNCTION_INVOCATION:
+				result = new FunctionCallTreeImpl(start, end, this.readTree(b), this.readList(b), this.readList(b));
+				break;
+			case CAST:
+				result = new CastExpressionTreeImpl(start, end, this.readTree(b), this.readTree(b));
+				break;
+			case IDENTIFIER:
+				result = new IdentifierTreeImpl(start, end, this.readString());
+				break;
+			case COMPUTED_PROPERTY_KEY:
+				result = new ComputedPropertyKeyTreeImpl(start, end, this.readTree(b));
+				break;
+
+			// Modules
+			case IMPORT:
+				result = new ImportDeclarationTreeImpl(start, end, this.readList(b), this.readTree(b));
+				break;
+			case IMPORT_SPECIFIER:
+				result = new ImportSpecifierTreeImpl(start, end, this.readTree(b), this.readTree(b), this.readBoolean());
+				break;
+			case EXPORT:
+				result = new ExportTreeImpl(start, end, this.readBoolean(), this.readTree(b));
+				break;
+
+			// Properties
+			case PARAMETER:
+				result = new ParameterTreeImpl(start, end, this.readModifiers(), this.readTree(b), this.readBoolean(), this.readTree(b), this.readTree(b));
+				break;
+			case ASSIGNMENT_PROPERTY:
+				result = new AssignmentPropertyTreeImpl(start, end, this.readModifiers(), this.readTree(b), this.readTree(b));
+				break;
+			case SHORTHAND_ASSIGNMENT_PROPERTY:
+				result = new ShorthandAssignmentPropertyTreeImpl(start, end, this.readModifiers(), this.readTree(b), this.readTree(b));
+				break;
+			case PROPERTY_DECLARATION:
+				result = new PropertyDeclarationTreeImpl(start, end, this.readModifiers(), this.readTree(b), this.readTree(b), this.readTree(b));
+				break;
+			case PROPERTY_SIGNATURE:
+				result = new PropertySignatureTreeImpl(start, end, this.readModifiers(), this.readTree(b), this.readTree(b));
+				break;
+			case METHOD_SIGNATURE:
+				result = new MethodSignatureTreeImpl(start, end, this.readModifiers(), this.readTree(b), this.readList(b), this.readList(b), this.readTree(b));
+				break;
+			case CALL_SIGNATURE:
+				result = new CallSignatureTreeImpl(start, end, this.readTree(b), this.readList(b), this.readList(b), this.readTree(b));
+				break;
+			case CONSTRUCT_SIGNATURE:
+				result = new ConstructSignatureTreeImpl(start, end, this.readTree(b), this.readList(b), this.readList(b), this.readTree(b));
+				break;
+			case FUNCTION_TYPE:
+				result = new FunctionTypeTreeImpl(start, end, this.readList(b), this.readList(b), this.readTree(b));
+				break;
+			case CONSTRUCTOR_TYPE:
+				result = new ConstructorTypeTreeImpl(start, end, this.readList(b), this.readList(b), this.readTree(b));
+				break;
+			case INDEX_SIGNATURE:
+				result = new IndexSignatureTreeImpl(start, end, this.readModifiers(), this.readTree(b), this.readTree(b));
+				break;
+			case EXTENDS_CLAUSE:
+			case IMPLEMENTS_CLAUSE:
+				result = new HeritageClauseTreeImpl(start, end, kind, this.readList(b));
+				break;
+			case HERITAGE_EXPRESSION:
+				result = new HeritageExpressionTreeImpl(start, end, this.readTree(b), this.readList(b));
+				break;
+
+			// Patterns
+			case OBJECT_PATTERN:
+				result = new ObjectPatternTreeImpl(start, end, this.readList(b));
+				break;
+			case ARRAY_PATTERN:
+				result = new ArrayPatternTreeImpl(start, end, this.readList(b));
+				break;
+			case ASSIGNMENT_PATTERN:
+				result = new AssignmentPatternTreeImpl(start, end, this.readTree(b), this.readTree(b), this.readTree(b));
+				break;
+
+			// Types
+			case SPECIAL_TYPE:
+				result = new SpecialTypeTreeImpl(start, end, SpecialType.values()[this.readInt()]);
+				break;
+			case LITERAL_TYPE:
+				result = new LiteralTypeTreeImpl(start, end, this.readTree(b));
+				break;
+			case TYPE_PARAMETER_DECLARATION:
+				result = new TypeParameterDeclarationTreeImpl(start, end, this.readTree(b), this.readTree(b), this.readTree(b));
+				break;
+			case IDENTIFIER_TYPE:
+				result = new IdentifierTypeTreeImpl(start, end, this.readTree(b), this.readList(b));
+				break;
+			case TUPLE_TYPE:
+				result = new TupleTypeTreeImpl(start, end, this.readList(b));
+				break;
+			case OBJECT_TYPE:
+				result = new ObjectTypeTreeImpl(start, end, this.readList(b));
+				break;
+			case ARRAY_TYPE:
+				result = new ArrayTypeTreeImpl(start, end, this.readTree(b));
+				break;
+			case KEYOF_TYPE:
+			case UNIQUE_TYPE:
+			case OPTIONAL_TYPE:
+			case DEFINITE_TYPE:
+				result = new UnaryTypeTreeImpl(start, end, kind, this.readTree(b));
+				break;
+			case MEMBER_TYPE:
+				result = new MemberTypeTreeImpl(start, end, this.readTree(b), this.readTree(b));
+				break;
+			case TYPE_UNION:
+			case TYPE_INTERSECTION:
+				result = new CompositeTypeTreeImpl(start, end, kind, this.<TypeTree>readList(b));
+				break;
+			case MAPPED_TYPE:
+				result = new MappedTypeTreeImpl(start, end, this.readModifiers(), this.readTree(b), this.readTree(b));
+				break;
+			case CONDITIONAL_TYPE:
+				result = new ConditionalTypeTreeImpl(start, end, this.readTree(b), this.readTree(b), this.readTree(b), this.readTree(b));
+				break;
+			default:
+				throw new IllegalArgumentException("Can't decode tree of kind " + kind);
+		}
+		return (T) result;
+	}
+
+	/**
+	 * List of top-level statements that are decoded on first access
+	 */
+	protected class LazyStatementList extends AbstractList<StatementTree> implements RandomAccess {
+		protected final long base;
+		protected final int bodyStart;
+		/**
+		 * Start of each statement, relative to {@link #bodyStart}
+		 */
+		protected final int[] offsets;
+		protected final StatementTree[] statements;
+
+		protected LazyStatementList(long base, int bodyStart, int[] offsets) {
+			this.base = base;
+			this.bodyStart = bodyStart;
+			this.offsets = offsets;
+			this.statements = new StatementTree[offsets.length - 1];
+		}
+
+		@Override
+		public synchronized StatementTree get(int index) {
+			StatementTree result = this.statements[index];
+			if (result == null) {
+				BinaryTreeReader reader = new BinaryTreeReader(BinaryTreeReader.this, this.bodyStart + this.offsets[index]);
+				result = reader.readTree(this.base);
+				this.statements[index] = result;
+			}
+			return result;
+		}
+
+		@Override
+		public int size() {
+			return this.statements.length;
+		}
+	}
+}
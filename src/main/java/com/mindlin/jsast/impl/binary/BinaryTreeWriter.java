@@ -0,0 +1,807 @@
+package com.mindlin.jsast.impl.binary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.mindlin.jsast.impl.lexer.ParsedNumber;
+import com.mindlin.jsast.impl.lexer.ParsedNumber.ParsedDouble;
+import com.mindlin.jsast.impl.lexer.ParsedNumber.ParsedInteger;
+import com.mindlin.jsast.impl.tree.LineMap;
+import com.mindlin.jsast.tree.ArrayLiteralTree;
+import com.mindlin.jsast.tree.ArrayPatternTree;
+import com.mindlin.jsast.tree.AssignmentPatternTree;
+import com.mindlin.jsast.tree.AssignmentPropertyTree;
+import com.mindlin.jsast.tree.AssignmentTree;
+import com.mindlin.jsast.tree.BinaryExpressionTree;
+import com.mindlin.jsast.tree.BlockTree;
+import com.mindlin.jsast.tree.BooleanLiteralTree;
+import com.mindlin.jsast.tree.CastExpressionTree;
+import com.mindlin.jsast.tree.CatchTree;
+import com.mindlin.jsast.tree.ClassTreeBase;
+import com.mindlin.jsast.tree.CompilationUnitTree;
+import com.mindlin.jsast.tree.ComputedPropertyKeyTree;
+import com.mindlin.jsast.tree.ConditionalExpressionTree;
+import com.mindlin.jsast.tree.ConditionalLoopTree;
+import com.mindlin.jsast.tree.ExportTree;
+import com.mindlin.jsast.tree.ExpressionStatementTree;
+import com.mindlin.jsast.tree.ForEachLoopTree;
+import com.mindlin.jsast.tree.ForLoopTree;
+import com.mindlin.jsast.tree.FunctionCallTree;
+import com.mindlin.jsast.tree.FunctionExpressionTree;
+import com.mindlin.jsast.tree.FunctionTree;
+import com.mindlin.jsast.tree.GotoTree;
+import com.mindlin.jsast.tree.HeritageClauseTree;
+import com.mindlin.jsast.tree.HeritageExpressionTree;
+import com.mindlin.jsast.tree.IdentifierTree;
+import com.mindlin.jsast.tree.IfTree;
+import com.mindlin.jsast.tree.ImportDeclarationTree;
+import com.mindlin.jsast.tree.ImportSpecifierTree;
+import com.mindlin.jsast.tree.LabeledStatementTree;
+import com.mindlin.jsast.tree.MethodSignatureTree;
+import com.mindlin.jsast.tree.Modifiers;
+import com.mindlin.jsast.tree.NewTree;
+import com.mindlin.jsast.tree.NumericLiteralTree;
+import com.mindlin.jsast.tree.ObjectLiteralTree;
+import com.mindlin.jsast.tree.ObjectPatternTree;
+import com.mindlin.jsast.tree.ParameterTree;
+import com.mindlin.jsast.tree.ParenthesizedTree;
+import com.mindlin.jsast.tree.PropertyDeclarationTree;
+import com.mindlin.jsast.tree.PropertySignatureTree;
+import com.mindlin.jsast.tree.RegExpLiteralTree;
+import com.mindlin.jsast.tree.ReturnTree;
+import com.mindlin.jsast.tree.SequenceExpressionTree;
+import com.mindlin.jsast.tree.SignatureDeclarationTree;
+import com.mindlin.jsast.tree.SpreadElementTree;
+import com.mindlin.jsast.tree.StatementTree;
+import com.mindlin.jsast.tree.StringLiteralTree;
+import com.mindlin.jsast.tree.SwitchCaseTree;
+import com.mindlin.jsast.tree.SwitchTree;
+import com.mindlin.jsast.tree.TemplateElementTree;
+import com.mindlin.jsast.tree.TemplateLiteralTree;
+import com.mindlin.jsast.tree.ThrowTree;
+import com.mindlin.jsast.tree.Tree;
+import com.mindlin.jsast.tree.TryTree;
+import com.mindlin.jsast.tree.UnaryTree;
+import com.mindlin.jsast.tree.VariableDeclarationTree;
+import com.mindlin.jsast.tree.VariableDeclaratorTree;
+import com.mindlin.jsast.tree.WithTree;
+import com.mindlin.jsast.tree.type.ArrayTypeTree;
+import com.mindlin.jsast.tree.type.CompositeTypeTree;
+import com.mindlin.jsast.tree.type.ConditionalTypeTree;
+import com.mindlin.jsast.tree.type.IdentifierTypeTree;
+import com.mindlin.jsast.tree.type.IndexSignatureTree;
+import com.mindlin.jsast.tree.type.InterfaceDeclarationTree;
+import com.mindlin.jsast.tree.type.LiteralTypeTree;
+import com.mindlin.jsast.tree.type.MappedTypeTree;
+import com.mindlin.jsast.tree.type.MemberTypeTree;
+import com.mindlin.jsast.tree.type.ObjectTypeTree;
+import com.mindlin.jsast.tree.type.SpecialTypeTree;
+import com.mindlin.jsast.tree.type.TupleTypeTree;
+import com.mindlin.jsast.tree.type.TypeAliasTree;
+import com.mindlin.jsast.tree.type.TypeParameterDeclarationTree;
+import com.mindlin.jsast.tree.type.UnaryTypeTree;
+
+/**
+ * Writes a {@link CompilationUnitTree} in the binary tree format.
+ * <p>
+ * Only kinds that the parser produces are supported. Trying to write a tree containing any other kind throws an
+ * {@link UnsupportedOperationException}, before anything is written to the output.
+ * </p>
+ *
+ * @see BinaryTreeFormat
+ * @see BinaryTreeReader
+ */
+public class BinaryTreeWriter {
+	protected final Map<String, Integer> stringIndices = new HashMap<>();
+	protected String[] strings = new String[64];
+	protected int numStrings = 0;
+	protected final Buffer body = new Buffer(1024);
+
+	/**
+	 * Encode a compilation unit.
+	 *
+	 * @param unit
+	 * @return encoded bytes
+	 * @throws UnsupportedOperationException If the tree contains a kind that can't be encoded
+	 */
+	public static byte[] encode(CompilationUnitTree unit) throws UnsupportedOperationException {
+		Buffer result = new BinaryTreeWriter().writeFile(unit);
+		return Arrays.copyOf(result.bytes, result.length);
+	}
+
+	/**
+	 * Write a compilation unit.
+	 *
+	 * @param unit
+	 * @param out
+	 * @throws IOException
+	 * @throws UnsupportedOperationException If the tree contains a kind that can't be encoded. Nothing will have
+	 *         been written to {@code out}.
+	 */
+	public void write(CompilationUnitTree unit, OutputStream out) throws IOException, UnsupportedOperationException {
+		Buffer result = this.writeFile(unit);
+		out.write(result.bytes, 0, result.length);
+	}
+
+	protected Buffer writeFile(CompilationUnitTree unit) {
+		int[] statementEnds = this.writeStatements(unit);
+
+		Buffer header = new Buffer(this.body.length + 64 + this.numStrings * 8 + (statementEnds == null ? 0 : statementEnds.length * 2));
+		header.writeInt(BinaryTreeFormat.MAGIC);
+		header.writeInt(BinaryTreeFormat.VERSION);
+
+		header.writeVarint(this.numStrings);
+		for (int i = 0; i < this.numStrings; i++) {
+			byte[] utf8 = this.strings[i].getBytes(StandardCharsets.UTF_8);
+			header.writeVarint(utf8.length);
+			header.write(utf8, 0, utf8.length);
+		}
+
+		this.writeLines(header, unit.getLineMap());
+
+		header.writeVarint(unit.getKind().ordinal() + 1);
+		header.writeVarint(BinaryTreeFormat.zigzag(unit.getStartOffset()));
+		header.writeVarint(BinaryTreeFormat.zigzag(unit.getEndOffset() - unit.getStartOffset()));
+		header.writeBoolean(unit.isStrict());
+
+		// Statement index, so readers can skip to any statement
+		if (statementEnds == null) {
+			header.writeVarint(0);
+		} else {
+			header.writeVarint(statementEnds.length + 1);
+			int last = 0;
+			for (int end : statementEnds) {
+				header.writeVarint(end - last);
+				last = end;
+			}
+		}
+
+		header.write(this.body.bytes, 0, this.body.length);
+		return header;
+	}
+
+	protected void writeLines(Buffer out, LineMap lines) {
+		if (lines == null) {
+			out.writeVarint(0);
+			return;
+		}
+		// Line numbers are the number of newlines before an offset
+		long count = lines.getLineNumber(Long.MAX_VALUE);
+		out.writeVarint(count);
+		long last = 0;
+		for (long line = 1; line <= count; line++) {
+			long newline = lines.getLineOffset(line);
+			out.writeVarint(newline - last);
+			last = newline;
+		}
+	}
+
+	/**
+	 * Write the top-level statements of a compilation unit to the body
+	 * @param unit
+	 * @return End of each statement in the body, or null if the unit has no statement list
+	 */
+	protected int[] writeStatements(CompilationUnitTree unit) {
+		final long start = unit.getStartOffset();
+		List<StatementTree> elements = unit.getSourceElements();
+		if (elements == null)
+			return null;
+		int[] ends = new int[elements.size()];
+		for (int i = 0; i < elements.size(); i++) {
+			this.writeTree(elements.get(i), start);
+			ends[i] = this.body.length;
+		}
+		return ends;
+	}
+
+	protected void writeHeader(Tree tree, long base) {
+		this.body.writeVarint(tree.getKind().ordinal() + 1);
+		long start = tree.getStartOffset();
+		this.body.writeVarint(BinaryTreeFormat.zigzag(start - base));
+		this.body.writeVarint(BinaryTreeFormat.zigzag(tree.getEndOffset() - start));
+	}
+
+	protected void writeString(String value) {
+		if (value == null) {
+			this.body.writeVarint(0);
+			return;
+		}
+		Integer index = this.stringIndices.get(value);
+		if (index == null) {
+			index = this.numStrings;
+			if (this.numStrings == this.strings.length)
+				this.strings = Arrays.copyOf(this.strings, this.numStrings * 2);
+			this.strings[this.numStrings++] = value;
+			this.stringIndices.put(value, index);
+		}
+		this.body.writeVarint(index + 1);
+	}
+
+	protected void writeModifiers(Modifiers modifiers) {
+		this.body.writeVarint(modifiers == null ? 0 : modifiers.getFlags() + 1);
+	}
+
+	protected void writeList(List<? extends Tree> trees, long base) {
+		if (trees == null) {
+			this.body.writeVarint(0);
+			return;
+		}
+		this.body.writeVarint(trees.size() + 1);
+		for (Tree tree : trees)
+			this.writeTree(tree, base);
+	}
+
+	protected void writeNumber(Number value) {
+		if (value instanceof ParsedNumber) {
+			// Keep how the literal was written
+			ParsedNumber parsed = (ParsedNumber) value;
+			if (parsed instanceof ParsedInteger) {
+				this.body.writeVarint(BinaryTreeFormat.NUMBER_PARSED_INTEGER);
+				this.body.writeVarint(BinaryTreeFormat.zigzag(parsed.longValue()));
+			} else if (parsed instanceof ParsedDouble) {
+				this.body.writeVarint(BinaryTreeFormat.NUMBER_PARSED_DOUBLE);
+				this.body.writeLong(Double.doubleToRawLongBits(parsed.doubleValue()));
+			} else {
+				throw new UnsupportedOperationException("Can't encode number " + value + " (" + value.getClass() + ")");
+			}
+			this.body.writeVarint(parsed.getBase().ordinal());
+			this.body.writeVarint(BinaryTreeFormat.zigzag(parsed.length()));
+			this.body.writeBoolean(parsed.hasSeparators());
+		} else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			this.body.writeVarint(BinaryTreeFormat.NUMBER_INT);
+			this.body.writeVarint(BinaryTreeFormat.zigzag(value.intValue()));
+		} else if (value instanceof Long) {
+			this.body.writeVarint(BinaryTreeFormat.NUMBER_LONG);
+			this.body.writeVarint(BinaryTreeFormat.zigzag(value.longValue()));
+		} else if (value instanceof Double || value instanceof Float) {
+			this.body.writeVarint(BinaryTreeFormat.NUMBER_DOUBLE);
+			this.body.writeLong(Double.doubleToRawLongBits(value.doubleValue()));
+		} else {
+			throw new UnsupportedOperationException("Can't encode number " + value + " (" + value.getClass() + ")");
+		}
+	}
+
+	protected void writeSignature(SignatureDeclarationTree signature, long base) {
+		this.writeList(signature.getTypeParameters(), base);
+		this.writeList(signature.getParameters(), base);
+		this.writeTree(signature.getReturnType(), base);
+	}
+
+	/**
+	 * Write a tree, and all of its children
+	 *
+	 * @param tree Tree to write (may be null)
+	 * @param base Start offset of parent
+	 */
+	protected void writeTree(Tree tree, long base) {
+		if (tree == null) {
+			this.body.writeVarint(0);
+			return;
+		}
+		this.writeHeader(tree, base);
+		final long start = tree.getStartOffset();
+		switch (tree.getKind()) {
+			// Statements
+			case EXPRESSION_STATEMENT:
+				this.writeTree(((ExpressionStatementTree) tree).getExpression(), start);
+				break;
+			case EMPTY_STATEMENT:
+			case DEBUGGER:
+			case THIS_EXPRESSION:
+			case SUPER_EXPRESSION:
+			case NULL_LITERAL:
+				break;
+			case BLOCK: {
+				BlockTree block = (BlockTree) tree;
+				this.writeList(block.getStatements(), start);
+				this.body.writeBoolean(block.isScoped());
+				break;
+			}
+			case WITH: {
+				WithTree with = (WithTree) tree;
+				this.writeTree(with.getScope(), start);
+				this.writeTree(with.getStatement(), start);
+				break;
+			}
+			case LABELED_STATEMENT: {
+				LabeledStatementTree labeled = (LabeledStatementTree) tree;
+				this.writeTree(labeled.getName(), start);
+				this.writeTree(labeled.getStatement(), start);
+				break;
+			}
+			case BREAK:
+			case CONTINUE:
+				this.writeTree(((GotoTree) tree).getLabel(), start);
+				break;
+			case RETURN:
+				this.writeTree(((ReturnTree) tree).getExpression(), start);
+				break;
+			case THROW:
+				this.writeTree(((ThrowTree) tree).getExpression(), start);
+				break;
+			case IF: {
+				IfTree ifTree = (IfTree) tree;
+				this.writeTree(ifTree.getExpression(), start);
+				this.writeTree(ifTree.getThenStatement(), start);
+				this.writeTree(ifTree.getElseStatement(), start);
+				break;
+			}
+			case SWITCH: {
+				SwitchTree switchTree = (SwitchTree) tree;
+				this.writeTree(switchTree.getExpression(), start);
+				this.writeList(switchTree.getCases(), start);
+				break;
+			}
+			case CASE: {
+				SwitchCaseTree caseTree = (SwitchCaseTree) tree;
+				this.writeTree(caseTree.getExpression(), start);
+				this.writeList(caseTree.getBody(), start);
+				break;
+			}
+			case TRY: {
+				TryTree tryTree = (TryTree) tree;
+				this.writeTree(tryTree.getBlock(), start);
+				this.writeList(tryTree.getCatches(), start);
+				this.writeTree(tryTree.getFinallyBlock(), start);
+				break;
+			}
+			case CATCH: {
+				CatchTree catchTree = (CatchTree) tree;
+				this.writeTree(catchTree.getBlock(), start);
+				this.writeTree(catchTree.getParameter(), start);
+				break;
+			}
+			case WHILE_LOOP: {
+				ConditionalLoopTree loop = (ConditionalLoopTree) tree;
+				this.writeTree(loop.getCondition(), start);
+				this.writeTree(loop.getStatement(), start);
+				break;
+			}
+			case DO_WHILE_LOOP: {
+				ConditionalLoopTree loop = (ConditionalLoopTree) tree;
+				this.writeTree(loop.getStatement(), start);
+				this.writeTree(loop.getCondition(), start);
+				break;
+			}
+			case FOR_LOOP: {
+				ForLoopTree loop = (ForLoopTree) tree;
+				this.writeTree(loop.getInitializer(), start);
+				this.writeTree(loop.getCondition(), start);
+				this.writeTree(loop.getUpdate(), start);
+				this.writeTree(loop.getStatement(), start);
+				break;
+			}
+			case FOR_IN_LOOP:
+			case FOR_OF_LOOP: {
+				ForEachLoopTree loop = (ForEachLoopTree) tree;
+				this.writeTree(loop.getVariable(), start);
+				this.writeTree(loop.getExpression(), start);
+				this.writeTree(loop.getStatement(), start);
+				break;
+			}
+
+			// Declarations
+			case FUNCTION_DECLARATION:
+			case METHOD_DECLARATION:
+			case FUNCTION_EXPRESSION: {
+				FunctionTree function = (FunctionTree) tree;
+				this.writeModifiers(function.getModifiers());
+				this.writeTree(function.getName(), start);
+				this.writeSignature(function, start);
+				if (tree.getKind() == Tree.Kind.FUNCTION_EXPRESSION)
+					this.body.writeBoolean(((FunctionExpressionTree) tree).isArrow());
+				this.writeTree(function.getBody(), start);
+				break;
+			}
+			case VARIABLE_DECLARATION: {
+				VariableDeclarationTree declaration = (VariableDeclarationTree) tree;
+				this.body.writeVarint(declaration.getDeclarationStyle().ordinal());
+				this.writeList(declaration.getDeclarations(), start);
+				break;
+			}
+			case VARIABLE_DECLARATOR: {
+				VariableDeclaratorTree declarator = (VariableDeclaratorTree) tree;
+				this.writeTree(declarator.getName(), start);
+				this.writeTree(declarator.getType(), start);
+				this.writeTree(declarator.getInitializer(), start);
+				break;
+			}
+			case CLASS_DECLARATION:
+			case CLASS_EXPRESSION: {
+				ClassTreeBase classTree = (ClassTreeBase) tree;
+				this.writeModifiers(classTree.getModifiers());
+				this.writeTree(classTree.getName(), start);
+				this.writeList(classTree.getTypeParameters(), start);
+				this.writeList(classTree.getHeritage(), start);
+				this.writeList(classTree.getProperties(), start);
+				break;
+			}
+			case TYPE_ALIAS: {
+				TypeAliasTree alias = (TypeAliasTree) tree;
+				this.writeTree(alias.getName(), start);
+				this.writeList(alias.getTypeParameters(), start);
+				this.writeTree(alias.getValue(), start);
+				break;
+			}
+			case INTERFACE_DECLARATION: {
+				InterfaceDeclarationTree iface = (InterfaceDeclarationTree) tree;
+				this.writeTree(iface.getName(), start);
+				this.writeList(iface.getTypeParameters(), start);
+				this.writeList(iface.getHeritage(), start);
+				this.writeList(iface.getDeclaredMembers(), start);
+				break;
+			}
+
+			// Literals
+			case BOOLEAN_LITERAL:
+				this.body.writeBoolean(((BooleanLiteralTree) tree).getValue());
+				break;
+			case NUMERIC_LITERAL:
+				this.writeNumber(((NumericLiteralTree) tree).getValue());
+				break;
+			case STRING_LITERAL:
+				this.writeString(((StringLiteralTree) tree).getValue());
+				break;
+			case REGEXP_LITERAL: {
+				RegExpLiteralTree regexp = (RegExpLiteralTree) tree;
+				this.writeString(regexp.getBody());
+				this.writeString(regexp.getFlags());
+				break;
+			}
+			case ARRAY_LITERAL:
+				this.writeList(((ArrayLiteralTree) tree).getElements(), start);
+				break;
+			case OBJECT_LITERAL:
+				this.writeList(((ObjectLiteralTree) tree).getProperties(), start);
+				break;
+			case TEMPLATE_LITERAL: {
+				TemplateLiteralTree template = (TemplateLiteralTree) tree;
+				this.writeList(template.getQuasis(), start);
+				this.writeList(template.getExpressions(), start);
+				break;
+			}
+			case TEMPLATE_ELEMENT: {
+				TemplateElementTree element = (TemplateElementTree) tree;
+				this.writeString(element.getRaw());
+				this.writeString(element.getCooked());
+				break;
+			}
+
+			// Operators
+			case AWAIT:
+			case YIELD:
+			case YIELD_GENERATOR:
+			case UNARY_PLUS:
+			case UNARY_MINUS:
+			case UNARY_NONNULL:
+			case TYPEOF:
+			case VOID:
+			case DELETE:
+			case POSTFIX_DECREMENT:
+			case POSTFIX_INCREMENT:
+			case PREFIX_DECREMENT:
+			case PREFIX_INCREMENT:
+			case BITWISE_NOT:
+			case LOGICAL_NOT:
+				this.writeTree(((UnaryTree) tree).getExpression(), start);
+				break;
+			case IN:
+			case INSTANCEOF:
+			case ADDITION:
+			case SUBTRACTION:
+			case MULTIPLICATION:
+			case DIVISION:
+			case REMAINDER:
+			case EXPONENTIATION:
+			case BITWISE_AND:
+			case BITWISE_OR:
+			case BITWISE_XOR:
+			case LEFT_SHIFT:
+			case RIGHT_SHIFT:
+			case UNSIGNED_RIGHT_SHIFT:
+			case LOGICAL_AND:
+			case LOGICAL_OR:
+			case EQUAL:
+			case NOT_EQUAL:
+			case STRICT_EQUAL:
+			case STRICT_NOT_EQUAL:
+			case GREATER_THAN:
+			case LESS_THAN:
+			case GREATER_THAN_EQUAL:
+			case LESS_THAN_EQUAL:
+			case ARRAY_ACCESS:
+			case MEMBER_SELECT: {
+				BinaryExpressionTree binary = (BinaryExpressionTree) tree;
+				this.writeTree(binary.getLeftOperand(), start);
+				this.writeTree(binary.getRightOperand(), start);
+				break;
+			}
+			case ASSIGNMENT:
+			case ADDITION_ASSIGNMENT:
+			case SUBTRACTION_ASSIGNMENT:
+			case MULTIPLICATION_ASSIGNMENT:
+			case DIVISION_ASSIGNMENT:
+			case REMAINDER_ASSIGNMENT:
+			case BITWISE_AND_ASSIGNMENT:
+			case BITWISE_OR_ASSIGNMENT:
+			case BITWISE_XOR_ASSIGNMENT:
+			case EXPONENTIATION_ASSIGNMENT:
+			case LEFT_SHIFT_ASSIGNMENT:
+			case RIGHT_SHIFT_ASSIGNMENT:
+			case UNSIGNED_RIGHT_SHIFT_ASSIGNMENT: {
+				AssignmentTree assignment = (AssignmentTree) tree;
+				this.writeTree(assignment.getVariable(), start);
+				this.writeTree(assignment.getValue(), start);
+				break;
+			}
+			case SEQUENCE:
+				this.writeList(((SequenceExpressionTree) tree).getElements(), start);
+				break;
+			case PARENTHESIZED:
+				this.writeTree(((ParenthesizedTree) tree).getExpression(), start);
+				break;
+			case CONDITIONAL: {
+				ConditionalExpressionTree conditional = (ConditionalExpressionTree) tree;
+				this.writeTree(conditional.getCondition(), start);
+				this.writeTree(conditional.getTrueExpression(), start);
+				this.writeTree(conditional.getFalseExpression(), start);
+				break;
+			}
+			case SPREAD:
+				this.writeTree(((SpreadElementTree) tree).getExpression(), start);
+				break;
+			case NEW: {
+				NewTree newTree = (NewTree) tree;
+				this.writeTree(newTree.getCallee(), start);
+				this.writeList(newTree.getTypeArguments(), start);
+				this.writeList(newTree.getArguments(), start);
+				break;
+			}
+			case FUNCTION_INVOCATION: {
+				FunctionCallTree call = (FunctionCallTree) tree;
+				this.writeTree(call.getCallee(), start);
+				this.writeList(call.getTypeArguments(), start);
+				this.writeList(call.getArguments(), start);
+				break;
+			}
+			case CAST: {
+				CastExpressionTree cast = (CastExpressionTree) tree;
+				this.writeTree(cast.getExpression(), start);
+				this.writeTree(cast.getType(), start);
+				break;
+			}
+			case IDENTIFIER:
+				this.writeString(((IdentifierTree) tree).getName());
+				break;
+			case COMPUTED_PROPERTY_KEY:
+				this.writeTree(((ComputedPropertyKeyTree) tree).getExpression(), start);
+				break;
+
+			// Modules
+			case IMPORT: {
+				ImportDeclarationTree importTree = (ImportDeclarationTree) tree;
+				this.writeList(importTree.getSpecifiers(), start);
+				this.writeTree(importTree.getSource(), start);
+				break;
+			}
+			case IMPORT_SPECIFIER: {
+				ImportSpecifierTree specifier = (ImportSpecifierTree) tree;
+				this.writeTree(specifier.getImported(), start);
+				this.writeTree(specifier.getAlias(), start);
+				this.body.writeBoolean(specifier.isDefault());
+				break;
+			}
+			case EXPORT: {
+				ExportTree export = (ExportTree) tree;
+				this.body.writeBoolean(export.isDefault());
+				this.writeTree(export.getExpression(), start);
+				break;
+			}
+
+			// Properties
+			case PARAMETER: {
+				ParameterTree parameter = (ParameterTree) tree;
+				this.writeModifiers(parameter.getModifiers());
+				this.writeTree(parameter.getName(), start);
+				this.body.writeBoolean(parameter.isRest());
+				this.writeTree(parameter.getType(), start);
+				this.writeTree(parameter.getInitializer(), start);
+				break;
+			}
+			case ASSIGNMENT_PROPERTY:
+			case SHORTHAND_ASSIGNMENT_PROPERTY: {
+				AssignmentPropertyTree property = (AssignmentPropertyTree) tree;
+				this.writeModifiers(property.getModifiers());
+				this.writeTree(property.getName(), start);
+				this.writeTree(property.getInitializer(), start);
+				break;
+			}
+			case PROPERTY_DECLARATION: {
+				PropertyDeclarationTree property = (PropertyDeclarationTree) tree;
+				this.writeModifiers(property.getModifiers());
+				this.writeTree(property.getName(), start);
+				this.writeTree(property.getType(), start);
+				this.writeTree(property.getInitializer(), start);
+				break;
+			}
+			case PROPERTY_SIGNATURE: {
+				PropertySignatureTree property = (PropertySignatureTree) tree;
+				this.writeModifiers(property.getModifiers());
+				this.writeTree(property.getName(), start);
+				this.writeTree(property.getType(), start);
+				break;
+			}
+			case METHOD_SIGNATURE: {
+				MethodSignatureTree method = (MethodSignatureTree) tree;
+				this.writeModifiers(method.getModifiers());
+				this.writeTree(method.getName(), start);
+				this.writeSignature(method, start);
+				break;
+			}
+			case CALL_SIGNATURE:
+			case CONSTRUCT_SIGNATURE: {
+				SignatureDeclarationTree signature = (SignatureDeclarationTree) tree;
+				this.writeTree(signature.getName(), start);
+				this.writeSignature(signature, start);
+				break;
+			}
+			case FUNCTION_TYPE:
+			case CONSTRUCTOR_TYPE:
+				this.writeSignature((SignatureDeclarationTree) tree, start);
+				break;
+			case INDEX_SIGNATURE: {
+				IndexSignatureTree index = (IndexSignatureTree) tree;
+				this.writeModifiers(index.getModifiers());
+				this.writeTree(index.getIndexType(), start);
+				this.writeTree(index.getReturnType(), start);
+				break;
+			}
+			case EXTENDS_CLAUSE:
+			case IMPLEMENTS_CLAUSE:
+				this.writeList(((HeritageClauseTree) tree).getTypes(), start);
+				break;
+			case HERITAGE_EXPRESSION: {
+				HeritageExpressionTree heritage = (HeritageExpressionTree) tree;
+				this.writeTree(heritage.getExpression(), start);
+				this.writeList(heritage.getTypeAguments(), start);
+				break;
+			}
+
+			// Patterns
+			case OBJECT_PATTERN:
+				this.writeList(((ObjectPatternTree) tree).getProperties(), start);
+				break;
+			case ARRAY_PATTERN:
+				this.writeList(((ArrayPatternTree) tree).getElements(), start);
+				break;
+			case ASSIGNMENT_PATTERN: {
+				AssignmentPatternTree pattern = (AssignmentPatternTree) tree;
+				this.writeTree(pattern.getName(), start);
+				this.writeTree(pattern.getValue(), start);
+				this.writeTree(pattern.getInitializer(), start);
+				break;
+			}
+
+			// Types
+			case SPECIAL_TYPE:
+				this.body.writeVarint(((SpecialTypeTree) tree).getType().ordinal());
+				break;
+			case LITERAL_TYPE:
+				this.writeTree(((LiteralTypeTree<?>) tree).getValue(), start);
+				break;
+			case TYPE_PARAMETER_DECLARATION: {
+				TypeParameterDeclarationTree parameter = (TypeParameterDeclarationTree) tree;
+				this.writeTree(parameter.getName(), start);
+				this.writeTree(parameter.getSupertype(), start);
+				this.writeTree(parameter.getDefault(), start);
+				break;
+			}
+			case IDENTIFIER_TYPE: {
+				IdentifierTypeTree type = (IdentifierTypeTree) tree;
+				this.writeTree(type.getName(), start);
+				this.writeList(type.getGenerics(), start);
+				break;
+			}
+			case TUPLE_TYPE:
+				this.writeList(((TupleTypeTree) tree).getSlotTypes(), start);
+				break;
+			case OBJECT_TYPE:
+				this.writeList(((ObjectTypeTree) tree).getDeclaredMembers(), start);
+				break;
+			case ARRAY_TYPE:
+				this.writeTree(((ArrayTypeTree) tree).getBaseType(), start);
+				break;
+			case KEYOF_TYPE:
+			case UNIQUE_TYPE:
+			case OPTIONAL_TYPE:
+			case DEFINITE_TYPE:
+				this.writeTree(((UnaryTypeTree) tree).getBaseType(), start);
+				break;
+			case MEMBER_TYPE: {
+				MemberTypeTree type = (MemberTypeTree) tree;
+				this.writeTree(type.getBaseType(), start);
+				this.writeTree(type.getName(), start);
+				break;
+			}
+			case TYPE_UNION:
+			case TYPE_INTERSECTION:
+				this.writeList(((CompositeTypeTree) tree).getConstituents(), start);
+				break;
+			case MAPPED_TYPE: {
+				MappedTypeTree type = (MappedTypeTree) tree;
+				this.writeModifiers(type.getModifiers());
+				this.writeTree(type.getParameter(), start);
+				this.writeTree(type.getType(), start);
+				break;
+			}
+			case CONDITIONAL_TYPE: {
+				ConditionalTypeTree type = (ConditionalTypeTree) tree;
+				this.writeTree(type.getCheckType(), start);
+				this.writeTree(type.getLimitType(), start);
+				this.writeTree(type.getConecquent(), start);
+				this.writeTree(type.getAlternate(), start);
+				break;
+			}
+			default:
+				throw new UnsupportedOperationException("Can't encode tree of kind " + tree.getKind());
+		}
+	}
+
+	/**
+	 * Growable byte buffer
+	 */
+	protected static class Buffer {
+		protected byte[] bytes;
+		protected int length = 0;
+
+		protected Buffer(int capacity) {
+			this.bytes = new byte[capacity];
+		}
+
+		protected void ensureCapacity(int extra) {
+			if (this.length + extra > this.bytes.length)
+				this.bytes = Arrays.copyOf(this.bytes, Math.max(this.bytes.length * 2, this.length + extra));
+		}
+
+		public void write(byte[] src, int offset, int length) {
+			this.ensureCapacity(length);
+			System.arraycopy(src, offset, this.bytes, this.length, length);
+			this.length += length;
+		}
+
+		public void writeBoolean(boolean value) {
+			this.ensureCapacity(1);
+			this.bytes[this.length++] = (byte) (value ? 1 : 0);
+		}
+
+		public void writeInt(int value) {
+			this.ensureCapacity(Integer.BYTES);
+			for (int shift = 24; shift >= 0; shift -= 8)
+				this.bytes[this.length++] = (byte) (value >>> shift);
+		}
+
+		public void writeLong(long value) {
+			this.ensureCapacity(Long.BYTES);
+			for (int shift = 56; shift >= 0; shift -= 8)
+				this.bytes[this.length++] = (byte) (value >>> shift);
+		}
+
+		/**
+		 * Write unsigned LEB128 varint
+		 * @param value
+		 */
+		public void writeVarint(long value) {
+			this.ensureCapacity(10);
+			while ((value & ~0x7FL) != 0) {
+				this.bytes[this.length++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			this.bytes[this.length++] = (byte) value;
+		}
+	}
+}
@@ -0,0 +1,234 @@
+package com.mindlin.jsast.impl.lexer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.mindlin.jsast.impl.lexer.JSLexer.TemplateTokenInfo;
+import com.mindlin.jsast.impl.lexer.Token.IdentifierToken;
+import com.mindlin.jsast.impl.lexer.Token.NumericLiteralToken;
+import com.mindlin.jsast.impl.lexer.Token.StringLiteralToken;
+import com.mindlin.jsast.impl.lexer.Token.TemplateLiteralToken;
+import com.mindlin.jsast.impl.tree.LineMap;
+import com.mindlin.nautilus.fs.SourcePosition;
+import com.mindlin.nautilus.fs.SourceRange;
+
+/**
+ * List of tokens, stored as parallel primitive arrays instead of one {@link Token} per token.
+ * <p>
+ * Positions are kept as offsets, and are only resolved (through the {@link LineMap}) when asked for.
+ * Token values (identifier names, string values, etc.) are stored in a side table; strings are interned, so
+ * each distinct name is only stored once.
+ * </p>
+ *
+ * @see JSLexer#tokenize(CompactTokenList)
+ */
+public class CompactTokenList {
+	/**
+	 * Value index for tokens that don't have a value (e.g., punctuation & keywords)
+	 */
+	public static final int NO_VALUE = -1;
+	protected static final JSSyntaxKind[] KINDS = JSSyntaxKind.values();
+	protected static final int DEFAULT_CAPACITY = 256;
+
+	protected int size = 0;
+	/**
+	 * {@link JSSyntaxKind} ordinal of each token
+	 */
+	protected short[] kinds;
+	/**
+	 * Offset of the first character of each token
+	 */
+	protected int[] starts;
+	/**
+	 * Offset of the last character of each token
+	 */
+	protected int[] ends;
+	protected byte[] flags;
+	/**
+	 * Index into {@link #values}
+	 */
+	protected int[] valueIndices;
+
+	protected Object[] values = new Object[64];
+	protected int valueCount = 0;
+	protected final Map<String, Integer> stringIndices = new HashMap<>();
+
+	protected LineMap lines;
+
+	public CompactTokenList() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public CompactTokenList(int capacity) {
+		capacity = Math.max(capacity, 1);
+		this.kinds = new short[capacity];
+		this.starts = new int[capacity];
+		this.ends = new int[capacity];
+		this.flags = new byte[capacity];
+		this.valueIndices = new int[capacity];
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public LineMap getLines() {
+		return this.lines;
+	}
+
+	public void setLines(LineMap lines) {
+		this.lines = lines;
+	}
+
+	protected void ensureCapacity(int capacity) {
+		if (capacity <= this.kinds.length)
+			return;
+		int newCapacity = Math.max(capacity, this.kinds.length + (this.kinds.length >> 1));
+		this.kinds = Arrays.copyOf(this.kinds, newCapacity);
+		this.starts = Arrays.copyOf(this.starts, newCapacity);
+		this.ends = Arrays.copyOf(this.ends, newCapacity);
+		this.flags = Arrays.copyOf(this.flags, newCapacity);
+		this.valueIndices = Arrays.copyOf(this.valueIndices, newCapacity);
+	}
+
+	protected int putValue(Object value) {
+		if (value == null)
+			return NO_VALUE;
+		if (value instanceof CharSequence) {
+			String key = value.toString();
+			Integer existing = this.stringIndices.get(key);
+			if (existing != null)
+				return existing;
+			value = key;
+			this.stringIndices.put(key, this.valueCount);
+		}
+		if (this.valueCount == this.values.length)
+			this.values = Arrays.copyOf(this.values, this.values.length * 2);
+		this.values[this.valueCount] = value;
+		return this.valueCount++;
+	}
+
+	/**
+	 * Append a token
+	 * @param kind Token kind
+	 * @param start Offset of first character
+	 * @param end Offset of last character
+	 * @param flags Token flags (see {@link Token#FLAG_PRECEDEING_NEWLINE})
+	 * @param value Token value, or null
+	 * @return Index of added token
+	 */
+	public int add(JSSyntaxKind kind, long start, long end, int flags, Object value) {
+		if (end > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Offset too large: " + end);
+		this.ensureCapacity(this.size + 1);
+		int i = this.size++;
+		this.kinds[i] = (short) kind.ordinal();
+		this.starts[i] = (int) start;
+		this.ends[i] = (int) end;
+		this.flags[i] = (byte) flags;
+		this.valueIndices[i] = this.putValue(value);
+		return i;
+	}
+
+	public JSSyntaxKind getKind(int index) {
+		return KINDS[this.kinds[checkIndex(index)]];
+	}
+
+	public boolean matches(int index, JSSyntaxKind kind) {
+		return this.kinds[checkIndex(index)] == kind.ordinal();
+	}
+
+	public int getStartOffset(int index) {
+		return this.starts[checkIndex(index)];
+	}
+
+	public int getEndOffset(int index) {
+		return this.ends[checkIndex(index)];
+	}
+
+	public int getFlags(int index) {
+		return this.flags[checkIndex(index)];
+	}
+
+	public boolean hasPrecedingNewline(int index) {
+		return (this.getFlags(index) & Token.FLAG_PRECEDEING_NEWLINE) != 0;
+	}
+
+	/**
+	 * @param index Token index
+	 * @return Index of the token's value, or {@link #NO_VALUE}. Equal strings always have the same index.
+	 */
+	public int getValueIndex(int index) {
+		return this.valueIndices[checkIndex(index)];
+	}
+
+	/**
+	 * Get a token's value: the name of identifiers, value of string literals, {@link ParsedNumber} for numeric
+	 * literals, and {@link TemplateTokenInfo} for templates.
+	 * @param index Token index
+	 * @return value, or null
+	 */
+	public Object getValue(int index) {
+		int valueIndex = this.getValueIndex(index);
+		return valueIndex == NO_VALUE ? null : this.values[valueIndex];
+	}
+
+	/**
+	 * Get the value at an index in the value table
+	 * @param valueIndex
+	 * @return value
+	 * @see #getValueIndex(int)
+	 */
+	public Object getValueAt(int valueIndex) {
+		if (valueIndex < 0 || valueIndex >= this.valueCount)
+			throw new IndexOutOfBoundsException("Value " + valueIndex + " not in [0, " + this.valueCount + ")");
+		return this.values[valueIndex];
+	}
+
+	public SourcePosition getStart(int index) {
+		return this.lines.lookup(this.getStartOffset(index));
+	}
+
+	public SourcePosition getEnd(int index) {
+		return this.lines.lookup(this.getEndOffset(index));
+	}
+
+	public SourceRange getRange(int index) {
+		return new SourceRange(this.getStart(index), this.getEnd(index));
+	}
+
+	/**
+	 * Build a {@link Token} for a token in this list.
+	 * Token text is not stored, so it is only available for tokens with fixed text (punctuation & keywords).
+	 * @param index
+	 * @return token
+	 */
+	public Token toToken(int index) {
+		JSSyntaxKind kind = this.getKind(index);
+		int flags = this.getFlags(index);
+		SourceRange range = this.getRange(index);
+		Object value = this.getValue(index);
+		switch (kind) {
+			case IDENTIFIER:
+				return new IdentifierToken(flags, range, (String) value, (String) value);
+			case STRING_LITERAL:
+				return new StringLiteralToken(flags, range, null, (String) value);
+			case NUMERIC_LITERAL:
+				return new NumericLiteralToken(flags, range, null, (Number) value);
+			case TEMPLATE_LITERAL: {
+				// Continuations aren't scanned without a parser, so every template token is a head
+				TemplateTokenInfo info = (TemplateTokenInfo) value;
+				return new TemplateLiteralToken(flags, range, null, true, info.tail, info.cooked);
+			}
+			default:
+				return new Token(flags, range, kind, kind.getText());
+		}
+	}
+
+	protected int checkIndex(int index) {
+		if (index < 0 || index >= this.size)
+			throw new IndexOutOfBoundsException("Token " + index + " not in [0, " + this.size + ")");
+		return index;
+	}
+}
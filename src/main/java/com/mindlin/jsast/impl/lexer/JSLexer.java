@@ -2,11 +2,7 @@ package com.mindlin.jsast.impl.lexer;
 
 import java.io.Closeable;
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.CharBuffer;
-import java.nio.charset.Charset;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.Objects;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
@@ -23,7 +19,10 @@ import com.mindlin.jsast.impl.lexer.Token.StringLiteralToken;
 import com.mindlin.jsast.impl.lexer.Token.TemplateLiteralToken;
 import com.mindlin.jsast.impl.tree.LineMap;
 import com.mindlin.jsast.impl.tree.LineMap.LineMapBuilder;
+import com.mindlin.jsast.impl.tree.NewlineScanner;
 import com.mindlin.jsast.impl.util.Characters;
+import com.mindlin.jsast.impl.util.ExtendedAsciiCharset;
+import com.mindlin.jsast.impl.util.SourceSlice;
 import com.mindlin.nautilus.fs.SourceFile;
 import com.mindlin.nautilus.fs.SourcePosition;
 import com.mindlin.nautilus.fs.SourceRange;
@@ -33,23 +32,66 @@ import com.mindlin.nautilus.util.CharacterStream;
 public class JSLexer implements Supplier<Token>, Closeable {
 	
 	protected static String decodeEASCII(byte value) {
-		Charset easciiCharset = Charset.forName("EASCII");
-		CharBuffer buffer = easciiCharset.decode(ByteBuffer.wrap(new byte[]{ value }));
-		return buffer.toString();
+		return String.valueOf(ExtendedAsciiCharset.decode(value));
 	}
 	
 	protected final CharacterStream chars;
-	protected Token lookahead = null;
-	protected LinkedList<Token> lookaheads = new LinkedList<>();
+	/**
+	 * Array backing {@link #chars}, if known. Token text and string values are sliced out of it, instead of being
+	 * copied.
+	 */
+	protected final char[] sourceChars;
+	/**
+	 * Lookahead tokens, plus any consumed tokens that we might have to backtrack to
+	 */
+	protected final TokenBuffer tokens = new TokenBuffer();
+	/**
+	 * Indices of consumed tokens that were re-scanned (as a regex or template continuation) while marked.
+	 * Any tokens after them are invalid if we rewind past them.
+	 */
+	protected int[] rescans = new int[4];
+	protected int rescanCount = 0;
+	/**
+	 * Offset of the first character of the last scanned token
+	 * @see #scanToken()
+	 */
+	protected long tokenStart;
+	/**
+	 * Flags of the last scanned token
+	 * @see #scanToken()
+	 */
+	protected int tokenFlags;
+	/**
+	 * Value of the last scanned token (identifier name, string/numeric literal value, or template info)
+	 * @see #scanToken()
+	 */
+	protected Object tokenValue;
 	//TODO: supply source file
-	protected final LineMapBuilder lines;
+	protected final LineMap lines;
+	/**
+	 * Builder that newlines are recorded into as they're lexed. Null if {@link #lines} was computed up front.
+	 */
+	protected final LineMapBuilder lineBuilder;
+	/**
+	 * Table that identifier names are interned into. Created on demand, if not set.
+	 */
+	protected NameTable names;
+	/**
+	 * Scratch buffer for identifier names
+	 * @see #scanIdentifier()
+	 */
+	protected char[] nameBuffer = new char[32];
+	/**
+	 * Hash of the last name scanned into {@link #nameBuffer}
+	 */
+	protected int nameHash;
 	
 	public JSLexer(String src) {
-		this(new CharacterArrayStream(src));
+		this(src.toCharArray());
 	}
 	
 	public JSLexer(char[] chars) {
-		this(new CharacterArrayStream(chars));
+		this(null, chars, NewlineScanner.compile(null, chars, 0, chars.length));
 	}
 	
 	public JSLexer(CharacterStream chars) {
@@ -61,12 +103,43 @@ public class JSLexer implements Supplier<Token>, Closeable {
 	}
 	
 	public JSLexer(SourceFile source, CharacterStream chars) {
-		this.lines = new LineMapBuilder(source);
+		this.lines = this.lineBuilder = new LineMapBuilder(source);
 		this.chars = chars;
+		this.sourceChars = null;
+	}
+	
+	/**
+	 * Create lexer with a precomputed line map (see {@link NewlineScanner}), so newlines don't have to be
+	 * tracked while lexing.
+	 * @param source
+	 * @param chars
+	 * @param lines Line map for all of {@code chars}
+	 */
+	public JSLexer(SourceFile source, CharacterStream chars, LineMap lines) {
+		this(source, chars, null, lines);
+	}
+	
+	/**
+	 * Create lexer over an array, with a precomputed line map. Token text and string values will be views of
+	 * {@code chars}, so it must not be modified while the tokens are in use.
+	 * @param source
+	 * @param chars
+	 * @param lines Line map for all of {@code chars}
+	 */
+	public JSLexer(SourceFile source, char[] chars, LineMap lines) {
+		this(source, new CharacterArrayStream(chars), chars, lines);
+	}
+	
+	protected JSLexer(SourceFile source, CharacterStream chars, char[] sourceChars, LineMap lines) {
+		this.lines = Objects.requireNonNull(lines);
+		this.lineBuilder = null;
+		this.chars = chars;
+		this.sourceChars = sourceChars;
 	}
 	
 	protected void markNewline(long position) {
-		this.lines.putNewline(position);
+		if (this.lineBuilder != null)
+			this.lineBuilder.putNewline(position);
 	}
 	
 	protected void error(SourcePosition location, String text, Object...args) {
@@ -114,21 +187,48 @@ public class JSLexer implements Supplier<Token>, Closeable {
 		return this.chars;
 	}
 	
+	/**
+	 * @return Table that identifiers are interned into, or null if not yet set
+	 */
+	public NameTable getNameTable() {
+		return this.names;
+	}
+	
+	/**
+	 * Set table that identifiers are interned into. Should be set before any tokens are read.
+	 * @param names
+	 */
+	public void setNameTable(NameTable names) {
+		this.names = Objects.requireNonNull(names);
+	}
+	
 	protected void invalidateLookaheads(long clobberIdx) {
-		if (this.lookahead == null) {
-			// No-op
-		} else if (clobberIdx <= this.lookahead.getEnd().getOffset()) {
-			this.lookahead = null;
-			this.lookaheads.clear();
-		} else if (!this.lookaheads.isEmpty()) {
-			// Clobber some
-			for (Iterator<Token> iter = this.lookaheads.descendingIterator(); iter.hasNext(); ) {
-				Token current = iter.next();
-				if (clobberIdx > current.getEnd().getOffset())
-					break;
-				iter.remove();
-			}
-		}
+		int limit = this.tokens.getLimit();
+		int cursor = this.tokens.getCursor();
+		while (limit > cursor && clobberIdx <= this.tokens.get(limit - 1).getEndOffset())
+			limit--;
+		this.tokens.truncate(limit);
+	}
+	
+	/**
+	 * Note that the last consumed token was re-scanned, so lookaheads lexed after it are only
+	 * valid until we rewind past it.
+	 */
+	protected void markRescanned() {
+		if (this.tokens.getMarkDepth() == 0)
+			return;
+		if (this.rescanCount == this.rescans.length)
+			this.rescans = Arrays.copyOf(this.rescans, this.rescans.length * 2);
+		this.rescans[this.rescanCount++] = this.tokens.getCursor() - 1;
+	}
+	
+	/**
+	 * Get the index of the next token. Indices are stable across {@link #mark()}/{@link #reset()}.
+	 * 
+	 * @return Index of next token
+	 */
+	public int getTokenIndex() {
+		return this.tokens.getCursor();
 	}
 	
 	public String nextStringLiteral() {
@@ -138,32 +238,29 @@ public class JSLexer implements Supplier<Token>, Closeable {
 		return null;
 	}
 	
-	protected String readOctalEASCII(char c) {
-		//TODO: test if lookahead exists?
+	protected char readOctalEASCII(char c) {
 		int val = c - '0';
-		if (chars.peek() >= '0' && chars.peek() <= '7') {
+		if (chars.hasNext() && chars.peek() >= '0' && chars.peek() <= '7') {
 			val = (val << 3) | (chars.next() - '0');
-			if (val < 32 && chars.peek() >= '0' && chars.peek() <= '7')
+			if (val < 32 && chars.hasNext() && chars.peek() >= '0' && chars.peek() <= '7')
 				val = (val << 3) | (chars.next() - '0');
 		}
-		return JSLexer.decodeEASCII((byte) val);
+		return ExtendedAsciiCharset.decode(val);
 	}
 	
-	protected String readHexEASCII() {
+	protected char readHexEASCII() {
 		// EASCII hexdecimal character escape
 		// In \xXX form 
 		if (!chars.hasNext(2))
 			throw new JSEOFException(JSLexerMessages.EASCII_EOF, this.resolvePosition(this.getPositionOffset() - 2));
-		String text = chars.copyNext(2).toString();
-		int val;
-		try {
-			val = Integer.parseInt(text, 16);
-		} catch (NumberFormatException e) {
+		char hi = chars.next();
+		char lo = chars.next();
+		if (!Characters.isHexDigit(hi) || !Characters.isHexDigit(lo)) {
 			SourceRange range = new SourceRange(this.resolvePosition(this.getPositionOffset() - 4), this.getPosition());
-			throw new JSSyntaxException("Invalid Extended ASCII escape sequence (\\x" + text + ")", range, e);
+			throw new JSSyntaxException("Invalid Extended ASCII escape sequence (\\x" + hi + lo + ")", range);
 		}
 		
-		return JSLexer.decodeEASCII((byte) val);
+		return ExtendedAsciiCharset.decode((Characters.asHexDigit(hi) << 4) | Characters.asHexDigit(lo));
 	}
 	
 	/**
@@ -243,25 +340,37 @@ public class JSLexer implements Supplier<Token>, Closeable {
 		return "";
 	}
 	
-	protected String readEscapeSequence(char c) {
+	/**
+	 * Decode an escape sequence (after the backslash), appending it to {@code out}
+	 * @param c Char after the backslash
+	 * @param out
+	 */
+	protected void readEscapeSequence(char c, StringBuilder out) {
 		switch (c) {
 			case '\'':
 			case '"':
 			case '\\':
 			case '`':
-				return Character.toString(c);
+				out.append(c);
+				return;
 			case 'n':
-				return "\n";
+				out.append('\n');
+				return;
 			case 'r':
-				return "\r";
+				out.append('\r');
+				return;
 			case 'v':
-				return Character.toString(Characters.VT);// vertical tab; it's a thing.
+				out.append(Characters.VT);// vertical tab; it's a thing.
+				return;
 			case 't':
-				return "\t";
+				out.append('\t');
+				return;
 			case 'b':
-				return "\b";
+				out.append('\b');
+				return;
 			case 'f':
-				return "\f";
+				out.append('\f');
+				return;
 			case '0':
 			case '1':
 			case '2':
@@ -271,32 +380,52 @@ public class JSLexer implements Supplier<Token>, Closeable {
 			case '6':
 			case '7':
 				//EASCII octal escape
-				return this.readOctalEASCII(c);
+				out.append(this.readOctalEASCII(c));
+				return;
 			case '\n':
 				this.markNewline(chars.position());
 				if (chars.hasNext() && chars.peek() == '\r')
 					chars.skip(1);
-				return "";
+				return;
 			case '\r':
 				if (chars.hasNext() && chars.peek() == '\n') {
 					this.markNewline(chars.position());
 					chars.skip(1);
 				}
-				return "";
+				return;
 			case 'u':
 				//Unicode escape
-				return this.readUnicodeEscapeSequence();
+				out.append(this.readUnicodeEscapeSequence());
+				return;
 			case 'x':
-				return this.readHexEASCII();
+				out.append(this.readHexEASCII());
+				return;
 			default:
 				throw new JSSyntaxException("Invalid escape sequence: \\" + c, this.resolvePosition(this.getPositionOffset() - 2));
 		}
 	}
 	
 	protected TemplateTokenInfo nextTemplateLiteral() {
+		// Fast path: if there are no escapes (or '\r's), the cooked value is exactly the source text
+		long start = chars.position();
+		int length = 0;
+		while (chars.hasNext()) {
+			char c = chars.next();
+			if (c == '`' || (c == '$' && chars.hasNext() && chars.peek() == '{')) {
+				chars.position(start);
+				String cooked = chars.next(length);
+				chars.skip(c == '`' ? 1 : 2);
+				return new TemplateTokenInfo(false, c == '`', cooked);
+			} else if (c == '\\' || c == '\r') {
+				break;
+			}
+			length++;
+		}
+		chars.position(start);
+		
 		boolean tail = false;
 		boolean escaped = false;
-		StringBuilder cooked = new StringBuilder();
+		StringBuilder cooked = new StringBuilder(length + 16);
 		
 		loop:
 		while (true) {
@@ -305,7 +434,7 @@ public class JSLexer implements Supplier<Token>, Closeable {
 			char c = chars.next();
 			if (escaped) {
 				escaped = false;
-				cooked.append(this.readEscapeSequence(c));
+				this.readEscapeSequence(c, cooked);
 				continue;
 			}
 			switch (c) {
@@ -341,7 +470,35 @@ public class JSLexer implements Supplier<Token>, Closeable {
 	}
 	
 	public String nextStringLiteral(final char startChar) {
-		StringBuilder sb = new StringBuilder();
+		return this.scanStringLiteral(startChar).toString();
+	}
+	
+	/**
+	 * Read the rest of a string literal
+	 * @param startChar Opening quote
+	 * @return Value of literal. If there were no escapes, this may be a view of the source.
+	 */
+	protected CharSequence scanStringLiteral(final char startChar) {
+		// Fast path: if there are no escapes (or newlines), the value can be taken straight from the source
+		long start = chars.position();
+		int length = 0;
+		while (chars.hasNext()) {
+			char c = chars.next();
+			if (c == startChar) {
+				if (this.sourceChars != null)
+					return new SourceSlice(this.sourceChars, (int) start + 1, length);
+				chars.position(start);
+				String value = chars.next(length);
+				chars.skip(1);
+				return value;
+			} else if (c == '\\' || c == '\r' || c == '\n') {
+				break;
+			}
+			length++;
+		}
+		chars.position(start);
+		
+		StringBuilder sb = new StringBuilder(length + 16);
 		boolean isEscaped = false;
 		while (true) {
 			if (!chars.hasNext())
@@ -349,7 +506,7 @@ public class JSLexer implements Supplier<Token>, Closeable {
 			char c = chars.next();
 			if (isEscaped) {
 				isEscaped = false;
-				sb.append(readEscapeSequence(c));
+				readEscapeSequence(c, sb);
 				continue;
 			} else if (c == '\\') {
 				isEscaped = true;
@@ -667,38 +824,85 @@ public class JSLexer implements Supplier<Token>, Closeable {
 	}
 	
 	public String nextIdentifier() {
-		if (!chars.hasNext())
+		int length = this.scanIdentifier();
+		if (length < 0)
 			return null;
+		return this.internName(length);
+	}
+	
+	/**
+	 * Read an identifier into {@link #nameBuffer}, without allocating a string for it.
+	 * @return Length of identifier, or -1 if there isn't an identifier next
+	 */
+	protected int scanIdentifier() {
+		if (!chars.hasNext())
+			return -1;
 		
-		StringBuilder sb = new StringBuilder();
+		char[] buffer = this.nameBuffer;
+		int length = 0;
+		// Hash is computed as we go, so the name can be looked up without being copied
+		int hash = 0;
 		
 		//Start character
 		{
 			char startChar = chars.peek();
 			if (Characters.canStartIdentifier(startChar)) {
 				chars.skip(1);
-				sb.append(startChar);
+				buffer[length++] = startChar;
+				hash = startChar;
 			} else if (startChar == '\\' && chars.peek(2) == 'u') {
 				chars.skip(2);
-				sb.append(readUnicodeEscapeSequence());
+				String escaped = readUnicodeEscapeSequence();
+				buffer = this.ensureNameCapacity(escaped.length());
+				for (int i = 0; i < escaped.length(); i++) {
+					char c = escaped.charAt(i);
+					buffer[length++] = c;
+					hash = 31 * hash + c;
+				}
 			} else
 				//Not start of identifier
-				return null;
+				return -1;
 		}
 		
 		while (chars.hasNext()) {
 			char c = chars.peek();
 			if (Characters.isIdentifierPart(c)) {
 				chars.skip(1);
-				sb.append(c);
+				if (length == buffer.length)
+					buffer = this.ensureNameCapacity(length + 1);
+				buffer[length++] = c;
+				hash = 31 * hash + c;
 			} else if (c == '\\'  && chars.peek(2) == 'u') {
 				chars.skip(2);
-				sb.append(readUnicodeEscapeSequence());
+				String escaped = readUnicodeEscapeSequence();
+				buffer = this.ensureNameCapacity(length + escaped.length());
+				for (int i = 0; i < escaped.length(); i++) {
+					c = escaped.charAt(i);
+					buffer[length++] = c;
+					hash = 31 * hash + c;
+				}
 			} else
 				break;
 		}
-		//TODO: intern string?
-		return sb.toString();
+		
+		this.nameHash = hash;
+		return length;
+	}
+	
+	/**
+	 * @param length Length of name in {@link #nameBuffer}
+	 * @return Interned name
+	 */
+	protected String internName(int length) {
+		if (this.names == null)
+			this.names = new NameTable();
+		return this.names.intern(this.nameBuffer, 0, length, this.nameHash);
+	}
+	
+	private char[] ensureNameCapacity(int capacity) {
+		if (capacity > this.nameBuffer.length)
+			this.nameBuffer = Arrays.copyOf(this.nameBuffer, Math.max(capacity, this.nameBuffer.length * 2));
+		return this.nameBuffer;
 	}
 	
 	public String nextRegularExpression() {
@@ -784,16 +988,17 @@ public class JSLexer implements Supplier<Token>, Closeable {
 		if (!start.matches(JSSyntaxKind.DIVISION) && !start.matches(JSSyntaxKind.DIVISION_ASSIGNMENT))
 			throw new JSSyntaxException("Regular expression must start with a slash", start.getRange());
 		
-		this.invalidateLookaheads(start.getEnd().getOffset());
+		this.invalidateLookaheads(start.getEndOffset());
+		this.markRescanned();
 		
 		chars.mark();
 		
 		String body = scanRegExpBody(start.text.toString());
 		String flags = scanRegExpFlags();
 		
-		SourceRange range = new SourceRange(start.getStart(), this.getPosition());
+		long end = this.getPositionOffset();
 		String text = start.text + chars.copyFromMark();
-		return new RegExpToken(start.flags, range, text, body, flags);
+		return new RegExpToken(start.flags, this.lines, start.getStartOffset(), end, text, body, flags);
 	}
 	
 	public TemplateLiteralToken finishTemplate(Token start) {
@@ -801,15 +1006,16 @@ public class JSLexer implements Supplier<Token>, Closeable {
 		if (!start.matches(JSSyntaxKind.RIGHT_BRACE))
 			throw new JSSyntaxException("Template continuation must start with a right brace", start.getRange());
 		
-		this.invalidateLookaheads(start.getEnd().getOffset());
+		this.invalidateLookaheads(start.getEndOffset());
+		this.markRescanned();
 		
 		chars.mark();
 		
 		TemplateTokenInfo data = this.nextTemplateLiteral();
 		
-		SourceRange range = new SourceRange(start.getStart(), this.getPosition());
+		long end = this.getPositionOffset();
 		CharSequence text = start.getText() + chars.copyFromMark();
-		return new TemplateLiteralToken(start.flags, range, text, false, data.tail, data.cooked);
+		return new TemplateLiteralToken(start.flags, this.lines, start.getStartOffset(), end, text, false, data.tail, data.cooked);
 	}
 	
 	public String nextComment(final boolean singleLine) {
@@ -824,7 +1030,7 @@ public class JSLexer implements Supplier<Token>, Closeable {
 			
 			//Mark newline
 			if (c == '\n')
-				this.lines.putNewline(chars.position());
+				this.markNewline(chars.position());
 			
 			//End conditions
 			if (singleLine) {
@@ -839,40 +1045,53 @@ public class JSLexer implements Supplier<Token>, Closeable {
 		return sb.toString();
 	}
 	
+	/**
+	 * Get text of the token from the mark to the current position (inclusive), and pop the mark
+	 * @param start Offset of first char of token (where the mark is)
+	 * @return Token text
+	 */
+	protected CharSequence textFromMark(long start) {
+		if (this.sourceChars == null)
+			return chars.copyFromMark();
+		chars.unmark();
+		return new SourceSlice(this.sourceChars, (int) start, (int) (this.getPositionOffset() - start + 1));
+	}
+	
+	/**
+	 * Like {@link #textFromMark(long)}, but returns {@code fixedText} (without copying anything) if the token is the
+	 * same length. Fixed text can only be written one way, unless it has escapes (which would make it longer).
+	 */
+	protected CharSequence textFromMark(long start, String fixedText) {
+		if (fixedText != null && this.getPositionOffset() - start + 1 == fixedText.length()) {
+			chars.unmark();
+			return fixedText;
+		}
+		return this.textFromMark(start);
+	}
+	
 	protected Token finishToken(long start, int flags, JSSyntaxKind kind) {
-		SourceRange range = new SourceRange(this.resolvePosition(start + 1), this.getPosition());
-		String text = chars.copyFromMark();
-		return new Token(flags, range, kind, text);
+		CharSequence text = this.textFromMark(start, kind.getText());
+		return new Token(flags, this.lines, start, this.getPositionOffset(), kind, text);
 	}
 	
-	protected Token finishStringLiteralToken(long start, int flags) {
-		String value = this.nextStringLiteral();
-		SourceRange range = new SourceRange(this.resolvePosition(start + 1), this.getPosition());
-		String text = chars.copyFromMark();
-		return new StringLiteralToken(flags, range, text, value);
+	protected Token finishStringLiteralToken(long start, int flags, CharSequence value) {
+		CharSequence text = this.textFromMark(start);
+		return new StringLiteralToken(flags, this.lines, start, this.getPositionOffset(), text, value);
 	}
 	
-	protected Token finishTemplateToken(long start, int flags) {
-		chars.skip(1);// Skip over the leading '`'
-		TemplateTokenInfo value = this.nextTemplateLiteral();
-		SourceRange range = new SourceRange(this.resolvePosition(start + 1), this.getPosition());
-		String text = chars.copyFromMark();
-		return new TemplateLiteralToken(flags, range, text, true, value.tail, value.cooked);
+	protected Token finishTemplateToken(long start, int flags, TemplateTokenInfo value) {
+		CharSequence text = this.textFromMark(start);
+		return new TemplateLiteralToken(flags, this.lines, start, this.getPositionOffset(), text, true, value.tail, value.cooked);
 	}
 	
 	protected Token finishIdentifierToken(long start, int flags, String name) {
-		SourceRange range = new SourceRange(this.resolvePosition(start + 1), this.getPosition());
-		String text = chars.copyFromMark();
-		return new IdentifierToken(flags, range, text, name.intern());
+		CharSequence text = this.textFromMark(start, name);
+		return new IdentifierToken(flags, this.lines, start, this.getPositionOffset(), text, name);
 	}
 	
-	protected Token finishNumericLiteralToken(long start, int flags) {
-		ParsedNumber value = this.nextNumericLiteral();
-		
-		SourceRange range = new SourceRange(this.resolvePosition(start + 1), this.getPosition());
-		String text = chars.copyFromMark();
-		
-		return new NumericLiteralToken(flags, range, text, value);
+	protected Token finishNumericLiteralToken(long start, int flags, ParsedNumber value) {
+		CharSequence text = this.textFromMark(start);
+		return new NumericLiteralToken(flags, this.lines, start, this.getPositionOffset(), text, value);
 	}
 	
 	protected boolean isSingleLineCommentStart() {
@@ -1062,203 +1281,43 @@ public class JSLexer implements Supplier<Token>, Closeable {
 	}
 	
 	protected JSSyntaxKind lookupKeyword(String name) {
-		switch (name) {
-			case "abstract":
-				return JSSyntaxKind.ABSTRACT;
-			case "as":
-				return JSSyntaxKind.AS;
-			case "async":
-				return JSSyntaxKind.ASYNC;
-			case "await":
-				return JSSyntaxKind.AWAIT;
-			case "bigint":
-				break;//TODO
-			case "boolean":
-				break;//TODO
-			case "break":
-				return JSSyntaxKind.BREAK;
-			case "case":
-				return JSSyntaxKind.CASE;
-			case "catch":
-				return JSSyntaxKind.CATCH;
-			case "class":
-				return JSSyntaxKind.CLASS;
-			case "continue":
-				return JSSyntaxKind.CONTINUE;
-			case "const":
-				return JSSyntaxKind.CONST;
-			case "constructor":
-				return JSSyntaxKind.CONSTRUCTOR;
-			case "debugger":
-				return JSSyntaxKind.DEBUGGER;
-			case "declare":
-				return JSSyntaxKind.DECLARE;
-			case "default":
-				return JSSyntaxKind.DEFAULT;
-			case "delete":
-				return JSSyntaxKind.DELETE;
-			case "do":
-				return JSSyntaxKind.DO;
-			case "else":
-				return JSSyntaxKind.ELSE;
-			case "enum":
-				return JSSyntaxKind.ENUM;
-			case "export":
-				return JSSyntaxKind.EXPORT;
-			case "extends":
-				return JSSyntaxKind.EXTENDS;
-			case "false":
-				return JSSyntaxKind.FALSE;
-			case "finally":
-				return JSSyntaxKind.FINALLY;
-			case "for":
-				return JSSyntaxKind.FOR;
-			case "from":
-				return JSSyntaxKind.FROM;
-			case "function":
-				return JSSyntaxKind.FUNCTION;
-			case "get":
-				return JSSyntaxKind.GET;
-			case "global":
-				break;//TODO
-			case "if":
-				return JSSyntaxKind.IF;
-			case "implements":
-				return JSSyntaxKind.IMPLEMENTS;
-			case "import":
-				return JSSyntaxKind.IMPORT;
-			case "in":
-				return JSSyntaxKind.IN;
-			case "infer":
-				break;//TODO
-			case "instanceof":
-				return JSSyntaxKind.INSTANCEOF;
-			case "interface":
-				return JSSyntaxKind.INTERFACE;
-			case "is":
-				break;//TODO
-			case "keyof":
-				break;//TODO
-			case "let":
-				return JSSyntaxKind.LET;
-			case "module":
-				break;//TODO
-			case "namespace":
-				break;//TODO
-			case "never":
-				break;//TODO
-			case "new":
-				return JSSyntaxKind.NEW;
-			case "null":
-				return JSSyntaxKind.NULL;
-			case "number":
-				break;//TODO
-			case "object":
-				break;//TODO
-			case "of":
-				return JSSyntaxKind.OF;
-			case "package":
-				return JSSyntaxKind.PACKAGE;
-			case "private":
-				return JSSyntaxKind.PRIVATE;
-			case "protected":
-				return JSSyntaxKind.PROTECTED;
-			case "public":
-				return JSSyntaxKind.PUBLIC;
-			case "readonly":
-				return JSSyntaxKind.READONLY;
-			case "require":
-				break;//TODO
-			case "return":
-				return JSSyntaxKind.RETURN;
-			case "set":
-				return JSSyntaxKind.SET;
-			case "static":
-				return JSSyntaxKind.STATIC;
-			case "string":
-				break;//TODO
-			case "super":
-				return JSSyntaxKind.SUPER;
-			case "switch":
-				return JSSyntaxKind.SWITCH;
-			case "symbol":
-				break;//TODO
-			case "this":
-				return JSSyntaxKind.THIS;
-			case "throw":
-				return JSSyntaxKind.THROW;
-			case "true":
-				return JSSyntaxKind.TRUE;
-			case "try":
-				return JSSyntaxKind.TRY;
-			case "type":
-				return JSSyntaxKind.TYPE;
-			case "typeof":
-				return JSSyntaxKind.TYPEOF;
-			case "undefined":
-				break;//TODO
-			case "unique":
-				break;//TODO
-			case "unknown":
-				break;//TODO
-			case "var":
-				return JSSyntaxKind.VAR;
-			case "void":
-				return JSSyntaxKind.VOID;
-			case "while":
-				return JSSyntaxKind.WHILE;
-			case "with":
-				return JSSyntaxKind.WITH;
-			case "yield":
-				return JSSyntaxKind.YIELD;
-			default:
-				break;
-		}
-		return null;
+		return KeywordTable.lookup(name);
 	}
 	
-	protected Token readToken() {
-		//Skip whitespace until token
-		final long scanStart = Math.max(this.getPositionOffset(), -1);
+	/**
+	 * Scan the next token, without building a {@link Token} for it.
+	 * <p>
+	 * Unless the result is {@link JSSyntaxKind#END_OF_FILE EOF}, the character stream is left marked at the start of
+	 * the token, and its start, flags, and value (if any) are in {@link #tokenStart}, {@link #tokenFlags}, and
+	 * {@link #tokenValue}.
+	 * </p>
+	 * @return Kind of scanned token
+	 */
+	protected JSSyntaxKind scanToken() {
 		int flags = 0;
-		while (chars.hasNext() && Characters.isJsWhitespace(chars.peek())) {
-			if (Characters.isLineBreak(chars.next())) {
-				flags |= Token.FLAG_PRECEDEING_NEWLINE;
-				//TODO: does this cause problems if we're backtracking?
-				this.lines.putNewline(chars.position());
-			}
-		}
-		
-		//Special EOF token
-		if (isEOF()) {
-			SourceRange range = new SourceRange(this.getPosition(), this.getPosition());
-			Token result = new Token(flags, range, JSSyntaxKind.END_OF_FILE, null);
-			if (this.lookahead == null)
-				this.lookahead = result;
-			return result;
-		}
-		
+		this.tokenValue = null;
 		while (true) {
+			//Special EOF token
 			if (this.isEOF()) {
-				SourceRange range = new SourceRange(this.getPosition(), this.getPosition());
-				Token result = new Token(flags, range, JSSyntaxKind.END_OF_FILE, null);
-				if (this.lookahead == null)
-					this.lookahead = result;
-				return result;
+				this.tokenFlags = flags;
+				this.tokenStart = this.getPositionOffset();
+				return JSSyntaxKind.END_OF_FILE;
 			}
 			
+			//Skip whitespace until token
 			if (Characters.isJsWhitespace(chars.peek())) {
-				if (Characters.isLineBreak(chars.next())) {
+				char c = chars.next();
+				if (Characters.isLineBreak(c)) {
 					flags |= Token.FLAG_PRECEDEING_NEWLINE;
-					//TODO: does this cause problems if we're backtracking?
-					//TODO: Only one newline for '\r\n'
-					this.lines.putNewline(chars.position());
+					// '\r\n' is a single newline, recorded at the '\n'
+					if (c != '\r' || !chars.hasNext() || chars.peek() != '\n')
+						this.markNewline(chars.position());
 				}
 				continue;
 			}
 
 			chars.mark();
-			long start = Math.max(this.getPositionOffset(), -1);
+			long start = Math.max(this.getPositionOffset(), -1) + 1;
 			JSSyntaxKind kind = this.getTokenHint();
 			if (kind == null) {
 				//TODO: handle?
@@ -1267,46 +1326,108 @@ public class JSLexer implements Supplier<Token>, Closeable {
 			
 			switch (kind) {
 				case NUMERIC_LITERAL:
-					return this.finishNumericLiteralToken(start, flags);
+					this.tokenValue = this.nextNumericLiteral();
+					break;
 				case STRING_LITERAL:
-					return this.finishStringLiteralToken(start, flags);
+					// Hint is only given when the next char is the opening quote
+					this.tokenValue = this.scanStringLiteral(chars.next());
+					break;
 				case TEMPLATE_LITERAL:
-					return this.finishTemplateToken(start, flags);
-				case IDENTIFIER:
-					String name = this.nextIdentifier();
-					if (name == null) {
+					chars.skip(1);// Skip over the leading '`'
+					this.tokenValue = this.nextTemplateLiteral();
+					break;
+				case IDENTIFIER: {
+					int length = this.scanIdentifier();
+					if (length < 0) {
 						//Couldn't even parse an identifier
-						throw new JSSyntaxException("Illegal syntax", this.resolvePosition(start));
+						throw new JSSyntaxException("Illegal syntax", this.resolvePosition(start - 1));
 					}
-					kind = this.lookupKeyword(name);
-					if (kind != null)
-						return this.finishToken(start, flags, kind);
-					return this.finishIdentifierToken(start, flags, name);
+					JSSyntaxKind keyword = KeywordTable.lookup(this.nameBuffer, 0, length);
+					if (keyword != null)
+						kind = keyword;
+					else
+						this.tokenValue = this.internName(length);
+					break;
+				}
 				case COMMENT:
 					//TODO: track comments
 					this.nextComment(chars.peek(2) != '*');
-					this.unmark();
+					chars.unmark();
 					continue;
 				default:
 					if (kind.length() < 0)
 						//TODO: better exception type
 						throw new IllegalStateException(""+kind);
 					chars.skip(kind.length());
-					return this.finishToken(start, flags, kind);
+					break;
 			}
+			this.tokenFlags = flags;
+			this.tokenStart = start;
+			return kind;
 		}
 	}
 	
-	public Token nextToken() {
-		//Return lookahead if available
-		if (this.lookahead != null) {
-			Token result = this.lookahead;
-			//EOF token is sticky
-			if (!result.matches(JSSyntaxKind.END_OF_FILE))
-				skip(result);
-			return result;
+	protected Token readToken() {
+		JSSyntaxKind kind = this.scanToken();
+		long start = this.tokenStart;
+		int flags = this.tokenFlags;
+		switch (kind) {
+			case END_OF_FILE: {
+				SourceRange range = new SourceRange(this.getPosition(), this.getPosition());
+				return new Token(flags, range, JSSyntaxKind.END_OF_FILE, null);
+			}
+			case NUMERIC_LITERAL:
+				return this.finishNumericLiteralToken(start, flags, (ParsedNumber) this.tokenValue);
+			case STRING_LITERAL:
+				return this.finishStringLiteralToken(start, flags, (CharSequence) this.tokenValue);
+			case TEMPLATE_LITERAL:
+				return this.finishTemplateToken(start, flags, (TemplateTokenInfo) this.tokenValue);
+			case IDENTIFIER:
+				return this.finishIdentifierToken(start, flags, (String) this.tokenValue);
+			default:
+				return this.finishToken(start, flags, kind);
 		}
-		return this.readToken();
+	}
+	
+	/**
+	 * Lex the rest of the input into a {@link CompactTokenList}, without allocating a {@link Token} per token.
+	 * <p>
+	 * There is no parser to tell us when a slash starts a regular expression (or a right brace continues a template),
+	 * so those are always lexed as {@link JSSyntaxKind#DIVISION division} and {@link JSSyntaxKind#RIGHT_BRACE right brace}.
+	 * </p>
+	 * @param out List to append tokens to
+	 * @return out
+	 */
+	public CompactTokenList tokenize(CompactTokenList out) {
+		out.setLines(this.getLines());
+		// Start after the last consumed token
+		this.tokens.truncate(this.tokens.getCursor());
+		while (true) {
+			JSSyntaxKind kind = this.scanToken();
+			if (kind == JSSyntaxKind.END_OF_FILE) {
+				long end = this.getPositionOffset();
+				out.add(kind, end, end, this.tokenFlags, null);
+				return out;
+			}
+			chars.unmark();
+			out.add(kind, this.tokenStart, this.getPositionOffset(), this.tokenFlags, this.tokenValue);
+		}
+	}
+	
+	/**
+	 * Lex the rest of the input into a new {@link CompactTokenList}
+	 * @see #tokenize(CompactTokenList)
+	 */
+	public CompactTokenList tokenize() {
+		return this.tokenize(new CompactTokenList());
+	}
+	
+	public Token nextToken() {
+		Token result = this.peek();
+		//EOF token is sticky
+		if (!result.matches(JSSyntaxKind.END_OF_FILE))
+			skip(result);
+		return result;
 	}
 	
 	/**
@@ -1355,12 +1476,14 @@ public class JSLexer implements Supplier<Token>, Closeable {
 	}
 	
 	public Token peek() {
-		if (this.lookahead != null)
-			return this.lookahead;
+		Token result = this.tokens.peek(0);
+		if (result != null)
+			return result;
 		chars.mark();
-		this.lookahead = this.readToken();
+		result = this.readToken();
 		chars.resetToMark();
-		return this.lookahead;
+		this.tokens.add(result);
+		return result;
 	}
 	
 	public Token peek(int ahead) {
@@ -1368,44 +1491,75 @@ public class JSLexer implements Supplier<Token>, Closeable {
 			return peek();
 		if (ahead < 0)
 			throw new IllegalArgumentException();
-		if (this.lookaheads.size() < ahead) {
-			// Get last-consumed offset
-			Token last = this.lookaheads.isEmpty() ? this.lookahead : this.lookaheads.getLast();
+		if (this.tokens.available() <= ahead) {
+			// Get last-buffered token
+			Token last = this.tokens.available() == 0 ? this.peek() : this.tokens.last();
 			if (last.matches(JSSyntaxKind.END_OF_FILE))// EOF is sticky
 				return last;
 			
 			chars.mark();
-			chars.position(last.getEnd().getOffset());
-			while (this.lookaheads.size() < ahead)
-				this.lookaheads.add(this.readToken());
+			chars.position(last.getEndOffset());
+			while (this.tokens.available() <= ahead) {
+				last = this.readToken();
+				this.tokens.add(last);
+				if (last.matches(JSSyntaxKind.END_OF_FILE))
+					break;
+			}
 			chars.resetToMark();
+			if (this.tokens.available() <= ahead)
+				return last;
 		}
-		return this.lookaheads.get(ahead - 1);
+		return this.tokens.peek(ahead);
 	}
 	
 	public Token skip(Token token) {
-		if (token != this.lookahead)
+		if (token != this.tokens.peek(0))
 			throw new IllegalArgumentException("Skipped token " + token + " is not lookahead");
 		if (token.matches(JSSyntaxKind.END_OF_FILE))
 			throw new IllegalStateException("Cannot skip EOF token " + token);
 		
-		this.lookahead = this.lookaheads.isEmpty() ? null : this.lookaheads.removeFirst();
+		this.tokens.advance();
 		
-		chars.position(token.getEnd().getOffset());
+		chars.position(token.getEndOffset());
 		return token;
 	}
 	
+	/**
+	 * Drop all lookahead, and continue lexing from some offset.
+	 * 
+	 * @param offset Offset of the next character to read. Must be between tokens.
+	 * @throws IllegalStateException If there are active marks
+	 */
+	public void seek(long offset) {
+		if (this.tokens.getMarkDepth() > 0)
+			throw new IllegalStateException("Cannot seek while marked");
+		this.tokens.clear();
+		this.rescanCount = 0;
+		chars.position(offset - 1);
+	}
+	
 	public void mark() {
 		chars.mark();
+		this.tokens.mark();
 	}
 	
 	public void reset() {
 		chars.resetToMark();
-		this.invalidateLookaheads(chars.position());
+		this.tokens.reset();
+		
+		// Drop tokens that were lexed after a re-scan that we just rewound past
+		int cursor = this.tokens.getCursor();
+		while (this.rescanCount > 0 && this.rescans[this.rescanCount - 1] >= cursor)
+			this.tokens.truncate(this.rescans[--this.rescanCount] + 1);
+		if (this.tokens.getMarkDepth() == 0)
+			this.rescanCount = 0;
 	}
 	
 	public void unmark() {
 		chars.unmark();
+		this.tokens.unmark();
+		if (this.tokens.getMarkDepth() == 0)
+			this.rescanCount = 0;
 	}
 	
 	@Override
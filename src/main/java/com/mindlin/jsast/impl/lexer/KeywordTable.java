@@ -0,0 +1,140 @@
+package com.mindlin.jsast.impl.lexer;
+
+import java.util.Arrays;
+
+/**
+ * Perfect hash table of keywords, so identifiers can be classified straight from the lexer's buffer.
+ * <p>
+ * Each keyword hashes (by its length and a few of its chars) to a distinct slot; the multiplier that makes the
+ * hash collision-free is searched for when this class is loaded. A lookup is then one hash, one length check, and
+ * at most one char-by-char comparison.
+ * </p>
+ */
+public class KeywordTable {
+	/**
+	 * Words that are lexed as keywords (including contextual keywords).
+	 * TODO: bigint, boolean, global, infer, is, keyof, module, namespace, never, number, object, require, string,
+	 * symbol, undefined, unique, unknown
+	 */
+	protected static final JSSyntaxKind[] KEYWORDS = {
+			JSSyntaxKind.ABSTRACT, JSSyntaxKind.AS, JSSyntaxKind.ASYNC, JSSyntaxKind.AWAIT,
+			JSSyntaxKind.BREAK, JSSyntaxKind.CASE, JSSyntaxKind.CATCH, JSSyntaxKind.CLASS,
+			JSSyntaxKind.CONTINUE, JSSyntaxKind.CONST, JSSyntaxKind.CONSTRUCTOR, JSSyntaxKind.DEBUGGER,
+			JSSyntaxKind.DECLARE, JSSyntaxKind.DEFAULT, JSSyntaxKind.DELETE, JSSyntaxKind.DO,
+			JSSyntaxKind.ELSE, JSSyntaxKind.ENUM, JSSyntaxKind.EXPORT, JSSyntaxKind.EXTENDS,
+			JSSyntaxKind.FALSE, JSSyntaxKind.FINALLY, JSSyntaxKind.FOR, JSSyntaxKind.FROM,
+			JSSyntaxKind.FUNCTION, JSSyntaxKind.GET, JSSyntaxKind.IF, JSSyntaxKind.IMPLEMENTS,
+			JSSyntaxKind.IMPORT, JSSyntaxKind.IN, JSSyntaxKind.INSTANCEOF, JSSyntaxKind.INTERFACE,
+			JSSyntaxKind.LET, JSSyntaxKind.NEW, JSSyntaxKind.NULL, JSSyntaxKind.OF,
+			JSSyntaxKind.PACKAGE, JSSyntaxKind.PRIVATE, JSSyntaxKind.PROTECTED, JSSyntaxKind.PUBLIC,
+			JSSyntaxKind.READONLY, JSSyntaxKind.RETURN, JSSyntaxKind.SET, JSSyntaxKind.STATIC,
+			JSSyntaxKind.SUPER, JSSyntaxKind.SWITCH, JSSyntaxKind.THIS, JSSyntaxKind.THROW,
+			JSSyntaxKind.TRUE, JSSyntaxKind.TRY, JSSyntaxKind.TYPE, JSSyntaxKind.TYPEOF,
+			JSSyntaxKind.VAR, JSSyntaxKind.VOID, JSSyntaxKind.WHILE, JSSyntaxKind.WITH,
+			JSSyntaxKind.YIELD,
+	};
+
+	protected static final int MIN_LENGTH;
+	protected static final int MAX_LENGTH;
+	protected static final int SHIFT;
+	protected static final int MULTIPLIER;
+	/**
+	 * Text of keyword in each slot (or null)
+	 */
+	protected static final char[][] TEXT;
+	/**
+	 * Kind of keyword in each slot
+	 */
+	protected static final JSSyntaxKind[] KINDS;
+
+	static {
+		int minLength = Integer.MAX_VALUE, maxLength = 0;
+		int[] keys = new int[KEYWORDS.length];
+		for (int i = 0; i < KEYWORDS.length; i++) {
+			String text = KEYWORDS[i].getText();
+			minLength = Math.min(minLength, text.length());
+			maxLength = Math.max(maxLength, text.length());
+			keys[i] = key(text.toCharArray(), 0, text.length());
+		}
+		MIN_LENGTH = minLength;
+		MAX_LENGTH = maxLength;
+
+		// Find a multiplier that doesn't produce any collisions. Start at 2x the number of keywords, and grow if needed.
+		int bits = 32 - Integer.numberOfLeadingZeros(KEYWORDS.length * 2 - 1);
+		int multiplier = 0;
+		search:
+		for (;; bits++) {
+			if (bits > 16)
+				throw new IllegalStateException("Unable to find perfect hash for keywords");
+			boolean[] used = new boolean[1 << bits];
+			for (int candidate = 0x9E3779B1, tries = 0; tries < 100_000; candidate += 0x6A09E667, tries++) {
+				Arrays.fill(used, false);
+				boolean ok = true;
+				for (int key : keys) {
+					int slot = (key * (candidate | 1)) >>> (32 - bits);
+					if (used[slot]) {
+						ok = false;
+						break;
+					}
+					used[slot] = true;
+				}
+				if (ok) {
+					multiplier = candidate | 1;
+					break search;
+				}
+			}
+		}
+		SHIFT = 32 - bits;
+		MULTIPLIER = multiplier;
+
+		TEXT = new char[1 << bits][];
+		KINDS = new JSSyntaxKind[1 << bits];
+		for (int i = 0; i < KEYWORDS.length; i++) {
+			int slot = (keys[i] * MULTIPLIER) >>> SHIFT;
+			TEXT[slot] = KEYWORDS[i].getText().toCharArray();
+			KINDS[slot] = KEYWORDS[i];
+		}
+	}
+
+	/**
+	 * Key to hash. Only valid for {@code length >= 2}.
+	 */
+	protected static int key(char[] chars, int offset, int length) {
+		int key = length;
+		key = key * 31 + chars[offset];
+		key = key * 31 + chars[offset + 1];
+		key = key * 31 + chars[offset + (length >> 1)];
+		key = key * 31 + chars[offset + length - 1];
+		return key;
+	}
+
+	/**
+	 * Classify a range of chars.
+	 * @param chars
+	 * @param offset
+	 * @param length
+	 * @return Keyword kind, or null if it's not a keyword
+	 */
+	public static JSSyntaxKind lookup(char[] chars, int offset, int length) {
+		if (length < MIN_LENGTH || length > MAX_LENGTH)
+			return null;
+		int slot = (key(chars, offset, length) * MULTIPLIER) >>> SHIFT;
+		char[] text = TEXT[slot];
+		if (text == null || text.length != length)
+			return null;
+		for (int i = 0; i < length; i++)
+			if (text[i] != chars[offset + i])
+				return null;
+		return KINDS[slot];
+	}
+
+	public static JSSyntaxKind lookup(String name) {
+		int length = name.length();
+		if (length < MIN_LENGTH || length > MAX_LENGTH)
+			return null;
+		return lookup(name.toCharArray(), 0, length);
+	}
+
+	private KeywordTable() {
+	}
+}
@@ -0,0 +1,205 @@
+package com.mindlin.jsast.impl.lexer;
+
+import com.mindlin.jsast.impl.util.Characters;
+
+/**
+ * Table of interned identifier names.
+ * <p>
+ * Each distinct name is mapped to one canonical {@link String} (and an int id), so names can be compared by
+ * identity, and their hash codes are only computed once. Names can be looked up directly from a range of chars, so
+ * the lexer doesn't have to allocate a string for names it has already seen.
+ * </p>
+ * <p>
+ * A table is meant to be shared by everything in a compilation. Lookups don't lock; adding a name does.
+ * </p>
+ */
+public class NameTable {
+	protected static final int DEFAULT_CAPACITY = 1024;
+
+	protected static final class Entry {
+		final String name;
+		final int hash;
+		final int id;
+		final Entry next;
+
+		Entry(String name, int hash, int id, Entry next) {
+			this.name = name;
+			this.hash = hash;
+			this.id = id;
+			this.next = next;
+		}
+	}
+
+	/**
+	 * Hash buckets. Entries are immutable, and are only ever prepended to a bucket (under lock), so readers
+	 * will at worst miss a new entry & retry with the lock.
+	 */
+	protected volatile Entry[] buckets;
+	/**
+	 * Names, indexed by id
+	 */
+	protected volatile String[] names;
+	protected int size = 0;
+
+	public NameTable() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public NameTable(int capacity) {
+		int size = Integer.highestOneBit(Math.max(capacity, 16) - 1) << 1;
+		this.buckets = new Entry[size];
+		this.names = new String[size];
+		// Keyword text is used as identifier names (e.g., when reinterpreting contextual keywords)
+		for (JSSyntaxKind kind : JSSyntaxKind.values()) {
+			String text = kind.getText();
+			if (text != null && !text.isEmpty() && Characters.canStartIdentifier(text.charAt(0)))
+				this.intern(text);
+		}
+	}
+
+	/**
+	 * Compute the hash of a range of chars. Matches {@link String#hashCode()}.
+	 */
+	public static int hash(char[] chars, int offset, int length) {
+		int hash = 0;
+		for (int i = offset, end = offset + length; i < end; i++)
+			hash = 31 * hash + chars[i];
+		return hash;
+	}
+
+	protected static boolean matches(String name, char[] chars, int offset, int length) {
+		if (name.length() != length)
+			return false;
+		for (int i = 0; i < length; i++)
+			if (name.charAt(i) != chars[offset + i])
+				return false;
+		return true;
+	}
+
+	protected static Entry find(Entry[] buckets, int hash, char[] chars, int offset, int length) {
+		for (Entry entry = buckets[hash & (buckets.length - 1)]; entry != null; entry = entry.next)
+			if (entry.hash == hash && matches(entry.name, chars, offset, length))
+				return entry;
+		return null;
+	}
+
+	protected static Entry find(Entry[] buckets, int hash, String name) {
+		for (Entry entry = buckets[hash & (buckets.length - 1)]; entry != null; entry = entry.next)
+			if (entry.hash == hash && (entry.name == name || entry.name.equals(name)))
+				return entry;
+		return null;
+	}
+
+	public String intern(char[] chars, int offset, int length) {
+		return this.intern(chars, offset, length, hash(chars, offset, length));
+	}
+
+	/**
+	 * Get the canonical name for a range of chars
+	 * @param chars
+	 * @param offset
+	 * @param length
+	 * @param hash Hash of the range; must match {@link #hash(char[], int, int)}
+	 * @return Canonical name
+	 */
+	public String intern(char[] chars, int offset, int length, int hash) {
+		Entry entry = find(this.buckets, hash, chars, offset, length);
+		if (entry != null)
+			return entry.name;
+		synchronized (this) {
+			entry = find(this.buckets, hash, chars, offset, length);
+			if (entry == null)
+				entry = this.add(new String(chars, offset, length), hash);
+			return entry.name;
+		}
+	}
+
+	/**
+	 * Get the canonical instance of a name
+	 * @param name
+	 * @return Canonical name ({@code null} if name was null)
+	 */
+	public String intern(String name) {
+		if (name == null)
+			return null;
+		int hash = name.hashCode();
+		Entry entry = find(this.buckets, hash, name);
+		if (entry != null)
+			return entry.name;
+		synchronized (this) {
+			entry = find(this.buckets, hash, name);
+			if (entry == null)
+				entry = this.add(name, hash);
+			return entry.name;
+		}
+	}
+
+	/**
+	 * @param name
+	 * @return Id of name, or -1 if it isn't in this table
+	 */
+	public int getId(String name) {
+		Entry entry = find(this.buckets, name.hashCode(), name);
+		if (entry == null) {
+			synchronized (this) {
+				entry = find(this.buckets, name.hashCode(), name);
+			}
+		}
+		return entry == null ? -1 : entry.id;
+	}
+
+	/**
+	 * @param id
+	 * @return Name with the given id
+	 * @throws IndexOutOfBoundsException If there is no name with that id
+	 */
+	public String getName(int id) {
+		String name;
+		String[] names = this.names;
+		if (id < 0 || id >= names.length || (name = names[id]) == null) {
+			synchronized (this) {
+				if (id < 0 || id >= this.size)
+					throw new IndexOutOfBoundsException("No name with id " + id);
+				return this.names[id];
+			}
+		}
+		return name;
+	}
+
+	/**
+	 * @return Number of names in table
+	 */
+	public synchronized int size() {
+		return this.size;
+	}
+
+	/**
+	 * Add a new entry. Must hold lock.
+	 */
+	protected Entry add(String name, int hash) {
+		int id = this.size++;
+		String[] names = this.names;
+		Entry[] buckets = this.buckets;
+		if (id >= names.length) {
+			// Grow (table is kept at the same size as the names array, so the load factor is <= 1)
+			String[] newNames = new String[names.length * 2];
+			System.arraycopy(names, 0, newNames, 0, names.length);
+			Entry[] newBuckets = new Entry[newNames.length];
+			for (Entry bucket : buckets)
+				for (Entry entry = bucket; entry != null; entry = entry.next) {
+					int idx = entry.hash & (newBuckets.length - 1);
+					newBuckets[idx] = new Entry(entry.name, entry.hash, entry.id, newBuckets[idx]);
+				}
+			names = newNames;
+			buckets = newBuckets;
+		}
+		names[id] = name;
+		int idx = hash & (buckets.length - 1);
+		Entry result = new Entry(name, hash, id, buckets[idx]);
+		buckets[idx] = result;
+		// Publish
+		this.names = names;
+		this.buckets = buckets;
+		return result;
+	}
+}
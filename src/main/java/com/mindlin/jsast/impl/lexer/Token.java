@@ -3,8 +3,10 @@ package com.mindlin.jsast.impl.lexer;
 import java.util.Objects;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
 
 import com.mindlin.jsast.exception.JSUnexpectedTokenException;
+import com.mindlin.jsast.impl.tree.LineMap;
 import com.mindlin.nautilus.fs.SourcePosition;
 import com.mindlin.nautilus.fs.SourceRange;
 
@@ -15,12 +17,56 @@ public class Token {
 	//TODO: use EnumSet-type wrapper in the future?
 	protected final int flags;
 	protected final JSSyntaxKind kind;
-	protected final SourceRange range;
+	/**
+	 * Resolved range. Lazily computed from {@link #lines} if null.
+	 */
+	protected @Nullable SourceRange range;
+	/**
+	 * Map to resolve {@link #startOffset}/{@link #endOffset} with. Null if the range was given eagerly.
+	 */
+	protected final @Nullable LineMap lines;
+	protected final long startOffset;
+	protected final long endOffset;
 	protected final CharSequence text;
 	
 	public Token(int flags, SourceRange range, JSSyntaxKind kind, CharSequence text) {
 		this.flags = flags;
 		this.range = Objects.requireNonNull(range);
+		this.lines = null;
+		this.startOffset = range.getStart().getOffset();
+		this.endOffset = range.getEnd().getOffset();
+		this.kind = Objects.requireNonNull(kind);
+		this.text = text;
+	}
+	
+	/**
+	 * Create a token with a lazily resolved range.
+	 * @param flags
+	 * @param lines Map to resolve positions with
+	 * @param start Offset of first character
+	 * @param end Offset of last character
+	 * @param kind
+	 * @param text
+	 */
+	public Token(int flags, LineMap lines, long start, long end, JSSyntaxKind kind, CharSequence text) {
+		this.flags = flags;
+		this.range = null;
+		this.lines = Objects.requireNonNull(lines);
+		this.startOffset = start;
+		this.endOffset = end;
+		this.kind = Objects.requireNonNull(kind);
+		this.text = text;
+	}
+	
+	/**
+	 * Copy position from another token
+	 */
+	protected Token(int flags, Token position, JSSyntaxKind kind, CharSequence text) {
+		this.flags = flags;
+		this.range = position.range;
+		this.lines = position.lines;
+		this.startOffset = position.startOffset;
+		this.endOffset = position.endOffset;
 		this.kind = Objects.requireNonNull(kind);
 		this.text = text;
 	}
@@ -34,15 +80,41 @@ public class Token {
 	}
 	
 	public SourceRange getRange() {
-		return this.range;
+		SourceRange range = this.range;
+		if (range == null)
+			this.range = range = new SourceRange(this.lines.lookup(this.startOffset), this.lines.lookup(this.endOffset));
+		return range;
 	}
 
 	public SourcePosition getStart() {
-		return this.range.getStart();
+		return this.getRange().getStart();
 	}
 
 	public SourcePosition getEnd() {
-		return this.range.getEnd();
+		return this.getRange().getEnd();
+	}
+	
+	/**
+	 * Get start offset, without resolving line/column
+	 * @return offset of first character
+	 */
+	public long getStartOffset() {
+		return this.startOffset;
+	}
+	
+	/**
+	 * Get end offset, without resolving line/column
+	 * @return offset of last character
+	 */
+	public long getEndOffset() {
+		return this.endOffset;
+	}
+	
+	/**
+	 * @return Map that this token's position is resolved against, or null if it was created with a resolved range
+	 */
+	public @Nullable LineMap getLines() {
+		return this.lines;
 	}
 
 	public CharSequence getText() {
@@ -94,7 +166,7 @@ public class Token {
 		String name = this.getKind().getText();
 		if (name == null)
 			throw new UnsupportedOperationException(this + " cannot be reinterpreted as an identifier");
-		return new IdentifierToken(this.flags, this.range, this.getText(), name);
+		return new IdentifierToken(this.flags, this, this.getText(), name);
 	}
 
 	public void expect(JSSyntaxKind kind) {
@@ -128,6 +200,16 @@ public class Token {
 			super(flags, range, JSSyntaxKind.IDENTIFIER, text);
 			this.name = name;
 		}
+
+		public IdentifierToken(int flags, LineMap lines, long start, long end, CharSequence text, String name) {
+			super(flags, lines, start, end, JSSyntaxKind.IDENTIFIER, text);
+			this.name = name;
+		}
+
+		protected IdentifierToken(int flags, Token position, CharSequence text, String name) {
+			super(flags, position, JSSyntaxKind.IDENTIFIER, text);
+			this.name = name;
+		}
 		
 		@Override
 		public boolean matchesIdentifier(String text) {
@@ -147,15 +229,28 @@ public class Token {
 	}
 	
 	public static class StringLiteralToken extends Token {
-		protected final String value;
+		protected final CharSequence value;
 		
-		public StringLiteralToken(int flags, SourceRange range, CharSequence text, String value) {
+		public StringLiteralToken(int flags, SourceRange range, CharSequence text, CharSequence value) {
 			super(flags, range, JSSyntaxKind.STRING_LITERAL, text);
 			this.value = value;
 		}
+
+		public StringLiteralToken(int flags, LineMap lines, long start, long end, CharSequence text, CharSequence value) {
+			super(flags, lines, start, end, JSSyntaxKind.STRING_LITERAL, text);
+			this.value = value;
+		}
 		
 		@Override
 		public String getValue() {
+			return this.value == null ? null : this.value.toString();
+		}
+		
+		/**
+		 * Get value, without necessarily making a {@link String}
+		 * @return value
+		 */
+		public CharSequence getValueChars() {
 			return this.value;
 		}
 		
@@ -172,6 +267,11 @@ public class Token {
 			super(flags, range, JSSyntaxKind.NUMERIC_LITERAL, text);
 			this.value = value;
 		}
+
+		public NumericLiteralToken(int flags, LineMap lines, long start, long end, CharSequence text, Number value) {
+			super(flags, lines, start, end, JSSyntaxKind.NUMERIC_LITERAL, text);
+			this.value = value;
+		}
 		
 		@Override
 		public Number getValue() {
@@ -194,6 +294,12 @@ public class Token {
 			this.pattern = pattern;
 			this.rxFlags = rxFlags;
 		}
+		
+		public RegExpToken(int flags, LineMap lines, long start, long end, CharSequence text, String pattern, String rxFlags) {
+			super(flags, lines, start, end, JSSyntaxKind.REGEX_LITERAL, text);
+			this.pattern = pattern;
+			this.rxFlags = rxFlags;
+		}
 
 		public String getPattern() {
 			return this.pattern;
@@ -220,6 +326,13 @@ public class Token {
 			this.tail = tail;
 			this.cooked = cooked;
 		}
+
+		public TemplateLiteralToken(int flags, LineMap lines, long start, long end, CharSequence text, boolean head, boolean tail, String cooked) {
+			super(flags, lines, start, end, JSSyntaxKind.TEMPLATE_LITERAL, text);
+			this.head = head;
+			this.tail = tail;
+			this.cooked = cooked;
+		}
 		
 		@Override
 		public IdentifierToken reinterpretAsIdentifier() {
@@ -0,0 +1,223 @@
+package com.mindlin.jsast.impl.lexer;
+
+import java.util.Arrays;
+
+/**
+ * Random-access store of lexed tokens, indexed by absolute token number.
+ * <p>
+ * Tokens are kept in a ring buffer. Tokens behind the cursor are dropped as soon as no mark can
+ * rewind to them, so the buffer only grows as large as the deepest backtrack.
+ * </p>
+ */
+public class TokenBuffer {
+	protected static final int DEFAULT_CAPACITY = 16;
+
+	/**
+	 * Ring buffer. Length is always a power of 2.
+	 */
+	protected Token[] tokens;
+	/**
+	 * Index of oldest retained token
+	 */
+	protected int head = 0;
+	/**
+	 * One past the index of the newest token
+	 */
+	protected int limit = 0;
+	/**
+	 * Index of the next token to be consumed
+	 */
+	protected int cursor = 0;
+	/**
+	 * Stack of marked cursor positions
+	 */
+	protected int[] marks = new int[8];
+	protected int markDepth = 0;
+	/**
+	 * If set, consumed tokens are never dropped
+	 */
+	protected final boolean retainAll;
+
+	public TokenBuffer() {
+		this(false);
+	}
+
+	public TokenBuffer(boolean retainAll) {
+		this.tokens = new Token[DEFAULT_CAPACITY];
+		this.retainAll = retainAll;
+	}
+
+	/**
+	 * @return Index of the next token to be consumed
+	 */
+	public int getCursor() {
+		return this.cursor;
+	}
+
+	/**
+	 * @return Index of the oldest token that is still available
+	 */
+	public int getHead() {
+		return this.head;
+	}
+
+	/**
+	 * @return One past the index of the newest buffered token
+	 */
+	public int getLimit() {
+		return this.limit;
+	}
+
+	/**
+	 * @return Number of buffered tokens at or after the cursor
+	 */
+	public int available() {
+		return this.limit - this.cursor;
+	}
+
+	public boolean isEmpty() {
+		return this.limit == this.head;
+	}
+
+	public int getMarkDepth() {
+		return this.markDepth;
+	}
+
+	/**
+	 * Get token by absolute index
+	 * @param index
+	 * @return token
+	 * @throws IndexOutOfBoundsException if the token is not buffered
+	 */
+	public Token get(int index) {
+		if (index < this.head || index >= this.limit)
+			throw new IndexOutOfBoundsException("Token " + index + " not in [" + this.head + ", " + this.limit + ")");
+		return this.tokens[index & (this.tokens.length - 1)];
+	}
+
+	/**
+	 * Get a token relative to the cursor
+	 * @param ahead Number of tokens after the cursor
+	 * @return token, or null if not buffered
+	 */
+	public Token peek(int ahead) {
+		int index = this.cursor + ahead;
+		if (index < this.head || index >= this.limit)
+			return null;
+		return this.tokens[index & (this.tokens.length - 1)];
+	}
+
+	/**
+	 * @return Newest token, or null if empty
+	 */
+	public Token last() {
+		return this.isEmpty() ? null : this.tokens[(this.limit - 1) & (this.tokens.length - 1)];
+	}
+
+	/**
+	 * Append token to end of buffer
+	 * @param token
+	 */
+	public void add(Token token) {
+		if (this.limit - this.head == this.tokens.length)
+			this.grow();
+		this.tokens[this.limit & (this.tokens.length - 1)] = token;
+		this.limit++;
+	}
+
+	protected void grow() {
+		Token[] old = this.tokens;
+		Token[] next = new Token[old.length << 1];
+		int oldMask = old.length - 1;
+		int newMask = next.length - 1;
+		for (int i = this.head; i < this.limit; i++)
+			next[i & newMask] = old[i & oldMask];
+		this.tokens = next;
+	}
+
+	/**
+	 * Consume the token at the cursor
+	 * @return Consumed token
+	 */
+	public Token advance() {
+		if (this.cursor >= this.limit)
+			throw new IllegalStateException("No token to consume");
+		Token result = this.tokens[this.cursor & (this.tokens.length - 1)];
+		this.cursor++;
+		this.discard();
+		return result;
+	}
+
+	/**
+	 * Move cursor to an absolute position
+	 * @param index
+	 */
+	public void seek(int index) {
+		if (index < this.head || index > this.limit)
+			throw new IndexOutOfBoundsException("Cannot seek to " + index + " (not in [" + this.head + ", " + this.limit + "])");
+		this.cursor = index;
+		this.discard();
+	}
+
+	/**
+	 * Drop all tokens at or after {@code newLimit}.
+	 * @param newLimit
+	 */
+	public void truncate(int newLimit) {
+		if (newLimit < this.cursor || newLimit > this.limit)
+			throw new IndexOutOfBoundsException("Cannot truncate to " + newLimit + " (not in [" + this.cursor + ", " + this.limit + "])");
+		int mask = this.tokens.length - 1;
+		for (int i = newLimit; i < this.limit; i++)
+			this.tokens[i & mask] = null;
+		this.limit = newLimit;
+	}
+
+	/**
+	 * Drop all tokens & marks
+	 */
+	public void clear() {
+		Arrays.fill(this.tokens, null);
+		this.head = this.limit = this.cursor = 0;
+		this.markDepth = 0;
+	}
+
+	/**
+	 * Remember the current cursor, so we can rewind to it with {@link #reset()}.
+	 */
+	public void mark() {
+		if (this.markDepth == this.marks.length)
+			this.marks = Arrays.copyOf(this.marks, this.marks.length * 2);
+		this.marks[this.markDepth++] = this.cursor;
+	}
+
+	/**
+	 * Rewind cursor to the last mark, and pop it.
+	 */
+	public void reset() {
+		if (this.markDepth == 0)
+			throw new IllegalStateException("No mark to reset to");
+		this.cursor = this.marks[--this.markDepth];
+		this.discard();
+	}
+
+	/**
+	 * Pop the last mark without rewinding.
+	 */
+	public void unmark() {
+		if (this.markDepth == 0)
+			throw new IllegalStateException("No mark to remove");
+		this.markDepth--;
+		this.discard();
+	}
+
+	/**
+	 * Release tokens that can't be reached anymore
+	 */
+	protected void discard() {
+		if (this.retainAll || this.markDepth > 0)
+			return;
+		int mask = this.tokens.length - 1;
+		while (this.head < this.cursor)
+			this.tokens[(this.head++) & mask] = null;
+	}
+}
@@ -1,35 +1,72 @@
 package com.mindlin.jsast.impl.lexer;
 
-import java.util.LinkedList;
-import java.util.List;
-import java.util.ListIterator;
-
+/**
+ * Random-access view of the tokens from a lexer. Tokens are lexed on demand, and kept until the stream is discarded.
+ * <p>
+ * Note that tokens are lexed without any parser context, so regular expressions and template continuations
+ * are not re-scanned.
+ * </p>
+ */
 public class TokenStream {
-	List<Token> tokens = new LinkedList<>();
-	ListIterator<Token> iterator;
-	JSLexer lexer;
-	boolean isEOF = false;
-	int index;
+	protected final TokenBuffer tokens = new TokenBuffer(true);
+	protected final JSLexer lexer;
+	protected int index = 0;
+	
 	public TokenStream(JSLexer lexer) {
 		this.lexer = lexer;
-		this.iterator = tokens.listIterator();
 	}
+	
+	/**
+	 * Make sure that the token at the given index is buffered, if it exists.
+	 * @param index
+	 * @return The token at the index, or EOF if it's past the end of the input
+	 */
+	protected Token fill(int index) {
+		while (this.tokens.getLimit() <= index) {
+			Token last = this.tokens.last();
+			if (last != null && last.matches(JSSyntaxKind.END_OF_FILE))
+				return last;
+			this.tokens.add(this.lexer.nextToken());
+		}
+		return this.tokens.get(index);
+	}
+	
 	public Token current() {
-		throw new UnsupportedOperationException();
+		if (this.index < 0)
+			return null;
+		return this.fill(this.index);
 	}
+	
 	public Token next() {
-		throw new UnsupportedOperationException();
+		Token current = this.current();
+		// Don't move past EOF
+		if (current == null || !current.matches(JSSyntaxKind.END_OF_FILE))
+			this.index++;
+		return this.current();
 	}
+	
 	public Token prev() {
-		throw new UnsupportedOperationException();
+		if (this.index >= 0)
+			this.index--;
+		return this.current();
 	}
+	
 	public void skip(int offset) {
-		this.index += offset;
+		this.seek(this.index + offset);
 	}
+	
 	public void seek(int position) {
+		if (position < -1)
+			throw new IndexOutOfBoundsException("Cannot seek to " + position);
 		this.index = position;
 	}
+	
 	public int getPosition() {
 		return this.index;
 	}
+	
+	public boolean isEOF() {
+		Token current = this.current();
+		return current != null && current.matches(JSSyntaxKind.END_OF_FILE);
+	}
 }
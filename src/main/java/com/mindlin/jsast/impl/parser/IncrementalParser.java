@@ -0,0 +1,196 @@
+package com.mindlin.jsast.impl.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import com.mindlin.jsast.fs.TextEdit;
+import com.mindlin.jsast.impl.binary.BinaryTreeReader;
+import com.mindlin.jsast.impl.lexer.JSLexer;
+import com.mindlin.jsast.impl.lexer.JSSyntaxKind;
+import com.mindlin.jsast.impl.lexer.Token;
+import com.mindlin.jsast.impl.parser.JSParser.Context;
+import com.mindlin.jsast.impl.tree.CompilationUnitTreeImpl;
+import com.mindlin.jsast.impl.tree.LineMap;
+import com.mindlin.jsast.impl.tree.NewlineScanner;
+import com.mindlin.jsast.tree.CompilationUnitTree;
+import com.mindlin.jsast.tree.DirectiveTree;
+import com.mindlin.jsast.tree.StatementTree;
+import com.mindlin.nautilus.fs.SourceFile;
+import com.mindlin.nautilus.fs.SourcePosition;
+import com.mindlin.nautilus.impl.util.CharacterArrayStream;
+
+/**
+ * Reparses a {@link CompilationUnitTree} after an edit, reusing all top-level statements that the edit couldn't
+ * have affected.
+ * <p>
+ * Statements that end before the edit are kept (except for the last one, as an edit right after a statement can
+ * change how it ends). Lexing resumes after them, and statements are parsed until one starts at the same place
+ * (after the edit) as some old statement did. From then on, the text is the same as before, so all remaining old
+ * statements are reused.
+ * </p>
+ * <p>
+ * Reused statements after the edit aren't reparsed, but are copied with their offsets moved (see
+ * {@link BinaryTreeReader#relocate(com.mindlin.jsast.tree.Tree, long, LineMap)}), so their positions are valid in
+ * the new text. Statements that can't be copied that way are parsed again.
+ * </p>
+ * <p>
+ * Trees are kept across many versions of the text, so string values are copied out of it (instead of being
+ * {@link com.mindlin.jsast.impl.util.SourceSlice slices}); otherwise they'd keep every earlier version alive. Use
+ * {@link #parse(String, String)} for the first version, for the same reason.
+ * </p>
+ */
+public class IncrementalParser {
+	protected final JSParser parser;
+
+	public IncrementalParser(JSParser parser) {
+		this.parser = Objects.requireNonNull(parser);
+	}
+
+	/**
+	 * Make a lexer that copies string values out of {@code text}
+	 */
+	protected JSLexer lexer(char[] text) {
+		JSLexer lexer = new JSLexer(null, new CharacterArrayStream(text), NewlineScanner.compile(null, text, 0, text.length));
+		lexer.setNameTable(this.parser.getNameTable());
+		return lexer;
+	}
+
+	/**
+	 * Parse the first version of a text, to be passed to {@link #reparse(CompilationUnitTree, TextEdit, String)}
+	 * later
+	 *
+	 * @param unitName
+	 * @param text
+	 * @return Tree for {@code text}
+	 */
+	public CompilationUnitTree parse(String unitName, String text) {
+		return this.parser.apply(unitName, this.lexer(text.toCharArray()), new TreeArena());
+	}
+
+	/**
+	 * Move a statement from the previous text to the new one
+	 * @param statement Statement from the previous unit
+	 * @param shift Amount the statement was moved by
+	 * @param lines Line map of the new text
+	 * @return Statement with positions in the new text, or null if it can't be moved (and has to be reparsed)
+	 */
+	protected static StatementTree relocate(StatementTree statement, long shift, LineMap lines) {
+		if (shift == 0) {
+			// Still valid, unless the edit changed which line it starts on (or where that line starts)
+			SourcePosition before = statement.getStart();
+			SourcePosition after = lines.lookup(statement.getStartOffset());
+			if (before != null && before.getLine() == after.getLine() && before.getColumn() == after.getColumn())
+				return statement;
+		}
+		try {
+			return BinaryTreeReader.relocate(statement, shift, lines);
+		} catch (UnsupportedOperationException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Reparse after an edit
+	 *
+	 * @param previous Tree for the text before {@code edit}
+	 * @param edit Edit that was made
+	 * @param text Text after {@code edit}
+	 * @return Tree for {@code text}
+	 */
+	public CompilationUnitTree reparse(CompilationUnitTree previous, TextEdit edit, String text) {
+		return this.reparse(previous, edit, text.toCharArray());
+	}
+
+	/**
+	 * Reparse after an edit
+	 *
+	 * @param previous Tree for the text before {@code edit}
+	 * @param edit Edit that was made
+	 * @param text Text after {@code edit}
+	 * @return Tree for {@code text}
+	 */
+	public CompilationUnitTree reparse(CompilationUnitTree previous, TextEdit edit, char[] text) {
+		List<StatementTree> oldElements = previous.getSourceElements();
+		final int oldCount = oldElements.size();
+		final long delta = edit.getDelta();
+
+		long[] oldStarts = new long[oldCount];
+		long[] oldEnds = new long[oldCount];
+		for (int i = 0; i < oldCount; i++) {
+			StatementTree statement = oldElements.get(i);
+			oldStarts[i] = statement.getStartOffset();
+			oldEnds[i] = statement.getEndOffset();
+		}
+
+		// Keep statements that end before the edit, minus one
+		int prefix = 0;
+		while (prefix < oldCount && oldEnds[prefix] < edit.getOffset())
+			prefix++;
+		prefix = Math.max(prefix - 1, 0);
+
+		List<StatementTree> elements = new ArrayList<>(oldCount + 1);
+
+		Context context = new Context();
+		SourceFile source = previous.getSourceFile();
+		context.setScriptName(source == null ? null : source.getName());
+		context.setDirectiveTarget(true);
+		context.setMemo(new LookaheadMemo());
+
+		for (int i = 0; i < prefix; i++) {
+			StatementTree statement = oldElements.get(i);
+			elements.add(statement);
+			if (context.isDirectiveTarget())
+				context.setDirectiveTarget(statement instanceof DirectiveTree);
+		}
+
+		JSLexer src = this.lexer(text);
+		src.seek(prefix == 0 ? 0 : oldEnds[prefix - 1] + 1);
+		LineMap lines = src.getLines();
+
+		// Index of the next old statement we might resync with
+		int next = prefix;
+		long end = -1;
+		while (true) {
+			Token lookahead = src.peek();
+			if (lookahead.matches(JSSyntaxKind.END_OF_FILE))
+				break;
+
+			long start = lookahead.getStartOffset();
+			if (start >= edit.getNewEnd()) {
+				long oldStart = start - delta;
+				while (next < oldCount && oldStarts[next] < oldStart)
+					next++;
+				if (next < oldCount && oldStarts[next] == oldStart && oldStart >= edit.getOldEnd()) {
+					// Back in sync; everything after here is unchanged
+					while (next < oldCount) {
+						StatementTree moved = relocate(oldElements.get(next), delta, lines);
+						if (moved == null)
+							break;
+						elements.add(moved);
+						next++;
+					}
+					if (next == oldCount) {
+						end = previous.getEndOffset() + delta;
+						break;
+					}
+					// Parse the statement that couldn't be moved, then try to resync at the one after it
+					src.seek(oldStarts[next] + delta);
+					next++;
+				}
+			}
+
+			StatementTree statement = this.parser.parseStatement(src, context);
+			if (statement == null)
+				break;
+			elements.add(statement);
+
+			if (context.isDirectiveTarget())
+				context.setDirectiveTarget(statement instanceof DirectiveTree);
+		}
+		if (end < 0)
+			end = src.getPositionOffset();
+
+		return new CompilationUnitTreeImpl(previous.getStartOffset(), end, source, lines, elements, previous.isStrict());
+	}
+}
@@ -1,189 +1,69 @@
 package com.mindlin.jsast.impl.parser;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 import com.mindlin.jsast.exception.JSUnsupportedException;
 import com.mindlin.nautilus.fs.SourceRange;
 
 public interface JSDialect {
 	boolean supports(String feature);
+	
+	/**
+	 * Get the features supported by this dialect. Parsers resolve this once, so it should be constant.
+	 * <p>
+	 * The default implementation checks {@link #supports(String)} with each feature's description.
+	 * </p>
+	 */
+	default JSFeatureSet getFeatures() {
+		Set<JSFeature> features = EnumSet.noneOf(JSFeature.class);
+		for (JSFeature feature : JSFeature.values())
+			if (feature.getDescription() != null && this.supports(feature.getDescription()))
+				features.add(feature);
+		return new JSFeatureSet(features);
+	}
+	
 	default void require(String feature, SourceRange position) {
 		if (!supports(feature))
 			throw new JSUnsupportedException(feature, position);
 	}
 	public static enum JSStandardDialect implements JSDialect {
-		ES5 {
-			@Override
-			public boolean supports(String feature) {
-				switch (feature) {
-					case "js.accessor":
-					case "js.strict":
-					case "js.json":
-						return true;
-				}
-				return false;
-			}
-		},
-		ES6 {
-			@Override
-			public boolean supports(String feature) {
-				switch (feature) {
-					case "js.class":
-					case "js.class.constructor":
-					case "js.class.inheritance":
-					case "js.class.static":
-					case "js.class.super":
-					case "js.class.this":
-					case "js.desctructuring":
-					case "js.forOf":
-					case "js.function.lambda":
-					case "js.function.generator":
-					case "js.iterator":
-					case "js.literal.binary":
-					case "js.literal.object.methodProperties":
-					case "js.literal.object.shorthand":
-					case "js.literal.object.shorthand.computed":
-					case "js.literal.octal":
-					case "js.literal.regex.sticky":
-					case "js.literal.template":
-					case "js.literal.unicode":
-					case "js.module":
-					case "js.operator.spread":
-					case "js.parameter.default":
-					case "js.parameter.rest":
-					case "js.property.shorthand":
-					case "js.method.shorthand":
-					case "js.symbol":
-					case "js.variable.const":
-					case "js.variable.scoped":
-					case "js.yield":
-						//TODO finish
-						return true;
-				}
-				if (ES5.supports(feature))
-					return true;
-				return false;
-			}
-		},
-		ES2017 {
-			@Override
-			public boolean supports(String feature) {
-				switch (feature) {
-					case "js.function.async":
-					case "js.await":
-						//TODO finish
-						return true;
-				}
-				if (ES6.supports(feature))
-					return true;
-				return false;
-			}
-		},
-		TYPESCRIPT_11 {
-			@Override
-			public boolean supports(String feature) {
-				switch (feature) {
-					case "ts.parameter.optional":
-					case "ts.visibility":
-					case "ts.visibility.public":
-					case "ts.visibility.private":
-					case "ts.types":
-					case "ts.types.enum":
-						return true;
-				}
-				if (JSStandardDialect.ES5.supports(feature))
-					return true;
-				return false;
-			}
-		},
-		TYPESCRIPT_13 {
-			@Override
-			public boolean supports(String feature) {
-				switch (feature) {
-					case "ts.visibility.protected":
-					case "ts.types.tuple":
-						return true;
-				}
-				if (JSStandardDialect.ES5.supports(feature) || JSStandardDialect.TYPESCRIPT_11.supports(feature))
-					return true;
-				return false;
-			}
-		},
-		TYPESCRIPT_14 {
-			@Override
-			public boolean supports(String feature) {
-				switch (feature) {
-					case "ts.types.union":
-					case "ts.types.alias":
-					case "ts.types.enum.const":
-						return true;
-				}
-				if (JSStandardDialect.ES6.supports(feature) || JSStandardDialect.TYPESCRIPT_13.supports(feature))
-					return true;
-				return false;
-			}
-		},
-		TYPESCRIPT_15 {
-			@Override
-			public boolean supports(String feature) {
-				switch (feature) {
-					case "ts.namespace":
-					case "js.decorator":
-						return true;
-				}
-				if (JSStandardDialect.ES6.supports(feature) || JSStandardDialect.TYPESCRIPT_14.supports(feature))
-					return true;
-				return false;
-			}
-		},
-		TYPESCRIPT_16 {
-			@Override
-			public boolean supports(String feature) {
-				switch (feature) {
-					case "ts.types.intersection":
-					case "ts.class.abstract":
-						return true;
-				}
-				if (JSStandardDialect.ES6.supports(feature) || JSStandardDialect.TYPESCRIPT_15.supports(feature))
-					return true;
-				return false;
-			}
-		},
-		TYPESCRIPT_17 {
-			@Override
-			public boolean supports(String feature) {
-				switch (feature) {
-					case "ts.types.this":
-					case "ts.types.literal.string":
-						return true;
-				}
-				if (JSStandardDialect.ES6.supports(feature) || JSStandardDialect.TYPESCRIPT_16.supports(feature))
-					return true;
-				return false;
-			}
-		},
-		TYPESCRIPT {
-			@Override
-			public boolean supports(String feature) {
-				switch (feature) {
-					case "ts.parameter.optional":
-					case "ts.parameter.accessModifier":
-					case "ts.types":
-					case "ts.types.union":
-					case "ts.types.interface":
-					case "ts.types.cast":
-					case "ts.types.this":
-					case "ts.class.abstract":
-						return true;
-				}
-				if (JSStandardDialect.ES2017.supports(feature))
-					return true;
-				return false;
-			}
-		},
-		EVERYTHING {
+		ES5(JSFeatureSet.ES5),
+		ES6(JSFeatureSet.ES6),
+		ES2017(JSFeatureSet.ES2017),
+		TYPESCRIPT_11(JSFeatureSet.TS_1_1),
+		TYPESCRIPT_13(JSFeatureSet.TS_1_3),
+		TYPESCRIPT_14(JSFeatureSet.TS_1_4),
+		TYPESCRIPT_15(JSFeatureSet.TS_1_5),
+		TYPESCRIPT_16(JSFeatureSet.TS_1_6),
+		TYPESCRIPT_17(JSFeatureSet.TS_1_7),
+		TYPESCRIPT(JSFeatureSet.TYPESCRIPT),
+		EVERYTHING(JSFeatureSet.EVERYTHING) {
 			@Override
 			public boolean supports(String feature) {
+				// Including extensions, which don't have a JSFeature
 				return true;
 			}
 		};
+		
+		private final JSFeatureSet features;
+		
+		JSStandardDialect(JSFeatureSet features) {
+			this.features = features;
+		}
+		
+		@Override
+		public JSFeatureSet getFeatures() {
+			return this.features;
+		}
+		
+		/**
+		 * Derived from {@link #getFeatures()}, so the two always agree
+		 */
+		@Override
+		public boolean supports(String feature) {
+			JSFeature value = JSFeature.forDescription(feature);
+			return value != null && this.features.supports(value);
+		}
 	}
 }
@@ -1,5 +1,8 @@
 package com.mindlin.jsast.impl.parser;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public enum JSFeature {
 	// ES5
 	GETTERS,
@@ -91,10 +94,34 @@ public enum JSFeature {
 	OPTIONAL_TUPLE_ELEMENT,
 	REST_TUPLE_ELEMENT,
 	;
+	private static final Map<String, JSFeature> BY_DESCRIPTION = new HashMap<>();
+	static {
+		for (JSFeature feature : values())
+			if (feature.description != null)
+				BY_DESCRIPTION.put(feature.description, feature);
+	}
+	
+	/**
+	 * @param description
+	 * @return Feature with the given {@link #getDescription() description}, or null if none
+	 */
+	public static JSFeature forDescription(String description) {
+		return BY_DESCRIPTION.get(description);
+	}
+	
+	/**
+	 * Name of the feature for {@link JSDialect#supports(String)}, if any
+	 */
+	private final String description;
+	
 	JSFeature() {
-		
+		this(null);
 	}
 	JSFeature(String description) {
-		
+		this.description = description;
+	}
+	
+	public String getDescription() {
+		return this.description;
 	}
 }
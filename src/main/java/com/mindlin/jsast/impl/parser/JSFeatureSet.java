@@ -1,31 +1,182 @@
 package com.mindlin.jsast.impl.parser;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.Set;
 
 import org.eclipse.jdt.annotation.NonNull;
 
+/**
+ * Immutable set of {@link JSFeature}s, stored as a bitset (indexed by ordinal), so {@link #supports(JSFeature)} is
+ * a shift & mask.
+ */
 public class JSFeatureSet implements Serializable {
 	private static final long serialVersionUID = 376385727134135913L;
 
+	protected static final JSFeature[] FEATURES = JSFeature.values();
+	protected static final int WORDS = (FEATURES.length + 63) >>> 6;
+
+	public static final JSFeatureSet NONE = new JSFeatureSet(new long[WORDS]);
+	public static final JSFeatureSet EVERYTHING = NONE.with(FEATURES);
+
+	public static final JSFeatureSet ES5 = of(
+			JSFeature.GETTERS,
+			JSFeature.SETTERS,
+			JSFeature.TRAILING_COMMA,
+			JSFeature.STRICT_MODE);
+	public static final JSFeatureSet ES6 = ES5.with(
+			JSFeature.BINARY_LITERALS,
+			JSFeature.LAMBDA_FUNCTIONS,
+			JSFeature.CLASSES,
+			JSFeature.CLASS_CONSTRUCTORS,
+			JSFeature.CLASS_EXTENDS,
+			JSFeature.CLASS_STATIC,
+			JSFeature.CLASS_SUPER,
+			JSFeature.CLASS_THIS,
+			JSFeature.DESTRUCTURING,
+			JSFeature.PARAMETER_DESTRUCTURING,
+			JSFeature.FOR_OF_LOOP,
+			JSFeature.GENERATORS,
+			JSFeature.YIELD,
+			JSFeature.COMPUTED_PROPERTIES,
+			JSFeature.CLASS_ACCESSOR,
+			JSFeature.REST_PARAMETERS,
+			JSFeature.PARAMETER_INITIALIZERS,
+			JSFeature.SPREAD_EXPRESSIONS,
+			JSFeature.LET_DECLARATIONS,
+			JSFeature.CONST_DECLARATIONS,
+			JSFeature.NEW_TARGET,
+			JSFeature.OCTAL_LITERALS,
+			JSFeature.IMPLICIT_OCTAL_LITERALS,
+			JSFeature.REGEXP_FLAG_U,
+			JSFeature.REGEXP_FLAG_Y,
+			JSFeature.TEMPLATE_LITERALS,
+			JSFeature.MODULES);
+	public static final JSFeatureSet ES2015 = ES6;
+	public static final JSFeatureSet ES2016 = ES2015.with(JSFeature.EXPONENTIATION_OPERATOR);
+	public static final JSFeatureSet ES2017 = ES2016.with(JSFeature.ASYNC_FUNCTION, JSFeature.AWAIT);
+	public static final JSFeatureSet ES2018 = ES2017.with(
+			JSFeature.REGEXP_FLAG_S,
+			JSFeature.REGEXP_LOOKBEHIND,
+			JSFeature.REGEXP_NAMED_GROUPS,
+			JSFeature.OBJECT_LITERAL_SPREAD,
+			JSFeature.OBJECT_PATTERN_REST);
+
+	/**
+	 * TypeScript 1.1 (ES5 output, but with classes, arrow functions & modules)
+	 */
+	public static final JSFeatureSet TS_1_1 = ES5.with(
+			JSFeature.LAMBDA_FUNCTIONS,
+			JSFeature.CLASSES,
+			JSFeature.CLASS_CONSTRUCTORS,
+			JSFeature.CLASS_EXTENDS,
+			JSFeature.CLASS_STATIC,
+			JSFeature.CLASS_SUPER,
+			JSFeature.CLASS_THIS,
+			JSFeature.CLASS_ACCESSOR,
+			JSFeature.REST_PARAMETERS,
+			JSFeature.PARAMETER_INITIALIZERS,
+			JSFeature.MODULES,
+			JSFeature.OPTIONAL_PARAMETER,
+			JSFeature.PROPERTY_VISIBILITY,
+			JSFeature.PUBLIC_VISIBILITY,
+			JSFeature.PRIVATE_VISIBILITY,
+			JSFeature.TS_TYPES,
+			JSFeature.TS_ENUM,
+			JSFeature.CLASS_IMPLEMENTS,
+			JSFeature.ANGLE_CASTING,
+			JSFeature.TS_INTERFACE,
+			JSFeature.PARAMETER_ACCESS_MODIFIERS,
+			JSFeature.TYPE_GENERICS,
+			JSFeature.INDEX_SIGNATURE,
+			JSFeature.CALL_SIGNATURE,
+			JSFeature.CONSTRUCT_SIGNATURE,
+			JSFeature.CLASS_PROPERTY_DECLARATION,
+			JSFeature.AMBIENT_DECLARATION);
+	public static final JSFeatureSet TS_1_3 = TS_1_1.with(JSFeature.TUPLE_TYPES, JSFeature.PROTECTED_VISIBILITY);
+	public static final JSFeatureSet TS_1_4 = TS_1_3.with(ES6).with(JSFeature.TYPE_UNION, JSFeature.TYPE_ALIAS, JSFeature.TS_CONST_ENUM);
+	public static final JSFeatureSet TS_1_5 = TS_1_4.with(JSFeature.NAMESPACES, JSFeature.DECORATORS);
+	public static final JSFeatureSet TS_1_6 = TS_1_5.with(JSFeature.TYPE_INTERSECTION, JSFeature.ABSTRACT_CLASSES);
+	public static final JSFeatureSet TS_1_7 = TS_1_6.with(JSFeature.THIS_TYPE, JSFeature.STRING_LITERAL_TYPE);
+	/**
+	 * Latest TypeScript (everything we know about)
+	 */
+	public static final JSFeatureSet TYPESCRIPT = EVERYTHING;
+
 	public static JSFeatureSet latest() {
-		return null;
+		return EVERYTHING;
+	}
+
+	public static JSFeatureSet of(JSFeature...features) {
+		return NONE.with(features);
 	}
-	
-	private @NonNull Set<JSFeature> features;
-	
+
+	protected final long[] words;
+
+	protected JSFeatureSet(long[] words) {
+		this.words = words;
+	}
+
 	public JSFeatureSet(@NonNull Set<JSFeature> features) {
-		this.features = features;
+		this(new long[WORDS]);
+		for (JSFeature feature : features)
+			this.words[feature.ordinal() >>> 6] |= 1L << feature.ordinal();
 	}
 
 	public boolean supports(JSFeature feature) {
-		return this.features.contains(feature);
+		int ordinal = feature.ordinal();
+		return (this.words[ordinal >>> 6] & (1L << ordinal)) != 0;
+	}
+
+	public JSFeatureSet with(JSFeature...features) {
+		long[] words = this.words.clone();
+		for (JSFeature feature : features)
+			words[feature.ordinal() >>> 6] |= 1L << feature.ordinal();
+		return new JSFeatureSet(words);
 	}
-	
+
 	public JSFeatureSet with(JSFeatureSet other) {
-		Set<JSFeature> features = this.features.isEmpty() ? EnumSet.noneOf(JSFeature.class) : EnumSet.copyOf(this.features);
-		features.addAll(other.features);
-		return new JSFeatureSet(features);
+		long[] words = this.words.clone();
+		for (int i = 0; i < WORDS; i++)
+			words[i] |= other.words[i];
+		return new JSFeatureSet(words);
+	}
+
+	public JSFeatureSet without(JSFeature...features) {
+		long[] words = this.words.clone();
+		for (JSFeature feature : features)
+			words[feature.ordinal() >>> 6] &= ~(1L << feature.ordinal());
+		return new JSFeatureSet(words);
+	}
+
+	/**
+	 * @return Features in this set
+	 */
+	public Set<JSFeature> toSet() {
+		Set<JSFeature> result = EnumSet.noneOf(JSFeature.class);
+		for (JSFeature feature : FEATURES)
+			if (this.supports(feature))
+				result.add(feature);
+		return result;
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(this.words);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof JSFeatureSet))
+			return false;
+		return Arrays.equals(this.words, ((JSFeatureSet) obj).words);
+	}
+
+	@Override
+	public String toString() {
+		return this.toSet().toString();
 	}
 }
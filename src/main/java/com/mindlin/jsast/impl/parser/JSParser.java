@@ -8,9 +8,10 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.Stack;
+import java.util.Spliterator;
 import java.util.function.BiFunction;
 import java.util.function.BiPredicate;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -20,6 +21,7 @@ import com.mindlin.jsast.exception.JSUnexpectedTokenException;
 import com.mindlin.jsast.exception.JSUnsupportedException;
 import com.mindlin.jsast.impl.lexer.JSLexer;
 import com.mindlin.jsast.impl.lexer.JSSyntaxKind;
+import com.mindlin.jsast.impl.lexer.NameTable;
 import com.mindlin.jsast.impl.lexer.Token;
 import com.mindlin.jsast.impl.lexer.Token.IdentifierToken;
 import com.mindlin.jsast.impl.lexer.Token.NumericLiteralToken;
@@ -227,6 +229,24 @@ public class JSParser {
 		return result;
 	}
 	
+	/**
+	 * Memoized lookahead. Results are cached by rule id, next token, and context flags.
+	 * @param rule Id of the rule (one of the {@code RULE_*} constants); must uniquely identify {@code tester}
+	 */
+	private static boolean lookahead(int rule, LookaheadPredicate tester, JSLexer src, Context context) {
+		LookaheadMemo memo = context.getMemo();
+		Token next = src.peek();
+		long offset = next.getStartOffset();
+		int kind = next.getKind().ordinal();
+		int flags = context.data.flags;
+		int cached = memo.get(rule, offset, kind, flags);
+		if (cached != LookaheadMemo.UNKNOWN)
+			return cached != 0;
+		boolean result = lookahead(tester, src, context);
+		memo.put(rule, offset, kind, flags, result);
+		return result;
+	}
+	
 	private static <T> T tryParse(ParseFunction<T> parser, LookaheadPredicate predicate, JSLexer src, Context context) {
 		src.mark();
 		T result = parser.apply(src, context);
@@ -239,6 +259,25 @@ public class JSParser {
 		}
 	}
 	
+	/**
+	 * Memoized {@link #tryParse(ParseFunction, LookaheadPredicate, JSLexer, Context)}. Only failures are cached (a
+	 * success has to be parsed again anyways).
+	 * @param rule Id of the rule (one of the {@code RULE_*} constants)
+	 */
+	private static <T> T tryParse(int rule, ParseFunction<T> parser, LookaheadPredicate predicate, JSLexer src, Context context) {
+		LookaheadMemo memo = context.getMemo();
+		Token next = src.peek();
+		long offset = next.getStartOffset();
+		int kind = next.getKind().ordinal();
+		int flags = context.data.flags;
+		if (memo.get(rule, offset, kind, flags) == 0)
+			return null;
+		T result = tryParse(parser, predicate, src, context);
+		if (result == null)
+			memo.put(rule, offset, kind, flags, false);
+		return result;
+	}
+	
 	private static <T> T tryParse(ParseFunction<Optional<T>> parser, JSLexer src, Context context) {
 		src.mark();
 		Optional<T> result = parser.apply(src, context);
@@ -251,19 +290,67 @@ public class JSParser {
 		}
 	}
 	
+	// Ids of memoized speculative rules
+	static final int RULE_INDEX_SIGNATURE                = 1;
+	static final int RULE_FUNCTION_TYPE                  = 2;
+	static final int RULE_MAPPED_TYPE                    = 3;
+	static final int RULE_EXPRESSION_TYPE_ARGUMENTS      = 4;
+	
 	//Parser properties
 	protected JSDialect dialect;
+	/**
+	 * Features of {@link #dialect}, resolved once
+	 */
+	protected final JSFeatureSet features;
+	/**
+	 * Names of identifiers, shared by all units parsed by this parser
+	 */
+	protected final NameTable names;
+	/**
+	 * If each unit's lists are allocated in chunks
+	 */
+	protected boolean arenaMode = false;
 	
 	public JSParser() {
 		this(JSDialect.JSStandardDialect.EVERYTHING);
 	}
 	
 	public JSParser(JSDialect dialect) {
+		this(dialect, new NameTable());
+	}
+	
+	public JSParser(JSDialect dialect, NameTable names) {
 		this.dialect = dialect;
+		this.features = dialect.getFeatures();
+		this.names = Objects.requireNonNull(names);
+	}
+	
+	public JSFeatureSet getFeatures() {
+		return this.features;
+	}
+	
+	public NameTable getNameTable() {
+		return this.names;
+	}
+	
+	/**
+	 * @return If child lists of each unit are bump-allocated from shared chunks
+	 */
+	public boolean isArenaMode() {
+		return this.arenaMode;
+	}
+	
+	/**
+	 * Set if child lists of each unit should be bump-allocated from shared chunks. This trades some slack at the end
+	 * of each unit's last chunk for fewer, larger allocations, which all die with the unit.
+	 * @param arenaMode
+	 */
+	public void setArenaMode(boolean arenaMode) {
+		this.arenaMode = arenaMode;
 	}
 	
-	protected boolean supports(JSFeature feature) {
-		return false;//TODO
+	protected final boolean supports(JSFeature feature) {
+		return this.features.supports(feature);
 	}
 	
 	protected void require(JSFeature feature, SourceRange range) {
@@ -281,21 +368,38 @@ public class JSParser {
 	}
 	
 	public CompilationUnitTree apply(String unitName, JSLexer src) {
-		List<StatementTree> elements = new ArrayList<>();
+		return apply(unitName, src, this.arenaMode ? TreeArena.bump() : new TreeArena());
+	}
+	
+	/**
+	 * Parse a compilation unit, storing its child lists in the given arena.
+	 * @param unitName
+	 * @param src
+	 * @param arena Arena for child lists. Should not be shared between threads.
+	 * @return Parsed unit
+	 */
+	public CompilationUnitTree apply(String unitName, JSLexer src, TreeArena arena) {
+		if (src.getNameTable() == null)
+			src.setNameTable(this.names);
 		StatementTree value;
 		Context context = new Context();
 		context.setScriptName(unitName);
 		context.setDirectiveTarget(true);
+		context.setArena(arena);
+		context.setMemo(new LookaheadMemo());
 		SourcePosition start = src.getPosition();
 		
 		//TODO: parse comment pragmas
 		
-		while ((value = parseStatement(src, context)) != null) {
-			elements.add(value);
-			
-			if (context.isDirectiveTarget())
-				context.setDirectiveTarget(value instanceof DirectiveTree);
+		int mark = arena.mark();
+		try {
+			while ((value = parseTopLevelStatement(src, context)) != null)
+				arena.push(value);
+		} catch (RuntimeException e) {
+			arena.release(mark);
+			throw e;
 		}
+		List<StatementTree> elements = arena.finish(mark);
 		
 		SourceFile source = null;
 		LineMap lines = src.getLines();
@@ -303,6 +407,80 @@ public class JSParser {
 		return new CompilationUnitTreeImpl(start, src.getPosition(), source, lines, elements, false);
 	}
 	
+	/**
+	 * Parse the top-level statements of a unit one at a time, without building a list of them. Each statement can be
+	 * transformed & written (then dropped) before the next one is parsed, so the trees in memory are bounded by the
+	 * largest statement, instead of the whole unit.
+	 * <p>
+	 * Child lists are copied to exact-size arrays (not bump-allocated), so they don't keep earlier statements alive.
+	 * </p>
+	 * @param unitName
+	 * @param src
+	 * @return Ordered, sequential spliterator of statements
+	 * @see #apply(String, JSLexer)
+	 */
+	public Spliterator<StatementTree> statements(String unitName, JSLexer src) {
+		if (src.getNameTable() == null)
+			src.setNameTable(this.names);
+		Context context = new Context();
+		context.setScriptName(unitName);
+		context.setDirectiveTarget(true);
+		context.setArena(new TreeArena());
+		context.setMemo(new LookaheadMemo());
+		return new StatementSpliterator(src, context);
+	}
+	
+	/**
+	 * Parse a statement at the top level of a unit (tracking the directive prologue)
+	 * @return Statement, or null at the end of the unit
+	 */
+	protected StatementTree parseTopLevelStatement(JSLexer src, Context context) {
+		StatementTree value = parseStatement(src, context);
+		if (value != null && context.isDirectiveTarget())
+			context.setDirectiveTarget(value instanceof DirectiveTree);
+		return value;
+	}
+	
+	protected class StatementSpliterator implements Spliterator<StatementTree> {
+		protected final JSLexer src;
+		protected final Context context;
+		protected boolean done = false;
+		
+		protected StatementSpliterator(JSLexer src, Context context) {
+			this.src = src;
+			this.context = context;
+		}
+		
+		@Override
+		public boolean tryAdvance(Consumer<? super StatementTree> action) {
+			if (this.done)
+				return false;
+			StatementTree value = parseTopLevelStatement(this.src, this.context);
+			if (value == null) {
+				this.done = true;
+				return false;
+			}
+			action.accept(value);
+			return true;
+		}
+		
+		@Override
+		public Spliterator<StatementTree> trySplit() {
+			// Statements have to be parsed in order
+			return null;
+		}
+		
+		@Override
+		public long estimateSize() {
+			return this.done ? 0 : Long.MAX_VALUE;
+		}
+		
+		@Override
+		public int characteristics() {
+			return ORDERED | NONNULL;
+		}
+	}
+	
 	protected StatementTree parseStatement(JSLexer src, Context context) {
 		Token lookahead = src.peek();
 		switch (lookahead.getKind()) {
@@ -500,38 +678,45 @@ public class JSParser {
 	}
 	
 	protected <T extends Tree> List<T> parseDelimitedList(BiFunction<JSLexer, Context, T> elementParser, BiPredicate<JSLexer, Context> tokenParser, Predicate<Token> isTerminator, JSLexer src, Context context) {
-		List<T> result = new ArrayList<>();
-		
-		while (isTerminator == null || !isTerminator.test(src.peek())) {
-			if (src.peek().matches(JSSyntaxKind.END_OF_FILE))
-				throw new JSEOFException("Unexpected EOF while parsing list", src.getPosition());
-			
-			T value = elementParser.apply(src, context);
-			result.add(value);
-			
-			if (!tokenParser.test(src, context))
-				break;
+		TreeArena arena = context.getArena();
+		int mark = arena.mark();
+		try {
+			while (isTerminator == null || !isTerminator.test(src.peek())) {
+				if (src.peek().matches(JSSyntaxKind.END_OF_FILE))
+					throw new JSEOFException("Unexpected EOF while parsing list", src.getPosition());
+				
+				T value = elementParser.apply(src, context);
+				arena.push(value);
+				
+				if (!tokenParser.test(src, context))
+					break;
+			}
+		} catch (RuntimeException e) {
+			// Might be speculative; don't leave elements on the arena's stack
+			arena.release(mark);
+			throw e;
 		}
 		
-		return result;
+		return arena.finish(mark);
 	}
 	
 	protected <T extends Tree> List<T> parseList(BiFunction<JSLexer, Context, T> elementParser, Predicate<Token> isTerminator, JSLexer src, Context context) {
-		ArrayList<T> result = new ArrayList<>();
-		
-		while (!isTerminator.test(src.peek())) {
-			if (src.peek().matches(JSSyntaxKind.END_OF_FILE))
-				throw new JSEOFException("Unexpected EOF while parsing list", src.getPosition());
-			
-			T value = elementParser.apply(src, context);
-			result.add(value);
+		TreeArena arena = context.getArena();
+		int mark = arena.mark();
+		try {
+			while (!isTerminator.test(src.peek())) {
+				if (src.peek().matches(JSSyntaxKind.END_OF_FILE))
+					throw new JSEOFException("Unexpected EOF while parsing list", src.getPosition());
+				
+				T value = elementParser.apply(src, context);
+				arena.push(value);
+			}
+		} catch (RuntimeException e) {
+			arena.release(mark);
+			throw e;
 		}
 		
-		if (result.isEmpty())
-			return Collections.emptyList();
-		
-		result.trimToSize();
-		return result;
+		return arena.finish(mark);
 	}
 	/**
 	 * Map a JSOperator type to a Tree.Kind type. Does not support operators not binary.
@@ -1500,7 +1685,7 @@ public class JSParser {
 		Modifiers typeElementFilter = Modifiers.READONLY;
 		Modifiers modifiers = this.parseModifiers(typeElementFilter, true, src, context);
 		
-		if (lookahead(this::isIndexSignature, src, context))
+		if (lookahead(RULE_INDEX_SIGNATURE, this::isIndexSignature, src, context))
 			return this.parseIndexSignature(null, next.getStart(), modifiers, src, context);
 		
 		// Method/property signature
@@ -1720,7 +1905,7 @@ public class JSParser {
 			return this.parseConstructorDeclaration(start, decorators, modifiers, src, context);
 		
 		// Possibly index signature
-		if (lookahead(this::isIndexSignature, src, context))
+		if (lookahead(RULE_INDEX_SIGNATURE, this::isIndexSignature, src, context))
 			return this.parseIndexSignature(decorators, start, modifiers, src, context);
 		
 		// At this point, it's either a method or property
@@ -1852,7 +2037,7 @@ public class JSParser {
 		if (lookahead.matchesAny(JSSyntaxKind.LESS_THAN, JSSyntaxKind.NEW))
 			return true;
 		if (lookahead.matches(JSSyntaxKind.LEFT_PARENTHESIS))
-			return lookahead(this::isStartOfFunctionTypeHelper, src, context);
+			return lookahead(RULE_FUNCTION_TYPE, this::isStartOfFunctionTypeHelper, src, context);
 		return false;
 	}
 	
@@ -2114,7 +2299,7 @@ public class JSParser {
 			case LEFT_PARENTHESIS:
 				return this.parseParenthesizedType(src, context);
 			case LEFT_BRACE:
-				if (lookahead(this::isMappedTypeStart, src, context))
+				if (lookahead(RULE_MAPPED_TYPE, this::isMappedTypeStart, src, context))
 					return this.parseMappedType(src, context);
 				return this.parseObjectType(src, context);
 			case LEFT_BRACKET:
@@ -2322,15 +2507,22 @@ public class JSParser {
 	 */
 	protected BlockTree parseBlock(JSLexer src, Context context) {
 		Token openBraceToken = src.expect(JSSyntaxKind.LEFT_BRACE);
-		List<StatementTree> statements = new ArrayList<>();
-		while (!src.nextTokenIs(JSSyntaxKind.RIGHT_BRACE)) {
-			//TODO: EOF problems?
-			StatementTree statement = this.parseStatement(src, context);
-			statements.add(statement);
-			
-			if (context.isDirectiveTarget())
-				context.setDirectiveTarget(statement instanceof DirectiveTree);
+		TreeArena arena = context.getArena();
+		int mark = arena.mark();
+		try {
+			while (!src.nextTokenIs(JSSyntaxKind.RIGHT_BRACE)) {
+				//TODO: EOF problems?
+				StatementTree statement = this.parseStatement(src, context);
+				arena.push(statement);
+				
+				if (context.isDirectiveTarget())
+					context.setDirectiveTarget(statement instanceof DirectiveTree);
+			}
+		} catch (RuntimeException e) {
+			arena.release(mark);
+			throw e;
 		}
+		List<StatementTree> statements = arena.finish(mark);
 		
 		return new BlockTreeImpl(openBraceToken.getStart(), src.getPosition(), statements);
 	}
@@ -2833,15 +3025,21 @@ public class JSParser {
 		return expr;
 	}
 	
-	private ExpressionTree reduceBinary(Stack<ExpressionTree> exprs, Stack<Token> operators, ExpressionTree right) {
-		ExpressionTree left = exprs.pop();
-		Token operator = operators.pop();
-		Kind kind = this.mapTokenToBinaryKind(operator);
+	/**
+	 * Values of {@link Tree.Kind}, by ordinal (for decoding operators on the operator stack)
+	 */
+	private static final Tree.Kind[] KINDS = Tree.Kind.values();
+	
+	/**
+	 * Pop an operator & its left operand, and build the binary tree with the given right operand.
+	 * Operators are encoded as {@code (precedence << 16) | kind.ordinal()}.
+	 */
+	private ExpressionTree reduceBinary(TreeArena stacks, ExpressionTree right) {
+		ExpressionTree left = (ExpressionTree) stacks.pop();
+		Kind kind = KINDS[stacks.popInt() & 0xFFFF];
 		
 		if (kind == Kind.MEMBER_SELECT || kind == Kind.ARRAY_ACCESS)
 			return new MemberExpressionTreeImpl(kind, left, right);
-		else if (TokenPredicate.ASSIGNMENT.test(operator))
-			throw new JSSyntaxException("This shouldn't be happening", operator.getRange());
 		else
 			return new BinaryTreeImpl(kind, left, right);
 	}
@@ -2862,72 +3060,80 @@ public class JSParser {
 		expr = this.parseAsCastExpression(expr, src, context);
 		
 		Token token = src.peek();// Candidate for binary operator
-		if (this.binaryPrecedence(token, context) < 0)
+		int precedence = this.binaryPrecedence(token, context);
+		if (precedence < 0)
 			return expr;
 		
 		src.skip(token);
 		context.isAssignmentTarget(false);
 		context.isBindingElement(false);
 		
-		//Accumulate-reduce binary trees on stack
-		final Stack<Token> operators = new Stack<>();
-		final Stack<ExpressionTree> stack = new Stack<>();
-		
-		
-		stack.add(expr);
-		operators.add(token);
-		
-		stack.add(this.parseExponentiation(src, context.coverGrammarIsolated()));
-		
+		/*
+		 * Accumulate-reduce binary trees on stack.
+		 * Operands go on the arena's object stack, and operators on its int stack (as precedence & kind), so
+		 * nothing is allocated except for the trees themselves. Nested expressions use the same stacks above us.
+		 */
+		final TreeArena stacks = context.getArena();
+		final int operandBase = stacks.mark();
+		final int operatorBase = stacks.intMark();
 		
-		for (int precedence; (precedence = binaryPrecedence(src.peek(), context)) >= 0; ) {
-			/*
-			 * Reduce expressions with precedences less than the latest operator.
-			 * For example, when the expression 'a * b / c + d' is where:
-			 *     stack = [(a * b), (c)]
-			 *     operators = [/]
-			 *     lastPrecedence = 14
-			 *     
-			 *     src.peek() == '+'
-			 *     precedence = 13
-			 * 
-			 * This loop will reduce it such that:
-			 *     stack = [((a * b) / c)]
-			 *     operators = []
-			 */
-			ExpressionTree right = stack.pop();
-			while ((!operators.isEmpty()) && precedence <= this.binaryPrecedence(operators.peek(), context))
-				right = this.reduceBinary(stack, operators, right);
-			stack.push(right);
+		try {
+			stacks.push(expr);
+			stacks.pushInt((precedence << 16) | this.mapTokenToBinaryKind(token).ordinal());
+			stacks.push(this.parseExponentiation(src, context.coverGrammarIsolated()));
 			
-			// Consume as-cast expressions
-			//TODO: why not just put this in the call-chain before parseExponentiation?
-			if (src.peek().matches(JSSyntaxKind.AS)) {
-				ExpressionTree left = stack.pop();
-				stack.push(this.parseAsCastExpression(left, src, context));
+			while ((precedence = binaryPrecedence(src.peek(), context)) >= 0) {
+				/*
+				 * Reduce expressions with precedences less than the latest operator.
+				 * For example, when the expression 'a * b / c + d' is where:
+				 *     stack = [(a * b), (c)]
+				 *     operators = [/]
+				 *     lastPrecedence = 14
+				 *     
+				 *     src.peek() == '+'
+				 *     precedence = 13
+				 * 
+				 * This loop will reduce it such that:
+				 *     stack = [((a * b) / c)]
+				 *     operators = []
+				 */
+				ExpressionTree right = (ExpressionTree) stacks.pop();
+				while (stacks.intMark() > operatorBase && precedence <= (stacks.peekInt() >> 16))
+					right = this.reduceBinary(stacks, right);
+				
+				// Consume as-cast expressions, then look for the next operator again
+				//TODO: why not just put this in the call-chain before parseExponentiation?
+				if (src.peek().matches(JSSyntaxKind.AS)) {
+					stacks.push(this.parseAsCastExpression(right, src, context));
+					continue;
+				}
+				stacks.push(right);
+				
+				//Push the newest operator/RHS argument onto their respective stacks
+				token = src.nextToken();
+				stacks.pushInt((precedence << 16) | this.mapTokenToBinaryKind(token).ordinal());
+				stacks.push(this.parseExponentiation(src, context.coverGrammarIsolated()));
 			}
 			
-			//Push the newest operator/RHS argument onto their respective stacks
-			operators.add(src.nextToken());
-			stack.add(this.parseExponentiation(src, context.coverGrammarIsolated()));
+			/* 
+			 * Apply a final reduction, knowing that the expression tree is complete.
+			 * For example, when the expression 'a + b * c' is where:
+			 *     stack = [(a), (b), (c)]
+			 *     operators = [+, *]
+			 * 
+			 * This loop will reduce it such that:
+			 *     stack = [(a), (b), (c)] => [(a), (b * c)] => [(a + (b * c))]
+			 *     operators = [+,   *   ] => [    +       ] => [             ]
+			 */
+			expr = (ExpressionTree) stacks.pop();
+			while (stacks.mark() > operandBase)
+				expr = this.reduceBinary(stacks, expr);
+		} catch (RuntimeException e) {
+			stacks.release(operandBase);
+			stacks.releaseInts(operatorBase);
+			throw e;
 		}
 		
-		
-		/* 
-		 * Apply a final reduction, knowing that the expression tree is complete.
-		 * For example, when the expression 'a + b * c' is where:
-		 *     stack = [(a), (b), (c)]
-		 *     operators = [+, *]
-		 * 
-		 * This loop will reduce it such that:
-		 *     stack = [(a), (b), (c)] => [(a), (b * c)] => [(a + (b * c))]
-		 *     operators = [+,   *   ] => [    +       ] => [             ]
-		 */
-		expr = stack.pop();
-		while (!stack.isEmpty())
-			//TODO: check that we don't need to construct trees here
-			expr = this.reduceBinary(stack, operators, expr);
-		
 		return expr;
 	}
 	
@@ -3396,7 +3602,7 @@ public class JSParser {
 		
 		ExpressionTree callee = this.parseLeftSideExpression(false, src, context.coverGrammarIsolated());
 		
-		List<TypeTree> typeArgs = tryParse(this::parseTypeArgumentsMaybe, this::canFollowExpressionTypeArguments, src, context);
+		List<TypeTree> typeArgs = tryParse(RULE_EXPRESSION_TYPE_ARGUMENTS, this::parseTypeArgumentsMaybe, this::canFollowExpressionTypeArguments, src, context);
 		
 		//TODO: finish member expression
 		//TODO: type arguments
@@ -4011,7 +4217,7 @@ public class JSParser {
 			return this.parseSpread(src, context);
 		if (context.allowAwait() && lookahead.matches(JSSyntaxKind.AWAIT))
 			return this.parseAwait(src, context);
-		if (supports(JSFeature.TYPE_CASTING) && lookahead.matches(JSSyntaxKind.LESS_THAN))
+		if (supports(JSFeature.ANGLE_CASTING) && lookahead.matches(JSSyntaxKind.LESS_THAN))
 			return this.parseTypeAssertion(src, context);
 		
 		Tree.Kind kind = this.mapTokenToUnaryKind(lookahead);
@@ -4136,6 +4342,8 @@ public class JSParser {
 		ContextData data;
 		// Fields that are global
 		String scriptName;
+		TreeArena arena;
+		LookaheadMemo memo;
 		
 		public Context() {
 			data = new ContextData();
@@ -4145,6 +4353,44 @@ public class JSParser {
 			this.data = data;
 		}
 		
+		protected Context(ContextData data, Context globals) {
+			this.data = data;
+			this.scriptName = globals.scriptName;
+			this.arena = globals.arena;
+			// Share the memo with the parent, even if the parent hasn't used it yet
+			this.memo = globals.getMemo();
+		}
+		
+		public Context setArena(TreeArena arena) {
+			this.arena = arena;
+			return this;
+		}
+		
+		/**
+		 * @return Arena for child lists of the current unit
+		 */
+		public TreeArena getArena() {
+			TreeArena arena = this.arena;
+			if (arena == null)
+				this.arena = arena = new TreeArena();
+			return arena;
+		}
+		
+		public Context setMemo(LookaheadMemo memo) {
+			this.memo = memo;
+			return this;
+		}
+		
+		/**
+		 * @return Cache of speculative parses for the current unit
+		 */
+		public LookaheadMemo getMemo() {
+			LookaheadMemo memo = this.memo;
+			if (memo == null)
+				this.memo = memo = new LookaheadMemo();
+			return memo;
+		}
+		
 		public Context setScriptName(String name) {
 			this.scriptName = name;
 			return this;
@@ -4160,7 +4406,7 @@ public class JSParser {
 		}
 		
 		public Context pushed() {
-			return new Context(new ContextData(data));
+			return new Context(new ContextData(data), this);
 		}
 		
 		public Context coverGrammarIsolated() {
@@ -4189,7 +4435,7 @@ public class JSParser {
 		public Context inheritingCoverGrammar() {
 			int rcMask = Context.FLAG_BINDING_ELEMENT | Context.FLAG_ASSIGNMENT_TARGET;
 			int rsMask = ~rcMask;
-			return new Context(new ContextData(this.data, rsMask, rcMask));
+			return new Context(new ContextData(this.data, rsMask, rcMask), this);
 		}
 		
 		public Context pop() {
@@ -0,0 +1,117 @@
+package com.mindlin.jsast.impl.parser;
+
+import java.util.Arrays;
+
+/**
+ * Bounded cache of the results of speculative parses (lookahead predicates & failed {@code tryParse}s) for one parse.
+ * <p>
+ * Results are keyed by rule, the next token (start offset & kind), and the context flags. The table is
+ * direct-mapped, so a colliding entry just replaces the old one. Each entry is tagged with an epoch, so
+ * {@link #clear()} doesn't have to touch the table.
+ * </p>
+ */
+public class LookaheadMemo {
+	protected static final int DEFAULT_CAPACITY = 512;
+	/**
+	 * Result of {@link #get(int, long, int, int)} if there is no entry
+	 */
+	public static final int UNKNOWN = -1;
+
+	protected final long[] offsets;
+	/**
+	 * Packed {@code (rule << 16) | kind}
+	 */
+	protected final int[] rules;
+	protected final int[] flags;
+	protected final int[] epochs;
+	protected final boolean[] results;
+	protected final int shift;
+	protected int epoch = 1;
+	protected int hits = 0;
+	protected int misses = 0;
+
+	public LookaheadMemo() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param capacity
+	 *            Maximum number of entries (rounded up to a power of 2)
+	 */
+	public LookaheadMemo(int capacity) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("Illegal capacity: " + capacity);
+		int bits = 32 - Integer.numberOfLeadingZeros(Math.max(capacity, 2) - 1);
+		int size = 1 << bits;
+		this.shift = 32 - bits;
+		this.offsets = new long[size];
+		this.rules = new int[size];
+		this.flags = new int[size];
+		this.epochs = new int[size];
+		this.results = new boolean[size];
+	}
+
+	protected int slot(int rule, long offset, int kind, int flags) {
+		int hash = (int) (offset ^ (offset >>> 32));
+		hash = hash * 31 + ((rule << 16) | kind);
+		hash = hash * 31 + flags;
+		return (hash * 0x9E3779B1) >>> this.shift;
+	}
+
+	/**
+	 * Look up a result
+	 *
+	 * @param rule
+	 *            Id of the rule
+	 * @param offset
+	 *            Start offset of the next token
+	 * @param kind
+	 *            Ordinal of the kind of the next token
+	 * @param flags
+	 *            Context flags
+	 * @return 1 if the rule matched, 0 if it didn't, or {@link #UNKNOWN}
+	 */
+	public int get(int rule, long offset, int kind, int flags) {
+		int slot = this.slot(rule, offset, kind, flags);
+		if (this.epochs[slot] == this.epoch && this.offsets[slot] == offset && this.rules[slot] == ((rule << 16) | kind) && this.flags[slot] == flags) {
+			this.hits++;
+			return this.results[slot] ? 1 : 0;
+		}
+		this.misses++;
+		return UNKNOWN;
+	}
+
+	public void put(int rule, long offset, int kind, int flags, boolean result) {
+		int slot = this.slot(rule, offset, kind, flags);
+		this.epochs[slot] = this.epoch;
+		this.offsets[slot] = offset;
+		this.rules[slot] = (rule << 16) | kind;
+		this.flags[slot] = flags;
+		this.results[slot] = result;
+	}
+
+	/**
+	 * Drop all entries (e.g., when the source has changed)
+	 */
+	public void clear() {
+		if (++this.epoch == 0) {
+			// Wrapped around; old tags might match again
+			Arrays.fill(this.epochs, 0);
+			this.epoch = 1;
+		}
+	}
+
+	/**
+	 * @return Number of lookups that found a result
+	 */
+	public int getHits() {
+		return this.hits;
+	}
+
+	/**
+	 * @return Number of lookups that didn't find a result
+	 */
+	public int getMisses() {
+		return this.misses;
+	}
+}
@@ -0,0 +1,193 @@
+package com.mindlin.jsast.impl.parser;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.mindlin.jsast.impl.util.ArraySlice;
+
+/**
+ * Storage for the child lists of one compilation unit.
+ * <p>
+ * Elements of a list being parsed are pushed onto a shared scratch stack (lists nest, so the stack is only as deep
+ * as the deepest chain of unfinished lists). When a list is finished, its elements are copied once into an
+ * exactly-sized immutable list.
+ * </p>
+ * <p>
+ * The stacks are also used as (unsynchronized) scratch space by the parser, such as for the operands & operators of
+ * binary expressions. Every user must leave them as it found them.
+ * </p>
+ * <p>
+ * In bump mode, finished lists are carved out of large shared chunks instead of getting their own array, so a
+ * unit's lists are a few big allocations with the same lifetime as the tree.
+ * </p>
+ */
+public class TreeArena {
+	protected static final int DEFAULT_STACK_SIZE = 64;
+	protected static final int DEFAULT_CHUNK_SIZE = 4096;
+
+	/**
+	 * Scratch stack of elements of unfinished lists
+	 */
+	protected Object[] stack = new Object[DEFAULT_STACK_SIZE];
+	protected int top = 0;
+	/**
+	 * Scratch stack of ints
+	 */
+	protected int[] ints = new int[DEFAULT_STACK_SIZE];
+	protected int intTop = 0;
+	/**
+	 * Size of chunks to bump-allocate lists from, or 0 for each list to get its own array
+	 */
+	protected final int chunkSize;
+	protected Object[] chunk;
+	protected int chunkPos;
+
+	/**
+	 * Arena that gives each list its own (exactly-sized) array.
+	 */
+	public TreeArena() {
+		this(0);
+	}
+
+	/**
+	 * @param chunkSize
+	 *            Number of slots in each chunk, or 0 to not use chunks
+	 */
+	public TreeArena(int chunkSize) {
+		if (chunkSize < 0)
+			throw new IllegalArgumentException("Illegal chunk size: " + chunkSize);
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Arena that bump-allocates lists from chunks
+	 */
+	public static TreeArena bump() {
+		return new TreeArena(DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Start a list.
+	 *
+	 * @return Mark to pass to {@link #finish(int)}
+	 */
+	public int mark() {
+		return this.top;
+	}
+
+	/**
+	 * Add an element to the current list
+	 */
+	public void push(Object value) {
+		Object[] stack = this.stack;
+		int top = this.top;
+		if (top == stack.length) {
+			Object[] newStack = new Object[stack.length * 2];
+			System.arraycopy(stack, 0, newStack, 0, top);
+			this.stack = stack = newStack;
+		}
+		stack[top] = value;
+		this.top = top + 1;
+	}
+
+	/**
+	 * Pop the last element pushed
+	 */
+	public Object pop() {
+		int top = this.top - 1;
+		Object result = this.stack[top];
+		this.stack[top] = null;
+		this.top = top;
+		return result;
+	}
+
+	/**
+	 * @return Current depth of the int stack
+	 */
+	public int intMark() {
+		return this.intTop;
+	}
+
+	public void pushInt(int value) {
+		int[] ints = this.ints;
+		int top = this.intTop;
+		if (top == ints.length)
+			this.ints = ints = Arrays.copyOf(ints, ints.length * 2);
+		ints[top] = value;
+		this.intTop = top + 1;
+	}
+
+	public int peekInt() {
+		return this.ints[this.intTop - 1];
+	}
+
+	public int popInt() {
+		return this.ints[--this.intTop];
+	}
+
+	/**
+	 * Drop ints pushed since a mark
+	 * @param mark Value of {@link #intMark()}
+	 */
+	public void releaseInts(int mark) {
+		if (mark < this.intTop)
+			this.intTop = mark;
+	}
+
+	/**
+	 * Finish a list
+	 *
+	 * @param mark
+	 *            Value of {@link #mark()} when the list was started
+	 * @return Immutable list of the elements pushed since {@code mark}
+	 */
+	public <T> List<T> finish(int mark) {
+		int size = this.top - mark;
+		if (size < 0)
+			throw new IllegalStateException("List was already finished");
+		if (size == 0)
+			return Collections.emptyList();
+
+		Object[] dst;
+		int offset;
+		if (this.chunkSize == 0 || size > this.chunkSize / 4) {
+			// Big lists (or no chunks) get their own array
+			dst = new Object[size];
+			offset = 0;
+		} else {
+			if (this.chunk == null || this.chunkPos + size > this.chunk.length) {
+				this.chunk = new Object[this.chunkSize];
+				this.chunkPos = 0;
+			}
+			dst = this.chunk;
+			offset = this.chunkPos;
+			this.chunkPos += size;
+		}
+		System.arraycopy(this.stack, mark, dst, offset, size);
+		this.release(mark);
+		return new ArraySlice<>(dst, offset, size);
+	}
+
+	/**
+	 * Drop a list without finishing it (e.g., if it failed to parse)
+	 *
+	 * @param mark
+	 *            Value of {@link #mark()} when the list was started
+	 */
+	public void release(int mark) {
+		if (mark > this.top)
+			return;
+		// Clear references so elements can be collected
+		for (int i = mark; i < this.top; i++)
+			this.stack[i] = null;
+		this.top = mark;
+	}
+
+	/**
+	 * @return If there aren't any unfinished lists (or other scratch values)
+	 */
+	public boolean isEmpty() {
+		return this.top == 0 && this.intTop == 0;
+	}
+}
@@ -7,6 +7,7 @@ import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
 
+import com.mindlin.jsast.impl.lexer.Token;
 import com.mindlin.jsast.tree.Tree;
 import com.mindlin.nautilus.fs.SourcePosition;
 import com.mindlin.nautilus.fs.SourceRange;
@@ -38,7 +39,16 @@ public abstract class AbstractTree implements Tree {
 		return sb.toString();
 	}
 	
-	protected final SourceRange range;
+	/**
+	 * Resolved range. If null, it is lazily computed from {@link #lines}.
+	 */
+	protected SourceRange range;
+	/**
+	 * Map to resolve {@link #startOffset}/{@link #endOffset} against. Null if the range was given eagerly.
+	 */
+	protected final LineMap lines;
+	protected final long startOffset;
+	protected final long endOffset;
 	/**
 	 * Cache our hash here, so we don't cascade every time
 	 */
@@ -46,24 +56,70 @@ public abstract class AbstractTree implements Tree {
 	
 	public AbstractTree(SourceRange pos) {
 		this.range = pos;
+		this.lines = null;
+		this.startOffset = offsetOf(pos == null ? null : pos.getStart());
+		this.endOffset = offsetOf(pos == null ? null : pos.getEnd());
 	}
 	
 	public AbstractTree(SourcePosition start, SourcePosition end) {
 		this(new SourceRange(start, end));
 	}
 	
+	/**
+	 * Create tree with a lazily-resolved range. Line/column are only computed if {@link #getStart()},
+	 * {@link #getEnd()}, or {@link #getRange()} are called.
+	 * 
+	 * @param lines Map to resolve offsets with
+	 * @param start Offset of first character
+	 * @param end Offset of last character
+	 */
+	public AbstractTree(LineMap lines, long start, long end) {
+		this.range = null;
+		this.lines = Objects.requireNonNull(lines);
+		this.startOffset = start;
+		this.endOffset = end;
+	}
+	
+	/**
+	 * Create tree spanning a single token. The token's range isn't resolved if it hasn't been already.
+	 * @param token
+	 */
+	public AbstractTree(Token token) {
+		this.lines = token.getLines();
+		this.range = this.lines == null ? token.getRange() : null;
+		this.startOffset = token.getStartOffset();
+		this.endOffset = token.getEndOffset();
+	}
+	
+	private static long offsetOf(SourcePosition position) {
+		return position == null ? -1 : position.getOffset();
+	}
+	
 	@Override
 	public SourcePosition getStart() {
-		return this.range.getStart();
+		return this.getRange().getStart();
 	}
 	
 	@Override
 	public SourcePosition getEnd() {
-		return this.range.getEnd();
+		return this.getRange().getEnd();
+	}
+	
+	@Override
+	public long getStartOffset() {
+		return this.startOffset;
+	}
+	
+	@Override
+	public long getEndOffset() {
+		return this.endOffset;
 	}
 	
 	@Override
 	public SourceRange getRange() {
+		SourceRange range = this.range;
+		if (range == null && this.lines != null)
+			this.range = range = new SourceRange(this.lines.lookup(this.startOffset), this.lines.lookup(this.endOffset));
 		return range;
 	}
 	
@@ -83,7 +139,8 @@ public abstract class AbstractTree implements Tree {
 		if (!this.equivalentTo((Tree) other))
 			return false;
 		
-		if (this.getStart() != ((Tree)other).getStart() || this.getEnd() != ((Tree)other).getEnd())
+		// Compare offsets, so we don't have to resolve either range
+		if (this.getStartOffset() != ((Tree)other).getStartOffset() || this.getEndOffset() != ((Tree)other).getEndOffset())
 			return false;
 		
 		return true;
@@ -123,6 +180,8 @@ public abstract class AbstractTree implements Tree {
 		getterNames.add("getClass");
 		getterNames.add("getStart");
 		getterNames.add("getEnd");
+		getterNames.add("getStartOffset");
+		getterNames.add("getEndOffset");
 		Class<?> clazz = getClass();
 		do {
 			for (Method getter : clazz.getMethods()) {
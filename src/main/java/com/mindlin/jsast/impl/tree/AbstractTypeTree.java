@@ -1,5 +1,6 @@
 package com.mindlin.jsast.impl.tree;
 
+import com.mindlin.jsast.impl.lexer.Token;
 import com.mindlin.jsast.tree.type.TypeTree;
 import com.mindlin.nautilus.fs.SourcePosition;
 
@@ -8,4 +9,8 @@ public abstract class AbstractTypeTree extends AbstractTree implements TypeTree
 		super(start, end);
 	}
 	
+	public AbstractTypeTree(Token token) {
+		super(token);
+	}
+	
 }
@@ -10,7 +10,8 @@ import com.mindlin.nautilus.fs.SourcePosition;
 public class BooleanLiteralTreeImpl extends AbstractTree implements BooleanLiteralTree {
 	protected final boolean value;
 	public BooleanLiteralTreeImpl(Token t) {
-		this(t.getStart(), t.getEnd(), t.getKind() == JSSyntaxKind.TRUE);
+		super(t);
+		this.value = t.getKind() == JSSyntaxKind.TRUE;
 	}
 	public BooleanLiteralTreeImpl(SourcePosition start, SourcePosition end, boolean value) {
 		super(start, end);
@@ -22,6 +22,14 @@ public class CompilationUnitTreeImpl extends AbstractTree implements Compilation
 		this.isStrict = isStrict;
 	}
 	
+	public CompilationUnitTreeImpl(long start, long end, SourceFile source, LineMap lineMap, List<StatementTree> sourceElements, boolean isStrict) {
+		super(lineMap, start, end);
+		this.source = source;
+		this.lineMap = lineMap;
+		this.sourceElements = sourceElements;
+		this.isStrict = isStrict;
+	}
+	
 	@Override
 	public LineMap getLineMap() {
 		return this.lineMap;
@@ -13,7 +13,7 @@ public class EmptyStatementTreeImpl extends AbstractTree implements EmptyStateme
 	}
 
 	public EmptyStatementTreeImpl(Token t) {
-		this(t.getStart(), t.getEnd());
+		super(t);
 	}
 	
 	@Override
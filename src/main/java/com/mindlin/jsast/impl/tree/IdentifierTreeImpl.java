@@ -15,7 +15,8 @@ public class IdentifierTreeImpl extends AbstractTree implements IdentifierTree {
 	}
 	
 	public IdentifierTreeImpl(Token token) {
-		this(token.getStart(), token.getEnd(), token.getValue().toString());
+		super(token);
+		this.name = token.getValue().toString();
 	}
 
 	@Override
@@ -5,7 +5,6 @@ import java.util.Arrays;
 
 import com.mindlin.nautilus.fs.SourceFile;
 import com.mindlin.nautilus.fs.SourcePosition;
-import com.mindlin.nautilus.impl.util.LongStack;
 
 /**
  * Provider for mapping raw offsets to {@link SourcePosition SourcePositions}. 
@@ -43,16 +42,14 @@ public interface LineMap {
 		return new SourcePosition(getSource(), position, row, col);
 	}
 	
+	/**
+	 * Build a line map for some text, recognizing all JS line terminators.
+	 * @param s
+	 * @return compiled line map
+	 * @see NewlineScanner
+	 */
 	public static LineMap compile(String s) {
-		LongStack offsets = new LongStack(64, false);
-		
-		// Simple & happy. I love when programming languages
-		// let you do tasks like this so easily
-		int lastOffset = -1;
-		while ((lastOffset = s.indexOf('\n', lastOffset)) > -1)
-			offsets.push(lastOffset);
-		
-		return new CompiledLineMap(null, offsets.toArray());
+		return NewlineScanner.compile(null, s);
 	}
 	
 	public static class CompiledLineMap implements LineMap, Serializable {
@@ -109,7 +106,14 @@ public interface LineMap {
 			return this.source;
 		}
 		
+		/**
+		 * Record a newline. Positions at or before the last recorded newline are ignored, so it's safe to
+		 * call again when rescanning after a backtrack.
+		 * @param position Offset of newline character
+		 */
 		public void putNewline(long position) {
+			if (this.length > 0 && position <= this.newlinePositions[this.length - 1])
+				return;
 			if (this.newlinePositions.length == this.length) {
 				int newCap = this.length * 3 / 2 + 1;
 				
@@ -0,0 +1,216 @@
+package com.mindlin.jsast.impl.tree;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+import com.mindlin.jsast.impl.tree.LineMap.CompiledLineMap;
+import com.mindlin.nautilus.fs.SourceFile;
+
+/**
+ * Bulk scanner that finds all line terminators in a buffer in one pass, and builds a {@link CompiledLineMap}
+ * from them.
+ * <p>
+ * Line terminators are {@code \n}, {@code \r}, U+2028 (line separator), and U+2029 (paragraph separator). A
+ * {@code \r\n} pair is a single terminator, and is recorded at the offset of the {@code \n}.
+ * </p>
+ * <p>
+ * Characters are checked in blocks with a branch-free test, so blocks without any terminators (the vast majority
+ * of them) cost no branches besides the one for the block. Byte buffers are scanned 8 bytes at a time as
+ * {@code long} words.
+ * </p>
+ */
+public final class NewlineScanner {
+	private static final int BLOCK = 8;
+	private static final long ONES = 0x0101010101010101L;
+	private static final long HIGHS = 0x8080808080808080L;
+	private static final long LF_WORD = ONES * '\n';
+	private static final long CR_WORD = ONES * '\r';
+
+	private NewlineScanner() {
+	}
+
+	/**
+	 * Branch-free check for a line terminator.
+	 *
+	 * @param c
+	 * @return Negative if {@code c} might be a line terminator (i.e., it is {@code < 0xE}, or is U+2028/U+2029),
+	 *         else non-negative
+	 */
+	private static int candidate(char c) {
+		return (c - 0xE) | ((c ^ 0x2028) - 2);
+	}
+
+	/**
+	 * Compile line map from a string
+	 * @param source Source file for positions (may be null)
+	 * @param text
+	 * @return line map
+	 */
+	public static CompiledLineMap compile(SourceFile source, CharSequence text) {
+		if (text instanceof CharBuffer)
+			return compile(source, (CharBuffer) text);
+
+		Offsets result = new Offsets(text.length() / 32);
+		final int length = text.length();
+		for (int i = 0; i < length; i++) {
+			char c = text.charAt(i);
+			if (candidate(c) < 0)
+				i = result.accept(c, i, i + 1 < length ? text.charAt(i + 1) : 0);
+		}
+		return new CompiledLineMap(source, result.toArray());
+	}
+
+	/**
+	 * Compile line map from a char buffer. The buffer's position is not modified.
+	 * @param source Source file for positions (may be null)
+	 * @param text
+	 * @return line map
+	 */
+	public static CompiledLineMap compile(SourceFile source, CharBuffer text) {
+		if (text.hasArray())
+			return compile(source, text.array(), text.arrayOffset() + text.position(), text.remaining());
+
+		Offsets result = new Offsets(text.remaining() / 32);
+		final int base = text.position();
+		final int length = text.remaining();
+		for (int i = 0; i < length; i++) {
+			char c = text.get(base + i);
+			if (candidate(c) < 0)
+				i = result.accept(c, i, i + 1 < length ? text.get(base + i + 1) : 0);
+		}
+		return new CompiledLineMap(source, result.toArray());
+	}
+
+	/**
+	 * Compile line map from a char array. Offsets in the result are relative to {@code offset}.
+	 * @param source Source file for positions (may be null)
+	 * @param text
+	 * @param offset Index of first character to scan
+	 * @param length Number of characters to scan
+	 * @return line map
+	 */
+	public static CompiledLineMap compile(SourceFile source, char[] text, int offset, int length) {
+		return new CompiledLineMap(source, scan(text, offset, length));
+	}
+
+	/**
+	 * Find offsets of all line terminators in an array
+	 * @param text
+	 * @param offset Index of first character to scan
+	 * @param length Number of characters to scan
+	 * @return Sorted offsets (relative to {@code offset})
+	 */
+	public static long[] scan(char[] text, int offset, int length) {
+		if (offset < 0 || length < 0 || offset + length > text.length)
+			throw new IndexOutOfBoundsException(String.format("[%d, %d) is not in [0, %d)", offset, offset + length, text.length));
+
+		Offsets result = new Offsets(length / 32);
+		final int end = offset + length;
+		int i = offset;
+		while (i < end) {
+			// Test 8 chars at a time, and only look at individual chars when some may be line terminators
+			if (i + BLOCK <= end) {
+				int test = candidate(text[i]) | candidate(text[i + 1]) | candidate(text[i + 2]) | candidate(text[i + 3])
+						| candidate(text[i + 4]) | candidate(text[i + 5]) | candidate(text[i + 6]) | candidate(text[i + 7]);
+				if (test >= 0) {
+					i += BLOCK;
+					continue;
+				}
+			}
+			// Look at a single block (or the tail). A '\r\n' pair may straddle blocks, so this may end at blockEnd + 1.
+			for (int blockEnd = Math.min(i + BLOCK, end); i < blockEnd; i++) {
+				char c = text[i];
+				if (candidate(c) < 0)
+					i = offset + result.accept(c, i - offset, i + 1 < end ? text[i + 1] : 0);
+			}
+		}
+		return result.toArray();
+	}
+
+	/**
+	 * Find offsets of all line terminators in a buffer of single-byte characters (i.e., ASCII or ISO-8859-1). In
+	 * these encodings, byte offsets are the same as character offsets. The buffer's position is not modified.
+	 * <p>
+	 * U+2028/U+2029 can't be represented in single-byte encodings, so only {@code \r} and {@code \n} are found.
+	 * </p>
+	 *
+	 * @param bytes
+	 * @return Sorted offsets (relative to the buffer's position)
+	 */
+	public static long[] scan(ByteBuffer bytes) {
+		ByteBuffer buf = bytes.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		final int base = buf.position();
+		final int end = buf.limit();
+		Offsets result = new Offsets((end - base) / 32);
+		int i = base;
+		for (; i + Long.BYTES <= end; i += Long.BYTES) {
+			long word = buf.getLong(i);
+			// Classic 'has zero byte' test, against both '\n' and '\r'. Exact for bytes < 0x80, which is all we care about.
+			long lf = word ^ LF_WORD;
+			long cr = word ^ CR_WORD;
+			long hits = (((lf - ONES) & ~lf) | ((cr - ONES) & ~cr)) & HIGHS;
+			if (hits == 0)
+				continue;
+			for (int j = i; j < i + Long.BYTES; j++) {
+				byte b = buf.get(j);
+				if (b == '\n')
+					result.acceptSingle('\n', j - base);
+				else if (b == '\r' && !(j + 1 < end && buf.get(j + 1) == '\n'))
+					result.acceptSingle('\r', j - base);
+			}
+		}
+		for (; i < end; i++) {
+			byte b = buf.get(i);
+			if (b == '\n')
+				result.acceptSingle('\n', i - base);
+			else if (b == '\r' && !(i + 1 < end && buf.get(i + 1) == '\n'))
+				result.acceptSingle('\r', i - base);
+		}
+		return result.toArray();
+	}
+
+	/**
+	 * Growable list of newline offsets
+	 */
+	private static final class Offsets {
+		long[] values;
+		int size = 0;
+
+		Offsets(int capacity) {
+			this.values = new long[Math.max(capacity, 16)];
+		}
+
+		/**
+		 * Record {@code c} if it's a line terminator.
+		 * @param c Character that passed {@link NewlineScanner#candidate(char)}
+		 * @param offset Offset of {@code c}
+		 * @param next Character after {@code c}, or 0 if none
+		 * @return Offset of the last character consumed
+		 */
+		int accept(char c, int offset, char next) {
+			if (c == '\r' && next == '\n') {
+				this.add(offset + 1);
+				return offset + 1;
+			}
+			this.acceptSingle(c, offset);
+			return offset;
+		}
+
+		void acceptSingle(char c, int offset) {
+			if (c == '\n' || c == '\r' || c == '\u2028' || c == '\u2029')
+				this.add(offset);
+		}
+
+		void add(long offset) {
+			if (this.size == this.values.length)
+				this.values = Arrays.copyOf(this.values, this.size * 2);
+			this.values[this.size++] = offset;
+		}
+
+		long[] toArray() {
+			return Arrays.copyOf(this.values, this.size);
+		}
+	}
+}
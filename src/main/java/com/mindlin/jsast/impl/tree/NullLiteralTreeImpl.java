@@ -8,7 +8,7 @@ import com.mindlin.nautilus.fs.SourcePosition;
 
 public class NullLiteralTreeImpl extends AbstractTree implements NullLiteralTree {
 	public NullLiteralTreeImpl(Token t) {
-		this(t.getStart(), t.getEnd());
+		super(t);
 	}
 	
 	public NullLiteralTreeImpl(SourcePosition start, SourcePosition end) {
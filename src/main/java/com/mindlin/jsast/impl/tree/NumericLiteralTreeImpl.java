@@ -10,7 +10,8 @@ public class NumericLiteralTreeImpl extends AbstractTree implements NumericLiter
 	protected final Number value;
 	
 	public NumericLiteralTreeImpl(NumericLiteralToken t) {
-		this(t.getStart(), t.getEnd(), t.getValue());
+		super(t);
+		this.value = t.getValue();
 	}
 	
 	public NumericLiteralTreeImpl(SourcePosition start, SourcePosition end, Number value) {
@@ -44,7 +44,8 @@ public class SpecialTypeTreeImpl extends AbstractTypeTree implements SpecialType
 	}
 	
 	public SpecialTypeTreeImpl(Token t) {
-		this(t.getStart(), t.getEnd(), mapType(t));
+		super(t);
+		this.type = mapType(t);
 	}
 	
 	public SpecialTypeTreeImpl(SourcePosition start, SourcePosition end, SpecialType type) {
@@ -7,20 +7,24 @@ import com.mindlin.jsast.tree.StringLiteralTree;
 import com.mindlin.nautilus.fs.SourcePosition;
 
 public class StringLiteralTreeImpl extends AbstractTree implements StringLiteralTree {
-	protected final String value;
+	/**
+	 * Value. May be a view of the source, in which case it's only copied when {@link #getValue()} is called.
+	 */
+	protected final CharSequence value;
 	
 	public StringLiteralTreeImpl(StringLiteralToken t) {
-		this(t.getStart(), t.getEnd(), t.getValue());
+		super(t);
+		this.value = t.getValueChars();
 	}
 	
-	public StringLiteralTreeImpl(SourcePosition start, SourcePosition end, String value) {
+	public StringLiteralTreeImpl(SourcePosition start, SourcePosition end, CharSequence value) {
 		super(start, end);
 		this.value = value;
 	}
 	
 	@Override
 	public String getValue() {
-		return value;
+		return value == null ? null : value.toString();
 	}
 	
 	@Override
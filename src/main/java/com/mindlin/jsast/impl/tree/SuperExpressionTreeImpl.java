@@ -6,7 +6,7 @@ import com.mindlin.nautilus.fs.SourcePosition;
 
 public class SuperExpressionTreeImpl extends AbstractTree implements SuperExpressionTree {
 	public SuperExpressionTreeImpl(Token t) {
-		this(t.getStart(), t.getEnd());
+		super(t);
 	}
 	
 	public SuperExpressionTreeImpl(SourcePosition start, SourcePosition end) {
@@ -7,7 +7,7 @@ import com.mindlin.nautilus.fs.SourceRange;
 
 public class ThisExpressionTreeImpl extends AbstractTree implements ThisExpressionTree {
 	public ThisExpressionTreeImpl(Token t) {
-		this(t.getStart(), t.getEnd());
+		super(t);
 	}
 	
 	public ThisExpressionTreeImpl(SourcePosition start, SourcePosition end) {
@@ -0,0 +1,42 @@
+package com.mindlin.jsast.impl.util;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list view of a range of an array. The range is never written to after the slice is made, so many
+ * slices can share one backing array.
+ */
+public final class ArraySlice<T> extends AbstractList<T> implements RandomAccess {
+	private final Object[] values;
+	private final int offset;
+	private final int size;
+
+	public ArraySlice(Object[] values, int offset, int size) {
+		if (offset < 0 || size < 0 || offset + size > values.length)
+			throw new IndexOutOfBoundsException("Range [" + offset + ", " + (offset + size) + ") not in array of length " + values.length);
+		this.values = values;
+		this.offset = offset;
+		this.size = size;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T get(int index) {
+		if (index < 0 || index >= this.size)
+			throw new IndexOutOfBoundsException("Index " + index + " not in [0, " + this.size + ")");
+		return (T) this.values[this.offset + index];
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public Object[] toArray() {
+		Object[] result = new Object[this.size];
+		System.arraycopy(this.values, this.offset, result, 0, this.size);
+		return result;
+	}
+}
@@ -29,6 +29,26 @@ public class ExtendedAsciiCharset extends Charset {
 			0x2261, 0x00B1, 0x2265, 0x2264, 0x2320, 0x2321, 0x00F7, 0x2248, 0x00B0, 0x2219, 0x00B7, 0x221A, 0x207F,
 			0x00B2, 0x25A0, 0x00A0 };
 	
+	/**
+	 * Char for each byte value
+	 */
+	static final char[] DECODE_TABLE = new char[256];
+	
+	static {
+		for (int i = 0; i < 0x80; i++)
+			DECODE_TABLE[i] = (char) i;
+		System.arraycopy(unicodeLookup, 0, DECODE_TABLE, 0x80, unicodeLookup.length);
+	}
+	
+	/**
+	 * Decode a single byte, without going through a decoder
+	 * @param value Byte value (0-255)
+	 * @return Decoded char
+	 */
+	public static char decode(int value) {
+		return DECODE_TABLE[value & 0xFF];
+	}
+	
 	protected ExtendedAsciiCharset() {
 		super("Extended_ASCII", new String[] { "ExtendedAscii", "EASCII" });
 	}
@@ -58,7 +78,7 @@ public class ExtendedAsciiCharset extends Charset {
 		protected CoderResult decodeLoop(ByteBuffer in, CharBuffer out) {
 			while (in.hasRemaining()) {
 				final int code = in.get() & 0xFF;
-				out.put((code >= 0x80 && code <= 0xFF) ? unicodeLookup[code - 0x80] : ((char) code));
+				out.put(DECODE_TABLE[code]);
 			}
 			return CoderResult.UNDERFLOW;
 		}
@@ -0,0 +1,127 @@
+package com.mindlin.jsast.impl.util;
+
+import java.util.Objects;
+
+/**
+ * View of a range of a source buffer. A {@link String} is only made when {@link #toString()} is called (and is then
+ * cached).
+ * <p>
+ * {@link #hashCode()} matches {@link String#hashCode()}, but (like other {@link CharSequence}s) a slice is only
+ * {@link #equals(Object) equal} to other slices; use {@link #contentEquals(CharSequence, CharSequence)} to compare
+ * it to a {@code String}.
+ * </p>
+ */
+public final class SourceSlice implements CharSequence, Comparable<CharSequence> {
+	private final char[] source;
+	private final int offset;
+	private final int length;
+	/**
+	 * Cached hash (0 if not computed)
+	 */
+	private int hash;
+	/**
+	 * Cached string
+	 */
+	private String string;
+
+	public SourceSlice(char[] source, int offset, int length) {
+		Objects.requireNonNull(source);
+		if (offset < 0 || length < 0 || offset + length > source.length)
+			throw new IndexOutOfBoundsException("Range [" + offset + ", " + (offset + length) + ") not in buffer of length " + source.length);
+		this.source = source;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	public static boolean contentEquals(CharSequence a, CharSequence b) {
+		if (a == b)
+			return true;
+		if (a == null || b == null || a.length() != b.length())
+			return false;
+		if (a instanceof String)
+			return ((String) a).contentEquals(b);
+		if (b instanceof String)
+			return ((String) b).contentEquals(a);
+		for (int i = 0, l = a.length(); i < l; i++)
+			if (a.charAt(i) != b.charAt(i))
+				return false;
+		return true;
+	}
+
+	/**
+	 * @return Offset of first char in the source buffer
+	 */
+	public int getOffset() {
+		return this.offset;
+	}
+
+	@Override
+	public int length() {
+		return this.length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		if (index < 0 || index >= this.length)
+			throw new IndexOutOfBoundsException("Index " + index + " not in [0, " + this.length + ")");
+		return this.source[this.offset + index];
+	}
+
+	@Override
+	public SourceSlice subSequence(int start, int end) {
+		if (start < 0 || end > this.length || start > end)
+			throw new IndexOutOfBoundsException("Range [" + start + ", " + end + ") not in [0, " + this.length + ")");
+		if (start == 0 && end == this.length)
+			return this;
+		return new SourceSlice(this.source, this.offset + start, end - start);
+	}
+
+	@Override
+	public String toString() {
+		String result = this.string;
+		if (result == null)
+			this.string = result = new String(this.source, this.offset, this.length);
+		return result;
+	}
+
+	@Override
+	public int hashCode() {
+		int h = this.hash;
+		if (h == 0 && this.length > 0) {
+			if (this.string != null) {
+				h = this.string.hashCode();
+			} else {
+				for (int i = this.offset, end = this.offset + this.length; i < end; i++)
+					h = 31 * h + this.source[i];
+			}
+			this.hash = h;
+		}
+		return h;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof SourceSlice))
+			return false;
+		SourceSlice other = (SourceSlice) obj;
+		if (other.length != this.length || (this.hash != 0 && other.hash != 0 && this.hash != other.hash))
+			return false;
+		for (int i = 0; i < this.length; i++)
+			if (other.source[other.offset + i] != this.source[this.offset + i])
+				return false;
+		return true;
+	}
+
+	@Override
+	public int compareTo(CharSequence other) {
+		int l = Math.min(this.length, other.length());
+		for (int i = 0; i < l; i++) {
+			int diff = this.source[this.offset + i] - other.charAt(i);
+			if (diff != 0)
+				return diff;
+		}
+		return this.length - other.length();
+	}
+}
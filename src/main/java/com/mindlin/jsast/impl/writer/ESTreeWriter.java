@@ -0,0 +1,1123 @@
+package com.mindlin.jsast.impl.writer;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import com.mindlin.jsast.json.JSONOutputStream;
+import com.mindlin.jsast.json.api.JSONArrayOutput;
+import com.mindlin.jsast.json.api.JSONObjectOutput;
+import com.mindlin.jsast.json.api.JSONSerializationException;
+import com.mindlin.jsast.tree.ArrayLiteralTree;
+import com.mindlin.jsast.tree.ArrayPatternTree;
+import com.mindlin.jsast.tree.AssignmentPatternTree;
+import com.mindlin.jsast.tree.AssignmentPropertyTree;
+import com.mindlin.jsast.tree.AssignmentTree;
+import com.mindlin.jsast.tree.BinaryExpressionTree;
+import com.mindlin.jsast.tree.BlockTree;
+import com.mindlin.jsast.tree.BooleanLiteralTree;
+import com.mindlin.jsast.tree.BreakTree;
+import com.mindlin.jsast.tree.CastExpressionTree;
+import com.mindlin.jsast.tree.CatchTree;
+import com.mindlin.jsast.tree.ClassTreeBase;
+import com.mindlin.jsast.tree.ClassTreeBase.ClassDeclarationTree;
+import com.mindlin.jsast.tree.ClassTreeBase.ClassExpressionTree;
+import com.mindlin.jsast.tree.CompilationUnitTree;
+import com.mindlin.jsast.tree.ComputedPropertyKeyTree;
+import com.mindlin.jsast.tree.ConditionalExpressionTree;
+import com.mindlin.jsast.tree.ConstructorDeclarationTree;
+import com.mindlin.jsast.tree.ContinueTree;
+import com.mindlin.jsast.tree.DebuggerTree;
+import com.mindlin.jsast.tree.DirectiveTree;
+import com.mindlin.jsast.tree.DoWhileLoopTree;
+import com.mindlin.jsast.tree.EmptyStatementTree;
+import com.mindlin.jsast.tree.ExportTree;
+import com.mindlin.jsast.tree.ExpressionStatementTree;
+import com.mindlin.jsast.tree.ForEachLoopTree;
+import com.mindlin.jsast.tree.ForLoopTree;
+import com.mindlin.jsast.tree.FunctionCallTree;
+import com.mindlin.jsast.tree.FunctionDeclarationTree;
+import com.mindlin.jsast.tree.FunctionExpressionTree;
+import com.mindlin.jsast.tree.FunctionTree;
+import com.mindlin.jsast.tree.HeritageClauseTree;
+import com.mindlin.jsast.tree.IdentifierTree;
+import com.mindlin.jsast.tree.IfTree;
+import com.mindlin.jsast.tree.ImportDeclarationTree;
+import com.mindlin.jsast.tree.ImportSpecifierTree;
+import com.mindlin.jsast.tree.LabeledStatementTree;
+import com.mindlin.jsast.tree.MemberExpressionTree;
+import com.mindlin.jsast.tree.MethodDeclarationTree;
+import com.mindlin.jsast.tree.MethodSignatureTree;
+import com.mindlin.jsast.tree.Modifiers;
+import com.mindlin.jsast.tree.NewTree;
+import com.mindlin.jsast.tree.NullLiteralTree;
+import com.mindlin.jsast.tree.NumericLiteralTree;
+import com.mindlin.jsast.tree.ObjectLiteralElement;
+import com.mindlin.jsast.tree.ObjectLiteralTree;
+import com.mindlin.jsast.tree.ObjectPatternTree;
+import com.mindlin.jsast.tree.ObjectPatternTree.ObjectPatternElement;
+import com.mindlin.jsast.tree.ParameterTree;
+import com.mindlin.jsast.tree.ParenthesizedTree;
+import com.mindlin.jsast.tree.PropertyDeclarationTree;
+import com.mindlin.jsast.tree.PropertyName;
+import com.mindlin.jsast.tree.PropertySignatureTree;
+import com.mindlin.jsast.tree.RegExpLiteralTree;
+import com.mindlin.jsast.tree.RestPatternElementTree;
+import com.mindlin.jsast.tree.ReturnTree;
+import com.mindlin.jsast.tree.SequenceExpressionTree;
+import com.mindlin.jsast.tree.SignatureDeclarationTree.CallSignatureTree;
+import com.mindlin.jsast.tree.SignatureDeclarationTree.ConstructSignatureTree;
+import com.mindlin.jsast.tree.SpreadElementTree;
+import com.mindlin.jsast.tree.StatementTree;
+import com.mindlin.jsast.tree.StringLiteralTree;
+import com.mindlin.jsast.tree.SuperExpressionTree;
+import com.mindlin.jsast.tree.SwitchCaseTree;
+import com.mindlin.jsast.tree.SwitchTree;
+import com.mindlin.jsast.tree.TaggedTemplateLiteralTree;
+import com.mindlin.jsast.tree.TemplateElementTree;
+import com.mindlin.jsast.tree.TemplateLiteralTree;
+import com.mindlin.jsast.tree.ThisExpressionTree;
+import com.mindlin.jsast.tree.ThrowTree;
+import com.mindlin.jsast.tree.Tree;
+import com.mindlin.jsast.tree.Tree.Kind;
+import com.mindlin.jsast.tree.TreeVisitor;
+import com.mindlin.jsast.tree.TryTree;
+import com.mindlin.jsast.tree.UnaryTree;
+import com.mindlin.jsast.tree.UnaryTree.AwaitTree;
+import com.mindlin.jsast.tree.VariableDeclarationTree;
+import com.mindlin.jsast.tree.VariableDeclaratorTree;
+import com.mindlin.jsast.tree.WhileLoopTree;
+import com.mindlin.jsast.tree.WithTree;
+import com.mindlin.jsast.tree.comment.CommentNode;
+import com.mindlin.jsast.tree.type.ArrayTypeTree;
+import com.mindlin.jsast.tree.type.CompositeTypeTree;
+import com.mindlin.jsast.tree.type.ConditionalTypeTree;
+import com.mindlin.jsast.tree.type.ConstructorTypeTree;
+import com.mindlin.jsast.tree.type.EnumDeclarationTree;
+import com.mindlin.jsast.tree.type.FunctionTypeTree;
+import com.mindlin.jsast.tree.type.IdentifierTypeTree;
+import com.mindlin.jsast.tree.type.IndexSignatureTree;
+import com.mindlin.jsast.tree.type.InferTypeTree;
+import com.mindlin.jsast.tree.type.InterfaceDeclarationTree;
+import com.mindlin.jsast.tree.type.LiteralTypeTree;
+import com.mindlin.jsast.tree.type.MappedTypeTree;
+import com.mindlin.jsast.tree.type.MemberTypeTree;
+import com.mindlin.jsast.tree.type.ObjectTypeTree;
+import com.mindlin.jsast.tree.type.SpecialTypeTree;
+import com.mindlin.jsast.tree.type.TupleTypeTree;
+import com.mindlin.jsast.tree.type.TypeAliasTree;
+import com.mindlin.jsast.tree.type.UnaryTypeTree;
+
+/**
+ * Writes trees as <a href="https://github.com/estree/estree">ESTree</a> JSON.
+ * <p>
+ * Nodes are streamed straight into a {@link JSONObjectOutput} as the tree is walked, so no intermediate strings or
+ * objects are built. Like Acorn, each node has {@code start} and {@code end} offsets (with {@code end} being
+ * exclusive), and parentheses aren't represented.
+ * </p>
+ * <p>
+ * TypeScript-only trees have no ESTree equivalent, and throw an {@link UnsupportedOperationException}.
+ * </p>
+ */
+public class ESTreeWriter implements TreeVisitor<Void, JSONObjectOutput> {
+	protected static final Map<Kind, String> OPERATORS = new EnumMap<>(Kind.class);
+
+	static {
+		OPERATORS.put(Kind.UNARY_PLUS, "+");
+		OPERATORS.put(Kind.UNARY_MINUS, "-");
+		OPERATORS.put(Kind.TYPEOF, "typeof");
+		OPERATORS.put(Kind.VOID, "void");
+		OPERATORS.put(Kind.DELETE, "delete");
+		OPERATORS.put(Kind.BITWISE_NOT, "~");
+		OPERATORS.put(Kind.LOGICAL_NOT, "!");
+		OPERATORS.put(Kind.POSTFIX_DECREMENT, "--");
+		OPERATORS.put(Kind.POSTFIX_INCREMENT, "++");
+		OPERATORS.put(Kind.PREFIX_DECREMENT, "--");
+		OPERATORS.put(Kind.PREFIX_INCREMENT, "++");
+
+		OPERATORS.put(Kind.IN, "in");
+		OPERATORS.put(Kind.INSTANCEOF, "instanceof");
+		OPERATORS.put(Kind.ADDITION, "+");
+		OPERATORS.put(Kind.SUBTRACTION, "-");
+		OPERATORS.put(Kind.MULTIPLICATION, "*");
+		OPERATORS.put(Kind.DIVISION, "/");
+		OPERATORS.put(Kind.REMAINDER, "%");
+		OPERATORS.put(Kind.EXPONENTIATION, "**");
+		OPERATORS.put(Kind.BITWISE_AND, "&");
+		OPERATORS.put(Kind.BITWISE_OR, "|");
+		OPERATORS.put(Kind.BITWISE_XOR, "^");
+		OPERATORS.put(Kind.LEFT_SHIFT, "<<");
+		OPERATORS.put(Kind.RIGHT_SHIFT, ">>");
+		OPERATORS.put(Kind.UNSIGNED_RIGHT_SHIFT, ">>>");
+		OPERATORS.put(Kind.LOGICAL_AND, "&&");
+		OPERATORS.put(Kind.LOGICAL_OR, "||");
+		OPERATORS.put(Kind.EQUAL, "==");
+		OPERATORS.put(Kind.NOT_EQUAL, "!=");
+		OPERATORS.put(Kind.STRICT_EQUAL, "===");
+		OPERATORS.put(Kind.STRICT_NOT_EQUAL, "!==");
+		OPERATORS.put(Kind.GREATER_THAN, ">");
+		OPERATORS.put(Kind.LESS_THAN, "<");
+		OPERATORS.put(Kind.GREATER_THAN_EQUAL, ">=");
+		OPERATORS.put(Kind.LESS_THAN_EQUAL, "<=");
+
+		OPERATORS.put(Kind.ASSIGNMENT, "=");
+		OPERATORS.put(Kind.ADDITION_ASSIGNMENT, "+=");
+		OPERATORS.put(Kind.SUBTRACTION_ASSIGNMENT, "-=");
+		OPERATORS.put(Kind.MULTIPLICATION_ASSIGNMENT, "*=");
+		OPERATORS.put(Kind.DIVISION_ASSIGNMENT, "/=");
+		OPERATORS.put(Kind.REMAINDER_ASSIGNMENT, "%=");
+		OPERATORS.put(Kind.BITWISE_AND_ASSIGNMENT, "&=");
+		OPERATORS.put(Kind.BITWISE_OR_ASSIGNMENT, "|=");
+		OPERATORS.put(Kind.BITWISE_XOR_ASSIGNMENT, "^=");
+		OPERATORS.put(Kind.EXPONENTIATION_ASSIGNMENT, "**=");
+		OPERATORS.put(Kind.LEFT_SHIFT_ASSIGNMENT, "<<=");
+		OPERATORS.put(Kind.RIGHT_SHIFT_ASSIGNMENT, ">>=");
+		OPERATORS.put(Kind.UNSIGNED_RIGHT_SHIFT_ASSIGNMENT, ">>>=");
+	}
+
+	/**
+	 * Write a compilation unit as an ESTree {@code Program}
+	 * @param tree
+	 * @param output
+	 * @throws IOException
+	 */
+	public void write(CompilationUnitTree tree, Writer output) throws IOException {
+		JSONOutputStream out = new JSONOutputStream(output);
+		try {
+			try (JSONObjectOutput obj = out.makeObject()) {
+				this.writeFields(tree, obj);
+			}
+			out.flush();
+		} catch (JSONSerializationException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw e;
+		}
+	}
+
+	/**
+	 * Write a node as a property of an object
+	 * @param out Object to write to
+	 * @param key Property name
+	 * @param node Node to write (may be null)
+	 */
+	public void writeNode(JSONObjectOutput out, String key, Tree node) {
+		if (node == null) {
+			out.writeNull(key);
+			return;
+		}
+		try (JSONObjectOutput obj = out.makeObject(key)) {
+			this.writeFields(node, obj);
+		}
+	}
+
+	/**
+	 * Write a node as an element of an array
+	 * @param out Array to write to
+	 * @param node Node to write (may be null)
+	 */
+	public void writeNode(JSONArrayOutput out, Tree node) {
+		if (node == null) {
+			out.writeNull();
+			return;
+		}
+		try (JSONObjectOutput obj = out.makeObject()) {
+			this.writeFields(node, obj);
+		}
+	}
+
+	/**
+	 * Write a list of nodes as a property of an object. A null list is written as an empty array.
+	 * @param out
+	 * @param key
+	 * @param nodes
+	 */
+	protected void writeNodes(JSONObjectOutput out, String key, List<? extends Tree> nodes) {
+		try (JSONArrayOutput arr = out.makeArray(key)) {
+			if (nodes != null)
+				for (Tree node : nodes)
+					this.writeNode(arr, node);
+		}
+	}
+
+	/**
+	 * Write the fields of a node to an object that has already been started
+	 * @param node
+	 * @param out
+	 */
+	protected void writeFields(Tree node, JSONObjectOutput out) {
+		// Some trees can't be visited, or don't dispatch to the right method
+		switch (node.getKind()) {
+			case PARENTHESIZED:
+				this.writeFields(((ParenthesizedTree) node).getExpression(), out);
+				return;
+			case PARAMETER:
+				this.writeParameter((ParameterTree) node, out);
+				return;
+			case VARIABLE_DECLARATOR: {
+				VariableDeclaratorTree declarator = (VariableDeclaratorTree) node;
+				this.begin("VariableDeclarator", node, out);
+				this.writeNode(out, "id", declarator.getName());
+				this.writeNode(out, "init", declarator.getInitializer());
+				return;
+			}
+			case CASE: {
+				SwitchCaseTree switchCase = (SwitchCaseTree) node;
+				this.begin("SwitchCase", node, out);
+				this.writeNode(out, "test", switchCase.getExpression());
+				this.writeNodes(out, "consequent", switchCase.getBody());
+				return;
+			}
+			case CATCH: {
+				CatchTree catchTree = (CatchTree) node;
+				this.begin("CatchClause", node, out);
+				this.writeNode(out, "param", catchTree.getParameter() == null ? null : catchTree.getParameter().getName());
+				this.writeNode(out, "body", catchTree.getBlock());
+				return;
+			}
+			case TEMPLATE_ELEMENT:
+				// Needs to know if it's the last one
+				throw new IllegalArgumentException("Template elements must be written by their template");
+			case IMPORT_SPECIFIER:
+				this.writeImportSpecifier((ImportSpecifierTree) node, out);
+				return;
+			case ASSIGNMENT_PROPERTY:
+			case SHORTHAND_ASSIGNMENT_PROPERTY:
+				this.writeObjectProperty((ObjectLiteralElement) node, out);
+				return;
+			case ASSIGNMENT_PATTERN:
+			case SHORTHAND_ASSIGNMENT_PATTERN:
+				this.writePatternProperty((AssignmentPatternTree) node, out);
+				return;
+			default:
+				break;
+		}
+		node.accept(this, out);
+	}
+
+	/**
+	 * Start a node, by writing its type and position
+	 * @param type ESTree type
+	 * @param node Tree to take position from
+	 * @param out
+	 */
+	protected void begin(String type, Tree node, JSONObjectOutput out) {
+		out.writeString("type", type);
+		long start = node.getStartOffset();
+		long end = node.getEndOffset();
+		if (start >= 0 && end >= 0) {
+			out.writeLong("start", start);
+			out.writeLong("end", end + 1);
+		}
+	}
+
+	protected UnsupportedOperationException unsupported(Tree node) {
+		return new UnsupportedOperationException("No ESTree equivalent for " + node.getKind());
+	}
+
+	protected String operator(Tree node) {
+		String result = OPERATORS.get(node.getKind());
+		if (result == null)
+			throw new IllegalArgumentException("Not an operator: " + node.getKind());
+		return result;
+	}
+
+	protected void writeKey(PropertyName key, JSONObjectOutput out) {
+		boolean computed = key != null && key.getKind() == Kind.COMPUTED_PROPERTY_KEY;
+		this.writeNode(out, "key", computed ? ((ComputedPropertyKeyTree) key).getExpression() : key);
+		out.writeBoolean("computed", computed);
+	}
+
+	protected void writeFunctionFields(FunctionTree node, boolean named, JSONObjectOutput out) {
+		Modifiers modifiers = node.getModifiers();
+		if (named)
+			this.writeNode(out, "id", node.getName());
+		else
+			out.writeNull("id");
+		this.writeNodes(out, "params", node.getParameters());
+		boolean expression = node.isArrow() && node.getBody().getKind() != Kind.BLOCK;
+		if (expression && node.getBody().getKind() == Kind.RETURN)
+			this.writeNode(out, "body", ((ReturnTree) node.getBody()).getExpression());
+		else
+			this.writeNode(out, "body", node.getBody());
+		out.writeBoolean("generator", modifiers != null && modifiers.isGenerator());
+		out.writeBoolean("async", modifiers != null && modifiers.isAsync());
+		out.writeBoolean("expression", expression);
+	}
+
+	/**
+	 * Write a method's value, as a {@code FunctionExpression}
+	 * @param node
+	 * @param out
+	 */
+	protected void writeMethodValue(FunctionTree node, JSONObjectOutput out) {
+		try (JSONObjectOutput value = out.makeObject("value")) {
+			this.begin("FunctionExpression", node, value);
+			this.writeFunctionFields(node, false, value);
+		}
+	}
+
+	protected String methodKind(MethodDeclarationTree node) {
+		switch (node.getKind()) {
+			case GET_ACCESSOR_DECLARATION:
+				return "get";
+			case SET_ACCESSOR_DECLARATION:
+				return "set";
+			default:
+				return "method";
+		}
+	}
+
+	protected void writeParameter(ParameterTree node, JSONObjectOutput out) {
+		if (node.isRest()) {
+			this.begin("RestElement", node, out);
+			this.writeNode(out, "argument", node.getName());
+		} else if (node.getInitializer() != null) {
+			this.begin("AssignmentPattern", node, out);
+			this.writeNode(out, "left", node.getName());
+			this.writeNode(out, "right", node.getInitializer());
+		} else {
+			this.writeFields(node.getName(), out);
+		}
+	}
+
+	protected void writeImportSpecifier(ImportSpecifierTree node, JSONObjectOutput out) {
+		IdentifierTree local = node.getAlias() != null ? node.getAlias() : node.getImported();
+		if (node.isDefault()) {
+			this.begin("ImportDefaultSpecifier", node, out);
+		} else if (node.getImported() != null && "*".equals(node.getImported().getName())) {
+			this.begin("ImportNamespaceSpecifier", node, out);
+		} else {
+			this.begin("ImportSpecifier", node, out);
+			this.writeNode(out, "imported", node.getImported());
+		}
+		this.writeNode(out, "local", local);
+	}
+
+	protected void writeObjectProperty(ObjectLiteralElement node, JSONObjectOutput out) {
+		switch (node.getKind()) {
+			case ASSIGNMENT_PROPERTY:
+			case SHORTHAND_ASSIGNMENT_PROPERTY: {
+				AssignmentPropertyTree property = (AssignmentPropertyTree) node;
+				boolean shorthand = node.getKind() == Kind.SHORTHAND_ASSIGNMENT_PROPERTY;
+				this.begin("Property", node, out);
+				this.writeKey(property.getName(), out);
+				this.writeNode(out, "value", shorthand ? property.getName() : property.getInitializer());
+				out.writeString("kind", "init");
+				out.writeBoolean("method", false);
+				out.writeBoolean("shorthand", shorthand);
+				break;
+			}
+			case METHOD_DECLARATION:
+			case GET_ACCESSOR_DECLARATION:
+			case SET_ACCESSOR_DECLARATION: {
+				MethodDeclarationTree method = (MethodDeclarationTree) node;
+				String kind = this.methodKind(method);
+				this.begin("Property", node, out);
+				this.writeKey(method.getName(), out);
+				this.writeMethodValue(method, out);
+				boolean isMethod = node.getKind() == Kind.METHOD_DECLARATION;
+				out.writeString("kind", isMethod ? "init" : kind);
+				out.writeBoolean("method", isMethod);
+				out.writeBoolean("shorthand", false);
+				break;
+			}
+			case SPREAD:
+				this.writeFields(node, out);
+				break;
+			default:
+				throw this.unsupported(node);
+		}
+	}
+
+	protected void writePatternProperty(AssignmentPatternTree node, JSONObjectOutput out) {
+		boolean shorthand = node.getKind() == Kind.SHORTHAND_ASSIGNMENT_PATTERN;
+		this.begin("Property", node, out);
+		this.writeKey(node.getName(), out);
+		if (node.getInitializer() == null) {
+			this.writeNode(out, "value", node.getValue());
+		} else {
+			try (JSONObjectOutput value = out.makeObject("value")) {
+				this.begin("AssignmentPattern", node, value);
+				this.writeNode(value, "left", node.getValue());
+				this.writeNode(value, "right", node.getInitializer());
+			}
+		}
+		out.writeString("kind", "init");
+		out.writeBoolean("method", false);
+		out.writeBoolean("shorthand", shorthand);
+	}
+
+	protected void writeClass(String type, ClassTreeBase node, JSONObjectOutput out) {
+		this.begin(type, node, out);
+		this.writeNode(out, "id", node.getName());
+		Tree superClass = null;
+		if (node.getHeritage() != null)
+			for (HeritageClauseTree clause : node.getHeritage())
+				if (clause.getKind() == Kind.EXTENDS_CLAUSE && !clause.getTypes().isEmpty())
+					superClass = clause.getTypes().get(0).getExpression();
+		this.writeNode(out, "superClass", superClass);
+		try (JSONObjectOutput body = out.makeObject("body")) {
+			this.begin("ClassBody", node, body);
+			this.writeNodes(body, "body", node.getProperties());
+		}
+	}
+
+	@Override
+	public Void visitComment(CommentNode node, JSONObjectOutput out) {
+		throw this.unsupported(node);
+	}
+
+	@Override
+	public Void visitCompilationUnit(CompilationUnitTree node, JSONObjectOutput out) {
+		this.begin("Program", node, out);
+		boolean module = false;
+		for (StatementTree statement : node.getSourceElements())
+			if (statement.getKind() == Kind.IMPORT || statement.getKind() == Kind.EXPORT)
+				module = true;
+		out.writeString("sourceType", module ? "module" : "script");
+		this.writeNodes(out, "body", node.getSourceElements());
+		return null;
+	}
+
+	// Statements
+
+	@Override
+	public Void visitBlock(BlockTree node, JSONObjectOutput out) {
+		this.begin("BlockStatement", node, out);
+		this.writeNodes(out, "body", node.getStatements());
+		return null;
+	}
+
+	@Override
+	public Void visitBreak(BreakTree node, JSONObjectOutput out) {
+		this.begin("BreakStatement", node, out);
+		this.writeNode(out, "label", node.getLabel());
+		return null;
+	}
+
+	@Override
+	public Void visitClassDeclaration(ClassDeclarationTree node, JSONObjectOutput out) {
+		this.writeClass("ClassDeclaration", node, out);
+		return null;
+	}
+
+	@Override
+	public Void visitContinue(ContinueTree node, JSONObjectOutput out) {
+		this.begin("ContinueStatement", node, out);
+		this.writeNode(out, "label", node.getLabel());
+		return null;
+	}
+
+	@Override
+	public Void visitDirective(DirectiveTree node, JSONObjectOutput out) {
+		this.begin("ExpressionStatement", node, out);
+		try (JSONObjectOutput expression = out.makeObject("expression")) {
+			this.begin("Literal", node, expression);
+			expression.writeString("value", node.getDirective());
+		}
+		out.writeString("directive", node.getDirective());
+		return null;
+	}
+
+	@Override
+	public Void visitDebugger(DebuggerTree node, JSONObjectOutput out) {
+		this.begin("DebuggerStatement", node, out);
+		return null;
+	}
+
+	@Override
+	public Void visitDoWhileLoop(DoWhileLoopTree node, JSONObjectOutput out) {
+		this.begin("DoWhileStatement", node, out);
+		this.writeNode(out, "body", node.getStatement());
+		this.writeNode(out, "test", node.getCondition());
+		return null;
+	}
+
+	@Override
+	public Void visitEmptyStatement(EmptyStatementTree node, JSONObjectOutput out) {
+		this.begin("EmptyStatement", node, out);
+		return null;
+	}
+
+	@Override
+	public Void visitEnumDeclaration(EnumDeclarationTree node, JSONObjectOutput out) {
+		throw this.unsupported(node);
+	}
+
+	@Override
+	public Void visitExport(ExportTree node, JSONObjectOutput out) {
+		if (node.isDefault()) {
+			this.begin("ExportDefaultDeclaration", node, out);
+			this.writeNode(out, "declaration", node.getExpression());
+		} else {
+			this.begin("ExportNamedDeclaration", node, out);
+			this.writeNode(out, "declaration", node.getExpression());
+			this.writeNodes(out, "specifiers", null);
+			out.writeNull("source");
+		}
+		return null;
+	}
+
+	@Override
+	public Void visitExpressionStatement(ExpressionStatementTree node, JSONObjectOutput out) {
+		this.begin("ExpressionStatement", node, out);
+		this.writeNode(out, "expression", node.getExpression());
+		return null;
+	}
+
+	@Override
+	public Void visitForEachLoop(ForEachLoopTree node, JSONObjectOutput out) {
+		this.begin(node.getKind() == Kind.FOR_OF_LOOP ? "ForOfStatement" : "ForInStatement", node, out);
+		this.writeNode(out, "left", node.getVariable());
+		this.writeNode(out, "right", node.getExpression());
+		this.writeNode(out, "body", node.getStatement());
+		return null;
+	}
+
+	@Override
+	public Void visitForLoop(ForLoopTree node, JSONObjectOutput out) {
+		this.begin("ForStatement", node, out);
+		StatementTree init = node.getInitializer();
+		// Expressions are stored as statements
+		if (init != null && init.getKind() == Kind.EXPRESSION_STATEMENT)
+			this.writeNode(out, "init", ((ExpressionStatementTree) init).getExpression());
+		else if (init != null && init.getKind() == Kind.EMPTY_STATEMENT)
+			out.writeNull("init");
+		else
+			this.writeNode(out, "init", init);
+		this.writeNode(out, "test", node.getCondition());
+		this.writeNode(out, "update", node.getUpdate());
+		this.writeNode(out, "body", node.getStatement());
+		return null;
+	}
+
+	@Override
+	public Void visitFunctionDeclaration(FunctionDeclarationTree node, JSONObjectOutput out) {
+		this.begin("FunctionDeclaration", node, out);
+		this.writeFunctionFields(node, true, out);
+		return null;
+	}
+
+	@Override
+	public Void visitIf(IfTree node, JSONObjectOutput out) {
+		this.begin("IfStatement", node, out);
+		this.writeNode(out, "test", node.getExpression());
+		this.writeNode(out, "consequent", node.getThenStatement());
+		this.writeNode(out, "alternate", node.getElseStatement());
+		return null;
+	}
+
+	@Override
+	public Void visitImport(ImportDeclarationTree node, JSONObjectOutput out) {
+		this.begin("ImportDeclaration", node, out);
+		this.writeNodes(out, "specifiers", node.getSpecifiers());
+		this.writeNode(out, "source", node.getSource());
+		return null;
+	}
+
+	@Override
+	public Void visitInterfaceDeclaration(InterfaceDeclarationTree node, JSONObjectOutput out) {
+		throw this.unsupported(node);
+	}
+
+	@Override
+	public Void visitLabeledStatement(LabeledStatementTree node, JSONObjectOutput out) {
+		this.begin("LabeledStatement", node, out);
+		this.writeNode(out, "label", node.getName());
+		this.writeNode(out, "body", node.getStatement());
+		return null;
+	}
+
+	@Override
+	public Void visitReturn(ReturnTree node, JSONObjectOutput out) {
+		this.begin("ReturnStatement", node, out);
+		this.writeNode(out, "argument", node.getExpression());
+		return null;
+	}
+
+	@Override
+	public Void visitSwitch(SwitchTree node, JSONObjectOutput out) {
+		this.begin("SwitchStatement", node, out);
+		this.writeNode(out, "discriminant", node.getExpression());
+		this.writeNodes(out, "cases", node.getCases());
+		return null;
+	}
+
+	@Override
+	public Void visitThrow(ThrowTree node, JSONObjectOutput out) {
+		this.begin("ThrowStatement", node, out);
+		this.writeNode(out, "argument", node.getExpression());
+		return null;
+	}
+
+	@Override
+	public Void visitTry(TryTree node, JSONObjectOutput out) {
+		this.begin("TryStatement", node, out);
+		this.writeNode(out, "block", node.getBlock());
+		List<? extends CatchTree> catches = node.getCatches();
+		this.writeNode(out, "handler", catches == null || catches.isEmpty() ? null : catches.get(0));
+		this.writeNode(out, "finalizer", node.getFinallyBlock());
+		return null;
+	}
+
+	@Override
+	public Void visitTypeAlias(TypeAliasTree node, JSONObjectOutput out) {
+		throw this.unsupported(node);
+	}
+
+	@Override
+	public Void visitVariableDeclaration(VariableDeclarationTree node, JSONObjectOutput out) {
+		this.begin("VariableDeclaration", node, out);
+		this.writeNodes(out, "declarations", node.getDeclarations());
+		out.writeString("kind", node.getDeclarationStyle().name().toLowerCase());
+		return null;
+	}
+
+	@Override
+	public Void visitWhileLoop(WhileLoopTree node, JSONObjectOutput out) {
+		this.begin("WhileStatement", node, out);
+		this.writeNode(out, "test", node.getCondition());
+		this.writeNode(out, "body", node.getStatement());
+		return null;
+	}
+
+	@Override
+	public Void visitWith(WithTree node, JSONObjectOutput out) {
+		this.begin("WithStatement", node, out);
+		this.writeNode(out, "object", node.getScope());
+		this.writeNode(out, "body", node.getStatement());
+		return null;
+	}
+
+	// Expressions
+
+	@Override
+	public Void visitArrayLiteral(ArrayLiteralTree node, JSONObjectOutput out) {
+		this.begin("ArrayExpression", node, out);
+		this.writeNodes(out, "elements", node.getElements());
+		return null;
+	}
+
+	@Override
+	public Void visitAssignment(AssignmentTree node, JSONObjectOutput out) {
+		this.begin("AssignmentExpression", node, out);
+		out.writeString("operator", this.operator(node));
+		this.writeNode(out, "left", node.getVariable());
+		this.writeNode(out, "right", node.getValue());
+		return null;
+	}
+
+	@Override
+	public Void visitAwait(AwaitTree node, JSONObjectOutput out) {
+		this.begin("AwaitExpression", node, out);
+		this.writeNode(out, "argument", node.getExpression());
+		return null;
+	}
+
+	@Override
+	public Void visitBinary(BinaryExpressionTree node, JSONObjectOutput out) {
+		switch (node.getKind()) {
+			case ARRAY_ACCESS:
+			case MEMBER_SELECT:
+				this.begin("MemberExpression", node, out);
+				this.writeNode(out, "object", node.getLeftOperand());
+				this.writeNode(out, "property", node.getRightOperand());
+				out.writeBoolean("computed", node.getKind() == Kind.ARRAY_ACCESS);
+				return null;
+			case LOGICAL_AND:
+			case LOGICAL_OR:
+				this.begin("LogicalExpression", node, out);
+				break;
+			default:
+				this.begin("BinaryExpression", node, out);
+				break;
+		}
+		out.writeString("operator", this.operator(node));
+		this.writeNode(out, "left", node.getLeftOperand());
+		this.writeNode(out, "right", node.getRightOperand());
+		return null;
+	}
+
+	@Override
+	public Void visitBooleanLiteral(BooleanLiteralTree node, JSONObjectOutput out) {
+		this.begin("Literal", node, out);
+		out.writeBoolean("value", node.getValue());
+		return null;
+	}
+
+	@Override
+	public Void visitCast(CastExpressionTree node, JSONObjectOutput out) {
+		throw this.unsupported(node);
+	}
+
+	@Override
+	public Void visitClassExpression(ClassExpressionTree node, JSONObjectOutput out) {
+		this.writeClass("ClassExpression", node, out);
+		return null;
+	}
+
+	@Override
+	public Void visitConditionalExpression(ConditionalExpressionTree node, JSONObjectOutput out) {
+		this.begin("ConditionalExpression", node, out);
+		this.writeNode(out, "test", node.getCondition());
+		this.writeNode(out, "consequent", node.getTrueExpression());
+		this.writeNode(out, "alternate", node.getFalseExpression());
+		return null;
+	}
+
+	@Override
+	public Void visitFunctionCall(FunctionCallTree node, JSONObjectOutput out) {
+		this.begin("CallExpression", node, out);
+		this.writeNode(out, "callee", node.getCallee());
+		this.writeNodes(out, "arguments", node.getArguments());
+		return null;
+	}
+
+	@Override
+	public Void visitFunctionExpression(FunctionExpressionTree node, JSONObjectOutput out) {
+		this.begin(node.isArrow() ? "ArrowFunctionExpression" : "FunctionExpression", node, out);
+		this.writeFunctionFields(node, !node.isArrow(), out);
+		return null;
+	}
+
+	@Override
+	public Void visitIdentifier(IdentifierTree node, JSONObjectOutput out) {
+		this.begin("Identifier", node, out);
+		out.writeString("name", node.getName());
+		return null;
+	}
+
+	@Override
+	public Void visitNew(NewTree node, JSONObjectOutput out) {
+		this.begin("NewExpression", node, out);
+		this.writeNode(out, "callee", node.getCallee());
+		this.writeNodes(out, "arguments", node.getArguments());
+		return null;
+	}
+
+	@Override
+	public Void visitNull(NullLiteralTree node, JSONObjectOutput out) {
+		this.begin("Literal", node, out);
+		out.writeNull("value");
+		return null;
+	}
+
+	@Override
+	public Void visitNumericLiteral(NumericLiteralTree node, JSONObjectOutput out) {
+		this.begin("Literal", node, out);
+		Number value = node.getValue();
+		double dValue = value.doubleValue();
+		if (!Double.isFinite(dValue))
+			// Not representable in JSON
+			out.writeNull("value");
+		else if (dValue == Math.rint(dValue) && Math.abs(dValue) < 0x1p53)
+			out.writeLong("value", (long) dValue);
+		else
+			out.writeDouble("value", dValue);
+		return null;
+	}
+
+	@Override
+	public Void visitObjectLiteral(ObjectLiteralTree node, JSONObjectOutput out) {
+		this.begin("ObjectExpression", node, out);
+		try (JSONArrayOutput arr = out.makeArray("properties")) {
+			// Methods would be written as class elements if visited
+			for (ObjectLiteralElement property : node.getProperties()) {
+				try (JSONObjectOutput obj = arr.makeObject()) {
+					this.writeObjectProperty(property, obj);
+				}
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public Void visitParentheses(ParenthesizedTree node, JSONObjectOutput out) {
+		this.writeFields(node.getExpression(), out);
+		return null;
+	}
+
+	@Override
+	public Void visitRegExpLiteral(RegExpLiteralTree node, JSONObjectOutput out) {
+		this.begin("Literal", node, out);
+		out.writeNull("value");
+		try (JSONObjectOutput regex = out.makeObject("regex")) {
+			regex.writeString("pattern", node.getBody());
+			regex.writeString("flags", node.getFlags());
+		}
+		return null;
+	}
+
+	@Override
+	public Void visitSequence(SequenceExpressionTree node, JSONObjectOutput out) {
+		this.begin("SequenceExpression", node, out);
+		this.writeNodes(out, "expressions", node.getElements());
+		return null;
+	}
+
+	@Override
+	public Void visitSpread(SpreadElementTree node, JSONObjectOutput out) {
+		this.begin("SpreadElement", node, out);
+		this.writeNode(out, "argument", node.getExpression());
+		return null;
+	}
+
+	@Override
+	public Void visitStringLiteral(StringLiteralTree node, JSONObjectOutput out) {
+		this.begin("Literal", node, out);
+		out.writeString("value", node.getValue());
+		return null;
+	}
+
+	@Override
+	public Void visitSuper(SuperExpressionTree node, JSONObjectOutput out) {
+		this.begin("Super", node, out);
+		return null;
+	}
+
+	@Override
+	public Void visitTemplateLiteral(TemplateLiteralTree node, JSONObjectOutput out) {
+		this.begin("TemplateLiteral", node, out);
+		List<TemplateElementTree> quasis = node.getQuasis();
+		try (JSONArrayOutput arr = out.makeArray("quasis")) {
+			for (int i = 0; i < quasis.size(); i++) {
+				TemplateElementTree quasi = quasis.get(i);
+				try (JSONObjectOutput element = arr.makeObject()) {
+					this.begin("TemplateElement", quasi, element);
+					element.writeBoolean("tail", i == quasis.size() - 1);
+					try (JSONObjectOutput value = element.makeObject("value")) {
+						value.writeString("raw", quasi.getRaw());
+						if (quasi.getCooked() == null)
+							value.writeNull("cooked");
+						else
+							value.writeString("cooked", quasi.getCooked());
+					}
+				}
+			}
+		}
+		this.writeNodes(out, "expressions", node.getExpressions());
+		return null;
+	}
+
+	@Override
+	public Void visitTaggedTemplate(TaggedTemplateLiteralTree node, JSONObjectOutput out) {
+		this.begin("TaggedTemplateExpression", node, out);
+		this.writeNode(out, "tag", node.getTag());
+		this.writeNode(out, "quasi", node.getQuasi());
+		return null;
+	}
+
+	@Override
+	public Void visitThis(ThisExpressionTree node, JSONObjectOutput out) {
+		this.begin("ThisExpression", node, out);
+		return null;
+	}
+
+	@Override
+	public Void visitUnary(UnaryTree node, JSONObjectOutput out) {
+		switch (node.getKind()) {
+			case YIELD:
+			case YIELD_GENERATOR:
+				this.begin("YieldExpression", node, out);
+				this.writeNode(out, "argument", node.getExpression());
+				out.writeBoolean("delegate", node.getKind() == Kind.YIELD_GENERATOR);
+				return null;
+			case AWAIT:
+				this.begin("AwaitExpression", node, out);
+				this.writeNode(out, "argument", node.getExpression());
+				return null;
+			case UNARY_NONNULL:
+				throw this.unsupported(node);
+			case POSTFIX_DECREMENT:
+			case POSTFIX_INCREMENT:
+			case PREFIX_DECREMENT:
+			case PREFIX_INCREMENT:
+				this.begin("UpdateExpression", node, out);
+				break;
+			default:
+				this.begin("UnaryExpression", node, out);
+				break;
+		}
+		out.writeString("operator", this.operator(node));
+		out.writeBoolean("prefix", node.getKind() != Kind.POSTFIX_DECREMENT && node.getKind() != Kind.POSTFIX_INCREMENT);
+		this.writeNode(out, "argument", node.getExpression());
+		return null;
+	}
+
+	// Patterns
+
+	@Override
+	public Void visitArrayPattern(ArrayPatternTree node, JSONObjectOutput out) {
+		this.begin("ArrayPattern", node, out);
+		this.writeNodes(out, "elements", node.getElements());
+		return null;
+	}
+
+	@Override
+	public Void visitMemberExpression(MemberExpressionTree node, JSONObjectOutput out) {
+		return this.visitBinary(node, out);
+	}
+
+	@Override
+	public Void visitObjectPattern(ObjectPatternTree node, JSONObjectOutput out) {
+		this.begin("ObjectPattern", node, out);
+		try (JSONArrayOutput arr = out.makeArray("properties")) {
+			for (ObjectPatternElement property : node.getProperties()) {
+				if (property instanceof RestPatternElementTree) {
+					try (JSONObjectOutput rest = arr.makeObject()) {
+						this.begin("RestElement", property, rest);
+						this.writeNode(rest, "argument", ((RestPatternElementTree) property).getValue());
+					}
+				} else {
+					this.writeNode(arr, property);
+				}
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public Void visitComputedPropertyKey(ComputedPropertyKeyTree node, JSONObjectOutput out) {
+		// Keys are written by writeKey; the brackets are represented by 'computed'
+		this.writeFields(node.getExpression(), out);
+		return null;
+	}
+
+	// Class elements
+
+	@Override
+	public Void visitConstructorDeclaration(ConstructorDeclarationTree node, JSONObjectOutput out) {
+		this.begin("MethodDefinition", node, out);
+		this.writeKey(node.getName(), out);
+		this.writeMethodValue(node, out);
+		out.writeString("kind", "constructor");
+		out.writeBoolean("static", false);
+		return null;
+	}
+
+	@Override
+	public Void visitMethodDeclaration(MethodDeclarationTree node, JSONObjectOutput out) {
+		Modifiers modifiers = node.getModifiers();
+		this.begin("MethodDefinition", node, out);
+		this.writeKey(node.getName(), out);
+		this.writeMethodValue(node, out);
+		out.writeString("kind", this.methodKind(node));
+		out.writeBoolean("static", modifiers != null && modifiers.isStatic());
+		return null;
+	}
+
+	@Override
+	public Void visitPropertyDeclaration(PropertyDeclarationTree node, JSONObjectOutput out) {
+		Modifiers modifiers = node.getModifiers();
+		this.begin("PropertyDefinition", node, out);
+		this.writeKey(node.getName(), out);
+		this.writeNode(out, "value", node.getInitializer());
+		out.writeBoolean("static", modifiers != null && modifiers.isStatic());
+		return null;
+	}
+
+	@Override
+	public Void visitIndexSignature(IndexSignatureTree node, JSONObjectOutput out) {
+		throw this.unsupported(node);
+	}
+
+	// TypeScript
+
+	@Override
+	public Void visitCallSignature(CallSignatureTree node, JSONObjectOutput out) {
+		throw this.unsupported(node);
+	}
+
+	@Override
+	public Void visitConstructSignature(ConstructSignatureTree node, JSONObjectOutput out) {
+		throw this.unsupported(node);
+	}
+
+	@Override
+	public Void visitMethodSignature(MethodSignatureTree node, JSONObjectOutput out) {
+		throw this.unsupported(node);
+	}
+
+	@Override
+	public Void visitPropertySignature(PropertySignatureTree node, JSONObjectOutput out) {
+		throw this.unsupported(node);
+	}
+
+	@Override
+	public Void visitArrayType(ArrayTypeTree node, JSONObjectOutput out) {
+		throw this.unsupported(node);
+	}
+
+	@Override
+	public Void visitConditionalType(ConditionalTypeTree node, JSONObjectOutput out) {
+		throw this.unsupported(node);
+	}
+
+	@Override
+	public Void visitConstructorType(ConstructorTypeTree node, JSONObjectOutput out) {
+		throw this.unsupported(node);
+	}
+
+	@Override
+	public Void visitFunctionType(FunctionTypeTree node, JSONObjectOutput out) {
+		throw this.unsupported(node);
+	}
+
+	@Override
+	public Void visitIdentifierType(IdentifierTypeTree node, JSONObjectOutput out) {
+		throw this.unsupported(node);
+	}
+
+	@Override
+	public Void visitInferType(InferTypeTree node, JSONObjectOutput out) {
+		throw this.unsupported(node);
+	}
+
+	@Override
+	public Void visitInterfaceType(ObjectTypeTree node, JSONObjectOutput out) {
+		throw this.unsupported(node);
+	}
+
+	@Override
+	public Void visitIntersectionType(CompositeTypeTree node, JSONObjectOutput out) {
+		throw this.unsupported(node);
+	}
+
+	@Override
+	public Void visitUnaryType(UnaryTypeTree node, JSONObjectOutput out) {
+		throw this.unsupported(node);
+	}
+
+	@Override
+	public Void visitLiteralType(LiteralTypeTree<?> node, JSONObjectOutput out) {
+		throw this.unsupported(node);
+	}
+
+	@Override
+	public Void visitMappedType(MappedTypeTree node, JSONObjectOutput out) {
+		throw this.unsupported(node);
+	}
+
+	@Override
+	public Void visitMemberType(MemberTypeTree node, JSONObjectOutput out) {
+		throw this.unsupported(node);
+	}
+
+	@Override
+	public Void visitSpecialType(SpecialTypeTree node, JSONObjectOutput out) {
+		throw this.unsupported(node);
+	}
+
+	@Override
+	public Void visitTupleType(TupleTypeTree node, JSONObjectOutput out) {
+		throw this.unsupported(node);
+	}
+
+	@Override
+	public Void visitUnionType(CompositeTypeTree node, JSONObjectOutput out) {
+		throw this.unsupported(node);
+	}
+}
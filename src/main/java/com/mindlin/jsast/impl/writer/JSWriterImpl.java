@@ -1,11 +1,18 @@
 package com.mindlin.jsast.impl.writer;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
 
+import com.mindlin.jsast.impl.tree.LineMap;
 import com.mindlin.jsast.impl.util.Characters;
 import com.mindlin.jsast.tree.ArrayLiteralTree;
 import com.mindlin.jsast.tree.ArrayPatternTree;
@@ -110,24 +117,180 @@ import com.mindlin.jsast.tree.type.TypeTree;
 import com.mindlin.jsast.tree.type.UnaryTypeTree;
 import com.mindlin.jsast.writer.JSWriter;
 import com.mindlin.jsast.writer.JSWriterOptions;
+import com.mindlin.jsast.writer.SourceMap;
 
 public class JSWriterImpl extends AbstractJSWriter<Tree> implements JSWriter, TreeVisitor<Void, WriterHelper> {
+	/**
+	 * Pool for parallel rendering (see {@link JSWriterOptions#parallel})
+	 */
+	protected ForkJoinPool pool = ForkJoinPool.commonPool();
+	
 	public JSWriterImpl(JSWriterOptions options) {
 		super(options);
 	}
 	
+	public JSWriterImpl setPool(ForkJoinPool pool) {
+		this.pool = Objects.requireNonNull(pool);
+		return this;
+	}
+	
 	@Override
 	public void write(CompilationUnitTree tree, Writer output) throws IOException {
+		this.write(tree, output, null);
+	}
+	
+	@Override
+	public void write(CompilationUnitTree tree, Writer output, SourceMap sourceMap) throws IOException {
+		this.write(tree, OutputBuffer.of(output), sourceMap);
+	}
+	
+	/**
+	 * Write to a buffer. The buffer is flushed, but not closed.
+	 * @param tree Tree to write
+	 * @param output Output
+	 * @param sourceMap Map to add mappings to (optional)
+	 * @throws IOException
+	 * @see OutputBuffer#of(java.nio.channels.WritableByteChannel)
+	 */
+	public void write(CompilationUnitTree tree, OutputBuffer output, SourceMap sourceMap) throws IOException {
 		try {
-			WriterHelper wh = new WriterHelper(this.options, output);
-			tree.accept(this, wh);
+			WriterHelper wh = new WriterHelper(this.options, output, sourceMap);
+			if (sourceMap != null) {
+				if (tree.getSourceFile() != null)
+					wh.setSource(tree.getSourceFile().getName(), tree.getLineMap());
+				else if (!sourceMap.getSources().isEmpty())
+					wh.setSource(sourceMap.getSources().get(0), tree.getLineMap());
+				else
+					throw new IllegalArgumentException("Unknown source name for " + tree);
+			}
+			if (this.options.parallel && this.pool.getParallelism() > 1 && tree.getSourceElements().size() >= Math.max(2, this.options.parallelThreshold))
+				this.writeParallel(tree, wh);
+			else
+				tree.accept(this, wh);
+			if (sourceMap != null)
+				this.writeSourceMappingURL(sourceMap, wh);
+			wh.flush();
 		} catch (RuntimeException e) {
-			if (e.getCause() != null)
+			if (e.getCause() instanceof IOException)
 				throw (IOException) e.getCause();
 			throw e;
 		}
 	}
 	
+	/**
+	 * Start writing top-level statements one at a time (e.g., as they're parsed), without a compilation unit.
+	 * @param output Output (flushed in chunks as it fills up)
+	 * @param sourceMap Map to add mappings to (optional)
+	 * @param sourceName Name of source, for the map
+	 * @param lines Lines of source, for the map (optional)
+	 * @return Writer for statements. Closing it finishes the output, but doesn't close {@code output}.
+	 * @see com.mindlin.jsast.impl.parser.JSParser#statements(String, com.mindlin.jsast.impl.lexer.JSLexer)
+	 */
+	public StatementWriter open(OutputBuffer output, SourceMap sourceMap, String sourceName, LineMap lines) {
+		WriterHelper wh = new WriterHelper(this.options, output, sourceMap);
+		if (sourceMap != null)
+			wh.setSource(Objects.requireNonNull(sourceName, "sourceName"), lines);
+		return new StatementWriter(wh, sourceMap);
+	}
+	
+	public class StatementWriter implements Consumer<StatementTree>, Closeable {
+		protected final WriterHelper out;
+		protected final SourceMap sourceMap;
+		protected boolean closed = false;
+		
+		protected StatementWriter(WriterHelper out, SourceMap sourceMap) {
+			this.out = out;
+			this.sourceMap = sourceMap;
+		}
+		
+		/**
+		 * Write a statement. Null statements (e.g., removed by a transformation) are skipped.
+		 */
+		@Override
+		public void accept(StatementTree statement) {
+			if (this.closed)
+				throw new IllegalStateException("Writer is closed");
+			if (statement != null)
+				writeStatement(statement, this.out);
+		}
+		
+		@Override
+		public void close() throws IOException {
+			if (this.closed)
+				return;
+			this.closed = true;
+			try {
+				if (this.sourceMap != null)
+					writeSourceMappingURL(this.sourceMap, this.out);
+				this.out.flush();
+			} catch (RuntimeException e) {
+				if (e.getCause() instanceof IOException)
+					throw (IOException) e.getCause();
+				throw e;
+			}
+		}
+	}
+	
+	/**
+	 * Write a {@code //# sourceMappingURL=} comment, if configured
+	 */
+	protected void writeSourceMappingURL(SourceMap sourceMap, WriterHelper out) {
+		String url;
+		switch (this.options.sourceMapStyle) {
+			case INLINE:
+				url = sourceMap.toDataURL();
+				break;
+			case SEPARATE:
+				url = this.options.sourceMapURL;
+				break;
+			case NONE:
+			default:
+				url = null;
+		}
+		if (url == null)
+			return;
+		out.flush();
+		if (out.getColumn() > 0)
+			out.append('\n');
+		out.append("//# sourceMappingURL=").append(url).append('\n');
+	}
+	
+	/**
+	 * Render chunks of top-level statements on {@link #pool}, and concatenate them in order. Statements are
+	 * independent, so the output is the same as writing them one at a time.
+	 */
+	protected void writeParallel(CompilationUnitTree tree, WriterHelper out) {
+		List<? extends StatementTree> statements = tree.getSourceElements();
+		// A few chunks per thread, to balance uneven statements
+		int chunks = Math.min(statements.size(), Math.max(1, this.pool.getParallelism() * 4));
+		List<ForkJoinTask<WriterHelper>> tasks = new ArrayList<>(chunks);
+		for (int i = 0; i < chunks; i++) {
+			List<? extends StatementTree> chunk = statements.subList(statements.size() * i / chunks, statements.size() * (i + 1) / chunks);
+			WriterHelper chunkOut = out.fork();
+			tasks.add(this.pool.submit(() -> {
+				for (StatementTree statement : chunk)
+					this.writeStatement(statement, chunkOut);
+				return chunkOut;
+			}));
+		}
+		try {
+			for (ForkJoinTask<WriterHelper> task : tasks)
+				out.append(task.join());
+		} finally {
+			for (ForkJoinTask<WriterHelper> task : tasks)
+				task.cancel(false);
+		}
+	}
+	
+	/**
+	 * Write a statement, mapped to its source
+	 */
+	protected void writeStatement(StatementTree statement, WriterHelper out) {
+		out.beginRegion(statement.getStart());
+		statement.accept(this, out);
+		out.endRegion(statement.getEnd());
+	}
+	
 	void writeTypeMaybe(TypeTree type, WriterHelper out) {
 		if (type != null)
 			this.writeTypeAnnotation(type, out);
@@ -493,7 +656,7 @@ public class JSWriterImpl extends AbstractJSWriter<Tree> implements JSWriter, Tr
 		out.pushContext();
 		out.doFinishWithNewline(true);
 		for (StatementTree statement : node.getStatements())
-			statement.accept(this, out);
+			this.writeStatement(statement, out);
 		out.popContext();
 		
 		out.popIndent();
@@ -505,7 +668,9 @@ public class JSWriterImpl extends AbstractJSWriter<Tree> implements JSWriter, Tr
 
 	@Override
 	public Void visitBooleanLiteral(BooleanLiteralTree node, WriterHelper out) {
+		out.beginRegion(node.getStart());
 		out.append(node.getValue().toString());
+		out.endRegion(node.getEnd());
 		return null;
 	}
 
@@ -591,7 +756,7 @@ public class JSWriterImpl extends AbstractJSWriter<Tree> implements JSWriter, Tr
 	@Override
 	public Void visitCompilationUnit(CompilationUnitTree node, WriterHelper out) {
 		for (StatementTree statement : node.getSourceElements())
-			statement.accept(this, out);
+			this.writeStatement(statement, out);
 		return null;
 	}
 
@@ -635,6 +800,14 @@ public class JSWriterImpl extends AbstractJSWriter<Tree> implements JSWriter, Tr
 			out.append("async").space();
 	}
 
+	@Override
+	public Void visitComputedPropertyKey(ComputedPropertyKeyTree node, WriterHelper out) {
+		out.append('[');
+		node.getExpression().accept(this, out);
+		out.append(']');
+		return null;
+	}
+
 	@Override
 	public Void visitConditionalExpression(ConditionalExpressionTree node, WriterHelper out) {
 		node.getCondition().accept(this, out);
@@ -918,7 +1091,9 @@ public class JSWriterImpl extends AbstractJSWriter<Tree> implements JSWriter, Tr
 	public Void visitIdentifier(IdentifierTree node, WriterHelper out) {
 		//TODO check if correct
 		//TODO fix unicode escapes
+		out.beginRegion(node.getStart(), node.getName());
 		out.append(node.getName());
+		out.endRegion(node.getEnd());
 		return null;
 	}
 
@@ -1117,7 +1292,9 @@ public class JSWriterImpl extends AbstractJSWriter<Tree> implements JSWriter, Tr
 	public Void visitNumericLiteral(NumericLiteralTree node, WriterHelper out) {
 		Number value = node.getValue();
 		//TODO compress hex numbers, if possible
+		out.beginRegion(node.getStart());
 		out.append(value.toString());
+		out.endRegion(node.getEnd());
 		return null;
 	}
 	
@@ -1194,6 +1371,7 @@ public class JSWriterImpl extends AbstractJSWriter<Tree> implements JSWriter, Tr
 	public Void visitStringLiteral(StringLiteralTree node, WriterHelper out) {
 		String value = node.getValue();
 		boolean singleQuotes = value.indexOf('"') >= 0;
+		out.beginRegion(node.getStart());
 		out.append(singleQuotes ? '\'' : '"');
 		for (int i = 0, l = value.length(); i < l; i++) {
 			char c = value.charAt(i);
@@ -1233,6 +1411,7 @@ public class JSWriterImpl extends AbstractJSWriter<Tree> implements JSWriter, Tr
 			out.append(c);
 		}
 		out.append(singleQuotes ? '\'' : '"');
+		out.endRegion(node.getEnd());
 		return null;
 	}
 
@@ -1272,7 +1451,9 @@ public class JSWriterImpl extends AbstractJSWriter<Tree> implements JSWriter, Tr
 
 	@Override
 	public Void visitThis(ThisExpressionTree node, WriterHelper out) {
+		out.beginRegion(node.getStart());
 		out.append("this");
+		out.endRegion(node.getEnd());
 		return null;
 	}
 
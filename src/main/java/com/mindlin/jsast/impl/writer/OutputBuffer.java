@@ -0,0 +1,293 @@
+package com.mindlin.jsast.impl.writer;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable {@code char[]} that output is appended to, and flushed to a {@link Sink} in large chunks.
+ * <p>
+ * Unlike a {@link java.io.BufferedWriter}, appending doesn't lock, and isn't virtual through the sink. Without a sink,
+ * the buffer just grows (see {@link #toString()}).
+ * </p>
+ */
+public class OutputBuffer implements Appendable, Flushable, Closeable {
+	protected static final int DEFAULT_CAPACITY = 1 << 16;
+
+	protected char[] buf;
+	protected int pos = 0;
+	protected final Sink sink;
+
+	/**
+	 * In-memory buffer
+	 */
+	public OutputBuffer() {
+		this(null, DEFAULT_CAPACITY);
+	}
+
+	public OutputBuffer(Sink sink) {
+		this(sink, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param sink Where to flush output to (or null to keep everything in memory)
+	 * @param capacity Size of chunks to flush
+	 */
+	public OutputBuffer(Sink sink, int capacity) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("Illegal capacity: " + capacity);
+		this.sink = sink;
+		this.buf = new char[capacity];
+	}
+
+	public static OutputBuffer of(Writer out) {
+		return new OutputBuffer(new WriterSink(out));
+	}
+
+	/**
+	 * Write output to a channel, encoded as UTF-8
+	 * @param out
+	 * @return buffer
+	 */
+	public static OutputBuffer of(WritableByteChannel out) {
+		return new OutputBuffer(new ChannelSink(out));
+	}
+
+	/**
+	 * Make room for {@code length} more chars
+	 */
+	protected void reserve(int length) throws IOException {
+		if (this.buf.length - this.pos >= length)
+			return;
+		if (this.sink != null) {
+			this.drain(false);
+			if (this.buf.length - this.pos >= length)
+				return;
+		}
+		int capacity = Math.max(this.buf.length * 2, this.pos + length);
+		if (capacity < 0)
+			throw new OutOfMemoryError("Output too large");
+		this.buf = Arrays.copyOf(this.buf, capacity);
+	}
+
+	/**
+	 * Write buffered chars to sink
+	 */
+	protected void drain(boolean endOfInput) throws IOException {
+		int written = this.sink.write(this.buf, 0, this.pos, endOfInput);
+		if (written < this.pos)
+			System.arraycopy(this.buf, written, this.buf, 0, this.pos - written);
+		this.pos -= written;
+	}
+
+	@Override
+	public OutputBuffer append(char c) throws IOException {
+		if (this.pos == this.buf.length)
+			this.reserve(1);
+		this.buf[this.pos++] = c;
+		return this;
+	}
+
+	@Override
+	public OutputBuffer append(CharSequence csq) throws IOException {
+		return this.append(csq, 0, csq.length());
+	}
+
+	@Override
+	public OutputBuffer append(CharSequence csq, int start, int end) throws IOException {
+		int length = end - start;
+		if (length > this.buf.length && this.sink != null) {
+			// Don't grow the buffer for huge strings
+			this.drain(false);
+			if (this.pos == 0) {
+				this.sink.write(CharBuffer.wrap(csq, start, end));
+				return this;
+			}
+		}
+		this.reserve(length);
+		if (csq instanceof String) {
+			((String) csq).getChars(start, end, this.buf, this.pos);
+		} else {
+			char[] buf = this.buf;
+			for (int i = start, j = this.pos; i < end; i++, j++)
+				buf[j] = csq.charAt(i);
+		}
+		this.pos += length;
+		return this;
+	}
+
+	public OutputBuffer append(char[] chars, int offset, int length) throws IOException {
+		this.reserve(length);
+		System.arraycopy(chars, offset, this.buf, this.pos, length);
+		this.pos += length;
+		return this;
+	}
+
+	/**
+	 * Append the buffered text of another buffer
+	 */
+	public OutputBuffer append(OutputBuffer other) throws IOException {
+		return this.append(other.buf, 0, other.pos);
+	}
+
+	/**
+	 * @return Number of chars currently buffered
+	 */
+	public int size() {
+		return this.pos;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		if (this.sink == null)
+			return;
+		this.drain(false);
+		this.sink.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.sink == null)
+			return;
+		this.drain(true);
+		this.sink.close();
+	}
+
+	/**
+	 * @return Buffered text (everything written, if there is no sink)
+	 */
+	@Override
+	public String toString() {
+		return new String(this.buf, 0, this.pos);
+	}
+
+	/**
+	 * Destination of an {@link OutputBuffer}
+	 */
+	public static interface Sink extends Flushable, Closeable {
+		/**
+		 * Write chars
+		 * @param buf Buffer
+		 * @param offset Offset in buffer
+		 * @param length Number of chars to write
+		 * @param endOfInput If no more chars will be written
+		 * @return Number of chars consumed. Unconsumed chars (e.g., half of a surrogate pair) are written again next time.
+		 * @throws IOException
+		 */
+		int write(char[] buf, int offset, int length, boolean endOfInput) throws IOException;
+
+		/**
+		 * Write a large chunk that bypasses the buffer
+		 */
+		void write(CharBuffer chars) throws IOException;
+	}
+
+	public static class WriterSink implements Sink {
+		protected final Writer out;
+
+		public WriterSink(Writer out) {
+			this.out = out;
+		}
+
+		@Override
+		public int write(char[] buf, int offset, int length, boolean endOfInput) throws IOException {
+			this.out.write(buf, offset, length);
+			return length;
+		}
+
+		@Override
+		public void write(CharBuffer chars) throws IOException {
+			this.out.append(chars);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			this.out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.out.close();
+		}
+	}
+
+	/**
+	 * Encodes chars as UTF-8 straight into a (direct) byte buffer, and writes that to a channel.
+	 */
+	public static class ChannelSink implements Sink {
+		protected final WritableByteChannel out;
+		protected final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		protected final ByteBuffer bytes;
+
+		public ChannelSink(WritableByteChannel out) {
+			this(out, DEFAULT_CAPACITY * 3);
+		}
+
+		public ChannelSink(WritableByteChannel out, int capacity) {
+			this.out = out;
+			this.bytes = ByteBuffer.allocateDirect(capacity);
+		}
+
+		@Override
+		public int write(char[] buf, int offset, int length, boolean endOfInput) throws IOException {
+			CharBuffer chars = CharBuffer.wrap(buf, offset, length);
+			this.encode(chars, endOfInput);
+			return chars.position() - offset;
+		}
+
+		@Override
+		public void write(CharBuffer chars) throws IOException {
+			// Any unpaired surrogate at the end is replaced
+			this.encode(chars, false);
+			if (chars.hasRemaining())
+				this.encode(chars, true);
+		}
+
+		protected void encode(CharBuffer chars, boolean endOfInput) throws IOException {
+			while (true) {
+				CoderResult result = this.encoder.encode(chars, this.bytes, endOfInput);
+				if (result.isOverflow()) {
+					this.drain();
+					continue;
+				}
+				if (result.isError())
+					result.throwException();
+				break;
+			}
+			if (endOfInput) {
+				while (this.encoder.flush(this.bytes).isOverflow())
+					this.drain();
+				this.encoder.reset();
+			}
+		}
+
+		protected void drain() throws IOException {
+			this.bytes.flip();
+			while (this.bytes.hasRemaining())
+				this.out.write(this.bytes);
+			this.bytes.clear();
+		}
+
+		@Override
+		public void flush() throws IOException {
+			this.drain();
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.drain();
+			this.out.close();
+		}
+	}
+}
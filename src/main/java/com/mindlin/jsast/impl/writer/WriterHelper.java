@@ -3,48 +3,159 @@ package com.mindlin.jsast.impl.writer;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Arrays;
 import java.util.Stack;
 
-import com.mindlin.jsast.fs.SourcePosition;
+import com.mindlin.jsast.impl.tree.LineMap;
 import com.mindlin.jsast.writer.JSWriterOptions;
-import com.mindlin.jsast.writer.StandardJSWriterOptions;
+import com.mindlin.jsast.writer.SourceMap;
+import com.mindlin.nautilus.fs.SourcePosition;
 
 class WriterHelper implements Closeable {
 	private final JSWriterOptions options;
-	protected final Writer parent;
+	protected final OutputBuffer parent;
 	protected int indentLevel;
-	private String indent = "";
+	/**
+	 * Newline + indent, for each level above the base indent. Built on demand.
+	 */
+	private String[] newlines = new String[16];
 	private int newlineBacklog = 0;
 	protected Stack<WriterHelperContext> context = new Stack<>();
+	/**
+	 * Current (0-based) line in the output
+	 */
+	protected int line = 0;
+	/**
+	 * Current (0-based) column in the output
+	 */
+	protected int column = 0;
+	protected final SourceMap sourceMap;
+	protected int sourceIndex = -1;
+	protected LineMap sourceLines;
+	/**
+	 * Mapping waiting for the next output. Regions don't map anything until they write something, so that mappings
+	 * point at tokens, not whitespace.
+	 */
+	protected boolean hasPendingMapping = false;
+	protected int pendingLine;
+	protected int pendingColumn;
+	protected int pendingName;
 	
 	public WriterHelper(JSWriterOptions options, Writer parent) {
+		this(options, parent, null);
+	}
+	
+	public WriterHelper(JSWriterOptions options, Writer parent, SourceMap sourceMap) {
+		this(options, OutputBuffer.of(parent), sourceMap);
+	}
+	
+	public WriterHelper(JSWriterOptions options, OutputBuffer parent, SourceMap sourceMap) {
 		this.options = options;
 		this.indentLevel = options.baseIndent;
 		this.parent = parent;
+		this.sourceMap = sourceMap;
 		this.context.push(new WriterHelperContext());
 	}
 	
 	// ===== SourceMap stuff =====
 	
+	/**
+	 * Set the source that regions are mapped to
+	 * @param name Source name
+	 * @param lines Lines of source (optional). If present, source positions are mapped by offset.
+	 */
+	public void setSource(String name, LineMap lines) {
+		if (this.sourceMap != null)
+			this.sourceIndex = this.sourceMap.addSource(name);
+		this.sourceLines = lines;
+	}
+	
+	public int getLine() {
+		return this.line;
+	}
+	
+	public int getColumn() {
+		return this.column;
+	}
+	
 	public void beginRegion(SourcePosition srcStart) {
-		// TODO impl
+		this.beginRegion(srcStart, null);
+	}
+	
+	/**
+	 * Start writing code from the source.
+	 * @param srcStart Start position in source
+	 * @param name Original identifier name (optional)
+	 */
+	public void beginRegion(SourcePosition srcStart, String name) {
+		if (this.sourceMap == null || this.sourceIndex < 0 || srcStart == null || srcStart.getOffset() < 0)
+			return;
+		// Innermost region wins
+		this.hasPendingMapping = true;
+		if (this.sourceLines != null) {
+			long offset = srcStart.getOffset();
+			long line = this.sourceLines.getLineNumber(offset);
+			// Line offsets are at the line terminator
+			long lineStart = line == 0 ? 0 : this.sourceLines.getLineOffset(line) + 1;
+			this.pendingLine = (int) line;
+			this.pendingColumn = (int) (offset - lineStart);
+		} else {
+			this.pendingLine = (int) srcStart.getLine();
+			this.pendingColumn = (int) srcStart.getColumn();
+		}
+		this.pendingName = name == null ? -1 : this.sourceMap.addName(name);
 	}
 	
 	public void endRegion(SourcePosition srcEnd) {
-		
+		// Nothing was written for the region
+		this.hasPendingMapping = false;
+	}
+	
+	protected void flushMapping() {
+		if (!this.hasPendingMapping)
+			return;
+		this.hasPendingMapping = false;
+		this.sourceMap.addMapping(this.line, this.column, this.sourceIndex, this.pendingLine, this.pendingColumn, this.pendingName);
+	}
+	
+	/**
+	 * Update output position after writing text
+	 */
+	protected void advance(CharSequence csq, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (csq.charAt(i) == '\n') {
+				this.line++;
+				this.column = 0;
+			} else {
+				this.column++;
+			}
+		}
 	}
 	
 	public void pushIndent() {
 		this.indentLevel++;
-		this.indent += this.options.indentStyle;
 	}
 	
 	public void popIndent() {
-		if (--this.indentLevel < this.options.baseIndent) {
-			this.indentLevel++;
-			return;
+		if (this.indentLevel > this.options.baseIndent)
+			this.indentLevel--;
+	}
+	
+	/**
+	 * @return Newline followed by the current indent
+	 */
+	protected String getNewline() {
+		int depth = this.indentLevel - this.options.baseIndent;
+		if (depth >= this.newlines.length)
+			this.newlines = Arrays.copyOf(this.newlines, Math.max(depth + 1, this.newlines.length * 2));
+		String result = this.newlines[depth];
+		if (result == null) {
+			StringBuilder sb = new StringBuilder(1 + depth * this.options.indentStyle.length()).append('\n');
+			for (int i = 0; i < depth; i++)
+				sb.append(this.options.indentStyle);
+			this.newlines[depth] = result = sb.toString();
 		}
-		this.indent = this.indent.substring(0, this.indent.length() - this.options.indentStyle.length());
+		return result;
 	}
 	
 	public void pushContext() {
@@ -86,33 +197,69 @@ class WriterHelper implements Closeable {
 	}
 	
 	public WriterHelper append(long srcStart, long srcEnd, String s) {
-		flushNewlines();
-		try {
-			this.parent.append(s);
-		} catch (IOException e) {
-			throw new RuntimeException(e);
-		}
-		return this;
+		return this.append(s);
 	}
 	
 	public WriterHelper append(char c) {
 		flushNewlines();
+		flushMapping();
 		try {
 			this.parent.append(c);
-			return this;
 		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
+		if (c == '\n') {
+			this.line++;
+			this.column = 0;
+		} else {
+			this.column++;
+		}
+		return this;
 	}
 	
 	public WriterHelper append(CharSequence csq, int start, int end) {
 		flushNewlines();
+		flushMapping();
 		return doAppend(csq, start, end);
 	}
 	
 	public WriterHelper append(CharSequence csq) {
+		return this.append(csq, 0, csq.length());
+	}
+	
+	/**
+	 * Make a helper that writes to a separate (in-memory) buffer, with the same settings & source as this one. Its
+	 * output can be added back with {@link #append(WriterHelper)}.
+	 */
+	public WriterHelper fork() {
+		WriterHelper result = new WriterHelper(this.options, new OutputBuffer(), this.sourceMap == null ? null : new SourceMap());
+		result.indentLevel = this.indentLevel;
+		result.context.peek().noNewline = this.context.peek().noNewline;
+		if (this.sourceIndex >= 0)
+			result.setSource(this.sourceMap.getSources().get(this.sourceIndex), this.sourceLines);
+		return result;
+	}
+	
+	/**
+	 * Append the output of a {@link #fork() forked} helper, shifting its source mappings to where it ends up
+	 */
+	public WriterHelper append(WriterHelper other) {
+		other.flushNewlines();
 		flushNewlines();
-		return doAppend(csq, 0, csq.length());
+		if (this.sourceMap != null && other.sourceMap != null)
+			this.sourceMap.append(other.sourceMap, this.line, this.column);
+		try {
+			this.parent.append(other.parent);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		if (other.line == 0) {
+			this.column += other.column;
+		} else {
+			this.line += other.line;
+			this.column = other.column;
+		}
+		return this;
 	}
 	
 	public WriterHelper appendIsolated(CharSequence csq) {
@@ -139,20 +286,27 @@ class WriterHelper implements Closeable {
 	protected void flushNewlines() {
 		if (this.newlineBacklog == 0)
 			return;
-		String newline = "\n" + this.indent;
-		while (this.newlineBacklog > 0) {
-			this.newlineBacklog--;
-			doAppend(newline, 0, newline.length());
+		String newline = this.getNewline();
+		this.line += this.newlineBacklog;
+		this.column = newline.length() - 1;
+		try {
+			while (this.newlineBacklog > 0) {
+				this.newlineBacklog--;
+				this.parent.append(newline, 0, newline.length());
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
 		}
 	}
 	
 	protected WriterHelper doAppend(CharSequence csq, int start, int end) {
 		try {
 			this.parent.append(csq, start, end);
-			return this;
 		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
+		this.advance(csq, start, end);
+		return this;
 	}
 	
 	public WriterHelper newline() {
@@ -161,12 +315,14 @@ class WriterHelper implements Closeable {
 	}
 	
 	public WriterHelper space() {
-		append(this.options.space);
+		// Not mapped
+		flushNewlines();
+		doAppend(this.options.space, 0, this.options.space.length());
 		return this;
 	}
 	
 	public WriterHelper optionalSpace() {
-		if (!this.options.get(StandardJSWriterOptions.MINIFY))
+		if (!this.options.minify)
 			space();
 		return this;
 	}
@@ -160,4 +160,13 @@ public class JSONArray implements List<Object>, JSONExternalizable {
 		}
 	}
 
+	@Override
+	public int hashCode() {
+		return backingList.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o == this || backingList.equals(o);
+	}
 }
@@ -0,0 +1,860 @@
+package com.mindlin.jsast.json;
+
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.Reader;
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Stack;
+
+import com.mindlin.jsast.json.api.JSONArrayInput;
+import com.mindlin.jsast.json.api.JSONExternalizable;
+import com.mindlin.jsast.json.api.JSONInput;
+import com.mindlin.jsast.json.api.JSONObjectInput;
+import com.mindlin.jsast.json.api.JSONParseException;
+import com.mindlin.jsast.json.api.SafelyCloseable;
+
+/**
+ * Pull-based JSON reader.
+ * <p>
+ * Objects and arrays are streamed, so a document can be read without materializing it; values that are never read
+ * are skipped without being decoded. In lenient mode, comments and trailing commas are allowed (as in
+ * {@code tsconfig.json}).
+ * </p>
+ */
+public class JSONInputStream implements JSONInput {
+	protected static final int BUFFER_SIZE = 8192;
+
+	/**
+	 * Source of chars. May be null, if all the text is in {@link #buf}.
+	 */
+	protected final Reader in;
+	protected final char[] buf;
+	protected int pos;
+	protected int limit;
+	/**
+	 * Offset in the source of {@code buf[0]}
+	 */
+	protected long bufferOffset;
+	protected final boolean lenient;
+	/**
+	 * Reused for decoding strings and numbers
+	 */
+	protected final StringBuilder scratch = new StringBuilder();
+	protected Stack<SafelyCloseable> children = new Stack<>();
+	protected final JSONValueInputStream root = new JSONRootInputStream();
+
+	public JSONInputStream(Reader in) {
+		this(in, false);
+	}
+
+	public JSONInputStream(Reader in, boolean lenient) {
+		this.in = in;
+		this.buf = new char[BUFFER_SIZE];
+		this.lenient = lenient;
+	}
+
+	public JSONInputStream(String text) {
+		this(text, false);
+	}
+
+	public JSONInputStream(String text, boolean lenient) {
+		this(text.toCharArray(), 0, text.length(), lenient);
+	}
+
+	public JSONInputStream(char[] chars, int offset, int length, boolean lenient) {
+		this.in = null;
+		this.buf = chars;
+		this.pos = offset;
+		this.limit = offset + length;
+		this.bufferOffset = -offset;
+		this.lenient = lenient;
+	}
+
+	/**
+	 * @return Offset of the next char to be read
+	 */
+	public long offset() {
+		return bufferOffset + pos;
+	}
+
+	@Override
+	public boolean readBoolean() throws JSONParseException {
+		return root.readBoolean();
+	}
+
+	@Override
+	public long readLong() throws JSONParseException {
+		return root.readLong();
+	}
+
+	@Override
+	public double readDouble() throws JSONParseException {
+		return root.readDouble();
+	}
+
+	@Override
+	public Number readNumber() throws JSONParseException {
+		return root.readNumber();
+	}
+
+	@Override
+	public String readString() throws JSONParseException {
+		return root.readString();
+	}
+
+	@Override
+	public Void readNull() throws JSONParseException {
+		return root.readNull();
+	}
+
+	@Override
+	public JSONObjectInputStream readObject() throws JSONParseException {
+		return root.readObject();
+	}
+
+	@Override
+	public JSONArrayInputStream readArray() throws JSONParseException {
+		return root.readArray();
+	}
+
+	@Override
+	public Object readValue() throws JSONParseException {
+		return root.readValue();
+	}
+
+	@Override
+	public boolean isNextBoolean() {
+		return root.isNextBoolean();
+	}
+
+	@Override
+	public boolean isNextNumber() {
+		return root.isNextNumber();
+	}
+
+	@Override
+	public boolean isNextString() {
+		return root.isNextString();
+	}
+
+	@Override
+	public boolean isNextNull() {
+		return root.isNextNull();
+	}
+
+	@Override
+	public boolean isNextObject() {
+		return root.isNextObject();
+	}
+
+	@Override
+	public boolean isNextArray() {
+		return root.isNextArray();
+	}
+
+	@Override
+	public void skip() {
+		root.skip();
+	}
+
+	@Override
+	public SafelyCloseable mark() {
+		return children.push(new JSONInputStreamMark());
+	}
+
+	@Override
+	public void close() {
+		closeAbove(null);
+		if (in != null) {
+			try {
+				in.close();
+			} catch (IOException e) {
+				throw new JSONParseException(e);
+			}
+		}
+	}
+
+	protected JSONParseException error(String message) {
+		return new JSONParseException(message + " at offset " + offset());
+	}
+
+	protected JSONParseException unexpected(int c, String expected) {
+		if (c < 0)
+			return error("Unexpected end of input (expected " + expected + ")");
+		return error("Unexpected '" + (char) c + "' (expected " + expected + ")");
+	}
+
+	/**
+	 * Refill the buffer. Only call when it has been read to its limit.
+	 * @return If any chars were read
+	 */
+	protected boolean fill() {
+		if (in == null)
+			return false;
+		try {
+			bufferOffset += limit;
+			pos = 0;
+			limit = 0;
+			int read;
+			while ((read = in.read(buf, 0, buf.length)) == 0)
+				;
+			if (read < 0)
+				return false;
+			limit = read;
+			return true;
+		} catch (IOException e) {
+			throw new JSONParseException(e);
+		}
+	}
+
+	protected int read() {
+		if (pos >= limit && !fill())
+			return -1;
+		return buf[pos++];
+	}
+
+	/**
+	 * Skip whitespace (and comments, if lenient)
+	 * @return Next significant char, or -1 on EOF
+	 */
+	protected int peek() {
+		while (true) {
+			if (pos >= limit && !fill())
+				return -1;
+			char c = buf[pos];
+			switch (c) {
+				case ' ':
+				case '\t':
+				case '\n':
+				case '\r':
+					pos++;
+					continue;
+				case '/':
+					if (lenient) {
+						pos++;
+						skipComment();
+						continue;
+					}
+					//$FALL-THROUGH$
+				default:
+					return c;
+			}
+		}
+	}
+
+	protected void skipComment() {
+		int c = read();
+		if (c == '/') {
+			while ((c = read()) >= 0 && c != '\n')
+				;
+		} else if (c == '*') {
+			boolean star = false;
+			while (true) {
+				c = read();
+				if (c < 0)
+					throw error("Unterminated comment");
+				if (star && c == '/')
+					return;
+				star = c == '*';
+			}
+		} else {
+			throw unexpected(c, "comment");
+		}
+	}
+
+	protected void expect(char expected) {
+		int c = peek();
+		if (c != expected)
+			throw unexpected(c, "'" + expected + "'");
+		pos++;
+	}
+
+	protected void expectLiteral(String literal) {
+		peek();
+		for (int i = 0; i < literal.length(); i++) {
+			int c = read();
+			if (c != literal.charAt(i))
+				throw unexpected(c, literal);
+		}
+	}
+
+	/**
+	 * Consume a separator or the end of an object/array.
+	 * @param close Closing char of the object/array
+	 * @return If there is another element
+	 */
+	protected boolean nextElement(char close) {
+		int c = peek();
+		if (c == ',') {
+			pos++;
+			if (lenient && peek() == close) {
+				pos++;
+				return false;
+			}
+			return true;
+		} else if (c == close) {
+			pos++;
+			return false;
+		}
+		throw unexpected(c, "',' or '" + close + "'");
+	}
+
+	/**
+	 * Consume the end of an empty object/array, if present.
+	 * @param close Closing char
+	 * @return If the end was consumed
+	 */
+	protected boolean isEmpty(char close) {
+		if (peek() != close)
+			return false;
+		pos++;
+		return true;
+	}
+
+	/**
+	 * Read (or skip) a string
+	 * @param out Builder to append chars to. If null, the string is skipped.
+	 */
+	protected void parseString(StringBuilder out) {
+		expect('"');
+		while (true) {
+			if (pos >= limit && !fill())
+				throw error("Unterminated string");
+			// Copy runs of plain chars at once
+			int start = pos;
+			char c = 0;
+			while (pos < limit && (c = buf[pos]) != '"' && c != '\\' && c >= 0x20)
+				pos++;
+			if (out != null && pos > start)
+				out.append(buf, start, pos - start);
+			if (pos >= limit)
+				continue;
+			pos++;
+			if (c == '"')
+				return;
+			if (c != '\\')
+				throw error("Unescaped control character in string");
+			int e = read();
+			switch (e) {
+				case '"':
+				case '\\':
+				case '/':
+					c = (char) e;
+					break;
+				case 'b':
+					c = '\b';
+					break;
+				case 'f':
+					c = '\f';
+					break;
+				case 'n':
+					c = '\n';
+					break;
+				case 'r':
+					c = '\r';
+					break;
+				case 't':
+					c = '\t';
+					break;
+				case 'u':
+					c = 0;
+					for (int i = 0; i < 4; i++) {
+						int digit = Character.digit(read(), 16);
+						if (digit < 0)
+							throw error("Invalid unicode escape");
+						c = (char) ((c << 4) | digit);
+					}
+					break;
+				default:
+					throw unexpected(e, "escape sequence");
+			}
+			if (out != null)
+				out.append(c);
+		}
+	}
+
+	protected String parseString() {
+		scratch.setLength(0);
+		parseString(scratch);
+		return scratch.toString();
+	}
+
+	protected Number parseNumber() {
+		int c = peek();
+		if (c != '-' && (c < '0' || c > '9'))
+			throw unexpected(c, "number");
+		scratch.setLength(0);
+		boolean isFloat = false;
+		for (; pos < limit || fill(); pos++) {
+			c = buf[pos];
+			if (c == '.' || c == 'e' || c == 'E')
+				isFloat = true;
+			else if ((c < '0' || c > '9') && c != '-' && c != '+')
+				break;
+			scratch.append((char) c);
+		}
+		String text = scratch.toString();
+		try {
+			if (!isFloat) {
+				long value = Long.parseLong(text);
+				if ((int) value == value)
+					return (int) value;
+				return value;
+			}
+		} catch (NumberFormatException e) {
+			// Too big for a long
+		}
+		try {
+			return Double.parseDouble(text);
+		} catch (NumberFormatException e) {
+			throw error("Invalid number '" + text + "'");
+		}
+	}
+
+	/**
+	 * Read a value, materializing objects and arrays
+	 */
+	protected Object parseValue() {
+		int c = peek();
+		switch (c) {
+			case '{': {
+				pos++;
+				JSONObject result = new JSONObject();
+				if (!isEmpty('}')) {
+					do {
+						String key = parseString();
+						expect(':');
+						result.put(key, parseValue());
+					} while (nextElement('}'));
+				}
+				return result;
+			}
+			case '[': {
+				pos++;
+				JSONArray result = new JSONArray();
+				if (!isEmpty(']')) {
+					do {
+						result.add(parseValue());
+					} while (nextElement(']'));
+				}
+				return result;
+			}
+			case '"':
+				return parseString();
+			case 't':
+				expectLiteral("true");
+				return true;
+			case 'f':
+				expectLiteral("false");
+				return false;
+			case 'n':
+				expectLiteral("null");
+				return null;
+			default:
+				return parseNumber();
+		}
+	}
+
+	/**
+	 * Skip a value, without allocating anything
+	 */
+	protected void skipValue() {
+		int c = peek();
+		switch (c) {
+			case '{':
+				pos++;
+				if (!isEmpty('}')) {
+					do {
+						parseString(null);
+						expect(':');
+						skipValue();
+					} while (nextElement('}'));
+				}
+				break;
+			case '[':
+				pos++;
+				if (!isEmpty(']')) {
+					do {
+						skipValue();
+					} while (nextElement(']'));
+				}
+				break;
+			case '"':
+				parseString(null);
+				break;
+			case 't':
+				expectLiteral("true");
+				break;
+			case 'f':
+				expectLiteral("false");
+				break;
+			case 'n':
+				expectLiteral("null");
+				break;
+			default:
+				if (c != '-' && (c < '0' || c > '9'))
+					throw unexpected(c, "value");
+				while ((pos < limit || fill()) && ((c = buf[pos]) == '-' || c == '+' || c == '.' || c == 'e' || c == 'E' || (c >= '0' && c <= '9')))
+					pos++;
+		}
+	}
+
+	/**
+	 * Close all objects/arrays that were opened after {@code parent}. Stops at marks.
+	 * @param parent Parent, or null for the root
+	 */
+	void closeChildren(SafelyCloseable parent) {
+		SafelyCloseable child;
+		while (!children.isEmpty() && (child = children.peek()) != parent && !(child instanceof JSONInputStreamMark))
+			child.close();
+	}
+
+	/**
+	 * Close everything (including marks) that was opened after {@code parent}
+	 * @param parent
+	 */
+	void closeAbove(SafelyCloseable parent) {
+		SafelyCloseable child;
+		while (!(children.isEmpty() || (child = children.peek()) == parent))
+			child.close();
+	}
+
+	void doClose(SafelyCloseable e) throws RuntimeException {
+		if (children.isEmpty())
+			throw new RuntimeException(e + " is not a child");
+		closeAbove(e);
+		if (children.isEmpty())
+			throw new RuntimeException("Stack is empty");
+		children.pop();
+	}
+
+	protected class JSONInputStreamMark implements SafelyCloseable {
+		private boolean closed = false;
+		@Override
+		public void close() {
+			if (closed)
+				return;
+			closed = true;
+			doClose(this);
+		}
+	}
+
+	/**
+	 * Reads values from some position (the root, an array, or an object)
+	 */
+	protected abstract class JSONValueInputStream implements JSONInput {
+		/**
+		 * Prepare to read a value, and mark it as read
+		 * @throws JSONParseException If there is no value to read
+		 */
+		protected abstract void beforeValue() throws JSONParseException;
+
+		/**
+		 * @return First char of the next value, or -1 if there is no value to read
+		 */
+		protected abstract int peekValue();
+
+		@Override
+		public boolean readBoolean() throws JSONParseException {
+			beforeValue();
+			int c = peek();
+			if (c == 't') {
+				expectLiteral("true");
+				return true;
+			} else if (c == 'f') {
+				expectLiteral("false");
+				return false;
+			}
+			throw unexpected(c, "boolean");
+		}
+
+		@Override
+		public long readLong() throws JSONParseException {
+			beforeValue();
+			Number value = parseNumber();
+			if (value instanceof Double) {
+				double d = value.doubleValue();
+				if ((long) d != d)
+					throw error("Cannot read " + d + " as long");
+			}
+			return value.longValue();
+		}
+
+		@Override
+		public double readDouble() throws JSONParseException {
+			beforeValue();
+			return parseNumber().doubleValue();
+		}
+
+		@Override
+		public Number readNumber() throws JSONParseException {
+			beforeValue();
+			return parseNumber();
+		}
+
+		@Override
+		public String readString() throws JSONParseException {
+			beforeValue();
+			return parseString();
+		}
+
+		@Override
+		public Void readNull() throws JSONParseException {
+			beforeValue();
+			expectLiteral("null");
+			return null;
+		}
+
+		@Override
+		public JSONObjectInputStream readObject() throws JSONParseException {
+			beforeValue();
+			expect('{');
+			JSONObjectInputStream result = new JSONObjectInputStream();
+			children.push(result);
+			return result;
+		}
+
+		@Override
+		public JSONArrayInputStream readArray() throws JSONParseException {
+			beforeValue();
+			expect('[');
+			JSONArrayInputStream result = new JSONArrayInputStream();
+			children.push(result);
+			return result;
+		}
+
+		@Override
+		public Object readValue() throws JSONParseException {
+			beforeValue();
+			return parseValue();
+		}
+
+		@Override
+		public boolean isNextBoolean() {
+			int c = peekValue();
+			return c == 't' || c == 'f';
+		}
+
+		@Override
+		public boolean isNextNumber() {
+			int c = peekValue();
+			return c == '-' || (c >= '0' && c <= '9');
+		}
+
+		@Override
+		public boolean isNextString() {
+			return peekValue() == '"';
+		}
+
+		@Override
+		public boolean isNextNull() {
+			return peekValue() == 'n';
+		}
+
+		@Override
+		public boolean isNextObject() {
+			return peekValue() == '{';
+		}
+
+		@Override
+		public boolean isNextArray() {
+			return peekValue() == '[';
+		}
+
+		@Override
+		public void skip() {
+			beforeValue();
+			skipValue();
+		}
+
+		@Override
+		public SafelyCloseable mark() {
+			return JSONInputStream.this.mark();
+		}
+	}
+
+	protected class JSONRootInputStream extends JSONValueInputStream {
+		@Override
+		protected void beforeValue() throws JSONParseException {
+			closeChildren(null);
+		}
+
+		@Override
+		protected int peekValue() {
+			closeChildren(null);
+			return peek();
+		}
+
+		@Override
+		public void close() {
+			JSONInputStream.this.close();
+		}
+	}
+
+	protected class JSONArrayInputStream extends JSONValueInputStream implements JSONArrayInput {
+		protected static final int START = 0;
+		protected static final int AFTER_VALUE = 1;
+		protected static final int READY = 2;
+		protected static final int END = 3;
+
+		private int state = START;
+		private boolean closed = false;
+
+		/**
+		 * Move to before the next value (or the end)
+		 */
+		protected void position() {
+			closeChildren(this);
+			if (state == START)
+				state = isEmpty(']') ? END : READY;
+			else if (state == AFTER_VALUE)
+				state = nextElement(']') ? READY : END;
+		}
+
+		@Override
+		protected void beforeValue() throws JSONParseException {
+			position();
+			if (state == END)
+				throw error("No more elements in array");
+			state = AFTER_VALUE;
+		}
+
+		@Override
+		protected int peekValue() {
+			position();
+			return state == END ? -1 : peek();
+		}
+
+		@Override
+		public <T> T read(Class<? extends T> clazz) throws InvalidClassException, JSONParseException {
+			if (JSONExternalizable.class.isAssignableFrom(clazz)) {
+				try {
+					return JSONUtils.deserialize(clazz, this);
+				} catch (ClassNotFoundException e) {
+					throw new JSONParseException(e);
+				}
+			}
+			Object value = readValue();
+			if (value != null && !clazz.isInstance(value))
+				throw new InvalidClassException(clazz.getName(), "Cannot read " + value.getClass().getName());
+			return clazz.cast(value);
+		}
+
+		@Override
+		public boolean hasNext() {
+			position();
+			return state == READY;
+		}
+
+		@Override
+		public Object next() throws JSONParseException {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			return readValue();
+		}
+
+		@Override
+		public void close() {
+			if (closed)
+				return;
+			closed = true;
+			closeAbove(this);
+			while (hasNext())
+				skip();
+			doClose(this);
+		}
+	}
+
+	protected class JSONObjectInputStream extends JSONValueInputStream implements JSONObjectInput {
+		protected static final int START = 0;
+		protected static final int AFTER_VALUE = 1;
+		/**
+		 * Key has been read, but not its value
+		 */
+		protected static final int HAS_KEY = 2;
+		protected static final int END = 3;
+
+		private int state = START;
+		/**
+		 * Key read by {@link #hasNext()}
+		 */
+		private String pendingKey = null;
+		private boolean closed = false;
+
+		@Override
+		public String nextKey() throws JSONParseException {
+			if (pendingKey != null) {
+				String key = pendingKey;
+				pendingKey = null;
+				return key;
+			}
+			closeChildren(this);
+			if (state == HAS_KEY) {
+				// Value wasn't read
+				skipValue();
+				state = AFTER_VALUE;
+			}
+			if (state == START)
+				state = isEmpty('}') ? END : AFTER_VALUE;
+			else if (state == AFTER_VALUE)
+				state = nextElement('}') ? AFTER_VALUE : END;
+			if (state == END)
+				return null;
+			String key = parseString();
+			expect(':');
+			state = HAS_KEY;
+			return key;
+		}
+
+		@Override
+		protected void beforeValue() throws JSONParseException {
+			closeChildren(this);
+			if (state != HAS_KEY)
+				throw error("No key read for value");
+			pendingKey = null;
+			state = AFTER_VALUE;
+		}
+
+		@Override
+		protected int peekValue() {
+			closeChildren(this);
+			return state == HAS_KEY ? peek() : -1;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (pendingKey == null)
+				pendingKey = nextKey();
+			return pendingKey != null;
+		}
+
+		@Override
+		public Map.Entry<String, Object> next() throws JSONParseException {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			String key = nextKey();
+			return new AbstractMap.SimpleImmutableEntry<>(key, readValue());
+		}
+
+		@Override
+		public boolean readAll() {
+			boolean skipped = pendingKey != null || state == HAS_KEY;
+			pendingKey = null;
+			while (nextKey() != null)
+				skipped = true;
+			return skipped;
+		}
+
+		@Override
+		public void close() {
+			if (closed)
+				return;
+			closed = true;
+			closeAbove(this);
+			readAll();
+			doClose(this);
+		}
+	}
+}
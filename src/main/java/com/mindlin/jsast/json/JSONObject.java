@@ -105,7 +105,8 @@ public class JSONObject implements ConcurrentMap<String, Object>, JSONExternaliz
 	@Override
 	public void readJSON(JSONInput in) {
 		try (JSONObjectInput objIn = in.readObject()) {
-			throw new UnsupportedOperationException();
+			for (String key; (key = objIn.nextKey()) != null;)
+				put(key, objIn.readValue());
 		}
 	}
 
@@ -116,5 +117,13 @@ public class JSONObject implements ConcurrentMap<String, Object>, JSONExternaliz
 		}
 	}
 
-	
+	@Override
+	public int hashCode() {
+		return backingMap.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o == this || backingMap.equals(o);
+	}
 }
@@ -77,10 +77,10 @@ public class JSONOutputStream implements JSONOutput {
 			out.write(config.indentChar);
 	}
 	
-	void writeStringEscaped(char[] chars) {
+	void writeStringEscaped(CharSequence chars) {
 		try {
 			out.write('"');
-			out.write(JSONUtils.escape(chars));
+			JSONUtils.escape(chars, out);
 			out.write('"');
 		} catch (IOException e) {
 			throw new JSONSerializationException(e);
@@ -152,9 +152,10 @@ public class JSONOutputStream implements JSONOutput {
 
 		private void writeKey(String key) {
 			writeSeparator();
-			String escaped = JSONUtils.escapeKeyIfNeeded(key.toCharArray(), config.forceQuoteKeys);
 			try {
-				out.write(escaped);
+				out.write('"');
+				JSONUtils.escape(key, out);
+				out.write('"');
 				out.write(':');
 				if (config.pretty)
 					out.write(' ');
@@ -178,7 +179,7 @@ public class JSONOutputStream implements JSONOutput {
 		@Override
 		public void writeChar(String key, char value) {
 			writeKey(key);
-			writeStringEscaped(new char[]{value});
+			writeStringEscaped(String.valueOf(value));
 		}
 
 		@Override
@@ -214,7 +215,13 @@ public class JSONOutputStream implements JSONOutput {
 		@Override
 		public void writeString(String key, String value) {
 			writeKey(key);
-			writeStringEscaped(value.toCharArray());
+			writeStringEscaped(value);
+		}
+
+		@Override
+		public void writeNull(String key) {
+			writeKey(key);
+			writeSafe("null");
 		}
 
 		@Override
@@ -229,6 +236,18 @@ public class JSONOutputStream implements JSONOutput {
 				writeObject(key, entries.get(key));
 		}
 
+		@Override
+		public JSONObjectOutputStream makeObject(String key) {
+			writeKey(key);
+			return JSONOutputStream.this.makeObject();
+		}
+
+		@Override
+		public JSONArrayOutputStream makeArray(String key) {
+			writeKey(key);
+			return JSONOutputStream.this.makeArray();
+		}
+
 		@Override
 		public void writeUnescaped(String data) {
 			JSONOutputStream.this.writeUnescaped(data);
@@ -293,7 +312,7 @@ public class JSONOutputStream implements JSONOutput {
 		@Override
 		public void writeChar(char value) {
 			writeSeparator();
-			writeStringEscaped(new char[]{value});
+			writeStringEscaped(String.valueOf(value));
 		}
 
 		@Override
@@ -329,7 +348,13 @@ public class JSONOutputStream implements JSONOutput {
 		@Override
 		public void writeString(String value) {
 			writeSeparator();
-			writeStringEscaped(value.toCharArray());
+			writeStringEscaped(value);
+		}
+
+		@Override
+		public void writeNull() {
+			writeSeparator();
+			writeSafe("null");
 		}
 
 		@Override
@@ -344,6 +369,18 @@ public class JSONOutputStream implements JSONOutput {
 				writeObject(value);
 		}
 
+		@Override
+		public JSONObjectOutputStream makeObject() {
+			writeSeparator();
+			return JSONOutputStream.this.makeObject();
+		}
+
+		@Override
+		public JSONArrayOutputStream makeArray() {
+			writeSeparator();
+			return JSONOutputStream.this.makeArray();
+		}
+
 		@Override
 		public void writeUnescaped(String text) {
 			JSONOutputStream.this.writeUnescaped(text);
@@ -3,6 +3,7 @@ package com.mindlin.jsast.json;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.lang.reflect.Field;
 import java.util.Collection;
 import java.util.Map;
@@ -18,6 +19,8 @@ import com.mindlin.jsast.json.api.JSONSerializationException;
 import com.mindlin.jsast.json.api.SafelyCloseable;
 
 public class JSONUtils {
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
 	static String escapeKeyIfNeeded(char[] chars, boolean force) {
 		return '"' + escape(chars) + '"';
 	}
@@ -61,6 +64,61 @@ public class JSONUtils {
 		return sb.toString();
 	}
 
+	/**
+	 * Escape string for JSON, writing it straight to {@code out}. Runs of characters that don't need escaping are
+	 * written in one call.
+	 * @param chars
+	 * @param out
+	 * @throws IOException
+	 */
+	static void escape(CharSequence chars, Writer out) throws IOException {
+		final int l = chars.length();
+		int runStart = 0;
+		for (int i = 0; i < l; i++) {
+			char c = chars.charAt(i);
+			char escaped;
+			switch (c) {
+				case '\r':
+					escaped = 'r';
+					break;
+				case '\n':
+					escaped = 'n';
+					break;
+				case '\b':
+					escaped = 'b';
+					break;
+				case '\f':
+					escaped = 'f';
+					break;
+				case '\t':
+					escaped = 't';
+					break;
+				case '\\':
+				case '/':
+				case '"':
+					escaped = c;
+					break;
+				default:
+					if (c >= 0x20)
+						continue;
+					escaped = 'u';
+			}
+			if (runStart < i)
+				out.append(chars, runStart, i);
+			runStart = i + 1;
+			out.write('\\');
+			out.write(escaped);
+			if (escaped == 'u') {
+				// Other control characters
+				out.write("00");
+				out.write(HEX[c >> 4]);
+				out.write(HEX[c & 0xF]);
+			}
+		}
+		if (runStart < l)
+			out.append(chars, runStart, l);
+	}
+
 	static String unescapedString(Reader in, char start) throws IOException {
 		StringBuilder sb = new StringBuilder();
 		boolean escaped = false;
@@ -21,10 +21,24 @@ public interface JSONArrayOutput extends SafelyCloseable {
 
 	void writeString(String value);
 
+	void writeNull();
+
 	void writeObject(Object value);
 	
 	void write(Collection<?> values);
 
+	/**
+	 * Start a nested object. It must be closed before anything else is written to this array.
+	 * @return nested object
+	 */
+	JSONObjectOutput makeObject();
+
+	/**
+	 * Start a nested array. It must be closed before anything else is written to this array.
+	 * @return nested array
+	 */
+	JSONArrayOutput makeArray();
+
 	void writeUnescaped(String data);
 
 	void flush();
@@ -1,9 +1,5 @@
 package com.mindlin.jsast.json.api;
 
-public interface JSONInput extends SafelyCloseable {
-	JSONObjectInput readObject();
-
-	JSONArrayInput readArray();
-
+public interface JSONInput extends SafelyCloseable, JSONValueInput {
 	SafelyCloseable mark();
 }
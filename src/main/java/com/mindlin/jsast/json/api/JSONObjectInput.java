@@ -3,6 +3,21 @@ package com.mindlin.jsast.json.api;
 import java.util.Iterator;
 import java.util.Map;
 
-public interface JSONObjectInput extends SafelyCloseable, Iterator<Map.Entry<String, ? extends Object>> {
+/**
+ * Streams the entries of an object. Either iterate over the entries, or call {@link #nextKey()} and then read its
+ * value with any of the {@link JSONValueInput} methods. Values that aren't read are skipped.
+ */
+public interface JSONObjectInput extends JSONInput, Iterator<Map.Entry<String, ? extends Object>> {
+	/**
+	 * Read the key of the next entry.
+	 * @return key, or {@code null} if there are no more entries
+	 * @throws JSONParseException
+	 */
+	String nextKey() throws JSONParseException;
+
+	/**
+	 * Skip all remaining entries
+	 * @return If any entries were skipped
+	 */
 	boolean readAll();
 }
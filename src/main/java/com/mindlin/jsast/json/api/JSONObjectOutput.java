@@ -21,10 +21,26 @@ public interface JSONObjectOutput extends SafelyCloseable {
 
 	void writeString(String key, String value);
 
+	void writeNull(String key);
+
 	void writeObject(String key, Object value);
 
 	void write(Map<String, ? extends Object> entries);
 
+	/**
+	 * Start a nested object. It must be closed before anything else is written to this object.
+	 * @param key
+	 * @return nested object
+	 */
+	JSONObjectOutput makeObject(String key);
+
+	/**
+	 * Start a nested array. It must be closed before anything else is written to this object.
+	 * @param key
+	 * @return nested array
+	 */
+	JSONArrayOutput makeArray(String key);
+
 	void writeUnescaped(String data);
 
 	void flush();
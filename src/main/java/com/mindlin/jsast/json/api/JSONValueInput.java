@@ -0,0 +1,133 @@
+package com.mindlin.jsast.json.api;
+
+/**
+ * Reads JSON values, one at a time.
+ * <p>
+ * Objects and arrays can either be streamed ({@link #readObject()}/{@link #readArray()}), or read all at once
+ * ({@link #readValue()}). A streamed object or array must be closed (or abandoned) before the next value is read;
+ * any of it that wasn't read is skipped.
+ * </p>
+ */
+public interface JSONValueInput {
+	boolean readBoolean() throws JSONParseException;
+
+	default byte readByte() throws JSONParseException {
+		return (byte) readInt();
+	}
+
+	default char readChar() throws JSONParseException {
+		String s = readString();
+		if (s.length() != 1)
+			throw new JSONParseException("Cannot read \"" + s + "\" as char");
+		return s.charAt(0);
+	}
+
+	default short readShort() throws JSONParseException {
+		int v = readInt();
+		short s = (short) v;
+		if (s != v)
+			throw new JSONParseException("Cannot read " + v + " as short");
+		return s;
+	}
+
+	default int readInt() throws JSONParseException {
+		long v = readLong();
+		int i = (int) v;
+		if (i != v)
+			throw new JSONParseException("Cannot read " + v + " as int");
+		return i;
+	}
+
+	default float readFloat() throws JSONParseException {
+		double v = readDouble();
+		float f = (float) v;
+		if (f != v)
+			throw new JSONParseException("Cannot read " + v + " as float");
+		return f;
+	}
+
+	long readLong() throws JSONParseException;
+
+	double readDouble() throws JSONParseException;
+
+	Number readNumber() throws JSONParseException;
+
+	String readString() throws JSONParseException;
+
+	Void readNull() throws JSONParseException;
+
+	/**
+	 * Start streaming an object
+	 * @return object input
+	 * @throws JSONParseException If the next value isn't an object
+	 */
+	JSONObjectInput readObject() throws JSONParseException;
+
+	/**
+	 * Start streaming an array
+	 * @return array input
+	 * @throws JSONParseException If the next value isn't an array
+	 */
+	JSONArrayInput readArray() throws JSONParseException;
+
+	/**
+	 * Read the next value. Objects and arrays are read as {@link com.mindlin.jsast.json.JSONObject JSONObjects} and
+	 * {@link com.mindlin.jsast.json.JSONArray JSONArrays}.
+	 * @return value
+	 * @throws JSONParseException
+	 */
+	Object readValue() throws JSONParseException;
+
+	boolean isNextBoolean();
+
+	/**
+	 * Doesn't check if the value is in range.
+	 * @return If next value is a number
+	 */
+	default boolean isNextByte() {
+		return isNextNumber();
+	}
+
+	default boolean isNextChar() {
+		return isNextString();
+	}
+
+	/**
+	 * Doesn't check if the value is in range.
+	 * @return If next value is a number
+	 */
+	default boolean isNextShort() {
+		return isNextNumber();
+	}
+
+	/**
+	 * Doesn't check if the value is in range.
+	 * @return If next value is a number
+	 */
+	default boolean isNextInt() {
+		return isNextNumber();
+	}
+
+	default boolean isNextFloat() {
+		return isNextNumber();
+	}
+
+	default boolean isNextDouble() {
+		return isNextNumber();
+	}
+
+	boolean isNextNumber();
+
+	boolean isNextString();
+
+	boolean isNextNull();
+
+	boolean isNextObject();
+
+	boolean isNextArray();
+
+	/**
+	 * Skip the next value, without decoding it
+	 */
+	void skip();
+}
@@ -6,6 +6,8 @@ import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import com.mindlin.jsast.tree.CompilationUnitTree;
+import com.mindlin.jsast.tree.StatementTree;
+import com.mindlin.jsast.tree.Tree;
 
 public class TransformerSeries implements Function<CompilationUnitTree, CompilationUnitTree> {
 	protected final List<ASTTransformer<?>> transformers;
@@ -19,20 +21,43 @@ public class TransformerSeries implements Function<CompilationUnitTree, Compilat
 
 	@Override
 	public CompilationUnitTree apply(CompilationUnitTree ast) {
-		CompilationUnitTree ast0 = ast;
+		return this.transform(ast, CompilationUnitTree.class);
+	}
+	
+	/**
+	 * Transform a single top-level statement (e.g., when streaming). Only valid for transformations that don't need
+	 * to see the rest of the unit.
+	 * @param statement
+	 * @return Transformed statement (may be null if it was removed)
+	 */
+	public StatementTree transformStatement(StatementTree statement) {
+		return this.transform(statement, StatementTree.class);
+	}
+	
+	/**
+	 * Run all transformations until the result stops changing.
+	 * @param tree
+	 * @param type Type that the result must be
+	 * @return Transformed tree (may be null if it was removed)
+	 * @throws IllegalStateException If a transformation turned {@code tree} into something that isn't a {@code type}
+	 */
+	protected <T extends Tree> T transform(T tree, Class<T> type) throws IllegalStateException {
+		T tree0 = tree;
 		//TODO cache intermediate forms, to (hopefully) get us out of unstable results.
-		int n = 0;
-		while (true) {
-			CompilationUnitTree ast1 = ast0;
-			for (ASTTransformer<?> transformer : transformers)
-				ast1 = (CompilationUnitTree) ast1.accept(transformer, null);
-			n++;
-			if (ast1 == ast0 || ast0.hashCode() == ast1.hashCode() && (ast1.equivalentTo(ast0) || ast0.equivalentTo(ast1))) {
-				System.out.format("%d compiler passes.\n", n);
-				return ast0;
+		while (tree0 != null) {
+			Tree tree1 = tree0;
+			for (ASTTransformer<?> transformer : transformers) {
+				tree1 = tree1.accept(transformer, null);
+				if (tree1 == null)
+					return null;
 			}
-			ast0 = ast1;
+			if (!type.isInstance(tree1))
+				throw new IllegalStateException("Transformation of " + tree0.getKind() + " produced " + tree1.getKind() + ", which isn't a " + type.getSimpleName());
+			if (tree1 == tree0 || tree0.hashCode() == tree1.hashCode() && (tree1.equivalentTo(tree0) || tree0.equivalentTo(tree1)))
+				return tree0;
+			tree0 = type.cast(tree1);
 		}
+		return null;
 	}
 	
 }
@@ -388,6 +388,28 @@ public interface Tree {
 	default SourcePosition getEnd() {
 		return this.getRange().getEnd();
 	}
+	
+	/**
+	 * Get the offset of the first character of this tree. Unlike {@link #getStart()}, this
+	 * shouldn't need to compute line/column information.
+	 * 
+	 * @return start offset, else -1 if not available
+	 */
+	default long getStartOffset() {
+		SourcePosition start = this.getStart();
+		return start == null ? -1 : start.getOffset();
+	}
+	
+	/**
+	 * Get the offset of the last character of this tree.
+	 * 
+	 * @return end offset, else -1 if not available
+	 * @see #getStartOffset()
+	 */
+	default long getEndOffset() {
+		SourcePosition end = this.getEnd();
+		return end == null ? -1 : end.getOffset();
+	}
 
 	<R, D> R accept(TreeVisitor<R, D> visitor, D data);
 	
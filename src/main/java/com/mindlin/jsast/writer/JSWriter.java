@@ -7,4 +7,15 @@ import com.mindlin.jsast.tree.CompilationUnitTree;
 
 public interface JSWriter {
 	void write(CompilationUnitTree src, Writer out) throws IOException;
+	
+	/**
+	 * Write code, recording mappings back to the source of {@code src} into {@code sourceMap}.
+	 * @param src Tree to write
+	 * @param out Output
+	 * @param sourceMap Map to add mappings to
+	 * @throws IOException
+	 */
+	default void write(CompilationUnitTree src, Writer out, SourceMap sourceMap) throws IOException {
+		throw new UnsupportedOperationException("Source maps not supported by " + this.getClass().getSimpleName());
+	}
 }
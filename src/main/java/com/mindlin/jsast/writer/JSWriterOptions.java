@@ -33,4 +33,40 @@ public class JSWriterOptions implements Cloneable {
 	 * Whether to write comments that are attached to the AST
 	 */
 	public boolean writeComments = true;
+	
+	/**
+	 * Whether to render top-level statements in parallel, if there are at least {@link #parallelThreshold} of them
+	 */
+	public boolean parallel = false;
+	
+	/**
+	 * Minimum number of top-level statements to render in parallel
+	 */
+	public int parallelThreshold = 256;
+	
+	/**
+	 * How to reference the source map (if one is generated)
+	 */
+	public SourceMapStyle sourceMapStyle = SourceMapStyle.SEPARATE;
+	
+	/**
+	 * URL of the source map, for {@link SourceMapStyle#SEPARATE}. If null, no {@code sourceMappingURL} comment is
+	 * written.
+	 */
+	public String sourceMapURL = null;
+	
+	public static enum SourceMapStyle {
+		/**
+		 * Don't reference the source map from the output
+		 */
+		NONE,
+		/**
+		 * Reference a separate {@code .map} file at {@link JSWriterOptions#sourceMapURL}
+		 */
+		SEPARATE,
+		/**
+		 * Embed the source map into the output as a data URL
+		 */
+		INLINE,
+	}
 }
@@ -1,16 +1,508 @@
 package com.mindlin.jsast.writer;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
-import com.mindlin.nautilus.fs.SourceFile;
-import com.mindlin.nautilus.fs.SourcePosition;
+import com.mindlin.jsast.fs.sourcemap.Base64VLQ;
 
+/**
+ * Source map (v3) for generated code.
+ * <p>
+ * Mappings are stored as packed int segments (see {@code FIELD_*}), and encoded to VLQs in a single pass when the map
+ * is written. Lines & columns are 0-based, and columns are counted in UTF-16 code units.
+ * </p>
+ * @see <a href="https://sourcemaps.info/spec.html">Source Map Revision 3 Proposal</a>
+ */
 public class SourceMap {
-	Map<String, SourceFile> sources;
-	
-	public void addMapping(String sourceName, long srcPos, int dstLine, int dstCol, String name) {
-		SourceFile source = sources.get(sourceName);
-		SourcePosition src = source.getOffsetPosotion(srcPos);
+	protected static final int FIELD_GENERATED_LINE = 0;
+	protected static final int FIELD_GENERATED_COLUMN = 1;
+	protected static final int FIELD_SOURCE = 2;
+	protected static final int FIELD_SOURCE_LINE = 3;
+	protected static final int FIELD_SOURCE_COLUMN = 4;
+	protected static final int FIELD_NAME = 5;
+	protected static final int STRIDE = 6;
+
+	protected String file;
+	protected String sourceRoot;
+	protected final List<String> sources = new ArrayList<>();
+	protected final List<String> sourcesContent = new ArrayList<>();
+	protected final Map<String, Integer> sourceIds = new HashMap<>();
+	protected final List<String> names = new ArrayList<>();
+	protected final Map<String, Integer> nameIds = new HashMap<>();
+	protected int[] segments = new int[STRIDE * 64];
+	protected int size = 0;
+	/**
+	 * If segments were added in generated order
+	 */
+	protected boolean sorted = true;
+
+	public SourceMap() {
+	}
+
+	public SourceMap(String file) {
+		this.file = file;
+	}
+
+	public String getFile() {
+		return this.file;
+	}
+
+	public SourceMap setFile(String file) {
+		this.file = file;
+		return this;
+	}
+
+	public String getSourceRoot() {
+		return this.sourceRoot;
+	}
+
+	public SourceMap setSourceRoot(String sourceRoot) {
+		this.sourceRoot = sourceRoot;
+		return this;
+	}
+
+	/**
+	 * Get the index of a source, adding it if needed.
+	 * @param name Name of source file
+	 * @return Index of source
+	 */
+	public int addSource(String name) {
+		Integer id = this.sourceIds.get(name);
+		if (id != null)
+			return id;
+		id = this.sources.size();
+		this.sources.add(name);
+		this.sourcesContent.add(null);
+		this.sourceIds.put(name, id);
+		return id;
+	}
+
+	/**
+	 * Add a source, with its content embedded into the map
+	 * @param name Name of source file
+	 * @param content Text of source file
+	 * @return Index of source
+	 */
+	public int addSource(String name, String content) {
+		int id = this.addSource(name);
+		if (content != null)
+			this.sourcesContent.set(id, content);
+		return id;
+	}
+
+	/**
+	 * @param name Identifier name
+	 * @return Index of name
+	 */
+	public int addName(String name) {
+		Integer id = this.nameIds.get(name);
+		if (id != null)
+			return id;
+		id = this.names.size();
+		this.names.add(name);
+		this.nameIds.put(name, id);
+		return id;
+	}
+
+	public List<String> getSources() {
+		return Collections.unmodifiableList(this.sources);
+	}
+
+	public List<String> getNames() {
+		return Collections.unmodifiableList(this.names);
+	}
+
+	/**
+	 * Add a mapping from a generated position to a source position
+	 * @param genLine Generated line
+	 * @param genCol Generated column
+	 * @param source Index of source (or -1 for an unmapped segment)
+	 * @param srcLine Source line
+	 * @param srcCol Source column
+	 * @param name Index of name (or -1 if none)
+	 */
+	public void addMapping(int genLine, int genCol, int source, int srcLine, int srcCol, int name) {
+		if (genLine < 0 || genCol < 0)
+			throw new IllegalArgumentException("Illegal generated position " + genLine + ":" + genCol);
+		if (source >= this.sources.size() || name >= this.names.size())
+			throw new IllegalArgumentException("Unknown source or name index");
+		int base = this.size * STRIDE;
+		if (base + STRIDE > this.segments.length)
+			this.segments = Arrays.copyOf(this.segments, this.segments.length * 2);
+		if (this.size > 0 && this.compare(this.size - 1, genLine, genCol) > 0)
+			this.sorted = false;
+		int[] segments = this.segments;
+		segments[base + FIELD_GENERATED_LINE] = genLine;
+		segments[base + FIELD_GENERATED_COLUMN] = genCol;
+		segments[base + FIELD_SOURCE] = source < 0 ? -1 : source;
+		segments[base + FIELD_SOURCE_LINE] = srcLine;
+		segments[base + FIELD_SOURCE_COLUMN] = srcCol;
+		segments[base + FIELD_NAME] = source < 0 || name < 0 ? -1 : name;
+		this.size++;
+	}
+
+	public void addMapping(String sourceName, int genLine, int genCol, int srcLine, int srcCol, String name) {
+		this.addMapping(genLine, genCol, this.addSource(sourceName), srcLine, srcCol, name == null ? -1 : this.addName(name));
+	}
+
+	protected int compare(int segment, int genLine, int genCol) {
+		int base = segment * STRIDE;
+		int result = Integer.compare(this.segments[base + FIELD_GENERATED_LINE], genLine);
+		if (result != 0)
+			return result;
+		return Integer.compare(this.segments[base + FIELD_GENERATED_COLUMN], genCol);
+	}
+
+	/**
+	 * @return Number of segments
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	protected int get(int segment, int field) {
+		if (segment < 0 || segment >= this.size)
+			throw new IndexOutOfBoundsException("Segment " + segment + " (size: " + this.size + ")");
+		this.sort();
+		return this.segments[segment * STRIDE + field];
+	}
+
+	public int getGeneratedLine(int segment) {
+		return this.get(segment, FIELD_GENERATED_LINE);
+	}
+
+	public int getGeneratedColumn(int segment) {
+		return this.get(segment, FIELD_GENERATED_COLUMN);
+	}
+
+	/**
+	 * @return Index of source, or -1 if the segment is unmapped
+	 */
+	public int getSourceIndex(int segment) {
+		return this.get(segment, FIELD_SOURCE);
+	}
+
+	public int getSourceLine(int segment) {
+		return this.get(segment, FIELD_SOURCE_LINE);
+	}
+
+	public int getSourceColumn(int segment) {
+		return this.get(segment, FIELD_SOURCE_COLUMN);
+	}
+
+	/**
+	 * @return Index of name, or -1 if none
+	 */
+	public int getNameIndex(int segment) {
+		return this.get(segment, FIELD_NAME);
+	}
+
+	/**
+	 * Put segments in generated order (stable, so segments at the same position keep their order)
+	 */
+	protected void sort() {
+		if (this.sorted)
+			return;
+		Integer[] order = new Integer[this.size];
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
+		Arrays.sort(order, (a, b) -> this.compare(a, this.segments[b * STRIDE + FIELD_GENERATED_LINE], this.segments[b * STRIDE + FIELD_GENERATED_COLUMN]));
+		int[] result = new int[this.segments.length];
+		for (int i = 0; i < order.length; i++)
+			System.arraycopy(this.segments, order[i] * STRIDE, result, i * STRIDE, STRIDE);
+		this.segments = result;
+		this.sorted = true;
+	}
+
+	/**
+	 * Append the segments of another map (e.g., for a chunk of output that was generated separately), shifted by
+	 * where that output starts in this map's file.
+	 * @param other Map to copy segments from
+	 * @param lineOffset Line that the other map's output starts at
+	 * @param columnOffset Column that the other map's output starts at (only applies to its first line)
+	 */
+	public void append(SourceMap other, int lineOffset, int columnOffset) {
+		other.sort();
+		int[] sourceTable = new int[other.sources.size()];
+		for (int i = 0; i < sourceTable.length; i++)
+			sourceTable[i] = this.addSource(other.sources.get(i), other.sourcesContent.get(i));
+		int[] nameTable = new int[other.names.size()];
+		for (int i = 0; i < nameTable.length; i++)
+			nameTable[i] = this.addName(other.names.get(i));
+
+		int required = (this.size + other.size) * STRIDE;
+		if (required > this.segments.length)
+			this.segments = Arrays.copyOf(this.segments, Math.max(required, this.segments.length * 2));
+		final int[] src = other.segments;
+		final int[] dst = this.segments;
+		for (int i = 0; i < other.size; i++) {
+			int from = i * STRIDE;
+			int to = (this.size + i) * STRIDE;
+			int genLine = src[from + FIELD_GENERATED_LINE];
+			dst[to + FIELD_GENERATED_LINE] = genLine + lineOffset;
+			dst[to + FIELD_GENERATED_COLUMN] = src[from + FIELD_GENERATED_COLUMN] + (genLine == 0 ? columnOffset : 0);
+			int source = src[from + FIELD_SOURCE];
+			int name = src[from + FIELD_NAME];
+			dst[to + FIELD_SOURCE] = source < 0 ? -1 : sourceTable[source];
+			dst[to + FIELD_SOURCE_LINE] = src[from + FIELD_SOURCE_LINE];
+			dst[to + FIELD_SOURCE_COLUMN] = src[from + FIELD_SOURCE_COLUMN];
+			dst[to + FIELD_NAME] = name < 0 ? -1 : nameTable[name];
+		}
+		if (this.size > 0 && other.size > 0 && this.compare(this.size - 1, dst[this.size * STRIDE + FIELD_GENERATED_LINE], dst[this.size * STRIDE + FIELD_GENERATED_COLUMN]) > 0)
+			this.sorted = false;
+		this.size += other.size;
+	}
+
+	/**
+	 * Compose this map with the map of one of its sources (e.g., from an earlier transform, or an upstream tool), so
+	 * that segments point back to the original sources.
+	 * <p>
+	 * Segments for other sources are copied as-is. Segments for the upstream source that it doesn't map become
+	 * unmapped. Runs in linear time if the segments are mostly in source order (which they usually are).
+	 * </p>
+	 * @param upstream Map for one of the sources of this map. Its {@code file} is matched against this map's sources; if
+	 *            it has none, this map must have exactly one source.
+	 * @return composed map
+	 */
+	public SourceMap compose(SourceMapIndex upstream) {
+		final int target;
+		if (upstream.getFile() != null && this.sourceIds.containsKey(upstream.getFile()))
+			target = this.sourceIds.get(upstream.getFile());
+		else if (upstream.getFile() == null && this.sources.size() == 1)
+			target = 0;
+		else
+			throw new IllegalArgumentException("Source map for '" + upstream.getFile() + "' doesn't match any source of " + this.sources);
+		this.sort();
+
+		SourceMap result = new SourceMap(this.file);
+		result.sourceRoot = this.sourceRoot;
+		// Lookup tables from source/name indices of this & upstream to the result
+		int[] ownSources = new int[this.sources.size()];
+		int[] ownNames = new int[this.names.size()];
+		int[] upstreamSources = new int[upstream.getSources().size()];
+		int[] upstreamNames = new int[upstream.getNames().size()];
+		Arrays.fill(ownSources, -1);
+		Arrays.fill(ownNames, -1);
+		Arrays.fill(upstreamSources, -1);
+		Arrays.fill(upstreamNames, -1);
+
+		final int[] segments = this.segments;
+		int hint = -1;
+		for (int i = 0; i < this.size; i++) {
+			int base = i * STRIDE;
+			int genLine = segments[base + FIELD_GENERATED_LINE];
+			int genCol = segments[base + FIELD_GENERATED_COLUMN];
+			int source = segments[base + FIELD_SOURCE];
+			int name = segments[base + FIELD_NAME];
+			if (source < 0) {
+				result.addMapping(genLine, genCol, -1, 0, 0, -1);
+				continue;
+			}
+			if (source != target) {
+				if (ownSources[source] < 0)
+					ownSources[source] = result.addSource(this.sources.get(source), this.sourcesContent.get(source));
+				result.addMapping(genLine, genCol, ownSources[source], segments[base + FIELD_SOURCE_LINE], segments[base + FIELD_SOURCE_COLUMN], this.remapName(name, ownNames, result));
+				continue;
+			}
+
+			int found = upstream.find(segments[base + FIELD_SOURCE_LINE], segments[base + FIELD_SOURCE_COLUMN], hint);
+			int upstreamSource = found < 0 ? -1 : upstream.getSourceIndex(found);
+			if (upstreamSource < 0) {
+				result.addMapping(genLine, genCol, -1, 0, 0, -1);
+				continue;
+			}
+			hint = found;
+			if (upstreamSources[upstreamSource] < 0)
+				upstreamSources[upstreamSource] = result.addSource(upstream.getSources().get(upstreamSource), upstream.getSourcesContent().get(upstreamSource));
+			// Prefer the original name
+			int upstreamName = upstream.getNameIndex(found);
+			int resultName;
+			if (upstreamName >= 0) {
+				if (upstreamNames[upstreamName] < 0)
+					upstreamNames[upstreamName] = result.addName(upstream.getNames().get(upstreamName));
+				resultName = upstreamNames[upstreamName];
+			} else {
+				resultName = this.remapName(name, ownNames, result);
+			}
+			result.addMapping(genLine, genCol, upstreamSources[upstreamSource], upstream.getSourceLine(found), upstream.getSourceColumn(found), resultName);
+		}
+		return result;
+	}
+
+	protected int remapName(int name, int[] table, SourceMap result) {
+		if (name < 0)
+			return -1;
+		if (table[name] < 0)
+			table[name] = result.addName(this.names.get(name));
+		return table[name];
+	}
+
+	/**
+	 * Write the {@code mappings} field (without quotes)
+	 * @param out
+	 * @throws IOException
+	 */
+	public void writeMappings(Writer out) throws IOException {
+		this.sort();
+		final int[] segments = this.segments;
+		char[] buf = new char[4096];
+		int pos = 0;
+		int line = 0;
+		int prevGenCol = 0, prevSource = 0, prevSrcLine = 0, prevSrcCol = 0, prevName = 0;
+		for (int i = 0; i < this.size; i++) {
+			int base = i * STRIDE;
+			if (buf.length - pos < 5 * Base64VLQ.MAX_DIGITS + 1) {
+				out.write(buf, 0, pos);
+				pos = 0;
+			}
+			int genLine = segments[base + FIELD_GENERATED_LINE];
+			if (genLine != line) {
+				prevGenCol = 0;
+				while (line < genLine) {
+					if (pos == buf.length) {
+						out.write(buf, 0, pos);
+						pos = 0;
+					}
+					buf[pos++] = ';';
+					line++;
+				}
+				if (buf.length - pos < 5 * Base64VLQ.MAX_DIGITS + 1) {
+					out.write(buf, 0, pos);
+					pos = 0;
+				}
+			} else if (i > 0) {
+				buf[pos++] = ',';
+			}
+			int genCol = segments[base + FIELD_GENERATED_COLUMN];
+			pos = Base64VLQ.encode(genCol - prevGenCol, buf, pos);
+			prevGenCol = genCol;
+
+			int source = segments[base + FIELD_SOURCE];
+			if (source < 0)
+				continue;
+			pos = Base64VLQ.encode(source - prevSource, buf, pos);
+			prevSource = source;
+			int srcLine = segments[base + FIELD_SOURCE_LINE];
+			pos = Base64VLQ.encode(srcLine - prevSrcLine, buf, pos);
+			prevSrcLine = srcLine;
+			int srcCol = segments[base + FIELD_SOURCE_COLUMN];
+			pos = Base64VLQ.encode(srcCol - prevSrcCol, buf, pos);
+			prevSrcCol = srcCol;
+
+			int name = segments[base + FIELD_NAME];
+			if (name < 0)
+				continue;
+			pos = Base64VLQ.encode(name - prevName, buf, pos);
+			prevName = name;
+		}
+		out.write(buf, 0, pos);
+	}
+
+	protected static void writeString(String value, Writer out) throws IOException {
+		if (value == null) {
+			out.write("null");
+			return;
+		}
+		out.write('"');
+		for (int i = 0, l = value.length(); i < l; i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '"':
+				case '\\':
+					out.write('\\');
+					out.write(c);
+					break;
+				case '\n':
+					out.write("\\n");
+					break;
+				case '\r':
+					out.write("\\r");
+					break;
+				case '\t':
+					out.write("\\t");
+					break;
+				default:
+					if (c < 0x20 || c == '\u2028' || c == '\u2029')
+						out.write(String.format("\\u%04x", (int) c));
+					else
+						out.write(c);
+			}
+		}
+		out.write('"');
+	}
+
+	protected static void writeStrings(List<String> values, Writer out) throws IOException {
+		out.write('[');
+		boolean first = true;
+		for (String value : values) {
+			if (!first)
+				out.write(',');
+			first = false;
+			writeString(value, out);
+		}
+		out.write(']');
+	}
+
+	/**
+	 * Write this map as JSON
+	 * @param out
+	 * @throws IOException
+	 */
+	public void writeTo(Writer out) throws IOException {
+		out.write("{\"version\":3");
+		if (this.file != null) {
+			out.write(",\"file\":");
+			writeString(this.file, out);
+		}
+		if (this.sourceRoot != null) {
+			out.write(",\"sourceRoot\":");
+			writeString(this.sourceRoot, out);
+		}
+		out.write(",\"sources\":");
+		writeStrings(this.sources, out);
+		for (String content : this.sourcesContent) {
+			if (content != null) {
+				out.write(",\"sourcesContent\":");
+				writeStrings(this.sourcesContent, out);
+				break;
+			}
+		}
+		out.write(",\"names\":");
+		writeStrings(this.names, out);
+		out.write(",\"mappings\":\"");
+		this.writeMappings(out);
+		out.write("\"}");
+	}
+
+	public String toJSON() {
+		StringWriter out = new StringWriter();
+		try {
+			this.writeTo(out);
+		} catch (IOException e) {
+			// Shouldn't happen
+			throw new RuntimeException(e);
+		}
+		return out.toString();
+	}
+
+	/**
+	 * @return This map as a data URL (for inline source maps)
+	 */
+	public String toDataURL() {
+		return "data:application/json;charset=utf-8;base64," + Base64.getEncoder().encodeToString(this.toJSON().getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public String toString() {
+		return this.toJSON();
 	}
-	
 }
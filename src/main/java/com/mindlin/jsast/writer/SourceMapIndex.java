@@ -0,0 +1,401 @@
+package com.mindlin.jsast.writer;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.mindlin.jsast.fs.sourcemap.Base64VLQ;
+import com.mindlin.jsast.json.JSONInputStream;
+import com.mindlin.jsast.json.api.JSONArrayInput;
+import com.mindlin.jsast.json.api.JSONObjectInput;
+import com.mindlin.jsast.json.api.JSONParseException;
+import com.mindlin.jsast.json.api.JSONValueInput;
+
+/**
+ * Read-only, decoded source map, for looking up original positions.
+ * <p>
+ * Segments are stored in parallel primitive arrays, sorted by generated position, so lookups are a binary search
+ * over {@link #generated}.
+ * </p>
+ * @see SourceMap#compose(SourceMapIndex)
+ */
+public class SourceMapIndex {
+	protected final String file;
+	protected final List<String> sources;
+	/**
+	 * Content of each source (entries may be null)
+	 */
+	protected final List<String> sourcesContent;
+	protected final List<String> names;
+	/**
+	 * Generated position of each segment, packed as {@code (line << 32) | column}
+	 */
+	protected final long[] generated;
+	/**
+	 * Source index of each segment (or -1 if unmapped)
+	 */
+	protected final int[] sourceIndices;
+	protected final int[] sourceLines;
+	protected final int[] sourceColumns;
+	/**
+	 * Name index of each segment (or -1 if none)
+	 */
+	protected final int[] nameIndices;
+	protected final int size;
+
+	protected static long pack(int line, int column) {
+		return (((long) line) << 32) | (column & 0xFFFFFFFFL);
+	}
+
+	protected SourceMapIndex(String file, List<String> sources, List<String> sourcesContent, List<String> names, long[] generated, int[] sourceIndices, int[] sourceLines, int[] sourceColumns, int[] nameIndices, int size) {
+		this.file = file;
+		this.sources = Collections.unmodifiableList(new ArrayList<>(sources));
+		List<String> content = new ArrayList<>(sources.size());
+		for (int i = 0; i < sources.size(); i++)
+			content.add(sourcesContent != null && i < sourcesContent.size() ? sourcesContent.get(i) : null);
+		this.sourcesContent = Collections.unmodifiableList(content);
+		this.names = Collections.unmodifiableList(new ArrayList<>(names));
+		this.generated = generated;
+		this.sourceIndices = sourceIndices;
+		this.sourceLines = sourceLines;
+		this.sourceColumns = sourceColumns;
+		this.nameIndices = nameIndices;
+		this.size = size;
+	}
+
+	/**
+	 * Index a source map that we generated
+	 * @param map
+	 * @return index
+	 */
+	public static SourceMapIndex of(SourceMap map) {
+		int size = map.size();
+		long[] generated = new long[size];
+		int[] sourceIndices = new int[size];
+		int[] sourceLines = new int[size];
+		int[] sourceColumns = new int[size];
+		int[] nameIndices = new int[size];
+		// Segments are sorted by the first getter
+		for (int i = 0; i < size; i++) {
+			generated[i] = pack(map.getGeneratedLine(i), map.getGeneratedColumn(i));
+			sourceIndices[i] = map.getSourceIndex(i);
+			sourceLines[i] = map.getSourceLine(i);
+			sourceColumns[i] = map.getSourceColumn(i);
+			nameIndices[i] = map.getNameIndex(i);
+		}
+		return new SourceMapIndex(map.getFile(), map.getSources(), map.sourcesContent, map.getNames(), generated, sourceIndices, sourceLines, sourceColumns, nameIndices, size);
+	}
+
+	/**
+	 * Decode a {@code mappings} string
+	 * @param file Generated file (optional)
+	 * @param sources Source names
+	 * @param sourcesContent Source text (optional)
+	 * @param names Identifier names
+	 * @param mappings Encoded mappings
+	 * @return index
+	 * @throws IllegalArgumentException If the mappings are malformed
+	 */
+	public static SourceMapIndex decode(String file, List<String> sources, List<String> sourcesContent, List<String> names, CharSequence mappings) {
+		// Most segments are at least 4 chars + separator
+		int capacity = Math.max(16, mappings.length() / 5);
+		long[] generated = new long[capacity];
+		int[] sourceIndices = new int[capacity];
+		int[] sourceLines = new int[capacity];
+		int[] sourceColumns = new int[capacity];
+		int[] nameIndices = new int[capacity];
+		int size = 0;
+		boolean sorted = true;
+
+		int line = 0, genCol = 0, source = 0, srcLine = 0, srcCol = 0, name = 0;
+		int[] pos = { 0 };
+		final int length = mappings.length();
+		while (pos[0] < length) {
+			char c = mappings.charAt(pos[0]);
+			if (c == ';') {
+				line++;
+				genCol = 0;
+				pos[0]++;
+				continue;
+			} else if (c == ',') {
+				pos[0]++;
+				continue;
+			}
+			if (size == generated.length) {
+				capacity = size * 2;
+				generated = Arrays.copyOf(generated, capacity);
+				sourceIndices = Arrays.copyOf(sourceIndices, capacity);
+				sourceLines = Arrays.copyOf(sourceLines, capacity);
+				sourceColumns = Arrays.copyOf(sourceColumns, capacity);
+				nameIndices = Arrays.copyOf(nameIndices, capacity);
+			}
+			genCol += Base64VLQ.decode(mappings, pos);
+			generated[size] = pack(line, genCol);
+			if (size > 0 && generated[size - 1] > generated[size])
+				sorted = false;
+			sourceIndices[size] = -1;
+			nameIndices[size] = -1;
+			if (pos[0] < length && !isSeparator(mappings.charAt(pos[0]))) {
+				source += Base64VLQ.decode(mappings, pos);
+				srcLine += Base64VLQ.decode(mappings, pos);
+				srcCol += Base64VLQ.decode(mappings, pos);
+				if (source < 0 || source >= sources.size())
+					throw new IllegalArgumentException("Illegal source index " + source + " at " + pos[0]);
+				sourceIndices[size] = source;
+				sourceLines[size] = srcLine;
+				sourceColumns[size] = srcCol;
+				if (pos[0] < length && !isSeparator(mappings.charAt(pos[0]))) {
+					name += Base64VLQ.decode(mappings, pos);
+					if (name < 0 || name >= names.size())
+						throw new IllegalArgumentException("Illegal name index " + name + " at " + pos[0]);
+					nameIndices[size] = name;
+				}
+				if (pos[0] < length && !isSeparator(mappings.charAt(pos[0])))
+					throw new IllegalArgumentException("Too many fields in segment at " + pos[0]);
+			}
+			size++;
+		}
+
+		SourceMapIndex result = new SourceMapIndex(file, sources, sourcesContent, names, generated, sourceIndices, sourceLines, sourceColumns, nameIndices, size);
+		if (!sorted)
+			result = result.sorted();
+		return result;
+	}
+
+	protected static boolean isSeparator(char c) {
+		return c == ',' || c == ';';
+	}
+
+	/**
+	 * Parse a source map (v3) from JSON
+	 * @param json
+	 * @return index
+	 */
+	public static SourceMapIndex parse(String json) {
+		try (JSONInputStream in = new JSONInputStream(json)) {
+			return parse(in);
+		}
+	}
+
+	public static SourceMapIndex parse(Reader json) {
+		try (JSONInputStream in = new JSONInputStream(json)) {
+			return parse(in);
+		}
+	}
+
+	protected static SourceMapIndex parse(JSONInputStream in) {
+		String file = null;
+		String sourceRoot = null;
+		List<String> sources = Collections.emptyList();
+		List<String> sourcesContent = null;
+		List<String> names = Collections.emptyList();
+		String mappings = null;
+		try (JSONObjectInput obj = in.readObject()) {
+			String key;
+			while ((key = obj.nextKey()) != null) {
+				switch (key) {
+					case "version":
+						if (obj.readInt() != 3)
+							throw new JSONParseException("Unsupported source map version");
+						break;
+					case "file":
+						file = readNullableString(obj);
+						break;
+					case "sourceRoot":
+						sourceRoot = readNullableString(obj);
+						break;
+					case "sources":
+						sources = readStrings(obj.readArray());
+						break;
+					case "sourcesContent":
+						sourcesContent = readStrings(obj.readArray());
+						break;
+					case "names":
+						names = readStrings(obj.readArray());
+						break;
+					case "mappings":
+						mappings = obj.readString();
+						break;
+					case "sections":
+						throw new UnsupportedOperationException("Indexed source maps are not supported");
+					default:
+						obj.skip();
+				}
+			}
+		}
+		if (mappings == null)
+			throw new JSONParseException("Missing mappings");
+		if (sourceRoot != null && !sourceRoot.isEmpty()) {
+			String prefix = sourceRoot.endsWith("/") ? sourceRoot : (sourceRoot + "/");
+			List<String> resolved = new ArrayList<>(sources.size());
+			for (String source : sources)
+				resolved.add(source == null ? null : (prefix + source));
+			sources = resolved;
+		}
+		return decode(file, sources, sourcesContent, names, mappings);
+	}
+
+	protected static String readNullableString(JSONValueInput in) {
+		if (!in.isNextNull())
+			return in.readString();
+		in.readNull();
+		return null;
+	}
+
+	protected static List<String> readStrings(JSONArrayInput arr) {
+		List<String> result = new ArrayList<>();
+		try (JSONArrayInput in = arr) {
+			while (in.hasNext())
+				result.add(readNullableString(in));
+		}
+		return result;
+	}
+
+	/**
+	 * @return Copy of this index, with segments in generated order
+	 */
+	protected SourceMapIndex sorted() {
+		Integer[] order = new Integer[this.size];
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
+		Arrays.sort(order, (a, b) -> Long.compare(this.generated[a], this.generated[b]));
+		long[] generated = new long[this.size];
+		int[] sourceIndices = new int[this.size];
+		int[] sourceLines = new int[this.size];
+		int[] sourceColumns = new int[this.size];
+		int[] nameIndices = new int[this.size];
+		for (int i = 0; i < this.size; i++) {
+			int j = order[i];
+			generated[i] = this.generated[j];
+			sourceIndices[i] = this.sourceIndices[j];
+			sourceLines[i] = this.sourceLines[j];
+			sourceColumns[i] = this.sourceColumns[j];
+			nameIndices[i] = this.nameIndices[j];
+		}
+		return new SourceMapIndex(this.file, this.sources, this.sourcesContent, this.names, generated, sourceIndices, sourceLines, sourceColumns, nameIndices, this.size);
+	}
+
+	public String getFile() {
+		return this.file;
+	}
+
+	public List<String> getSources() {
+		return this.sources;
+	}
+
+	/**
+	 * @return Content of each source (entries are null if not embedded)
+	 */
+	public List<String> getSourcesContent() {
+		return this.sourcesContent;
+	}
+
+	public List<String> getNames() {
+		return this.names;
+	}
+
+	/**
+	 * @return Number of segments
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Find the segment that a generated position falls in
+	 * @param line Generated line
+	 * @param column Generated column
+	 * @return Index of the last segment on {@code line} that starts at or before {@code column}, or -1 if none
+	 */
+	public int find(int line, int column) {
+		return this.find(line, column, -1);
+	}
+
+	/**
+	 * Find the segment that a generated position falls in, searching forwards from a previous result first. If
+	 * lookups are mostly in generated order, this is amortized constant time.
+	 * @param line Generated line
+	 * @param column Generated column
+	 * @param hint Result of a previous lookup (or -1)
+	 * @return Index of segment, or -1 if none
+	 * @see #find(int, int)
+	 */
+	public int find(int line, int column, int hint) {
+		final long key = pack(line, column);
+		final long[] generated = this.generated;
+		int lo, hi;
+		if (hint >= 0 && hint < this.size && generated[hint] <= key) {
+			// Gallop forwards from hint
+			lo = hint;
+			int step = 1;
+			while (lo + step < this.size && generated[lo + step] <= key) {
+				lo += step;
+				step <<= 1;
+			}
+			hi = Math.min(lo + step, this.size) - 1;
+		} else {
+			lo = 0;
+			hi = this.size - 1;
+		}
+		// Find last segment <= key in [lo, hi]
+		int result = -1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			if (generated[mid] <= key) {
+				result = mid;
+				lo = mid + 1;
+			} else {
+				hi = mid - 1;
+			}
+		}
+		if (result < 0 || (int) (generated[result] >>> 32) != line)
+			return -1;
+		return result;
+	}
+
+	public int getGeneratedLine(int segment) {
+		return (int) (this.generated[this.check(segment)] >>> 32);
+	}
+
+	public int getGeneratedColumn(int segment) {
+		return (int) this.generated[this.check(segment)];
+	}
+
+	/**
+	 * @return Index of source, or -1 if the segment is unmapped
+	 */
+	public int getSourceIndex(int segment) {
+		return this.sourceIndices[this.check(segment)];
+	}
+
+	/**
+	 * @return Name of source, or null if the segment is unmapped
+	 */
+	public String getSourceName(int segment) {
+		int source = this.getSourceIndex(segment);
+		return source < 0 ? null : this.sources.get(source);
+	}
+
+	public int getSourceLine(int segment) {
+		return this.sourceLines[this.check(segment)];
+	}
+
+	public int getSourceColumn(int segment) {
+		return this.sourceColumns[this.check(segment)];
+	}
+
+	/**
+	 * @return Index of name, or -1 if none
+	 */
+	public int getNameIndex(int segment) {
+		return this.nameIndices[this.check(segment)];
+	}
+
+	protected int check(int segment) {
+		if (segment < 0 || segment >= this.size)
+			throw new IndexOutOfBoundsException("Segment " + segment + " (size: " + this.size + ")");
+		return segment;
+	}
+}
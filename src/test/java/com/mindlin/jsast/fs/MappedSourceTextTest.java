@@ -0,0 +1,56 @@
+package com.mindlin.jsast.fs;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+public class MappedSourceTextTest {
+	
+	protected static MappedSourceText readTemp(String text, Charset charset) throws IOException {
+		Path file = Files.createTempFile("mapped", ".js");
+		try {
+			Files.write(file, text.getBytes(charset));
+			return MappedSourceText.read(file, charset, null);
+		} finally {
+			Files.delete(file);
+		}
+	}
+	
+	@Test
+	public void testReadAscii() throws IOException {
+		String text = "var x = 1;\r\nfunction f() {\n\treturn x;\n}\n";
+		MappedSourceText result = readTemp(text, StandardCharsets.UTF_8);
+		assertArrayEquals(text.toCharArray(), result.getChars());
+		assertEquals(1, result.getLines().getLineNumber(text.indexOf("function")));
+		assertEquals(3, result.getLines().getLineNumber(text.lastIndexOf('}')));
+	}
+	
+	@Test
+	public void testReadUtf8() throws IOException {
+		String text = "var é = '世界';\nvar 😀 = 2;\u2028var x;\n";
+		MappedSourceText result = readTemp(text, StandardCharsets.UTF_8);
+		assertArrayEquals(text.toCharArray(), result.getChars());
+		assertEquals(1, result.getLines().getLineNumber(text.indexOf("var 😀")));
+		assertEquals(text.indexOf('\n'), result.getLines().getLineOffset(1));
+		assertEquals(2, result.getLines().getLineNumber(text.lastIndexOf("var")));
+	}
+	
+	@Test
+	public void testReadUtf16() throws IOException {
+		String text = "var x = 'abc';\nx;";
+		MappedSourceText result = readTemp(text, StandardCharsets.UTF_16LE);
+		assertArrayEquals(text.toCharArray(), result.getChars());
+	}
+	
+	@Test
+	public void testReadEmpty() throws IOException {
+		assertEquals(0, readTemp("", StandardCharsets.UTF_8).length());
+	}
+}
@@ -0,0 +1,91 @@
+package com.mindlin.jsast.fs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import com.mindlin.jsast.impl.parser.JSDialect;
+import com.mindlin.jsast.impl.parser.JSDialect.JSStandardDialect;
+import com.mindlin.jsast.impl.parser.JSFeatureSet;
+import com.mindlin.jsast.impl.parser.JSParser;
+import com.mindlin.jsast.tree.CompilationUnitTree;
+
+public class TreeCacheTest {
+	protected static final String SOURCE = "var x = 1;\nfunction f(y) {\n\treturn x + y;\n}\n";
+	
+	protected static void deleteAll(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Path file : (Iterable<Path>) files::iterator)
+				Files.delete(file);
+		}
+		Files.delete(directory);
+	}
+	
+	@Test
+	public void testKey() {
+		TreeCache cache = new TreeCache(Paths.get("unused"), JSStandardDialect.EVERYTHING);
+		assertEquals(cache.key(SOURCE), cache.key(SOURCE.toCharArray(), 0, SOURCE.length()));
+		assertEquals(64, cache.key(SOURCE).length());
+		assertNotEquals(cache.key(SOURCE), cache.key(SOURCE + " "));
+		// Different dialects get different keys
+		assertNotEquals(cache.key(SOURCE), new TreeCache(cache.getDirectory(), JSStandardDialect.ES5).key(SOURCE));
+		// Same features get the same key
+		JSDialect custom = new JSDialect() {
+			@Override
+			public boolean supports(String feature) {
+				return JSStandardDialect.ES5.supports(feature);
+			}
+			
+			@Override
+			public JSFeatureSet getFeatures() {
+				return JSStandardDialect.ES5.getFeatures();
+			}
+		};
+		assertEquals(new TreeCache(cache.getDirectory(), JSStandardDialect.ES5).key(SOURCE), new TreeCache(cache.getDirectory(), custom).key(SOURCE));
+	}
+	
+	@Test
+	public void testStoreLoad() throws IOException {
+		Path directory = Files.createTempDirectory("treecache");
+		try {
+			TreeCache cache = new TreeCache(directory, JSStandardDialect.EVERYTHING);
+			String key = cache.key(SOURCE);
+			assertNull(cache.load(key, null));
+			
+			CompilationUnitTree tree = new JSParser().apply(null, SOURCE);
+			assertTrue(cache.store(key, tree));
+			
+			CompilationUnitTree loaded = cache.load(key, null);
+			assertNotNull(loaded);
+			assertEquals(tree.getSourceElements().size(), loaded.getSourceElements().size());
+			assertEquals(tree.getEndOffset(), loaded.getEndOffset());
+			assertEquals(tree.getSourceElements().get(1).getKind(), loaded.getSourceElements().get(1).getKind());
+		} finally {
+			deleteAll(directory);
+		}
+	}
+	
+	@Test
+	public void testCorruptEntry() throws IOException {
+		Path directory = Files.createTempDirectory("treecache");
+		try {
+			TreeCache cache = new TreeCache(directory, JSStandardDialect.EVERYTHING);
+			String key = cache.key(SOURCE);
+			assertTrue(cache.store(key, new JSParser().apply(null, SOURCE)));
+			Files.write(cache.pathFor(key), new byte[] { 1, 2, 3 });
+			assertNull(cache.load(key, null));
+		} finally {
+			deleteAll(directory);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package com.mindlin.jsast.harness;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import com.mindlin.jsast.fs.MappedSourceText;
+import com.mindlin.jsast.harness.PassExecutor.Outcome;
+import com.mindlin.jsast.harness.ReadPass.MappedParseStage;
+import com.mindlin.jsast.impl.parser.JSDialect;
+import com.mindlin.jsast.impl.writer.JSWriterImpl;
+import com.mindlin.jsast.tree.CompilationUnitTree;
+import com.mindlin.jsast.writer.JSWriterOptions;
+
+public class PassExecutorTest {
+	/**
+	 * Parses & writes each source, sharing a single parse stage between workers
+	 */
+	protected static class ParseWritePass implements CompilerPass<MappedSourceText, String> {
+		protected final MappedParseStage parse = new MappedParseStage(JSDialect.JSStandardDialect.EVERYTHING);
+		protected final JSWriterOptions options = new JSWriterOptions();
+
+		@Override
+		public String getName() {
+			return "test";
+		}
+
+		@Override
+		public String processOne(MappedSourceText source) throws IOException {
+			CompilationUnitTree tree = this.parse.process(source);
+			StringWriter out = new StringWriter();
+			new JSWriterImpl(this.options).write(tree, out);
+			return out.toString();
+		}
+
+		@Override
+		public Stream<String> process(Stream<MappedSourceText> sources) throws Exception {
+			return PassExecutor.process(sources, this, 1, failure -> {});
+		}
+	}
+	
+	protected static MappedSourceText source(String text) {
+		return MappedSourceText.decode(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8, null);
+	}
+
+	@Test
+	public void testSameAsSerial() throws Exception {
+		List<MappedSourceText> sources = new ArrayList<>();
+		for (int i = 0; i < 64; i++) {
+			StringBuilder source = new StringBuilder();
+			for (int j = 0; j <= i; j++)
+				source.append("var v").append(j).append(" = foo(\"").append(i).append("\", v").append(j / 2).append(");\n")
+						.append("if (v").append(j).append(") {\n\tbar(this);\n}\n");
+			sources.add(source(source.toString()));
+		}
+		ParseWritePass pass = new ParseWritePass();
+		List<String> expected = PassExecutor.process(sources.stream(), pass, 1, failure -> fail(failure.toString())).collect(Collectors.toList());
+		List<String> actual = PassExecutor.process(sources.stream(), pass, 4, failure -> fail(failure.toString())).collect(Collectors.toList());
+		assertEquals(expected, actual);
+	}
+	
+	@Test
+	public void testFailureIsolated() throws Exception {
+		List<MappedSourceText> sources = new ArrayList<>();
+		for (int i = 0; i < 8; i++)
+			sources.add(source("var v" + i + " = " + i + ";\n"));
+		MappedSourceText bad = source("var = ;\n");
+		sources.add(3, bad);
+		
+		List<Outcome<MappedSourceText, String>> failures = new ArrayList<>();
+		List<String> results = PassExecutor.process(sources.stream(), new ParseWritePass(), 4, failures::add).collect(Collectors.toList());
+		// Every other file still has its result
+		assertEquals(8, results.size());
+		assertEquals(1, failures.size());
+		assertSame(bad, failures.get(0).getSource());
+		assertNotNull(failures.get(0).getError());
+	}
+}
@@ -2,19 +2,27 @@ package com.mindlin.jsast.impl;
 
 import static com.mindlin.jsast.impl.TestUtils.assertNumberEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.Test;
 import org.junit.jupiter.api.Assertions;
 
 import com.mindlin.jsast.exception.JSSyntaxException;
+import com.mindlin.jsast.impl.lexer.CompactTokenList;
 import com.mindlin.jsast.impl.lexer.JSLexer;
 import com.mindlin.jsast.impl.lexer.JSSyntaxKind;
+import com.mindlin.jsast.impl.lexer.KeywordTable;
+import com.mindlin.jsast.impl.lexer.NameTable;
 import com.mindlin.jsast.impl.lexer.Token;
 import com.mindlin.jsast.impl.lexer.Token.NumericLiteralToken;
 import com.mindlin.jsast.impl.lexer.Token.StringLiteralToken;
+import com.mindlin.jsast.impl.lexer.Token.TemplateLiteralToken;
 import com.mindlin.jsast.impl.util.Characters;
+import com.mindlin.jsast.impl.util.SourceSlice;
 
 public class JSLexerTest {
 	
@@ -311,6 +319,28 @@ public class JSLexerTest {
 		assertEquals(JSSyntaxKind.END_OF_FILE, EofNumberToken.getKind());
 	}
 	
+	@Test
+	public void testStringLiteralFastPath() {
+		JSLexer lexer = new JSLexer("'plain' + \"with \\x41 escape\" + ''");
+		assertStringLiteral("plain", lexer.nextToken());
+		lexer.nextToken();
+		assertStringLiteral("with A escape", lexer.nextToken());
+		lexer.nextToken();
+		assertStringLiteral("", lexer.nextToken());
+	}
+	
+	@Test
+	public void testTemplateLiteralFastPath() {
+		JSLexer lexer = new JSLexer("`a$b${c}\\x41\r\n`");
+		TemplateLiteralToken head = (TemplateLiteralToken) lexer.nextToken();
+		assertEquals("a$b", head.getCooked());
+		assertFalse(head.isTail());
+		lexer.nextToken();
+		TemplateLiteralToken tail = lexer.finishTemplate(lexer.nextToken());
+		assertEquals("A\n", tail.getCooked());
+		assertTrue(tail.isTail());
+	}
+	
 	@Test
 	public void testTemplateLiteralNewline() {
 		assertEquals("foo\nbar", new JSLexer("`foo\nbar`").nextStringLiteral());
@@ -432,4 +462,158 @@ public class JSLexerTest {
 		assertToken(JSSyntaxKind.IDENTIFIER, lexer.nextToken());
 		assertToken(JSSyntaxKind.DECREMENT, lexer.nextToken());
 	}
+	
+	@Test
+	public void testResetReusesTokens() {
+		JSLexer lexer = new JSLexer("a b c");
+		lexer.mark();
+		Token a = lexer.nextToken();
+		Token b = lexer.nextToken();
+		lexer.mark();
+		assertToken(JSSyntaxKind.IDENTIFIER, lexer.nextToken());
+		lexer.reset();
+		lexer.reset();
+		assertSame(a, lexer.nextToken());
+		assertSame(b, lexer.nextToken());
+		assertToken(JSSyntaxKind.IDENTIFIER, lexer.nextToken());
+		assertToken(JSSyntaxKind.END_OF_FILE, lexer.nextToken());
+	}
+	
+	@Test
+	public void testResetPastRegExp() {
+		JSLexer lexer = new JSLexer("x = /a b/ + c");
+		lexer.mark();
+		assertToken(JSSyntaxKind.IDENTIFIER, lexer.nextToken());
+		assertToken(JSSyntaxKind.ASSIGNMENT, lexer.nextToken());
+		assertToken(JSSyntaxKind.REGEX_LITERAL, lexer.finishRegExpLiteral(lexer.nextToken()));
+		assertToken(JSSyntaxKind.PLUS, lexer.peek());
+		lexer.reset();
+		
+		// Tokens after the slash have to be lexed again
+		assertToken(JSSyntaxKind.IDENTIFIER, lexer.nextToken());
+		assertToken(JSSyntaxKind.ASSIGNMENT, lexer.nextToken());
+		assertToken(JSSyntaxKind.DIVISION, lexer.nextToken());
+		assertToken(JSSyntaxKind.IDENTIFIER, lexer.peek());
+	}
+	
+	@Test
+	public void testTokenizeCompact() {
+		JSLexer lexer = new JSLexer("var x = 'a' +\n x;");
+		CompactTokenList tokens = lexer.tokenize();
+		assertEquals(8, tokens.size());
+		assertEquals(JSSyntaxKind.VAR, tokens.getKind(0));
+		assertEquals(JSSyntaxKind.IDENTIFIER, tokens.getKind(1));
+		assertEquals("x", tokens.getValue(1));
+		assertEquals(4, tokens.getStartOffset(1));
+		assertEquals(JSSyntaxKind.STRING_LITERAL, tokens.getKind(3));
+		assertEquals("a", tokens.getValue(3));
+		assertEquals(8, tokens.getStartOffset(3));
+		assertEquals(10, tokens.getEndOffset(3));
+		assertTrue(tokens.hasPrecedingNewline(5));
+		assertEquals(tokens.getValueIndex(1), tokens.getValueIndex(5));
+		assertEquals(JSSyntaxKind.END_OF_FILE, tokens.getKind(7));
+		assertToken(JSSyntaxKind.SEMICOLON, tokens.toToken(6));
+	}
+	
+	@Test
+	public void testLazyTokenRange() {
+		JSLexer lexer = new JSLexer("a\n  bc");
+		lexer.nextToken();
+		Token token = lexer.nextToken();
+		assertSame(lexer.getLines(), token.getLines());
+		assertEquals(4, token.getStartOffset());
+		assertEquals(5, token.getEndOffset());
+		assertEquals(4, token.getStart().getOffset());
+		assertEquals(5, token.getEnd().getOffset());
+		assertSame(token.getRange(), token.getRange());
+	}
+	
+	@Test
+	public void testNameInterning() {
+		NameTable names = new NameTable();
+		JSLexer first = new JSLexer("fooBar + \\u0061b");
+		first.setNameTable(names);
+		JSLexer second = new JSLexer("ab = fooBar; get");
+		second.setNameTable(names);
+		
+		Object fooBar = first.nextToken().getValue();
+		first.nextToken();
+		Object ab = first.nextToken().getValue();
+		assertEquals("ab", ab);
+		
+		// Same name from different lexers is the same instance
+		assertSame(ab, second.nextToken().getValue());
+		second.nextToken();
+		assertSame(fooBar, second.nextToken().getValue());
+		second.nextToken();
+		// Contextual keywords share the keyword's text
+		assertSame(JSSyntaxKind.GET.getText(), second.nextToken().reinterpretAsIdentifier().getValue());
+		
+		int id = names.getId("fooBar");
+		assertTrue(id >= 0);
+		assertSame(fooBar, names.getName(id));
+		assertEquals(-1, names.getId("missing"));
+	}
+	
+	@Test
+	public void testNameTableGrowth() {
+		NameTable names = new NameTable(16);
+		char[] chars = new char[] { 'a', 'b', 'c', 'd' };
+		String[] interned = new String[5000];
+		for (int i = 0; i < interned.length; i++) {
+			interned[i] = names.intern("n" + i);
+			chars[i & 3] ^= 1;
+			names.intern(chars, 0, 4);
+		}
+		for (int i = 0; i < interned.length; i++) {
+			assertSame(interned[i], names.intern(new String("n" + i)));
+			assertSame(interned[i], names.getName(names.getId("n" + i)));
+		}
+	}
+	
+	@Test
+	public void testKeywordTable() {
+		String[] keywords = { "abstract", "as", "async", "await", "break", "case", "catch", "class", "continue", "const",
+				"constructor", "debugger", "declare", "default", "delete", "do", "else", "enum", "export", "extends",
+				"false", "finally", "for", "from", "function", "get", "if", "implements", "import", "in", "instanceof",
+				"interface", "let", "new", "null", "of", "package", "private", "protected", "public", "readonly",
+				"return", "set", "static", "super", "switch", "this", "throw", "true", "try", "type", "typeof", "var",
+				"void", "while", "with", "yield" };
+		for (String keyword : keywords) {
+			JSSyntaxKind kind = KeywordTable.lookup(keyword);
+			assertNotNull(kind, keyword);
+			assertEquals(keyword, kind.getText());
+			// Lookup from the middle of a buffer
+			char[] buffer = ("x" + keyword + "y").toCharArray();
+			assertSame(kind, KeywordTable.lookup(buffer, 1, keyword.length()));
+		}
+		for (String identifier : new String[] { "a", "cas", "classes", "Class", "keyof", "infer", "x", "constructors", "whilst" })
+			assertNull(KeywordTable.lookup(identifier), identifier);
+		
+		JSLexer lexer = new JSLexer("readonly declare thisIs");
+		assertToken(JSSyntaxKind.READONLY, lexer.nextToken());
+		assertToken(JSSyntaxKind.DECLARE, lexer.nextToken());
+		assertToken(JSSyntaxKind.IDENTIFIER, lexer.nextToken());
+	}
+	
+	@Test
+	public void testSourceSlices() {
+		JSLexer lexer = new JSLexer("foo = 'bar';");
+		// Names & fixed text aren't copied
+		assertSame(lexer.nextToken().getValue(), lexer.getNameTable().intern("foo"));
+		assertSame(JSSyntaxKind.ASSIGNMENT.getText(), lexer.nextToken().getText());
+		StringLiteralToken literal = (StringLiteralToken) lexer.nextToken();
+		assertTrue(literal.getText() instanceof SourceSlice);
+		assertEquals("'bar'", literal.getText().toString());
+		CharSequence value = literal.getValueChars();
+		assertTrue(value instanceof SourceSlice);
+		assertEquals("bar", literal.getValue());
+		
+		// Hashes like a String, but is only equal to other slices
+		assertEquals("bar".hashCode(), value.hashCode());
+		assertFalse(value.equals("bar"));
+		assertEquals(new SourceSlice("'bar'".toCharArray(), 1, 3), value);
+		assertTrue(SourceSlice.contentEquals("bar", value));
+		assertEquals("a", ((SourceSlice) value).subSequence(1, 2).toString());
+	}
 }
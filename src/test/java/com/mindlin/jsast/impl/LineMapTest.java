@@ -0,0 +1,68 @@
+package com.mindlin.jsast.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.mindlin.jsast.impl.tree.LineMap;
+import com.mindlin.jsast.impl.tree.NewlineScanner;
+
+public class LineMapTest {
+	
+	protected static long[] scan(String text) {
+		return NewlineScanner.scan(text.toCharArray(), 0, text.length());
+	}
+	
+	protected static long[] newlines(LineMap lines, int count) {
+		long[] result = new long[count];
+		for (int i = 0; i < count; i++)
+			result[i] = lines.getLineOffset(i + 1);
+		return result;
+	}
+	
+	@Test
+	public void testScanLineTerminators() {
+		assertArrayEquals(new long[0], scan(""));
+		assertArrayEquals(new long[0], scan("no newlines in this string"));
+		assertArrayEquals(new long[] {1, 3, 5, 7}, scan("a\nb\rc\u2028d\u2029e"));
+		// '\r\n' counts once, at the '\n'
+		assertArrayEquals(new long[] {2, 4}, scan("a\r\n\r\n"));
+	}
+	
+	@Test
+	public void testScanAcrossBlocks() {
+		// '\r\n' straddling the 8-char block boundary
+		assertArrayEquals(new long[] {8, 20}, scan("abcdefg\r\nhijklmnopqr\n"));
+		assertArrayEquals(new long[] {7, 17}, scan("abcdefg\rhijklmnop\r"));
+	}
+	
+	@Test
+	public void testScanMatchesCharSequence() {
+		String text = "var a = 1;\r\nvar b = 2;\n\n\rfunction f() {\u2028return a + b;\u2029}\r\n";
+		long[] expected = scan(text);
+		assertArrayEquals(expected, newlines(NewlineScanner.compile(null, CharBuffer.wrap(text)), expected.length));
+		assertArrayEquals(expected, newlines(NewlineScanner.compile(null, new StringBuilder(text)), expected.length));
+	}
+	
+	@Test
+	public void testScanBytes() {
+		String text = "var a = 1;\r\nvar b = 2;\n\n\rfunction f() {\rreturn a + b;\n}\r\n";
+		ByteBuffer bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+		assertArrayEquals(scan(text), NewlineScanner.scan(bytes));
+		assertEquals(0, bytes.position());
+	}
+	
+	@Test
+	public void testCompile() {
+		LineMap lines = LineMap.compile("a\nbc\r\nd");
+		assertEquals(0, lines.getLineNumber(0));
+		assertEquals(1, lines.getLineNumber(2));
+		assertEquals(1, lines.getLineNumber(3));
+		assertEquals(2, lines.getLineNumber(6));
+	}
+}
@@ -0,0 +1,147 @@
+package com.mindlin.jsast.impl.binary;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.mindlin.jsast.fs.TextEdit;
+import com.mindlin.jsast.impl.parser.IncrementalParser;
+import com.mindlin.jsast.impl.parser.JSParser;
+import com.mindlin.jsast.tree.CompilationUnitTree;
+import com.mindlin.jsast.tree.ExpressionStatementTree;
+import com.mindlin.jsast.tree.FunctionCallTree;
+import com.mindlin.jsast.tree.IdentifierTree;
+import com.mindlin.jsast.tree.StatementTree;
+import com.mindlin.jsast.tree.TryTree;
+import com.mindlin.jsast.tree.VariableDeclarationTree;
+import com.mindlin.nautilus.fs.SourcePosition;
+
+public class BinaryTreeTest {
+	protected static final String SOURCE = "var a = 1, b = 'str', c = [1, , 2.5];\n"
+			+ "function f(x, y) {\n"
+			+ "\tif (x > y)\n"
+			+ "\t\treturn x + y * 3;\n"
+			+ "\tfor (var i = 0; i < 10; i++)\n"
+			+ "\t\ty -= i;\n"
+			+ "\treturn { x: x, y: y };\n"
+			+ "}\n"
+			+ "function Foo(z) {\n"
+			+ "\tthis.z = z;\n"
+			+ "}\n"
+			+ "Foo.prototype.value = function() {\n"
+			+ "\treturn this.z;\n"
+			+ "};\n"
+			+ "label: while (!a) { a = typeof b === 'string' ? 1 : 0x10; break label; }\n"
+			+ "var g = function(p, q) { return p ? q : /re+/g; };\n"
+			+ "do { a--; } while (a in c);\n"
+			+ "try {\n"
+			+ "\tf(new Foo(4), null, true);\n"
+			+ "} catch (e) {\n"
+			+ "\tthrow e;\n"
+			+ "} finally {\n"
+			+ "\tswitch (a) { case 1: break; default: a = void 0; }\n"
+			+ "}\n";
+
+	@Test
+	public void testRoundTrip() {
+		CompilationUnitTree expected = new JSParser().apply(null, SOURCE);
+		byte[] encoded = BinaryTreeWriter.encode(expected);
+		CompilationUnitTree actual = BinaryTreeReader.decode(encoded, null);
+
+		// Decoded tree should encode to exactly the same bytes
+		assertArrayEquals(encoded, BinaryTreeWriter.encode(actual));
+
+		assertEquals(expected.getSourceElements().size(), actual.getSourceElements().size());
+		for (int i = 0; i < expected.getSourceElements().size(); i++) {
+			StatementTree expectedStatement = expected.getSourceElements().get(i);
+			StatementTree actualStatement = actual.getSourceElements().get(i);
+			assertEquals(expectedStatement.getKind(), actualStatement.getKind());
+			assertEquals(expectedStatement.getStartOffset(), actualStatement.getStartOffset());
+			assertEquals(expectedStatement.getEndOffset(), actualStatement.getEndOffset());
+		}
+	}
+
+	@Test
+	public void testPositions() {
+		CompilationUnitTree expected = new JSParser().apply(null, SOURCE);
+		CompilationUnitTree actual = BinaryTreeReader.decode(BinaryTreeWriter.encode(expected), null);
+
+		// Line/column of a nested tree
+		ExpressionStatementTree statement = (ExpressionStatementTree) ((TryTree) actual.getSourceElements().get(7)).getBlock().getStatements().get(0);
+		FunctionCallTree call = (FunctionCallTree) statement.getExpression();
+		SourcePosition start = call.getArguments().get(1).getStart();
+		assertEquals(SOURCE.indexOf("null"), start.getOffset());
+		assertEquals(18, start.getLine());
+
+		for (long offset = 0; offset < SOURCE.length(); offset += 7)
+			assertEquals(expected.getLineMap().getLineNumber(offset), actual.getLineMap().getLineNumber(offset));
+	}
+
+	@Test
+	public void testLazy() {
+		byte[] encoded = BinaryTreeWriter.encode(new JSParser().apply(null, SOURCE));
+		// Direct buffers don't have a backing array
+		ByteBuffer data = ByteBuffer.allocateDirect(encoded.length);
+		data.put(encoded).flip();
+		CompilationUnitTree actual = BinaryTreeReader.decodeLazily(data, null);
+
+		// Statements can be read out of order
+		TryTree tryTree = (TryTree) actual.getSourceElements().get(7);
+		assertEquals(SOURCE.indexOf("try"), tryTree.getStartOffset());
+		assertSame(tryTree, actual.getSourceElements().get(7));
+		VariableDeclarationTree declaration = (VariableDeclarationTree) actual.getSourceElements().get(0);
+		assertEquals("b", ((IdentifierTree) declaration.getDeclarations().get(1).getName()).getName());
+
+		assertArrayEquals(encoded, BinaryTreeWriter.encode(actual));
+	}
+
+	@Test
+	public void testMap() throws IOException {
+		CompilationUnitTree expected = new JSParser().apply(null, SOURCE);
+		byte[] encoded = BinaryTreeWriter.encode(expected);
+		Path file = Files.createTempFile("tree", ".jsast");
+		try {
+			Files.write(file, encoded);
+			CompilationUnitTree actual = BinaryTreeReader.map(file, null);
+			assertEquals(expected.getSourceElements().size(), actual.getSourceElements().size());
+			assertArrayEquals(encoded, BinaryTreeWriter.encode(actual));
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	public void testShiftedStatements() {
+		String text = "var x = 0;\nvar y = x + 1;\nvar z = y * 2;\n";
+		JSParser parser = new JSParser();
+		TextEdit edit = new TextEdit(text.indexOf('0'), 1, "1234");
+		String newText = edit.apply(text);
+		CompilationUnitTree reparsed = new IncrementalParser(parser).reparse(parser.apply(null, text), edit, newText);
+
+		// Shifts are applied when encoding
+		CompilationUnitTree decoded = BinaryTreeReader.decode(BinaryTreeWriter.encode(reparsed), null);
+		CompilationUnitTree expected = parser.apply(null, newText);
+		for (int i = 0; i < expected.getSourceElements().size(); i++) {
+			assertEquals(expected.getSourceElements().get(i).getStartOffset(), decoded.getSourceElements().get(i).getStartOffset());
+			assertEquals(expected.getSourceElements().get(i).getEndOffset(), decoded.getSourceElements().get(i).getEndOffset());
+		}
+	}
+
+	@Test
+	public void testBadInput() {
+		byte[] encoded = BinaryTreeWriter.encode(new JSParser().apply(null, SOURCE));
+		byte[] badMagic = encoded.clone();
+		badMagic[0] ^= 1;
+		assertThrows(IllegalArgumentException.class, () -> BinaryTreeReader.decode(badMagic, null));
+		assertThrows(RuntimeException.class, () -> BinaryTreeReader.decode(Arrays.copyOf(encoded, encoded.length / 2), null));
+	}
+}
@@ -3,9 +3,13 @@ package com.mindlin.jsast.impl.parser;
 import static com.mindlin.jsast.impl.parser.JSParserTest.assertIdentifier;
 import static com.mindlin.jsast.impl.parser.JSParserTest.assertKind;
 import static com.mindlin.jsast.impl.parser.JSParserTest.parseExpression;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.Test;
 
+import com.mindlin.jsast.impl.lexer.JSLexer;
+import com.mindlin.jsast.impl.parser.JSParser.Context;
 import com.mindlin.jsast.tree.BinaryExpressionTree;
 import com.mindlin.jsast.tree.ParenthesizedTree;
 import com.mindlin.jsast.tree.Tree;
@@ -41,6 +45,28 @@ public class BinaryExpressionTest {
 		assertIdentifier("c", right.getRightOperand());
 	}
 	
+	@Test
+	public void testPrecedenceReduction() {
+		// Should be ((a + (b * (c - d))) - (e / f(g | h)))
+		TreeArena arena = new TreeArena();
+		Context context = new Context().setArena(arena);
+		JSLexer lexer = new JSLexer("a + b * (c - d) - e / f(g | h)");
+		BinaryExpressionTree expr = assertKind(Kind.SUBTRACTION, new JSParser().parseNextExpression(lexer, context));
+		// Scratch stacks are left as they were found
+		assertTrue(arena.isEmpty());
+		
+		BinaryExpressionTree left = assertKind(Kind.ADDITION, expr.getLeftOperand());
+		assertIdentifier("a", left.getLeftOperand());
+		BinaryExpressionTree product = assertKind(Kind.MULTIPLICATION, left.getRightOperand());
+		assertIdentifier("b", product.getLeftOperand());
+		ParenthesizedTree paren = assertKind(Kind.PARENTHESIZED, product.getRightOperand());
+		assertEquals(Kind.SUBTRACTION, paren.getExpression().getKind());
+		
+		BinaryExpressionTree quotient = assertKind(Kind.DIVISION, expr.getRightOperand());
+		assertIdentifier("e", quotient.getLeftOperand());
+		assertEquals(Kind.FUNCTION_INVOCATION, quotient.getRightOperand().getKind());
+	}
+	
 	@Test
 	public void testArrayAccess() {
 		BinaryExpressionTree expr = parseExpression("a[b]", Kind.ARRAY_ACCESS);
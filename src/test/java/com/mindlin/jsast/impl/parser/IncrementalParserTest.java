@@ -0,0 +1,118 @@
+package com.mindlin.jsast.impl.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.Test;
+
+import com.mindlin.jsast.fs.TextEdit;
+import com.mindlin.jsast.impl.lexer.Token.StringLiteralToken;
+import com.mindlin.jsast.impl.util.SourceSlice;
+import com.mindlin.jsast.tree.CompilationUnitTree;
+import com.mindlin.jsast.tree.IdentifierTree;
+import com.mindlin.jsast.tree.StatementTree;
+import com.mindlin.jsast.tree.StringLiteralTree;
+import com.mindlin.jsast.tree.VariableDeclarationTree;
+
+public class IncrementalParserTest {
+	protected static final String SOURCE = "var y = 0;\nvar a = 1;\nfunction f(x) {\n\treturn x + a;\n}\nvar b = f(2);\nvar c = b * 3;\n";
+	
+	protected static CompilationUnitTree reparse(CompilationUnitTree previous, TextEdit edit, String newText) {
+		JSParser parser = new JSParser();
+		CompilationUnitTree result = new IncrementalParser(parser).reparse(previous, edit, newText);
+		
+		// Should have the same statements as a full parse, in the same places
+		CompilationUnitTree expected = parser.apply(null, newText);
+		assertEquals(expected.getSourceElements().size(), result.getSourceElements().size());
+		for (int i = 0; i < expected.getSourceElements().size(); i++) {
+			StatementTree expectedStatement = expected.getSourceElements().get(i);
+			StatementTree actualStatement = result.getSourceElements().get(i);
+			assertEquals(expectedStatement.getKind(), actualStatement.getKind());
+			assertEquals(expectedStatement.getStartOffset(), actualStatement.getStartOffset());
+			assertEquals(expectedStatement.getEndOffset(), actualStatement.getEndOffset());
+			assertEquals(expectedStatement.getStart(), actualStatement.getStart());
+			assertEquals(expectedStatement.getEnd(), actualStatement.getEnd());
+		}
+		return result;
+	}
+	
+	@Test
+	public void testEditInsideStatement() {
+		CompilationUnitTree before = new JSParser().apply(null, SOURCE);
+		TextEdit edit = new TextEdit(SOURCE.indexOf("x + a"), 1, "x * 2");
+		CompilationUnitTree after = reparse(before, edit, edit.apply(SOURCE));
+	
+		assertEquals(5, after.getSourceElements().size());
+		// Statements well before the edit are reused
+		assertSame(before.getSourceElements().get(0), after.getSourceElements().get(0));
+		// Statements after the edit are moved
+		assertEquals(before.getSourceElements().get(4).getStartOffset() + 4, after.getSourceElements().get(4).getStartOffset());
+	}
+	
+	@Test
+	public void testPositionsAfterEdit() {
+		CompilationUnitTree before = new JSParser().apply(null, SOURCE);
+		// Adds a line, so everything after it is on a different line
+		TextEdit edit = new TextEdit(SOURCE.indexOf("return"), 0, "x++;\n\t");
+		String text = edit.apply(SOURCE);
+		CompilationUnitTree after = reparse(before, edit, text);
+		
+		VariableDeclarationTree last = (VariableDeclarationTree) after.getSourceElements().get(4);
+		IdentifierTree name = (IdentifierTree) last.getDeclarations().get(0).getName();
+		assertEquals("c", name.getName());
+		assertEquals(text.indexOf("c ="), name.getStartOffset());
+		assertEquals(7, name.getStart().getLine());
+		assertEquals(after.getLineMap().lookup(text.indexOf("c =")), name.getStart());
+	}
+	
+	@Test
+	public void testAddStatement() {
+		CompilationUnitTree before = new JSParser().apply(null, SOURCE);
+		TextEdit edit = new TextEdit(SOURCE.indexOf("var b"), 0, "a++;\n");
+		CompilationUnitTree after = reparse(before, edit, edit.apply(SOURCE));
+		assertEquals(6, after.getSourceElements().size());
+		assertEquals(before.getSourceElements().get(4).getStartOffset() + edit.getDelta(), after.getSourceElements().get(5).getStartOffset());
+	}
+	
+	@Test
+	public void testEditSplitsStatement() {
+		CompilationUnitTree before = new JSParser().apply(null, SOURCE);
+		TextEdit edit = new TextEdit(SOURCE.indexOf("* 3"), 0, "; 5 ");
+		reparse(before, edit, edit.apply(SOURCE));
+	}
+	
+	@Test
+	public void testValuesCopied() {
+		IncrementalParser parser = new IncrementalParser(new JSParser());
+		StringLiteralToken literal = (StringLiteralToken) parser.lexer("'foo'".toCharArray()).nextToken();
+		// Not a view of the text, so trees don't keep it alive
+		assertFalse(literal.getValueChars() instanceof SourceSlice);
+		assertEquals("foo", literal.getValue());
+		
+		String text = SOURCE + "var s = 'foo';\n";
+		CompilationUnitTree before = parser.parse(null, text);
+		TextEdit edit = new TextEdit(text.indexOf("'foo'"), 5, "'bar'");
+		CompilationUnitTree after = reparse(before, edit, edit.apply(text));
+		VariableDeclarationTree last = (VariableDeclarationTree) after.getSourceElements().get(5);
+		assertEquals("bar", ((StringLiteralTree) last.getDeclarations().get(0).getInitializer()).getValue());
+	}
+	
+	@Test
+	public void testRepeatedEdits() {
+		JSParser parser = new JSParser();
+		String text = SOURCE;
+		CompilationUnitTree tree = parser.apply(null, text);
+		TextEdit first = new TextEdit(0, 0, "var z = 0;\n");
+		text = first.apply(text);
+		tree = reparse(tree, first, text);
+	
+		TextEdit second = new TextEdit(text.indexOf("f(2)"), 4, "f(z, 2)");
+		text = second.apply(text);
+		tree = reparse(tree, second, text);
+	
+		// Last statement was moved by both edits
+		int last = tree.getSourceElements().size() - 1;
+		assertEquals(text.lastIndexOf("var c"), tree.getSourceElements().get(last).getStartOffset());
+	}
+}
@@ -0,0 +1,74 @@
+package com.mindlin.jsast.impl.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.EnumSet;
+
+import org.junit.Test;
+
+import com.mindlin.jsast.exception.JSUnsupportedException;
+import com.mindlin.jsast.impl.parser.JSDialect.JSStandardDialect;
+import com.mindlin.jsast.tree.CompilationUnitTree;
+import com.mindlin.jsast.tree.ExpressionStatementTree;
+import com.mindlin.jsast.tree.Tree.Kind;
+
+public class JSFeatureSetTest {
+	@Test
+	public void testPredefined() {
+		assertTrue(JSFeatureSet.ES5.supports(JSFeature.GETTERS));
+		assertFalse(JSFeatureSet.ES5.supports(JSFeature.LAMBDA_FUNCTIONS));
+		assertTrue(JSFeatureSet.ES6.supports(JSFeature.LAMBDA_FUNCTIONS));
+		assertFalse(JSFeatureSet.ES6.supports(JSFeature.AWAIT));
+		assertTrue(JSFeatureSet.ES2017.supports(JSFeature.AWAIT));
+		assertTrue(JSFeatureSet.ES2017.supports(JSFeature.GETTERS));
+		assertFalse(JSFeatureSet.TS_1_3.supports(JSFeature.TYPE_UNION));
+		assertTrue(JSFeatureSet.TS_1_4.supports(JSFeature.TYPE_UNION));
+		assertTrue(JSFeatureSet.TS_1_4.supports(JSFeature.TEMPLATE_LITERALS));
+		// Features past the first word
+		assertTrue(JSFeatureSet.EVERYTHING.supports(JSFeature.REST_TUPLE_ELEMENT));
+		assertFalse(JSFeatureSet.ES2018.supports(JSFeature.REST_TUPLE_ELEMENT));
+	}
+
+	@Test
+	public void testSetOperations() {
+		JSFeatureSet set = JSFeatureSet.of(JSFeature.GETTERS, JSFeature.REST_TUPLE_ELEMENT);
+		assertEquals(EnumSet.of(JSFeature.GETTERS, JSFeature.REST_TUPLE_ELEMENT), set.toSet());
+		assertEquals(set, new JSFeatureSet(set.toSet()));
+		assertFalse(set.without(JSFeature.GETTERS).supports(JSFeature.GETTERS));
+		assertTrue(set.with(JSFeatureSet.ES6).supports(JSFeature.CLASSES));
+		// Sets are immutable
+		assertFalse(set.supports(JSFeature.CLASSES));
+	}
+
+	@Test
+	public void testDialectFeatures() {
+		assertEquals(JSFeatureSet.ES5, JSStandardDialect.ES5.getFeatures());
+		// Default features of a custom dialect are from feature descriptions
+		JSDialect dialect = feature -> feature.equals("js.function.async");
+		assertEquals(EnumSet.of(JSFeature.ASYNC_FUNCTION), dialect.getFeatures().toSet());
+		
+		// Named features of standard dialects match their sets
+		for (JSStandardDialect standard : JSStandardDialect.values())
+			for (JSFeature feature : JSFeature.values())
+				if (feature.getDescription() != null)
+					assertEquals(standard.getFeatures().supports(feature), standard.supports(feature.getDescription()), standard + " " + feature);
+	}
+
+	@Test
+	public void testParserGating() {
+		String code = "var f = (a) => a;";
+		assertNotNull(new JSParser(JSStandardDialect.ES6).apply("test", code));
+		assertThrows(JSUnsupportedException.class, () -> new JSParser(JSStandardDialect.ES5).apply("test", code));
+	}
+
+	@Test
+	public void testAngleCasting() {
+		CompilationUnitTree unit = new JSParser(JSStandardDialect.TYPESCRIPT_11).apply("test", "<Foo> x;");
+		ExpressionStatementTree statement = (ExpressionStatementTree) unit.getSourceElements().get(0);
+		assertEquals(Kind.CAST, statement.getExpression().getKind());
+	}
+}
@@ -0,0 +1,79 @@
+package com.mindlin.jsast.impl.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.Test;
+
+import com.mindlin.jsast.impl.lexer.JSLexer;
+import com.mindlin.jsast.impl.lexer.JSSyntaxKind;
+import com.mindlin.jsast.impl.parser.JSParser.Context;
+import com.mindlin.jsast.tree.Tree.Kind;
+import com.mindlin.jsast.tree.type.TypeTree;
+
+public class LookaheadMemoTest {
+	@Test
+	public void testGetPut() {
+		LookaheadMemo memo = new LookaheadMemo(16);
+		assertEquals(LookaheadMemo.UNKNOWN, memo.get(1, 10, 3, 0));
+		memo.put(1, 10, 3, 0, true);
+		memo.put(1, 12, 3, 0, false);
+		assertEquals(1, memo.get(1, 10, 3, 0));
+		assertEquals(0, memo.get(1, 12, 3, 0));
+		// Any part of the key differing is a miss
+		assertEquals(LookaheadMemo.UNKNOWN, memo.get(2, 10, 3, 0));
+		assertEquals(LookaheadMemo.UNKNOWN, memo.get(1, 10, 4, 0));
+		assertEquals(LookaheadMemo.UNKNOWN, memo.get(1, 10, 3, Context.FLAG_IN));
+		assertEquals(2, memo.getHits());
+
+		memo.clear();
+		assertEquals(LookaheadMemo.UNKNOWN, memo.get(1, 10, 3, 0));
+	}
+
+	@Test
+	public void testBounded() {
+		LookaheadMemo memo = new LookaheadMemo(8);
+		for (int i = 0; i < 1000; i++)
+			memo.put(1, i, 0, 0, true);
+		int found = 0;
+		for (int i = 0; i < 1000; i++)
+			if (memo.get(1, i, 0, 0) != LookaheadMemo.UNKNOWN)
+				found++;
+		assertNotEquals(0, found);
+		assertTrue(found <= 8);
+	}
+
+	@Test
+	public void testParserUsesMemo() {
+		String type = "(a) => b";
+		TypeTree parsed = new JSParser().parseType(new JSLexer(type), new Context());
+		assertEquals(Kind.FUNCTION_TYPE, parsed.getKind());
+
+		// Pretend that the function type lookahead already failed here
+		LookaheadMemo memo = new LookaheadMemo();
+		Context context = new Context().setMemo(memo);
+		memo.put(JSParser.RULE_FUNCTION_TYPE, 0, JSSyntaxKind.LEFT_PARENTHESIS.ordinal(), context.data.flags, false);
+		parsed = new JSParser().parseType(new JSLexer(type), context);
+		assertNotEquals(Kind.FUNCTION_TYPE, parsed.getKind());
+		assertEquals(1, memo.getHits());
+	}
+
+	@Test
+	public void testSharedWithNestedContexts() {
+		String type = "(a) => b";
+		// Nested contexts are made before the memo is first used
+		Context root = new Context();
+		Context first = root.pushed();
+		Context second = root.pushed().pushed();
+		assertSame(root.getMemo(), second.getMemo());
+
+		JSParser parser = new JSParser();
+		assertEquals(Kind.FUNCTION_TYPE, parser.parseType(new JSLexer(type), first).getKind());
+		assertEquals(0, root.getMemo().getHits());
+		// Same lookahead at the same position, from a different nested context
+		assertEquals(Kind.FUNCTION_TYPE, parser.parseType(new JSLexer(type), second).getKind());
+		assertEquals(1, root.getMemo().getHits());
+	}
+}
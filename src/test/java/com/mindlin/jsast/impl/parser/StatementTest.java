@@ -10,6 +10,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.util.List;
 
@@ -17,11 +18,14 @@ import org.junit.Test;
 
 import com.mindlin.jsast.impl.lexer.JSLexer;
 import com.mindlin.jsast.impl.parser.JSParser.Context;
+import com.mindlin.jsast.tree.BlockTree;
 import com.mindlin.jsast.tree.BreakTree;
+import com.mindlin.jsast.tree.CompilationUnitTree;
 import com.mindlin.jsast.tree.ContinueTree;
 import com.mindlin.jsast.tree.LabeledStatementTree;
 import com.mindlin.jsast.tree.SwitchCaseTree;
 import com.mindlin.jsast.tree.SwitchTree;
+import com.mindlin.jsast.tree.Tree;
 import com.mindlin.jsast.tree.Tree.Kind;
 import com.mindlin.jsast.tree.WithTree;
 
@@ -35,6 +39,27 @@ public class StatementTest {
 		assertNull(parser.parseStatement(lexer, new Context()));
 	}
 	
+	@Test
+	public void testArenaMode() {
+		JSParser parser = new JSParser();
+		parser.setArenaMode(true);
+		TreeArena arena = TreeArena.bump();
+		CompilationUnitTree unit = parser.apply("test", new JSLexer("a; {b; c; {}} f(x, y, z);"), arena);
+		assertTrue(arena.isEmpty());
+		
+		List<? extends Tree> elements = unit.getSourceElements();
+		assertEquals(3, elements.size());
+		BlockTree block = assertKind(Kind.BLOCK, elements.get(1));
+		assertEquals(3, block.getStatements().size());
+		assertEquals(0, ((BlockTree) block.getStatements().get(2)).getStatements().size());
+		// Child lists are immutable
+		assertThrows(UnsupportedOperationException.class, () -> unit.getSourceElements().remove(0));
+		
+		// Lists of failed parses are dropped
+		assertThrows(RuntimeException.class, () -> parser.apply("test", new JSLexer("{a; b; (c"), arena));
+		assertTrue(arena.isEmpty());
+	}
+	
 	@Test
 	public void testEmptySwitch() {
 		SwitchTree st = parseStatement("switch(foo){}", Kind.SWITCH);
@@ -0,0 +1,65 @@
+package com.mindlin.jsast.impl.writer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import com.mindlin.jsast.impl.parser.JSParser;
+import com.mindlin.jsast.tree.CompilationUnitTree;
+
+public class ESTreeWriterTest {
+	protected static String write(String source) throws IOException {
+		CompilationUnitTree tree = new JSParser().apply(null, source);
+		StringWriter out = new StringWriter();
+		new ESTreeWriter().write(tree, out);
+		return out.toString();
+	}
+
+	protected static void assertContains(String expected, String actual) {
+		assertTrue(actual.contains(expected), () -> "Expected to find " + expected + " in " + actual);
+	}
+
+	@Test
+	public void testExpression() throws IOException {
+		String json = write("a + 1;");
+		assertEquals("{\"type\":\"Program\",\"sourceType\":\"script\",\"body\":["
+				+ "{\"type\":\"ExpressionStatement\",\"start\":0,\"end\":6,\"expression\":"
+				+ "{\"type\":\"BinaryExpression\",\"start\":0,\"end\":5,\"operator\":\"+\","
+				+ "\"left\":{\"type\":\"Identifier\",\"start\":0,\"end\":1,\"name\":\"a\"},"
+				+ "\"right\":{\"type\":\"Literal\",\"start\":4,\"end\":5,\"value\":1}}}]}", json);
+	}
+
+	@Test
+	public void testStatements() throws IOException {
+		String json = write("var x = { a: 1, b: [2, , 'q\\n'] };\n"
+				+ "function f(y) {\n"
+				+ "\tfor (var i = 0; i < y; i++)\n"
+				+ "\t\tif (!x.a) return;\n"
+				+ "\ttry { throw y; } catch (e) { x[e] = /a/g; }\n"
+				+ "}\n");
+		assertContains("\"type\":\"VariableDeclaration\"", json);
+		assertContains("\"kind\":\"var\"", json);
+		assertContains("\"type\":\"Property\"", json);
+		assertContains("\"elements\":[{\"type\":\"Literal\"", json);
+		assertContains(",null,", json);
+		assertContains("\"value\":\"q\\n\"", json);
+		assertContains("\"type\":\"FunctionDeclaration\"", json);
+		assertContains("\"params\":[{\"type\":\"Identifier\"", json);
+		assertContains("\"type\":\"UpdateExpression\",", json);
+		assertContains("\"operator\":\"!\",\"prefix\":true", json);
+		assertContains("\"computed\":false", json);
+		assertContains("\"computed\":true", json);
+		assertContains("\"handler\":{\"type\":\"CatchClause\"", json);
+		assertContains("\"regex\":{\"pattern\":\"a\",\"flags\":\"g\"}", json);
+	}
+
+	@Test
+	public void testEscapes() throws IOException {
+		String json = write("'\\u0001\"\\\\';");
+		assertContains("\"value\":\"\\u0001\\\"\\\\\"", json);
+	}
+}
@@ -0,0 +1,67 @@
+package com.mindlin.jsast.impl.writer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.mindlin.jsast.impl.parser.JSParser;
+import com.mindlin.jsast.tree.CompilationUnitTree;
+import com.mindlin.jsast.writer.JSWriterOptions;
+
+public class OutputBufferTest {
+	@Test
+	public void testWriterSink() throws IOException {
+		StringWriter out = new StringWriter();
+		StringBuilder expected = new StringBuilder();
+		try (OutputBuffer buf = new OutputBuffer(new OutputBuffer.WriterSink(out), 8)) {
+			for (int i = 0; i < 20; i++) {
+				buf.append("ab").append('c').append(new StringBuilder("de"), 0, 1);
+				expected.append("abcd");
+			}
+			// Bigger than the buffer
+			buf.append("0123456789abcdef");
+			expected.append("0123456789abcdef");
+			// Chunks were flushed, but the rest is still buffered
+			assertEquals(expected.length(), out.getBuffer().length() + buf.size());
+			buf.flush();
+			assertEquals(expected.toString(), out.toString());
+		}
+	}
+
+	@Test
+	public void testInMemory() throws IOException {
+		OutputBuffer buf = new OutputBuffer(null, 4);
+		buf.append("hello").append(' ').append("world".toCharArray(), 0, 5);
+		assertEquals("hello world", buf.toString());
+	}
+
+	@Test
+	public void testChannelSink() throws IOException {
+		// Surrogate pairs that straddle chunks
+		String text = "a\ud83d\ude00bc\ud83d\ude00\u00e9\u4e2d";
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (OutputBuffer buf = new OutputBuffer(new OutputBuffer.ChannelSink(Channels.newChannel(bytes), 4), 2)) {
+			for (int i = 0; i < text.length(); i++)
+				buf.append(text.charAt(i));
+			buf.append(text);
+		}
+		assertEquals(text + text, new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testIndent() throws IOException {
+		CompilationUnitTree tree = new JSParser().apply("test.js", "if (a) {\n\tif (b) {\n\t\tc();\n\t}\n\td();\n}\ne();");
+		JSWriterOptions options = new JSWriterOptions();
+		options.minify = false;
+		options.indentStyle = "  ";
+		OutputBuffer out = new OutputBuffer();
+		new JSWriterImpl(options).write(tree, out, null);
+		assertEquals("if(a) {\n  if(b) {\n    c();\n  }\n  d();\n}\ne();\n", out.toString());
+	}
+}
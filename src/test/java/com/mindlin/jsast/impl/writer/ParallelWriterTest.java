@@ -0,0 +1,89 @@
+package com.mindlin.jsast.impl.writer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import com.mindlin.jsast.impl.parser.JSParser;
+import com.mindlin.jsast.tree.CompilationUnitTree;
+import com.mindlin.jsast.tree.StatementTree;
+import com.mindlin.jsast.writer.JSWriterOptions;
+import com.mindlin.jsast.writer.SourceMap;
+
+public class ParallelWriterTest {
+	protected static String write(CompilationUnitTree tree, JSWriterOptions options, SourceMap map, ForkJoinPool pool) throws IOException {
+		StringWriter out = new StringWriter();
+		map.addSource("test.js");
+		new JSWriterImpl(options).setPool(pool).write(tree, out, map);
+		return out.toString();
+	}
+
+	@Test
+	public void testSameAsSequential() throws IOException {
+		StringBuilder source = new StringBuilder();
+		for (int i = 0; i < 500; i++) {
+			switch (i % 3) {
+				case 0:
+					source.append("var v").append(i).append(" = foo(\"").append(i).append("\");\n");
+					break;
+				case 1:
+					source.append("if (v").append(i - 1).append(") {\n\tbar(this, v").append(i - 1).append(");\n}\n");
+					break;
+				default:
+					source.append("baz();");
+			}
+		}
+		CompilationUnitTree tree = new JSParser().apply("test.js", source.toString());
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			JSWriterOptions options = new JSWriterOptions();
+			options.minify = false;
+			SourceMap expectedMap = new SourceMap("out.js");
+			String expected = write(tree, options, expectedMap, pool);
+
+			options.parallel = true;
+			options.parallelThreshold = 2;
+			SourceMap map = new SourceMap("out.js");
+			assertEquals(expected, write(tree, options, map, pool));
+			assertEquals(expectedMap.toJSON(), map.toJSON());
+
+			// Minified
+			options.minify = true;
+			options.parallel = false;
+			expectedMap = new SourceMap("out.js");
+			expected = write(tree, options, expectedMap, pool);
+			options.parallel = true;
+			map = new SourceMap("out.js");
+			assertEquals(expected, write(tree, options, map, pool));
+			assertEquals(expectedMap.toJSON(), map.toJSON());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testWorkerError() {
+		CompilationUnitTree tree = new JSParser().apply("test.js", "foo();\nbar();\nbaz();\n");
+		JSWriterOptions options = new JSWriterOptions();
+		options.parallel = true;
+		options.parallelThreshold = 2;
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			JSWriterImpl writer = new JSWriterImpl(options) {
+				@Override
+				protected void writeStatement(StatementTree statement, WriterHelper out) {
+					throw new IllegalStateException("Can't write " + statement);
+				}
+			}.setPool(pool);
+			// Not an I/O error, so it should be thrown as-is
+			assertThrows(IllegalStateException.class, () -> writer.write(tree, new StringWriter()));
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package com.mindlin.jsast.impl.writer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+
+import org.junit.Test;
+
+import com.mindlin.jsast.impl.lexer.JSLexer;
+import com.mindlin.jsast.impl.parser.JSParser;
+import com.mindlin.jsast.tree.CompilationUnitTree;
+import com.mindlin.jsast.tree.StatementTree;
+import com.mindlin.jsast.writer.JSWriterOptions;
+import com.mindlin.jsast.writer.SourceMap;
+
+public class StreamingWriterTest {
+	protected static final String SOURCE = "var a = foo(b);\nif (a) {\n\tfoo(this);\n}\nbar(\"x\", a);\n";
+
+	@Test
+	public void testStatements() {
+		CompilationUnitTree unit = new JSParser().apply("test.js", SOURCE);
+		Spliterator<StatementTree> statements = new JSParser().statements("test.js", new JSLexer(SOURCE));
+		assertTrue(statements.hasCharacteristics(Spliterator.ORDERED));
+		List<StatementTree> streamed = new ArrayList<>();
+		statements.forEachRemaining(streamed::add);
+		assertEquals(unit.getSourceElements().size(), streamed.size());
+		for (int i = 0; i < streamed.size(); i++) {
+			StatementTree expected = unit.getSourceElements().get(i);
+			assertEquals(expected.getKind(), streamed.get(i).getKind());
+			assertEquals(expected.getStartOffset(), streamed.get(i).getStartOffset());
+			assertEquals(expected.getEnd().getOffset(), streamed.get(i).getEnd().getOffset());
+		}
+	}
+
+	@Test
+	public void testSameAsUnit() throws IOException {
+		JSWriterOptions options = new JSWriterOptions();
+		options.minify = false;
+		options.sourceMapURL = "out.js.map";
+		JSWriterImpl writer = new JSWriterImpl(options);
+
+		CompilationUnitTree unit = new JSParser().apply("test.js", SOURCE);
+		SourceMap expectedMap = new SourceMap("out.js");
+		expectedMap.addSource("test.js");
+		OutputBuffer expected = new OutputBuffer();
+		writer.write(unit, expected, expectedMap);
+
+		JSLexer lexer = new JSLexer(SOURCE);
+		SourceMap map = new SourceMap("out.js");
+		OutputBuffer out = new OutputBuffer();
+		try (JSWriterImpl.StatementWriter statements = writer.open(out, map, "test.js", lexer.getLines())) {
+			new JSParser().statements("test.js", lexer).forEachRemaining(statements);
+		}
+		assertEquals(expected.toString(), out.toString());
+		assertEquals(expectedMap.toJSON(), map.toJSON());
+	}
+}
@@ -0,0 +1,109 @@
+package com.mindlin.jsast.json;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.mindlin.jsast.json.api.JSONArrayInput;
+import com.mindlin.jsast.json.api.JSONObjectInput;
+import com.mindlin.jsast.json.api.JSONParseException;
+
+public class JSONInputStreamTest {
+	@Test
+	public void testPull() {
+		String text = "{\"a\": [1, 2, {\"x\": true}], \"b\": {\"c\": \"d\", \"e\": null}, \"f\": -2.5e1}";
+		try (JSONInputStream in = new JSONInputStream(text); JSONObjectInput obj = in.readObject()) {
+			assertEquals("a", obj.nextKey());
+			try (JSONArrayInput arr = obj.readArray()) {
+				assertTrue(arr.hasNext());
+				assertEquals(1, arr.readInt());
+				assertEquals(2L, arr.readLong());
+				try (JSONObjectInput inner = arr.readObject()) {
+					assertEquals("x", inner.nextKey());
+					assertTrue(inner.readBoolean());
+					assertNull(inner.nextKey());
+				}
+				assertFalse(arr.hasNext());
+			}
+			assertEquals("b", obj.nextKey());
+			JSONObjectInput b = obj.readObject();
+			assertEquals("c", b.nextKey());
+			assertEquals("d", b.readString());
+			// Reading the next key of the parent closes 'b'
+			assertEquals("f", obj.nextKey());
+			assertEquals(-25.0, obj.readDouble());
+			assertNull(obj.nextKey());
+		}
+	}
+
+	@Test
+	public void testSkip() {
+		// Values that aren't read are skipped
+		String text = "{\"skipped\": {\"a\": [1, [2, \"]\"], {}]}, \"kept\": 5}";
+		try (JSONInputStream in = new JSONInputStream(new StringReader(text)); JSONObjectInput obj = in.readObject()) {
+			assertEquals("skipped", obj.nextKey());
+			assertEquals("kept", obj.nextKey());
+			assertTrue(obj.isNextNumber());
+			assertEquals(5, obj.readInt());
+			assertFalse(obj.readAll());
+		}
+	}
+
+	@Test
+	public void testIterator() {
+		try (JSONInputStream in = new JSONInputStream("{\"a\": 1, \"b\": [true, \"c\"], \"d\": {}}"); JSONObjectInput obj = in.readObject()) {
+			Map.Entry<String, ? extends Object> entry = obj.next();
+			assertEquals("a", entry.getKey());
+			assertEquals(1, entry.getValue());
+			entry = obj.next();
+			assertEquals(Arrays.asList(true, "c"), entry.getValue());
+			assertEquals("d", obj.next().getKey());
+			assertFalse(obj.hasNext());
+		}
+	}
+
+	@Test
+	public void testEscapes() {
+		JSONInputStream in = new JSONInputStream("\"a\\n\\\"b\\\\\\u00e9\\/\"");
+		assertEquals("a\n\"b\\é/", in.readString());
+	}
+
+	@Test
+	public void testLenient() {
+		String text = "// comment\n{\n\t/* a */ \"a\": [1, 2,],\n\t\"b\": 3, // trailing\n}";
+		JSONObject expected = new JSONObject();
+		expected.put("a", Arrays.asList(1, 2));
+		expected.put("b", 3);
+		assertEquals(expected, new JSONInputStream(text, true).readValue());
+		assertThrows(JSONParseException.class, () -> new JSONInputStream(text).readValue());
+	}
+
+	@Test
+	public void testRoundTrip() {
+		JSONObject expected = new JSONObject();
+		expected.put("str", "x\ty");
+		expected.put("big", 12345678901L);
+		expected.put("list", Arrays.asList(1, "two", null, false));
+		String text = JSONUtils.serialize(expected);
+
+		JSONObject actual = new JSONObject();
+		actual.readJSON(new JSONInputStream(text));
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testErrors() {
+		assertThrows(JSONParseException.class, () -> new JSONInputStream("[1 2]").readValue());
+		assertThrows(JSONParseException.class, () -> new JSONInputStream("\"abc").readString());
+		assertThrows(JSONParseException.class, () -> new JSONInputStream("1.5").readLong());
+		assertThrows(JSONParseException.class, () -> new JSONInputStream("tru").readBoolean());
+	}
+}
@@ -0,0 +1,112 @@
+package com.mindlin.jsast.writer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class SourceMapIndexTest {
+	@Test
+	public void testParse() {
+		String json = "{\"version\":3,\"file\":\"out.js\",\"sourceRoot\":\"src\",\"sources\":[\"a.ts\",\"b.ts\"],"
+				+ "\"sourcesContent\":[\"let foo\",null],\"names\":[\"foo\"],\"mappings\":\"AAAA,IAAIA;;ECCC,E\"}";
+		SourceMapIndex index = SourceMapIndex.parse(json);
+		assertEquals("out.js", index.getFile());
+		assertEquals(Arrays.asList("src/a.ts", "src/b.ts"), index.getSources());
+		assertEquals(Arrays.asList("let foo", null), index.getSourcesContent());
+		assertEquals(4, index.size());
+
+		assertEquals(1, index.find(0, 4));
+		assertEquals(1, index.find(0, 100));
+		assertEquals("src/a.ts", index.getSourceName(1));
+		assertEquals(0, index.getNameIndex(1));
+		// Line without segments
+		assertEquals(-1, index.find(1, 0));
+		assertEquals(2, index.find(2, 2));
+		assertEquals(1, index.getSourceIndex(2));
+		assertEquals(1, index.getSourceLine(2));
+		assertEquals(5, index.getSourceColumn(2));
+		// Unmapped segment
+		assertEquals(3, index.find(2, 5));
+		assertEquals(-1, index.getSourceIndex(3));
+		// Before first segment on line
+		assertEquals(-1, index.find(2, 1));
+
+		assertThrows(IllegalArgumentException.class, () -> SourceMapIndex.parse("{\"version\":3,\"sources\":[],\"names\":[],\"mappings\":\"AAAA\"}"));
+	}
+
+	@Test
+	public void testRoundTrip() {
+		SourceMap map = new SourceMap("out.js");
+		int src = map.addSource("in.js");
+		for (int line = 0; line < 50; line++)
+			for (int col = 0; col < 40; col += 3)
+				map.addMapping(line, col, (col % 2 == 0) ? src : -1, line * 2, col + line, (col % 4 == 0) ? map.addName("n" + col) : -1);
+		SourceMapIndex index = SourceMapIndex.parse(map.toJSON());
+		assertEquals(map.size(), index.size());
+		for (int i = 0; i < map.size(); i++) {
+			assertEquals(map.getGeneratedLine(i), index.getGeneratedLine(i));
+			assertEquals(map.getGeneratedColumn(i), index.getGeneratedColumn(i));
+			assertEquals(map.getSourceIndex(i), index.getSourceIndex(i));
+			if (map.getSourceIndex(i) >= 0) {
+				assertEquals(map.getSourceLine(i), index.getSourceLine(i));
+				assertEquals(map.getSourceColumn(i), index.getSourceColumn(i));
+				assertEquals(map.getNameIndex(i), index.getNameIndex(i));
+			}
+		}
+
+		// Lookups with & without hints agree
+		int hint = -1;
+		for (int line = 0; line < 51; line++) {
+			for (int col = 0; col < 45; col++) {
+				int expected = index.find(line, col);
+				assertEquals(expected, index.find(line, col, hint));
+				assertEquals(expected, index.find(line, col, index.size() - 1));
+				if (expected >= 0)
+					hint = expected;
+			}
+		}
+	}
+
+	@Test
+	public void testCompose() {
+		// orig.ts -> mid.js
+		SourceMap upstream = new SourceMap("mid.js");
+		int orig = upstream.addSource("orig.ts", "let foo: number = bar;");
+		upstream.addMapping(0, 0, orig, 0, 0, -1);
+		upstream.addMapping(0, 4, orig, 0, 4, upstream.addName("foo"));
+		upstream.addMapping(0, 8, orig, 0, 18, -1);
+
+		// mid.js (+ other.js) -> out.js
+		SourceMap map = new SourceMap("out.js");
+		int mid = map.addSource("mid.js");
+		int other = map.addSource("other.js");
+		map.addMapping(0, 0, mid, 0, 0, -1);
+		map.addMapping(0, 4, mid, 0, 4, map.addName("a"));
+		map.addMapping(0, 6, mid, 0, 9, map.addName("b"));
+		map.addMapping(1, 0, other, 3, 2, -1);
+		map.addMapping(1, 5, -1, 0, 0, -1);
+
+		SourceMap composed = map.compose(SourceMapIndex.of(upstream));
+		assertEquals(Arrays.asList("orig.ts", "other.js"), composed.getSources());
+		assertEquals(5, composed.size());
+		// Original name wins
+		assertEquals(4, composed.getSourceColumn(1));
+		assertEquals("foo", composed.getNames().get(composed.getNameIndex(1)));
+		// Falls in the segment at mid.js 0:8
+		assertEquals(18, composed.getSourceColumn(2));
+		assertEquals("b", composed.getNames().get(composed.getNameIndex(2)));
+		// Other sources are copied
+		assertEquals(1, composed.getSourceIndex(3));
+		assertEquals(3, composed.getSourceLine(3));
+		assertEquals(-1, composed.getSourceIndex(4));
+		assertEquals("{\"version\":3,\"file\":\"out.js\",\"sources\":[\"orig.ts\",\"other.js\"],"
+				+ "\"sourcesContent\":[\"let foo: number = bar;\",null],\"names\":[\"foo\",\"b\"],"
+				+ "\"mappings\":\"AAAA,IAAIA,EAAcC;ACGhB,K\"}", composed.toJSON());
+
+		// Doesn't match
+		assertThrows(IllegalArgumentException.class, () -> map.compose(SourceMapIndex.of(new SourceMap("nope.js"))));
+	}
+}
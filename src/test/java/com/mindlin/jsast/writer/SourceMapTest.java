@@ -0,0 +1,114 @@
+package com.mindlin.jsast.writer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.junit.Test;
+
+import com.mindlin.jsast.fs.sourcemap.Base64VLQ;
+import com.mindlin.jsast.impl.parser.JSParser;
+import com.mindlin.jsast.impl.writer.JSWriterImpl;
+import com.mindlin.jsast.tree.CompilationUnitTree;
+import com.mindlin.jsast.writer.JSWriterOptions.SourceMapStyle;
+
+public class SourceMapTest {
+	@Test
+	public void testVLQ() {
+		assertEquals("A", Base64VLQ.encode(0));
+		assertEquals("C", Base64VLQ.encode(1));
+		assertEquals("D", Base64VLQ.encode(-1));
+		assertEquals("gB", Base64VLQ.encode(16));
+		assertEquals("qxmvrHxcqxB", Base64VLQ.encode(123456789) + Base64VLQ.encode(-456) + Base64VLQ.encode(789));
+
+		int[] values = { 0, 1, -1, 15, 16, -16, 1000, -123456, Integer.MAX_VALUE, Integer.MIN_VALUE };
+		StringBuilder sb = new StringBuilder();
+		for (int value : values)
+			sb.append(Base64VLQ.encode(value));
+		int[] pos = { 0 };
+		for (int value : values)
+			assertEquals(value, Base64VLQ.decode(sb, pos));
+		assertEquals(sb.length(), pos[0]);
+	}
+
+	@Test
+	public void testMappings() {
+		SourceMap map = new SourceMap("out.js");
+		int src = map.addSource("in.js");
+		int name = map.addName("foo");
+		map.addMapping(0, 0, src, 0, 0, -1);
+		map.addMapping(0, 4, src, 0, 4, name);
+		map.addMapping(2, 2, src, 1, 0, -1);
+		// Out of order
+		map.addMapping(0, 2, -1, 0, 0, -1);
+		assertEquals("{\"version\":3,\"file\":\"out.js\",\"sources\":[\"in.js\"],\"names\":[\"foo\"],\"mappings\":\"AAAA,E,EAAIA;;EACJ\"}", map.toJSON());
+		assertEquals(2, map.getGeneratedColumn(1));
+		assertEquals(-1, map.getSourceIndex(1));
+	}
+
+	@Test
+	public void testLineGapAcrossChunk() throws IOException {
+		// Semicolons for the gap run up to the end of the encoding buffer
+		SourceMap map = new SourceMap("out.js");
+		int src = map.addSource("in.js");
+		for (int i = 0; i < 812; i++)
+			map.addMapping(i, 0, src, i, 0, -1);
+		// Big deltas, so the segment needs more than what's left after the gap
+		map.addMapping(812 + 24, 1 << 29, src, 1 << 29, 1 << 29, -1);
+		map.addMapping(812 + 25, 0, src, 0, 0, -1);
+
+		StringWriter out = new StringWriter();
+		map.writeMappings(out);
+		SourceMapIndex index = SourceMapIndex.decode("out.js", map.getSources(), null, map.getNames(), out.toString());
+		assertEquals(map.size(), index.size());
+		for (int i = 0; i < map.size(); i++) {
+			assertEquals(map.getGeneratedLine(i), index.getGeneratedLine(i));
+			assertEquals(map.getGeneratedColumn(i), index.getGeneratedColumn(i));
+			assertEquals(map.getSourceLine(i), index.getSourceLine(i));
+			assertEquals(map.getSourceColumn(i), index.getSourceColumn(i));
+		}
+	}
+
+	protected static String write(String source, SourceMap map, JSWriterOptions options) throws IOException {
+		CompilationUnitTree tree = new JSParser().apply("in.js", source);
+		StringWriter out = new StringWriter();
+		map.addSource("in.js", source);
+		new JSWriterImpl(options).write(tree, out, map);
+		return out.toString();
+	}
+
+	@Test
+	public void testWriter() throws IOException {
+		JSWriterOptions options = new JSWriterOptions();
+		options.minify = false;
+		options.sourceMapURL = "out.js.map";
+		SourceMap map = new SourceMap("out.js");
+		String code = write("var a = b;\nfoo(a, \"x\");\nif (a) {\n  return this;\n}\n", map, options);
+		assertEquals("var a = b;\nfoo(a, \"x\");\nif(a) {\n\treturn this;\n}\n//# sourceMappingURL=out.js.map\n", code);
+		// 'this' is at 3:8 in the output and 3:9 in the source
+		boolean found = false;
+		for (int i = 0; i < map.size(); i++)
+			if (map.getGeneratedLine(i) == 3 && map.getGeneratedColumn(i) == 8)
+				found = map.getSourceLine(i) == 3 && map.getSourceColumn(i) == 9;
+		assertTrue(found);
+		assertEquals("foo", map.getNames().get(map.getNameIndex(3)));
+		assertEquals(1, map.getSourceLine(3));
+	}
+
+	@Test
+	public void testInline() throws IOException {
+		JSWriterOptions options = new JSWriterOptions();
+		options.sourceMapStyle = SourceMapStyle.INLINE;
+		SourceMap map = new SourceMap();
+		String code = write("foo(bar);", map, options);
+		String prefix = "//# sourceMappingURL=data:application/json;charset=utf-8;base64,";
+		int idx = code.indexOf(prefix);
+		assertTrue(idx > 0, code);
+		String json = new String(Base64.getDecoder().decode(code.substring(idx + prefix.length()).trim()), StandardCharsets.UTF_8);
+		assertEquals(map.toJSON(), json);
+	}
+}
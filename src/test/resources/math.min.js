@@ -0,0 +1 @@
+var M=function(){"use strict";var a=Math.PI,b=2*a,c=a/180,d=180/a,e=1e-6,f=Math.sqrt,g=Math.abs,h=Math.min,i=Math.max,j=Math.floor,k=Math.sin,l=Math.cos,m=Math.atan2,n={};function o(t,r,s){return t<r?r:t>s?s:t;}function p(t,r,s){return t+(r-t)*s;}function q(t,r,s){return(s-t)/(r-t);}function u(t,r){return g(t-r)<=e*i(1,g(t),g(r));}function v(t,r,s){return s=o((s-t)/(r-t),0,1),s*s*(3-2*s);}function w(t,r,s){return s=o((s-t)/(r-t),0,1),s*s*s*(s*(6*s-15)+10);}function x(t){return(t%b+b)%b;}function y(t,r){var s=x(r-t);return s>a?s-b:s;}n.clamp=o;n.lerp=p;n.invLerp=q;n.near=u;n.smoothstep=v;n.smootherstep=w;n.wrap=x;n.angleDelta=y;n.toRad=function(t){return t*c;};n.toDeg=function(t){return t*d;};n.remap=function(t,r,s,z,A){return z+(A-z)*((t-r)/(s-r));};n.hypot=function(t,r,s){return f(t*t+r*r+(s===void 0?0:s*s));};n.sign=function(t){return t>0?1:t<0?-1:0;};n.fract=function(t){return t-j(t);};n.mod=function(t,r){return(t%r+r)%r;};n.gcd=function(t,r){for(t=g(t)|0,r=g(r)|0;r;){var s=t%r;t=r,r=s;}return t;};n.lcm=function(t,r){return t&&r?g(t*r)/n.gcd(t,r):0;};n.isPow2=function(t){return t>0&&(t&t-1)==0;};n.nextPow2=function(t){return t--,t|=t>>1,t|=t>>2,t|=t>>4,t|=t>>8,t|=t>>16,t+1;};n.popcnt=function(t){return t-=t>>>1&1431655765,t=(t&858993459)+(t>>>2&858993459),16843009*(t+(t>>>4)&252645135)>>>24;};n.ease={linear:function(t){return t;},inQuad:function(t){return t*t;},outQuad:function(t){return t*(2-t);},inOutQuad:function(t){return t<.5?2*t*t:-1+(4-2*t)*t;},inCubic:function(t){return t*t*t;},outCubic:function(t){return--t*t*t+1;},inOutCubic:function(t){return t<.5?4*t*t*t:(t-1)*(2*t-2)*(2*t-2)+1;},inQuart:function(t){return t*t*t*t;},outQuart:function(t){return 1- --t*t*t*t;},inOutQuart:function(t){return t<.5?8*t*t*t*t:1-8*--t*t*t*t;},inSine:function(t){return 1-l(t*a/2);},outSine:function(t){return k(t*a/2);},inOutSine:function(t){return-(l(a*t)-1)/2;},inExpo:function(t){return t===0?0:Math.pow(2,10*t-10);},outExpo:function(t){return t===1?1:1-Math.pow(2,-10*t);},inCirc:function(t){return 1-f(1-t*t);},outCirc:function(t){return f(1-(t-1)*(t-1));},outBack:function(t){var r=1.70158,s=r+1;return 1+s*Math.pow(t-1,3)+r*Math.pow(t-1,2);},outElastic:function(t){return t===0?0:t===1?1:Math.pow(2,-10*t)*k((10*t-.75)*(b/3))+1;},outBounce:function(t){var r=7.5625,s=2.75;return t<1/s?r*t*t:t<2/s?r*(t-=1.5/s)*t+.75:t<2.5/s?r*(t-=2.25/s)*t+.9375:r*(t-=2.625/s)*t+.984375;}};var z={};n.vec2=z;z.create=function(){return[0,0];};z.set=function(t,r,s){return t[0]=r,t[1]=s,t;};z.add=function(t,r,s){return t[0]=r[0]+s[0],t[1]=r[1]+s[1],t;};z.sub=function(t,r,s){return t[0]=r[0]-s[0],t[1]=r[1]-s[1],t;};z.scale=function(t,r,s){return t[0]=r[0]*s,t[1]=r[1]*s,t;};z.dot=function(t,r){return t[0]*r[0]+t[1]*r[1];};z.cross=function(t,r){return t[0]*r[1]-t[1]*r[0];};z.len=function(t){return f(t[0]*t[0]+t[1]*t[1]);};z.dist=function(t,r){var s=r[0]-t[0],A=r[1]-t[1];return f(s*s+A*A);};z.normalize=function(t,r){var s=r[0]*r[0]+r[1]*r[1];return s>0&&(s=1/f(s)),t[0]=r[0]*s,t[1]=r[1]*s,t;};z.rotate=function(t,r,s,A){var B=r[0]-s[0],C=r[1]-s[1],D=k(A),E=l(A);return t[0]=B*E-C*D+s[0],t[1]=B*D+C*E+s[1],t;};z.angle=function(t,r){var s=t[0],A=t[1],B=r[0],C=r[1],D=f(s*s+A*A)*f(B*B+C*C),E=D&&(s*B+A*C)/D;return Math.acos(h(i(E,-1),1));};z.lerp=function(t,r,s,A){return t[0]=r[0]+A*(s[0]-r[0]),t[1]=r[1]+A*(s[1]-r[1]),t;};var A={};n.vec3=A;A.create=function(){return[0,0,0];};A.add=function(t,r,s){return t[0]=r[0]+s[0],t[1]=r[1]+s[1],t[2]=r[2]+s[2],t;};A.sub=function(t,r,s){return t[0]=r[0]-s[0],t[1]=r[1]-s[1],t[2]=r[2]-s[2],t;};A.scale=function(t,r,s){return t[0]=r[0]*s,t[1]=r[1]*s,t[2]=r[2]*s,t;};A.dot=function(t,r){return t[0]*r[0]+t[1]*r[1]+t[2]*r[2];};A.cross=function(t,r,s){var B=r[0],C=r[1],D=r[2],E=s[0],F=s[1],G=s[2];return t[0]=C*G-D*F,t[1]=D*E-B*G,t[2]=B*F-C*E,t;};A.len=function(t){return f(t[0]*t[0]+t[1]*t[1]+t[2]*t[2]);};A.normalize=function(t,r){var s=r[0]*r[0]+r[1]*r[1]+r[2]*r[2];return s>0&&(s=1/f(s)),t[0]=r[0]*s,t[1]=r[1]*s,t[2]=r[2]*s,t;};A.transformMat4=function(t,r,s){var B=r[0],C=r[1],D=r[2],E=s[3]*B+s[7]*C+s[11]*D+s[15];return E=E||1,t[0]=(s[0]*B+s[4]*C+s[8]*D+s[12])/E,t[1]=(s[1]*B+s[5]*C+s[9]*D+s[13])/E,t[2]=(s[2]*B+s[6]*C+s[10]*D+s[14])/E,t;};A.transformQuat=function(t,r,s){var B=s[0],C=s[1],D=s[2],E=s[3],F=r[0],G=r[1],H=r[2],I=C*H-D*G,J=D*F-B*H,K=B*G-C*F,L=C*K-D*J,N=D*I-B*K,O=B*J-C*I,P=2*E;return I*=P,J*=P,K*=P,L*=2,N*=2,O*=2,t[0]=F+I+L,t[1]=G+J+N,t[2]=H+K+O,t;};var B={};n.mat4=B;B.identity=function(t){return t[0]=1,t[1]=0,t[2]=0,t[3]=0,t[4]=0,t[5]=1,t[6]=0,t[7]=0,t[8]=0,t[9]=0,t[10]=1,t[11]=0,t[12]=0,t[13]=0,t[14]=0,t[15]=1,t;};B.multiply=function(t,r,s){for(var C=0;C<4;C++){var D=r[C],E=r[C+4],F=r[C+8],G=r[C+12];t[C]=D*s[0]+E*s[1]+F*s[2]+G*s[3],t[C+4]=D*s[4]+E*s[5]+F*s[6]+G*s[7],t[C+8]=D*s[8]+E*s[9]+F*s[10]+G*s[11],t[C+12]=D*s[12]+E*s[13]+F*s[14]+G*s[15];}return t;};B.determinant=function(t){var r=t[0],s=t[1],C=t[2],D=t[3],E=t[4],F=t[5],G=t[6],H=t[7],I=t[8],J=t[9],K=t[10],L=t[11],N=t[12],O=t[13],P=t[14],Q=t[15],R=r*F-s*E,S=r*G-C*E,T=r*H-D*E,U=s*G-C*F,V=s*H-D*F,W=C*H-D*G,X=I*O-J*N,Y=I*P-K*N,Z=I*Q-L*N,$=J*P-K*O,_=J*Q-L*O,aa=K*Q-L*P;return R*aa-S*_+T*$+U*Z-V*Y+W*X;};B.invert=function(t,r){var s=r[0],C=r[1],D=r[2],E=r[3],F=r[4],G=r[5],H=r[6],I=r[7],J=r[8],K=r[9],L=r[10],N=r[11],O=r[12],P=r[13],Q=r[14],R=r[15],S=s*G-C*F,T=s*H-D*F,U=s*I-E*F,V=C*H-D*G,W=C*I-E*G,X=D*I-E*H,Y=J*P-K*O,Z=J*Q-L*O,$=J*R-N*O,_=K*Q-L*P,aa=K*R-N*P,ba=L*R-N*Q,ca=S*ba-T*aa+U*_+V*$-W*Z+X*Y;return ca?(ca=1/ca,t[0]=(G*ba-H*aa+I*_)*ca,t[1]=(D*aa-C*ba-E*_)*ca,t[2]=(P*X-Q*W+R*V)*ca,t[3]=(L*W-K*X-N*V)*ca,t[4]=(H*$-F*ba-I*Z)*ca,t[5]=(s*ba-D*$+E*Z)*ca,t[6]=(Q*U-O*X-R*T)*ca,t[7]=(J*X-L*U+N*T)*ca,t[8]=(F*aa-G*$+I*Y)*ca,t[9]=(C*$-s*aa-E*Y)*ca,t[10]=(O*W-P*U+R*S)*ca,t[11]=(K*U-J*W-N*S)*ca,t[12]=(G*Z-F*_-H*Y)*ca,t[13]=(s*_-C*Z+D*Y)*ca,t[14]=(P*T-O*V-Q*S)*ca,t[15]=(J*V-K*T+L*S)*ca,t):null;};B.perspective=function(t,r,s,C,D){var E=1/Math.tan(r/2),F=1/(C-D);return B.identity(t),t[0]=E/s,t[5]=E,t[10]=(D+C)*F,t[11]=-1,t[14]=2*D*C*F,t[15]=0,t;};B.lookAt=function(t,r,s,C){var D=r[0]-s[0],E=r[1]-s[1],F=r[2]-s[2],G=1/f(D*D+E*E+F*F),H,I,J,K,L,N,O;D*=G,E*=G,F*=G,H=C[1]*F-C[2]*E,I=C[2]*D-C[0]*F,J=C[0]*E-C[1]*D,G=f(H*H+I*I+J*J),G&&(G=1/G,H*=G,I*=G,J*=G),K=E*J-F*I,L=F*H-D*J,N=D*I-E*H,O=f(K*K+L*L+N*N),O&&(O=1/O,K*=O,L*=O,N*=O);return t[0]=H,t[1]=K,t[2]=D,t[3]=0,t[4]=I,t[5]=L,t[6]=E,t[7]=0,t[8]=J,t[9]=N,t[10]=F,t[11]=0,t[12]=-(H*r[0]+I*r[1]+J*r[2]),t[13]=-(K*r[0]+L*r[1]+N*r[2]),t[14]=-(D*r[0]+E*r[1]+F*r[2]),t[15]=1,t;};var C={};n.quat=C;C.multiply=function(t,r,s){var D=r[0],E=r[1],F=r[2],G=r[3],H=s[0],I=s[1],J=s[2],K=s[3];return t[0]=D*K+G*H+E*J-F*I,t[1]=E*K+G*I+F*H-D*J,t[2]=F*K+G*J+D*I-E*H,t[3]=G*K-D*H-E*I-F*J,t;};C.slerp=function(t,r,s,D){var E=r[0],F=r[1],G=r[2],H=r[3],I=s[0],J=s[1],K=s[2],L=s[3],N=E*I+F*J+G*K+H*L,O,P,Q,R;N<0&&(N=-N,I=-I,J=-J,K=-K,L=-L);1-N>e?(O=Math.acos(N),P=k(O),Q=k((1-D)*O)/P,R=k(D*O)/P):(Q=1-D,R=D);return t[0]=Q*E+R*I,t[1]=Q*F+R*J,t[2]=Q*G+R*K,t[3]=Q*H+R*L,t;};C.fromEuler=function(t,r,s,D){var E=.5*c;r*=E,s*=E,D*=E;var F=k(r),G=l(r),H=k(s),I=l(s),J=k(D),K=l(D);return t[0]=F*I*K-G*H*J,t[1]=G*H*K+F*I*J,t[2]=G*I*J-F*H*K,t[3]=G*I*K+F*H*J,t;};var D={},E=new Array(512),F=[151,160,137,91,90,15,131,13,201,95,96,53,194,233,7,225,140,36,103,30,69,142,8,99,37,240,21,10,23,190,6,148,247,120,234,75,0,26,197,62,94,252,219,203,117,35,11,32,57,177,33,88,237,149,56,87,174,20,125,136,171,168,68,175,74,165,71,134,139,48,27,166,77,146,158,231,83,111,229,122,60,211,133,230,220,105,92,41,55,46,245,40,244,102,143,54,65,25,63,161,1,216,80,73,209,76,132,187,208,89,18,169,200,196,135,130,116,188,159,86,164,100,109,198,173,186,3,64,52,217,226,250,124,123,5,202,38,147,118,126,255,82,85,212,207,206,59,227,47,16,58,17,182,189,28,42,223,183,170,213,119,248,152,2,44,154,163,70,221,153,101,155,167,43,172,9,129,22,39,253,19,98,108,110,79,113,224,232,178,185,112,104,218,246,97,228,251,34,242,193,238,210,144,12,191,179,162,241,81,51,145,235,249,14,239,107,49,192,214,31,181,199,106,157,184,84,204,176,115,121,50,45,127,4,150,254,138,236,205,93,222,114,67,29,24,72,243,141,128,195,78,66,215,61,156,180];n.noise=D;for(var G=0;G<512;G++)E[G]=F[G&255];function H(t){return t*t*t*(t*(t*6-15)+10);}function I(t,r,s,J){var K=t&15,L=K<8?r:s,N=K<4?s:K==12||K==14?r:J;return((K&1)==0?L:-L)+((K&2)==0?N:-N);}D.perlin3=function(t,r,s){var J=j(t)&255,K=j(r)&255,L=j(s)&255;t-=j(t),r-=j(r),s-=j(s);var N=H(t),O=H(r),P=H(s),Q=E[J]+K,R=E[Q]+L,S=E[Q+1]+L,T=E[J+1]+K,U=E[T]+L,V=E[T+1]+L;return p(p(p(I(E[R],t,r,s),I(E[U],t-1,r,s),N),p(I(E[S],t,r-1,s),I(E[V],t-1,r-1,s),N),O),p(p(I(E[R+1],t,r,s-1),I(E[U+1],t-1,r,s-1),N),p(I(E[S+1],t,r-1,s-1),I(E[V+1],t-1,r-1,s-1),N),O),P);};D.fbm=function(t,r,s,J,K,L){for(var N=0,O=1,P=1,Q=0,R=0;R<(J||6);R++)N+=O*D.perlin3(t*P,r*P,s*P),Q+=O,O*=K||.5,P*=L||2;return N/Q;};var J={};n.color=J;J.hsl2rgb=function(t,r,s){var K,L,N;if(r==0)K=L=N=s;else{var O=function(t,r,s){return s<0&&(s+=1),s>1&&(s-=1),s<1/6?t+(r-t)*6*s:s<1/2?r:s<2/3?t+(r-t)*(2/3-s)*6:t;},P=s<.5?s*(1+r):s+r-s*r,Q=2*s-P;K=O(Q,P,t+1/3),L=O(Q,P,t),N=O(Q,P,t-1/3);}return[K*255+.5|0,L*255+.5|0,N*255+.5|0];};J.rgb2hsl=function(t,r,s){t/=255,r/=255,s/=255;var K=i(t,r,s),L=h(t,r,s),N,O,P=(K+L)/2;if(K==L)N=O=0;else{var Q=K-L;O=P>.5?Q/(2-K-L):Q/(K+L),N=K==t?(r-s)/Q+(r<s?6:0):K==r?(s-t)/Q+2:(t-r)/Q+4,N/=6;}return[N,O,P];};J.pack=function(t,r,s,K){return(K<<24|t<<16|r<<8|s)>>>0;};J.unpack=function(t){return[t>>>16&255,t>>>8&255,t&255,t>>>24];};J.luma=function(t,r,s){return.2126*t+.7152*r+.0722*s;};J.mix=function(t,r,s){return J.pack(p(t>>>16&255,r>>>16&255,s)|0,p(t>>>8&255,r>>>8&255,s)|0,p(t&255,r&255,s)|0,p(t>>>24,r>>>24,s)|0);};var K={};n.stats=K;K.mean=function(t){for(var r=0,s=0;s<t.length;s++)r+=t[s];return t.length?r/t.length:0;};K.variance=function(t){for(var r=K.mean(t),s=0,L=0;L<t.length;L++)s+=(t[L]-r)*(t[L]-r);return t.length>1?s/(t.length-1):0;};K.median=function(t){var r=t.slice().sort(function(t,r){return t-r;}),s=r.length>>1;return r.length&1?r[s]:(r[s-1]+r[s])/2;};K.lerpArr=function(t,r){var s=r*(t.length-1),L=j(s),N=h(L+1,t.length-1);return p(t[L],t[N],s-L);};n.rng=function(t){return t=t>>>0||1,function(){return t^=t<<13,t^=t>>>17,t^=t<<5,(t>>>0)/4294967296;};};n.bezier=function(t,r,s,L,N){var O=1-N;return O*O*O*t+3*O*O*N*r+3*O*N*N*s+N*N*N*L;};n.catmull=function(t,r,s,L,N){var O=N*N,P=O*N;return.5*(2*r+(-t+s)*N+(2*t-5*r+4*s-L)*O+(-t+3*r-3*s+L)*P);};return n;}();